@@ -0,0 +1,48 @@
+package com.sumit.hr;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+// =============================
+// BonusBenchmark: calculateBonus over a shuffled workforce
+// =============================
+// types = 1 keeps the call site monomorphic (Regular only), 2 bimorphic and
+// 3 megamorphic, which is what a real mixed workforce looks like to the JIT.
+// columnar is the same total from ColumnarEmployeeStore's primitive arrays.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BonusBenchmark {
+    @Param({"100000"})
+    public int employees;
+
+    @Param({"1", "2", "3"})
+    public int types;
+
+    private Employee[] staff;
+    private ColumnarEmployeeStore columnar;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<Employee> rows = Workforce.generate(employees, types);
+        staff = rows.toArray(new Employee[0]);
+        columnar = ColumnarEmployeeStore.of(rows);
+    }
+
+    @Benchmark
+    public double calculateBonus() {
+        double total = 0;
+        for (Employee e : staff) total += e.calculateBonus();
+        return total;
+    }
+
+    @Benchmark
+    public double columnar() {
+        return columnar.totalBonus();
+    }
+}
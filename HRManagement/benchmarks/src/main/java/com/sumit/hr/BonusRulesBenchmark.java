@@ -0,0 +1,86 @@
+package com.sumit.hr;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+// =============================
+// BonusRulesBenchmark: compiled bonus rules vs. the same formulas in Java
+// =============================
+// compiled sums calculateBonus(), which runs the installed BonusRules;
+// handWritten computes the same formulas as plain Java over the same mixed
+// workforce. rules = default uses the built-in formulas, swapped installs a
+// different set after start-up, as a hot swap would.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BonusRulesBenchmark {
+    private static final String SWAPPED =
+            "Regular = max(1000, salary * 0.03)\n"
+            + "Sales = min(sales * commissionRate, 20000) + (sales >= target ? salary * 0.15 : 0)\n"
+            + "Manager = salary * 0.08 + teamSize * 650\n";
+
+    @Param({"100000"})
+    public int employees;
+
+    @Param({"default", "swapped"})
+    public String rules;
+
+    private Employee[] staff;
+    private boolean swapped;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        staff = Workforce.generate(employees, 3).toArray(new Employee[0]);
+        swapped = rules.equals("swapped");
+        BonusRules.install(swapped ? BonusRules.parse(SWAPPED) : BonusRules.DEFAULTS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BonusRules.install(BonusRules.DEFAULTS);
+    }
+
+    @Benchmark
+    public double compiled() {
+        double total = 0;
+        for (Employee e : staff) total += e.calculateBonus();
+        return total;
+    }
+
+    @Benchmark
+    public double handWritten() {
+        double total = 0;
+        if (swapped) {
+            for (Employee e : staff) total += swappedBonus(e);
+        } else {
+            for (Employee e : staff) total += defaultBonus(e);
+        }
+        return total;
+    }
+
+    private static double defaultBonus(Employee e) {
+        if (e instanceof SalesEmployee) {
+            SalesEmployee s = (SalesEmployee) e;
+            double b = s.getSales() * s.getCommissionRate() + s.getSalary() * 0.02;
+            if (s.getSales() >= s.getTarget()) b += s.getSalary() * 0.10;
+            return b;
+        }
+        if (e instanceof Manager) return e.getSalary() * 0.1 + ((Manager) e).getTeamSize() * 500;
+        return e.getSalary() * 0.05;
+    }
+
+    private static double swappedBonus(Employee e) {
+        if (e instanceof SalesEmployee) {
+            SalesEmployee s = (SalesEmployee) e;
+            double b = Math.min(s.getSales() * s.getCommissionRate(), 20000);
+            return b + (s.getSales() >= s.getTarget() ? s.getSalary() * 0.15 : 0);
+        }
+        if (e instanceof Manager) return e.getSalary() * 0.08 + ((Manager) e).getTeamSize() * 650;
+        return Math.max(1000, e.getSalary() * 0.03);
+    }
+}
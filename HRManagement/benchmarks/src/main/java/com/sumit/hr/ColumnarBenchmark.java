@@ -0,0 +1,96 @@
+package com.sumit.hr;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+// =============================
+// ColumnarBenchmark: object list vs. ColumnarEmployeeStore
+// =============================
+// Salary sums, a department's salary sum and a range count over a list of
+// Employee objects and over the store's primitive columns; BonusBenchmark
+// has the total bonus pair. Setup checks that both sides agree and prints
+// the heap each representation retains, which is a size, not a timing.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ColumnarBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int employees;
+
+    private List<Employee> list;
+    private ColumnarEmployeeStore store;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        long before = usedHeap();
+        list = Workforce.generate(employees);
+        long listBytes = usedHeap() - before;
+        store = ColumnarEmployeeStore.of(list);
+        list = null;
+        long storeBytes = usedHeap() - before;
+        list = Workforce.generate(employees);
+        System.out.printf("%nObject list %,d bytes, columnar %,d bytes (%.0f%%)%n",
+                listBytes, storeBytes, 100.0 * storeBytes / listBytes);
+
+        check(objectsSumSalary(), columnarSumSalary(), "salary sum");
+        check(objectsSumSalaryIT(), columnarSumSalaryIT(), "IT salary sum");
+        check(objectsCountBetween(), columnarCountBetween(), "range count");
+    }
+
+    @Benchmark
+    public double objectsSumSalary() {
+        double total = 0;
+        for (Employee e : list) total += e.getSalary();
+        return total;
+    }
+
+    @Benchmark
+    public double columnarSumSalary() {
+        return store.sumSalary();
+    }
+
+    @Benchmark
+    public double objectsSumSalaryIT() {
+        double total = 0;
+        for (Employee e : list) {
+            if (e.getDepartment().equalsIgnoreCase("IT")) total += e.getSalary();
+        }
+        return total;
+    }
+
+    @Benchmark
+    public double columnarSumSalaryIT() {
+        return store.sumSalary("IT");
+    }
+
+    @Benchmark
+    public int objectsCountBetween() {
+        int count = 0;
+        for (Employee e : list) {
+            if (e.getSalary() >= 50000 && e.getSalary() <= 80000) count++;
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int columnarCountBetween() {
+        return store.countSalaryBetween(50000, 80000);
+    }
+
+    private static void check(double expected, double actual, String what) {
+        if (Math.abs(expected - actual) > Math.abs(expected) * 1e-9) {
+            throw new IllegalStateException(what + " differs: " + expected + " vs " + actual);
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
@@ -0,0 +1,78 @@
+package com.sumit.hr;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+// =============================
+// CsvLoaderBenchmark: MappedCsvLoader vs. the BufferedReader/split loader
+// =============================
+// legacy is the loop loadFromFile used before MappedCsvLoader. Setup writes
+// the workforce as CSV to a temp directory and checks that both loaders
+// read back the same rows.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsvLoaderBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int employees;
+
+    private final MappedCsvLoader mapped = new MappedCsvLoader();
+    private Path dir;
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("jmh-csv-load");
+        file = dir.resolve("employees.csv");
+        try (BufferedWriter w = Files.newBufferedWriter(file)) {
+            for (Employee e : Workforce.generate(employees)) {
+                w.write(e.toCSV());
+                w.newLine();
+            }
+        }
+        List<Employee> expected = legacy();
+        List<Employee> actual = mapped();
+        if (expected.size() != actual.size()) {
+            throw new IllegalStateException("Row count differs: " + expected.size() + " vs " + actual.size());
+        }
+        for (int i = 0; i < expected.size(); i++) {
+            if (!expected.get(i).toCSV().equals(actual.get(i).toCSV())) {
+                throw new IllegalStateException("Row " + i + " differs: " + expected.get(i).toCSV()
+                        + " vs " + actual.get(i).toCSV());
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir)) {
+            for (Path p : ds) Files.delete(p);
+        }
+        Files.delete(dir);
+    }
+
+    @Benchmark
+    public List<Employee> legacy() throws IOException {
+        List<Employee> rows = new ArrayList<>();
+        try (BufferedReader br = new BufferedReader(new FileReader(file.toFile()))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                Employee e = Employee.parseCSV(line);
+                if (e != null) rows.add(e);
+            }
+        }
+        return rows;
+    }
+
+    @Benchmark
+    public List<Employee> mapped() throws IOException {
+        return mapped.load(file);
+    }
+}
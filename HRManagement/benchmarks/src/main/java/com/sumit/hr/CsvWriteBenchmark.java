@@ -0,0 +1,73 @@
+package com.sumit.hr;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+// =============================
+// CsvWriteBenchmark: encoding snapshot rows, per row
+// =============================
+// toCsv is the old saveToFile path (toCSV() through a BufferedWriter), rowWriter
+// the CsvRowWriter that replaced it. Both write to a channel that discards the
+// bytes, so only encoding is measured. Run with -prof gc and compare
+// gc.alloc.rate.norm, which is bytes allocated per row. The rows are read back
+// from a CSV file first so salaries are the exact decimals a real store holds.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsvWriteBenchmark {
+    private static final int ROWS = 100_000;
+
+    private List<Employee> rows;
+    private WritableByteChannel discard;
+    private CsvRowWriter rowWriter;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Path file = Files.createTempFile("jmh-csv", ".csv");
+        try {
+            CsvSnapshot csv = new CsvSnapshot();
+            csv.write(file, Workforce.generate(ROWS));
+            rows = csv.read(file);
+        } finally {
+            Files.delete(file);
+        }
+        discard = new WritableByteChannel() {
+            @Override public int write(ByteBuffer src) {
+                int n = src.remaining();
+                src.position(src.limit());
+                return n;
+            }
+            @Override public boolean isOpen() { return true; }
+            @Override public void close() { }
+        };
+        rowWriter = new CsvRowWriter(discard);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void toCsv() throws IOException {
+        BufferedWriter w = new BufferedWriter(Channels.newWriter(discard, StandardCharsets.UTF_8.newEncoder(), -1));
+        for (Employee e : rows) {
+            w.write(e.toCSV());
+            w.newLine();
+        }
+        w.flush();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void rowWriter() throws IOException {
+        for (Employee e : rows) rowWriter.writeEmployee(e);
+        rowWriter.flush();
+    }
+}
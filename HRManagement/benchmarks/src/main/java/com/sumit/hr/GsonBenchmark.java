@@ -0,0 +1,60 @@
+package com.sumit.hr;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import org.openjdk.jmh.annotations.*;
+
+// =============================
+// GsonBenchmark: the HTTP API's JSON encoding of employee lists
+// =============================
+// toJson follows HRServer's GET /employees (each row streamed through
+// JsonSnapshot.API_ADAPTER into a JsonWriter); fromJson parses the same
+// document back with the same adapter.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GsonBenchmark {
+    @Param({"1000", "100000"})
+    public int employees;
+
+    private final Gson gson = new Gson();
+    private List<Employee> rows;
+    private String json;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        rows = Workforce.generate(employees);
+        json = toJson();
+    }
+
+    @Benchmark
+    public String toJson() throws IOException {
+        StringWriter out = new StringWriter(employees * 160);
+        JsonWriter writer = gson.newJsonWriter(out);
+        writer.beginArray();
+        for (Employee e : rows) {
+            JsonSnapshot.API_ADAPTER.write(writer, e);
+        }
+        writer.endArray();
+        writer.flush();
+        return out.toString();
+    }
+
+    @Benchmark
+    public List<Employee> fromJson() throws IOException {
+        List<Employee> back = new ArrayList<>(employees);
+        JsonReader reader = gson.newJsonReader(new StringReader(json));
+        reader.beginArray();
+        while (reader.hasNext()) back.add(JsonSnapshot.API_ADAPTER.read(reader));
+        reader.endArray();
+        return back;
+    }
+}
@@ -0,0 +1,71 @@
+package com.sumit.hr;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+// =============================
+// HistoryBenchmark: cost of keeping versions and of as-of reads
+// =============================
+// The store holds employees rows and a history of HISTORY random salary
+// changes. update is one more such change; with -prof gc its
+// gc.alloc.rate.norm is the bytes a kept version costs. asOfNewest and
+// asOfMiddle read the store as of the newest version and as of halfway
+// through the changes, against a snapshot() of the live rows.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HistoryBenchmark {
+    private static final int HISTORY = 500_000;
+
+    @Param({"100000"})
+    public int employees;
+
+    private EmployeeStore store;
+    private long middle;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        final Random rnd = new Random(9);
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        store = new EmployeeStore();
+        EmployeeBatch batch = new EmployeeBatch();
+        for (Employee e : Workforce.generate(employees)) batch.add(e);
+        store.apply(batch);
+        Random rnd = new Random(9);
+        for (int i = 0; i < HISTORY; i++) {
+            double salary = 30000 + rnd.nextInt(50000);
+            store.update(1 + rnd.nextInt(employees), e -> e.setSalary(salary));
+            if (i == HISTORY / 2) middle = store.version();
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public boolean update(Cursor c) throws Exception {
+        double salary = 30000 + c.rnd.nextInt(50000);
+        return store.update(1 + c.rnd.nextInt(employees), e -> e.setSalary(salary));
+    }
+
+    @Benchmark
+    public List<Employee> snapshot() {
+        return store.snapshot();
+    }
+
+    @Benchmark
+    public List<Employee> asOfNewest() {
+        return store.asOf(store.version());
+    }
+
+    @Benchmark
+    public List<Employee> asOfMiddle() {
+        return store.asOf(middle);
+    }
+}
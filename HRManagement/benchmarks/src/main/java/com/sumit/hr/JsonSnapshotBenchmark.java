@@ -0,0 +1,85 @@
+package com.sumit.hr;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.*;
+
+// =============================
+// JsonSnapshotBenchmark: streamed JSON snapshot vs. reflective Gson strings
+// =============================
+// The reflective pair is the plain new Gson() way: toJson(list) builds the
+// whole document as one String before writing it, and reading loads the file
+// into a String for fromJson(text, Employee[].class), which also turns every
+// Sales employee and Manager into a plain Employee. The streamed pair is
+// JsonSnapshot. Both writes are equally durable: a temporary file, forced to
+// disk and renamed over the target, so only the JSON handling differs. Run with -prof gc for the heap side: gc.alloc.rate.norm is
+// the bytes each read or write allocates.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonSnapshotBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int employees;
+
+    private final Gson gson = new Gson();
+    private final JsonSnapshot json = new JsonSnapshot();
+    private Path dir;
+    private Path reflectFile;
+    private Path streamFile;
+    private List<Employee> rows;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("jmh-json");
+        reflectFile = dir.resolve("reflective.json");
+        streamFile = dir.resolve("streamed.json");
+        rows = Workforce.generate(employees);
+        writeReflective();
+        writeStreamed();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir)) {
+            for (Path p : ds) Files.delete(p);
+        }
+        Files.delete(dir);
+    }
+
+    @Benchmark
+    public void writeReflective() throws IOException {
+        Path tmp = reflectFile.resolveSibling(reflectFile.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer bytes = ByteBuffer.wrap(gson.toJson(rows).getBytes(StandardCharsets.UTF_8));
+            while (bytes.hasRemaining()) ch.write(bytes);
+            ch.force(true);
+        }
+        CsvSnapshot.replace(tmp, reflectFile);
+    }
+
+    @Benchmark
+    public void writeStreamed() throws IOException {
+        json.write(streamFile, rows);
+    }
+
+    @Benchmark
+    public Employee[] readReflective() throws IOException {
+        return gson.fromJson(Files.readString(reflectFile, StandardCharsets.UTF_8), Employee[].class);
+    }
+
+    @Benchmark
+    public List<Employee> readStreamed() throws IOException {
+        return json.read(streamFile);
+    }
+}
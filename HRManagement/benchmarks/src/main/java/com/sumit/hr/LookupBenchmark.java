@@ -0,0 +1,111 @@
+package com.sumit.hr;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+// =============================
+// LookupBenchmark: reads against a populated EmployeeStore
+// =============================
+// linearScan is the old ArrayList search by ID, kept as the baseline that
+// getById replaced; top100BySorting likewise for the salary index and
+// statsByScan for PayrollAggregates.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LookupBenchmark {
+    private static final int PROBES = 4096;
+
+    @Param({"1000", "100000", "1000000"})
+    public int employees;
+
+    private EmployeeStore store;
+    private List<Employee> list;
+    private int[] ids;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        list = Workforce.generate(employees);
+        store = new EmployeeStore();
+        EmployeeBatch batch = new EmployeeBatch();
+        for (Employee e : list) batch.add(e);
+        store.apply(batch);
+        ids = Workforce.probes(employees, PROBES);
+    }
+
+    @Benchmark
+    public Employee getById(Cursor c) {
+        return store.get(ids[c.next++ & (PROBES - 1)]);
+    }
+
+    @Benchmark
+    public boolean containsId(Cursor c) {
+        return store.contains(ids[c.next++ & (PROBES - 1)]);
+    }
+
+    @Benchmark
+    public Employee linearScan(Cursor c) {
+        int id = ids[c.next++ & (PROBES - 1)];
+        for (Employee e : list) {
+            if (e.getId() == id) return e;
+        }
+        return null;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<Employee> byDepartment(Cursor c) {
+        return store.byDepartment(Workforce.DEPARTMENTS[c.next++ % Workforce.DEPARTMENTS.length]);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<Employee> top100ByFinalSalary() {
+        return store.top(SalaryIndex.Key.FINAL_SALARY, 100, null);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<Employee> top100BySorting() {
+        List<Employee> sorted = new ArrayList<>(list);
+        sorted.sort(Comparator.comparingDouble(Employee::computeFinalSalary).reversed());
+        return sorted.subList(0, Math.min(100, sorted.size()));
+    }
+
+    @Benchmark
+    public double percentile90(Cursor c) {
+        return store.percentile(SalaryIndex.Key.SALARY, 90, Workforce.DEPARTMENTS[c.next++ % Workforce.DEPARTMENTS.length]);
+    }
+
+    @Benchmark
+    public Map<String, PayrollAggregates.Stats> statsByDepartment() {
+        return store.aggregates().byDepartment();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Map<String, double[]> statsByScan() {
+        Map<String, double[]> totals = new HashMap<>();
+        for (Employee e : list) {
+            double[] t = totals.computeIfAbsent(e.getDepartment(), k -> new double[3]);
+            t[0]++;
+            t[1] += e.getSalary();
+            t[2] += e.calculateBonus();
+        }
+        return totals;
+    }
+
+    @Benchmark
+    public Map<String, Integer> headCounts() {
+        return store.headCounts();
+    }
+}
@@ -0,0 +1,120 @@
+package com.sumit.hr;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+// =============================
+// NameSearchBenchmark: NameIndex build time and per-query latency
+// =============================
+// Names are random first/middle/last combinations drawn from syllables, so
+// there are tens of thousands of distinct words, common and rare. search runs
+// in sample mode for p50/p99 per query kind: prefixes of 2 and 4 letters and
+// of two words, page 50 of a 2-letter prefix, a whole name as tokens, and a
+// name with two letters swapped as a fuzzy query.
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NameSearchBenchmark {
+    private static final int QUERIES = 2048;
+    private static final String[] SYLLABLES = {
+        "ra", "ja", "an", "ni", "ta", "su", "mi", "ka", "ri", "sha", "pri", "ya", "de", "vi", "mo",
+        "han", "ku", "mar", "gup", "sin", "gh", "pa", "tel", "ve", "na", "li", "el", "son", "ber", "lo"
+    };
+
+    @State(Scope.Benchmark)
+    public static class Names {
+        @Param({"100000", "1000000"})
+        public int employees;
+
+        List<Employee> workforce;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            Random rnd = new Random(11);
+            workforce = new ArrayList<>(employees);
+            for (int id = 1; id <= employees; id++) {
+                String name = word(rnd) + " " + (rnd.nextInt(4) == 0 ? word(rnd) + " " : "") + word(rnd);
+                workforce.add(new Employee(id, name, 30000, "Ops"));
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Queries {
+        @Param({"prefix2", "prefix4", "prefixTwoWords", "prefixPage50", "token", "fuzzy"})
+        public String query;
+
+        NameIndex index;
+        NameIndex.Mode mode;
+        int offset;
+        final String[] queries = new String[QUERIES];
+
+        @Setup(Level.Trial)
+        public void setUp(Names names) {
+            index = index(names);
+            mode = query.equals("token") ? NameIndex.Mode.TOKEN
+                    : query.equals("fuzzy") ? NameIndex.Mode.FUZZY : NameIndex.Mode.PREFIX;
+            offset = query.equals("prefixPage50") ? 1000 : 0;
+            Random rnd = new Random(13);
+            for (int i = 0; i < QUERIES; i++) {
+                String name = names.workforce.get(rnd.nextInt(names.employees)).getName();
+                switch (query) {
+                    case "prefix2":
+                    case "prefixPage50": queries[i] = name.substring(0, 2); break;
+                    case "prefix4": queries[i] = name.substring(0, Math.min(4, name.indexOf(' '))); break;
+                    case "prefixTwoWords": queries[i] = name.substring(0, name.indexOf(' ') + 3); break;
+                    case "fuzzy": queries[i] = typo(name); break;
+                    default: queries[i] = name;
+                }
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 5)
+    public NameIndex build(Names names) {
+        return index(names);
+    }
+
+    @Benchmark
+    public int[] search(Queries q, Cursor c) {
+        return q.index.search(q.queries[c.next++ & (QUERIES - 1)], q.mode, q.offset, 20);
+    }
+
+    private static NameIndex index(Names names) {
+        NameIndex index = new NameIndex();
+        for (Employee e : names.workforce) index.add(e);
+        return index;
+    }
+
+    private static String word(Random rnd) {
+        StringBuilder b = new StringBuilder();
+        int n = 2 + rnd.nextInt(2);
+        for (int i = 0; i < n; i++) b.append(SYLLABLES[rnd.nextInt(SYLLABLES.length)]);
+        b.setCharAt(0, Character.toUpperCase(b.charAt(0)));
+        return b.toString();
+    }
+
+    // Swaps two neighbouring letters of the last word.
+    private static String typo(String name) {
+        char[] c = name.toCharArray();
+        int i = name.lastIndexOf(' ') + 2;
+        if (i + 1 < c.length) {
+            char t = c[i];
+            c[i] = c[i + 1];
+            c[i + 1] = t;
+        }
+        return new String(c);
+    }
+}
@@ -0,0 +1,86 @@
+package com.sumit.hr;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+// =============================
+// PartitionedStoreBenchmark: single snapshot file vs. partitions
+// =============================
+// openAndQuery opens the store and answers one department query; saveOne
+// updates one IT employee in an open store, which saves. The store is kept in
+// one binary snapshot ("single"), one binary file per department, or one per
+// ID bucket (64 of them).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PartitionedStoreBenchmark {
+    private static final int BUCKETS = 64;
+
+    @Param({"100000", "1000000"})
+    public int employees;
+
+    @Param({"single", "department", "bucket"})
+    public String layout;
+
+    private Path dir;
+    private Path snapshot;
+    private EmployeeStore open;
+    private int itId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("jmh-partitions");
+        Path csv = dir.resolve("employees.csv");
+        new CsvSnapshot().write(csv, Workforce.generate(employees));
+        snapshot = dir.resolve(layout.equals("single") ? "employees.bin" : "parts");
+        open(csv).close();
+        Files.delete(csv);
+        open = open(null);
+        itId = open.byDepartment("IT").get(0).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        open.close();
+        delete(dir);
+    }
+
+    @Benchmark
+    public int openAndQuery() throws IOException {
+        try (EmployeeStore store = open(null)) {
+            return store.byDepartment("IT").size();
+        }
+    }
+
+    @Benchmark
+    public boolean saveOne() throws IOException {
+        return open.update(itId, e -> e.setSalary(e.getSalary() + 1));
+    }
+
+    private EmployeeStore open(Path importCsv) throws IOException {
+        switch (layout) {
+            case "department":
+                return new EmployeeStore(new PartitionedStorage(snapshot, new BinarySnapshot(), 0), importCsv);
+            case "bucket":
+                return new EmployeeStore(new PartitionedStorage(snapshot, new BinarySnapshot(), BUCKETS), importCsv);
+            default:
+                return new EmployeeStore(snapshot, new BinarySnapshot(), importCsv, false, 1, 1000);
+        }
+    }
+
+    private static void delete(Path p) throws IOException {
+        if (Files.isDirectory(p)) {
+            try (DirectoryStream<Path> ds = Files.newDirectoryStream(p)) {
+                for (Path c : ds) delete(c);
+            }
+        }
+        Files.delete(p);
+    }
+}
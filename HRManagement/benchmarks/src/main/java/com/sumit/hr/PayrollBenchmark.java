@@ -0,0 +1,67 @@
+package com.sumit.hr;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.openjdk.jmh.annotations.*;
+
+// =============================
+// PayrollBenchmark: PayrollRun scaling across pool sizes
+// =============================
+// sequential is the hand-written single-threaded payroll (the displayAll-style
+// calculateBonus + computeFinalSalary per employee, summed per department);
+// payrollRun is PayrollRun on a pool of the given number of threads. Setup
+// checks that both give the same total before anything is timed.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PayrollBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int employees;
+
+    @Param({"1", "2", "4"})
+    public int threads;
+
+    private List<Employee> workforce;
+    private ForkJoinPool pool;
+    private PayrollRun run;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        workforce = Workforce.generate(employees);
+        pool = new ForkJoinPool(threads);
+        run = new PayrollRun(pool);
+        double expected = sequential();
+        double total = payrollRun();
+        if (Math.abs(total - expected) > Math.abs(expected) * 1e-9) {
+            throw new IllegalStateException("Totals differ: " + total + " vs " + expected);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public double sequential() {
+        Map<String, double[]> byDepartment = new HashMap<>();
+        for (Employee e : workforce) {
+            double[] sums = byDepartment.computeIfAbsent(e.getDepartment(), k -> new double[2]);
+            sums[0] += e.calculateBonus();
+            sums[1] += e.computeFinalSalary();
+        }
+        double total = 0;
+        for (double[] sums : byDepartment.values()) total += sums[1];
+        return total;
+    }
+
+    @Benchmark
+    public double payrollRun() throws IOException {
+        return run.run(workforce, null).getTotal().getFinalSalary();
+    }
+}
@@ -0,0 +1,88 @@
+package com.sumit.hr;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+import com.google.gson.*;
+
+// =============================
+// RegressionCheck: compares two JMH JSON result files
+// =============================
+// Usage: java -cp benchmarks.jar com.sumit.hr.RegressionCheck baseline.json current.json [thresholdPercent]
+// Benchmarks are matched by name and parameters. A result is a regression
+// when it is worse than the baseline by more than the threshold (default 10%)
+// and by more than the two runs' error margins combined. Exits with status 1
+// if anything regressed.
+public class RegressionCheck {
+    private static class Score {
+        final double score;
+        final double error;
+        final String unit;
+        final boolean higherIsBetter;
+
+        Score(JsonObject result) {
+            JsonObject metric = result.getAsJsonObject("primaryMetric");
+            score = metric.get("score").getAsDouble();
+            double e = metric.get("scoreError").getAsDouble();
+            error = Double.isNaN(e) ? 0 : e;
+            unit = metric.get("scoreUnit").getAsString();
+            higherIsBetter = result.get("mode").getAsString().equals("thrpt");
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: RegressionCheck baseline.json current.json [thresholdPercent]");
+            System.exit(2);
+        }
+        Map<String, Score> baseline = read(Paths.get(args[0]));
+        Map<String, Score> current = read(Paths.get(args[1]));
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) / 100 : 0.10;
+
+        int regressions = 0;
+        for (Map.Entry<String, Score> c : current.entrySet()) {
+            Score base = baseline.get(c.getKey());
+            if (base == null) {
+                System.out.printf("  new      %s%n", c.getKey());
+                continue;
+            }
+            Score now = c.getValue();
+            // Positive change means slower (or lower throughput).
+            double change = base.higherIsBetter
+                    ? (base.score - now.score) / base.score
+                    : (now.score - base.score) / base.score;
+            boolean beyondNoise = Math.abs(now.score - base.score) > base.error + now.error;
+            String verdict = "ok      ";
+            if (change > threshold && beyondNoise) {
+                verdict = "SLOWER  ";
+                regressions++;
+            } else if (change < -threshold && beyondNoise) {
+                verdict = "faster  ";
+            }
+            System.out.printf("  %s %s: %.3f -> %.3f %s (%+.1f%%)%n", verdict, c.getKey(),
+                    base.score, now.score, now.unit, change * 100);
+        }
+        System.out.println(regressions == 0 ? "No regressions." : regressions + " regressions.");
+        if (regressions > 0) System.exit(1);
+    }
+
+    private static Map<String, Score> read(Path file) throws IOException {
+        Map<String, Score> scores = new TreeMap<>();
+        try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            for (JsonElement el : JsonParser.parseReader(in).getAsJsonArray()) {
+                JsonObject result = el.getAsJsonObject();
+                StringBuilder key = new StringBuilder(result.get("benchmark").getAsString());
+                JsonObject params = result.getAsJsonObject("params");
+                if (params != null) {
+                    for (String name : new TreeSet<>(params.keySet())) {
+                        key.append(' ').append(name).append('=').append(params.get(name).getAsString());
+                    }
+                }
+                scores.put(key.toString(), new Score(result));
+            }
+        }
+        return scores;
+    }
+}
@@ -0,0 +1,115 @@
+package com.sumit.hr;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+// =============================
+// ReportBenchmark: full employee listing, println per line vs EmployeeReport
+// =============================
+// Output goes to a PrintStream or channel over a file (like System.out
+// redirected), so the numbers include the writes but not a terminal's
+// rendering. listing writes every row with the old displayAll() println per
+// line ("println") or an EmployeeReport in each format; storePages pages the
+// rows out of an EmployeeStore as displayAll() does now.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Rows {
+        @Param({"100000", "1000000"})
+        public int employees;
+
+        List<Employee> workforce;
+        Path out;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            workforce = Workforce.generate(employees);
+            out = Files.createTempFile("jmh-report", ".txt");
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            Files.deleteIfExists(out);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Writer {
+        @Param({"println", "text", "csv", "json"})
+        public String writer;
+    }
+
+    @State(Scope.Benchmark)
+    public static class Store {
+        EmployeeStore store;
+
+        @Setup(Level.Trial)
+        public void setUp(Rows rows) throws IOException {
+            store = new EmployeeStore();
+            EmployeeBatch batch = new EmployeeBatch();
+            for (Employee e : rows.workforce) batch.add(e);
+            store.apply(batch);
+        }
+    }
+
+    @Benchmark
+    public void listing(Rows rows, Writer w) throws IOException {
+        if (w.writer.equals("println")) {
+            printlnPerLine(rows.workforce, rows.out);
+            return;
+        }
+        EmployeeReport.Format format = EmployeeReport.Format.valueOf(w.writer.toUpperCase(Locale.ROOT));
+        try (FileChannel ch = FileChannel.open(rows.out, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            EmployeeReport report = new EmployeeReport(ch, format, true);
+            report.begin();
+            for (Employee e : rows.workforce) report.employee(e);
+            report.end();
+        }
+    }
+
+    @Benchmark
+    public void storePages(Rows rows, Store s) throws IOException {
+        try (PrintStream ps = new PrintStream(new FileOutputStream(rows.out.toFile()), true)) {
+            EmployeeReport report = EmployeeReport.to(ps, EmployeeReport.Format.TEXT, true);
+            for (List<Employee> page : s.store.pages(EmployeeReport.PAGE)) {
+                for (Employee e : page) report.employee(e);
+            }
+            report.end();
+        }
+    }
+
+    // displayAll() as it was: displayInfo() plus three lines, one println each.
+    private static void printlnPerLine(List<Employee> workforce, Path out) throws IOException {
+        try (PrintStream ps = new PrintStream(new FileOutputStream(out.toFile()), true)) {
+            for (Employee e : workforce) {
+                ps.println("-----------------------------------");
+                ps.println("Employee ID: " + e.getId());
+                ps.println("Name       : " + e.getName());
+                ps.println("Department : " + e.getDepartment());
+                ps.println("Salary     : " + e.getSalary());
+                if (e instanceof SalesEmployee) {
+                    SalesEmployee s = (SalesEmployee) e;
+                    ps.println("Sales      : " + s.getSales());
+                    ps.println("Commission : " + (s.getCommissionRate() * 100) + "%");
+                    ps.println("Target     : " + s.getTarget());
+                } else if (e instanceof Manager) {
+                    ps.println("Team Size  : " + ((Manager) e).getTeamSize());
+                }
+                double bonus = e.calculateBonus();
+                ps.println("Bonus: " + bonus);
+                ps.println("Final Salary: " + (e.getSalary() + bonus));
+                ps.println("-----------------------------------");
+            }
+        }
+    }
+}
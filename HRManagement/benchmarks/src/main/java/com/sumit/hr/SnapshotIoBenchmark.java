@@ -0,0 +1,82 @@
+package com.sumit.hr;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+// =============================
+// SnapshotIoBenchmark: loading and saving the employee file
+// =============================
+// read/write time the snapshot formats alone; loadStore is the full startup
+// path (read, de-duplicate, index) and saveStore the rewrite every change
+// triggers outside journal mode. 10M rows need -p employees=10000000 and a
+// larger heap (-jvmArgsAppend -Xmx8g).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SnapshotIoBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int employees;
+
+    @Param({"csv", "binary"})
+    public String format;
+
+    private Path dir;
+    private Path file;
+    private Path out;
+    private SnapshotFormat snapshot;
+    private List<Employee> rows;
+    private EmployeeStore store;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("jmh-snapshot");
+        snapshot = format.equals("binary") ? new BinarySnapshot() : new CsvSnapshot();
+        file = dir.resolve("employees." + format);
+        out = dir.resolve("out." + format);
+        rows = Workforce.generate(employees);
+        snapshot.write(file, rows);
+        store = new EmployeeStore(out, snapshot, null, false, 1, 1000);
+        EmployeeBatch batch = new EmployeeBatch();
+        for (Employee e : rows) batch.add(e);
+        store.apply(batch);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        store.close();
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir)) {
+            for (Path p : ds) Files.delete(p);
+        }
+        Files.delete(dir);
+    }
+
+    @Benchmark
+    public List<Employee> read() throws IOException {
+        return snapshot.read(file);
+    }
+
+    @Benchmark
+    public void write() throws IOException {
+        snapshot.write(out, rows);
+    }
+
+    @Benchmark
+    public int loadStore() throws IOException {
+        try (EmployeeStore loaded = new EmployeeStore(file, snapshot, null, false, 1, 1000)) {
+            return loaded.size();
+        }
+    }
+
+    // One salary change, which rewrites the whole snapshot.
+    @Benchmark
+    public boolean saveStore() throws IOException {
+        return store.update(1, e -> e.setSalary(e.getSalary() + 1));
+    }
+}
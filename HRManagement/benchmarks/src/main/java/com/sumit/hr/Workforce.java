@@ -0,0 +1,47 @@
+package com.sumit.hr;
+
+import java.util.*;
+
+// =============================
+// Workforce: deterministic synthetic employees for the benchmarks
+// =============================
+// The same seed gives the same rows on every run, so results from different
+// commits are measured against identical data.
+class Workforce {
+    static final String[] DEPARTMENTS = {"HR", "Finance", "IT", "Sales", "Marketing", "Operations"};
+
+    // A third each of Regular, Sales and Manager, in random order.
+    static List<Employee> generate(int rows) {
+        return generate(rows, 3);
+    }
+
+    // types = 1 gives only Regular employees, 2 adds Sales, 3 adds Managers.
+    static List<Employee> generate(int rows, int types) {
+        Random rnd = new Random(42);
+        List<Employee> result = new ArrayList<>(rows);
+        for (int id = 1; id <= rows; id++) {
+            String dept = DEPARTMENTS[rnd.nextInt(DEPARTMENTS.length)];
+            double salary = 20000 + rnd.nextInt(80000) + rnd.nextInt(100) / 100.0;
+            switch (rnd.nextInt(types)) {
+                case 1:
+                    result.add(new SalesEmployee(id, "Employee " + id, salary, dept,
+                            rnd.nextInt(600000), 0.01 * (1 + rnd.nextInt(10)), rnd.nextInt(500000)));
+                    break;
+                case 2:
+                    result.add(new Manager(id, "Employee " + id, salary, dept, rnd.nextInt(20)));
+                    break;
+                default:
+                    result.add(new Employee(id, "Employee " + id, salary, dept));
+            }
+        }
+        return result;
+    }
+
+    // IDs to look up: hits drawn from 1..rows in random order.
+    static int[] probes(int rows, int count) {
+        Random rnd = new Random(7);
+        int[] ids = new int[count];
+        for (int i = 0; i < count; i++) ids[i] = 1 + rnd.nextInt(rows);
+        return ids;
+    }
+}
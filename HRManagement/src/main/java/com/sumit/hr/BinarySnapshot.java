@@ -0,0 +1,199 @@
+package com.sumit.hr;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+// =============================
+// BinarySnapshot: compact binary format for the employee store
+// =============================
+// All numbers are big-endian and fixed width.
+//
+//   int    magic 'HRSB'
+//   short  version (1)
+//   int    department count, then per department: ushort length + UTF-8 bytes
+//   int    record count, then per record:
+//            byte   type tag (0 Regular, 1 Sales, 2 Manager)
+//            int    id
+//            double salary
+//            int    department code (index into the table above)
+//            ushort name length + UTF-8 bytes
+//            Sales:   double sales, double commissionRate, double target
+//            Manager: int teamSize
+class BinarySnapshot implements SnapshotFormat {
+    static final int MAGIC = 0x48525342;  // "HRSB"
+    static final short VERSION = 1;
+
+    static final byte REGULAR = 0;
+    static final byte SALES = 1;
+    static final byte MANAGER = 2;
+
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final int MAX_STRING = 0xFFFF;
+    private static final int MIN_DEPARTMENT = 2;              // empty name
+    private static final int MIN_RECORD = 1 + 4 + 8 + 4 + 2;  // Regular, empty name
+
+    // A corrupt file is an IOException: counts are checked against the bytes
+    // left before anything is allocated, and department codes against the
+    // table.
+    @Override
+    public List<Employee> read(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            buf.flip();
+
+            need(ch, buf, 4 + 2 + 4);
+            if (buf.getInt() != MAGIC) throw new IOException(file + " is not an employee snapshot");
+            short version = buf.getShort();
+            if (version != VERSION) throw new IOException("Unsupported snapshot version " + version);
+
+            byte[] scratch = new byte[256];
+            String[] departments = new String[count(ch, buf, buf.getInt(), MIN_DEPARTMENT, "department")];
+            for (int i = 0; i < departments.length; i++) {
+                need(ch, buf, 2);
+                int len = buf.getShort() & 0xFFFF;
+                scratch = bytes(ch, buf, scratch, len);
+                departments[i] = new String(scratch, 0, len, StandardCharsets.UTF_8);
+            }
+
+            need(ch, buf, 4);
+            int count = count(ch, buf, buf.getInt(), MIN_RECORD, "record");
+            List<Employee> rows = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                need(ch, buf, 1 + 4 + 8 + 4 + 2);
+                byte type = buf.get();
+                int id = buf.getInt();
+                double salary = buf.getDouble();
+                int code = buf.getInt();
+                if (code < 0 || code >= departments.length) {
+                    throw new IOException("Department code " + code + " in record " + i + " is not in the table of "
+                            + departments.length);
+                }
+                String dept = departments[code];
+                int len = buf.getShort() & 0xFFFF;
+                scratch = bytes(ch, buf, scratch, len);
+                String name = new String(scratch, 0, len, StandardCharsets.UTF_8);
+                switch (type) {
+                    case REGULAR:
+                        rows.add(new Employee(id, name, salary, dept));
+                        break;
+                    case SALES:
+                        need(ch, buf, 24);
+                        rows.add(new SalesEmployee(id, name, salary, dept, buf.getDouble(), buf.getDouble(), buf.getDouble()));
+                        break;
+                    case MANAGER:
+                        need(ch, buf, 4);
+                        rows.add(new Manager(id, name, salary, dept, buf.getInt()));
+                        break;
+                    default:
+                        throw new IOException("Unknown record type " + type + " in record " + i);
+                }
+            }
+            return rows;
+        }
+    }
+
+    @Override
+    public void write(Path file, Collection<Employee> employees) throws IOException {
+        // Department string table, in first-seen order.
+        LinkedHashMap<String, Integer> codes = new LinkedHashMap<>();
+        for (Employee e : employees) {
+            codes.putIfAbsent(e.getDepartment(), codes.size());
+        }
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            buf.putInt(MAGIC);
+            buf.putShort(VERSION);
+            buf.putInt(codes.size());
+            for (String dept : codes.keySet()) {
+                putString(ch, buf, dept);
+            }
+
+            room(ch, buf, 4);
+            buf.putInt(employees.size());
+            for (Employee e : employees) {
+                room(ch, buf, 1 + 4 + 8 + 4);
+                buf.put(typeOf(e));
+                buf.putInt(e.getId());
+                buf.putDouble(e.getSalary());
+                buf.putInt(codes.get(e.getDepartment()));
+                putString(ch, buf, e.getName());
+                if (e instanceof SalesEmployee) {
+                    SalesEmployee s = (SalesEmployee) e;
+                    room(ch, buf, 24);
+                    buf.putDouble(s.getSales());
+                    buf.putDouble(s.getCommissionRate());
+                    buf.putDouble(s.getTarget());
+                } else if (e instanceof Manager) {
+                    room(ch, buf, 4);
+                    buf.putInt(((Manager) e).getTeamSize());
+                }
+            }
+            drain(ch, buf);
+            ch.force(true);
+        }
+        CsvSnapshot.replace(tmp, file);
+    }
+
+    static byte typeOf(Employee e) {
+        if (e instanceof SalesEmployee) return SALES;
+        if (e instanceof Manager) return MANAGER;
+        return REGULAR;
+    }
+
+    // =============================
+    // Buffer helpers
+    // =============================
+
+    // A count read from the file, if that many entries of at least minBytes
+    // each fit in what is left of it.
+    private static int count(FileChannel ch, ByteBuffer buf, int count, int minBytes, String what) throws IOException {
+        long left = ch.size() - ch.position() + buf.remaining();
+        if (count < 0 || (long) count * minBytes > left) {
+            throw new IOException("Snapshot claims " + count + " " + what + "s but only " + left + " bytes are left");
+        }
+        return count;
+    }
+
+    // Makes at least n bytes readable, refilling from the channel.
+    private static void need(FileChannel ch, ByteBuffer buf, int n) throws IOException {
+        if (buf.remaining() >= n) return;
+        buf.compact();
+        while (buf.position() < n) {
+            if (ch.read(buf) < 0) throw new EOFException("Snapshot is truncated");
+        }
+        buf.flip();
+    }
+
+    private static byte[] bytes(FileChannel ch, ByteBuffer buf, byte[] scratch, int len) throws IOException {
+        if (len > scratch.length) scratch = new byte[Math.max(len, scratch.length * 2)];
+        need(ch, buf, len);
+        buf.get(scratch, 0, len);
+        return scratch;
+    }
+
+    // Makes room for n more bytes, writing out what is buffered.
+    private static void room(FileChannel ch, ByteBuffer buf, int n) throws IOException {
+        if (buf.remaining() < n) drain(ch, buf);
+    }
+
+    private static void drain(FileChannel ch, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) ch.write(buf);
+        buf.clear();
+    }
+
+    private static void putString(FileChannel ch, ByteBuffer buf, String s) throws IOException {
+        byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+        if (utf8.length > MAX_STRING) throw new IOException("String too long for snapshot: " + s.substring(0, 32) + "...");
+        room(ch, buf, 2 + utf8.length);
+        buf.putShort((short) utf8.length);
+        buf.put(utf8);
+    }
+}
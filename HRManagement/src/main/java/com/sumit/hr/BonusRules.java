@@ -0,0 +1,450 @@
+package com.sumit.hr;
+
+import java.io.IOException;
+import java.lang.invoke.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+// =============================
+// BonusRules: bonus formulas read from a file, compiled to MethodHandles
+// =============================
+// One line per employee type, "<Type> = <formula>"; '#' starts a comment:
+//
+//   Regular = salary * 0.05
+//   Sales   = sales * commissionRate + salary * 0.02 + (sales >= target ? salary * 0.10 : 0)
+//   Manager = salary * 0.1 + teamSize * 500
+//
+// Formulas use numbers, + - * /, parentheses, min(a, b), max(a, b), abs(a)
+// and "a < b ? x : y" with any of < <= > >= == !=. Every type can read
+// salary; Sales also sales, commissionRate and target, Manager teamSize. A
+// type the file leaves out keeps the built-in formula above, which is what
+// calculateBonus() used to hard-code.
+//
+// parse() compiles each formula once into a MethodHandle tree over the
+// employee's getters; nothing is interpreted per call. The installed rules
+// sit behind one MutableCallSite per type whose invoker is a static final, so
+// the JIT treats the current tree as a constant and inlines it into
+// calculateBonus() like hand-written code. install() retargets the sites:
+// code that inlined the old rules is deoptimized and recompiled, and every
+// thread sees the new rules from its next call on. Rules are process-wide;
+// EmployeeStore.setBonusRules() installs them and recounts the store's
+// bonus-derived indexes.
+//
+// Each formula is also compiled a second time over plain doubles, one per
+// variable in the order listed above (salary first), for ColumnarEmployeeStore
+// to run over its columns without building an Employee. Those handles sit
+// behind call sites of their own that install() retargets too.
+class BonusRules {
+    static final String DEFAULT_TEXT =
+            "Regular = salary * 0.05\n"
+            + "Sales = sales * commissionRate + salary * 0.02 + (sales >= target ? salary * 0.10 : 0)\n"
+            + "Manager = salary * 0.1 + teamSize * 500\n";
+
+    private static final String[] TYPES = {"Regular", "Sales", "Manager"};
+    private static final Class<?>[] RECEIVERS = {Employee.class, SalesEmployee.class, Manager.class};
+    private static final int REGULAR_TYPE = 0, SALES_TYPE = 1, MANAGER_TYPE = 2;
+
+    private static final MethodType BINARY = MethodType.methodType(double.class, double.class, double.class);
+    private static final MethodType TEST = MethodType.methodType(boolean.class, double.class, double.class);
+    private static final Map<String, MethodHandle> OPERATORS = new HashMap<>();
+    private static final Map<String, MethodHandle> FUNCTIONS = new HashMap<>();
+    private static final List<Map<String, MethodHandle>> VARIABLES = new ArrayList<>();  // by type
+
+    static final BonusRules DEFAULTS;
+    private static final MutableCallSite[] SITES = new MutableCallSite[TYPES.length];
+    private static final MutableCallSite[] COLUMN_SITES = new MutableCallSite[TYPES.length];
+    private static final MethodHandle REGULAR;
+    private static final MethodHandle SALES;
+    private static final MethodHandle MANAGER;
+    private static final MethodHandle REGULAR_COLUMNS;
+    private static final MethodHandle SALES_COLUMNS;
+    private static final MethodHandle MANAGER_COLUMNS;
+    private static volatile BonusRules current;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            for (String op : new String[] {"add", "subtract", "multiply", "divide"}) {
+                OPERATORS.put(op, lookup.findStatic(BonusRules.class, op, BINARY));
+            }
+            for (String op : new String[] {"lt", "le", "gt", "ge", "eq", "ne"}) {
+                OPERATORS.put(op, lookup.findStatic(BonusRules.class, op, TEST));
+            }
+            OPERATORS.put("negate", lookup.findStatic(BonusRules.class, "negate",
+                    MethodType.methodType(double.class, double.class)));
+            FUNCTIONS.put("min", lookup.findStatic(Math.class, "min", BINARY));
+            FUNCTIONS.put("max", lookup.findStatic(Math.class, "max", BINARY));
+            FUNCTIONS.put("abs", lookup.findStatic(Math.class, "abs", MethodType.methodType(double.class, double.class)));
+
+            MethodType getDouble = MethodType.methodType(double.class);
+            MethodHandle salary = lookup.findVirtual(Employee.class, "getSalary", getDouble);
+            for (int t = 0; t < TYPES.length; t++) {
+                Map<String, MethodHandle> vars = new LinkedHashMap<>();
+                vars.put("salary", salary.asType(MethodType.methodType(double.class, RECEIVERS[t])));
+                VARIABLES.add(vars);
+            }
+            Map<String, MethodHandle> sales = VARIABLES.get(SALES_TYPE);
+            sales.put("sales", lookup.findVirtual(SalesEmployee.class, "getSales", getDouble));
+            sales.put("commissionRate", lookup.findVirtual(SalesEmployee.class, "getCommissionRate", getDouble));
+            sales.put("target", lookup.findVirtual(SalesEmployee.class, "getTarget", getDouble));
+            VARIABLES.get(MANAGER_TYPE).put("teamSize", lookup.findVirtual(Manager.class, "getTeamSize",
+                    MethodType.methodType(int.class)).asType(MethodType.methodType(double.class, Manager.class)));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+        DEFAULTS = parse(DEFAULT_TEXT);
+        for (int t = 0; t < TYPES.length; t++) {
+            SITES[t] = new MutableCallSite(DEFAULTS.compiled[t]);
+            COLUMN_SITES[t] = new MutableCallSite(DEFAULTS.columns[t]);
+        }
+        REGULAR = SITES[REGULAR_TYPE].dynamicInvoker();
+        SALES = SITES[SALES_TYPE].dynamicInvoker();
+        MANAGER = SITES[MANAGER_TYPE].dynamicInvoker();
+        REGULAR_COLUMNS = COLUMN_SITES[REGULAR_TYPE].dynamicInvoker();
+        SALES_COLUMNS = COLUMN_SITES[SALES_TYPE].dynamicInvoker();
+        MANAGER_COLUMNS = COLUMN_SITES[MANAGER_TYPE].dynamicInvoker();
+        current = DEFAULTS;
+    }
+
+    private final String[] formulas = new String[TYPES.length];
+    private final MethodHandle[] compiled = new MethodHandle[TYPES.length];
+    private final MethodHandle[] columns = new MethodHandle[TYPES.length];
+
+    private BonusRules() {
+    }
+
+    // =============================
+    // Loading
+    // =============================
+
+    // Throws IllegalArgumentException naming the line of the first bad rule.
+    static BonusRules parse(String text) {
+        BonusRules rules = new BonusRules();
+        String[] lines = text.split("\r?\n");
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i];
+            int hash = line.indexOf('#');
+            if (hash >= 0) line = line.substring(0, hash);
+            line = line.trim();
+            if (line.isEmpty()) continue;
+            int eq = line.indexOf('=');
+            if (eq < 0) throw lineError(i, "expected <type> = <formula>");
+            int type = typeIndex(line.substring(0, eq).trim());
+            if (type < 0) {
+                throw lineError(i, "unknown employee type '" + line.substring(0, eq).trim()
+                        + "' (expected " + String.join(", ", TYPES) + ")");
+            }
+            if (rules.formulas[type] != null) throw lineError(i, "second rule for " + TYPES[type]);
+            String formula = line.substring(eq + 1).trim();
+            try {
+                rules.compiled[type] = new Parser(formula, type, false).parse();
+                rules.columns[type] = new Parser(formula, type, true).parse();
+            } catch (IllegalArgumentException e) {
+                throw lineError(i, e.getMessage());
+            }
+            rules.formulas[type] = formula;
+        }
+        for (int t = 0; t < TYPES.length; t++) {
+            if (rules.formulas[t] == null) {
+                rules.formulas[t] = DEFAULTS.formulas[t];
+                rules.compiled[t] = DEFAULTS.compiled[t];
+                rules.columns[t] = DEFAULTS.columns[t];
+            }
+        }
+        return rules;
+    }
+
+    static BonusRules read(Path file) throws IOException {
+        return parse(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+    }
+
+    // The rules in effect for every calculateBonus() call.
+    static BonusRules current() {
+        return current;
+    }
+
+    static synchronized void install(BonusRules rules) {
+        for (int t = 0; t < TYPES.length; t++) {
+            SITES[t].setTarget(rules.compiled[t]);
+            COLUMN_SITES[t].setTarget(rules.columns[t]);
+        }
+        MutableCallSite.syncAll(SITES);
+        MutableCallSite.syncAll(COLUMN_SITES);
+        current = rules;
+    }
+
+    // Type name -> formula, in Regular, Sales, Manager order.
+    public Map<String, String> getFormulas() {
+        Map<String, String> result = new LinkedHashMap<>();
+        for (int t = 0; t < TYPES.length; t++) result.put(TYPES[t], formulas[t]);
+        return result;
+    }
+
+    // Same formulas as the built-in ones, character for character.
+    public boolean isDefault() {
+        return Arrays.equals(formulas, DEFAULTS.formulas);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int t = 0; t < TYPES.length; t++) sb.append(TYPES[t]).append(" = ").append(formulas[t]).append('\n');
+        return sb.toString();
+    }
+
+    // =============================
+    // Evaluation, called from calculateBonus()
+    // =============================
+    static double regular(Employee e) {
+        try {
+            return (double) REGULAR.invokeExact(e);
+        } catch (Throwable t) {
+            throw unchecked(t);
+        }
+    }
+
+    static double sales(SalesEmployee e) {
+        try {
+            return (double) SALES.invokeExact(e);
+        } catch (Throwable t) {
+            throw unchecked(t);
+        }
+    }
+
+    static double manager(Manager e) {
+        try {
+            return (double) MANAGER.invokeExact(e);
+        } catch (Throwable t) {
+            throw unchecked(t);
+        }
+    }
+
+    // The same formulas over column values, for ColumnarEmployeeStore.
+    static double regular(double salary) {
+        try {
+            return (double) REGULAR_COLUMNS.invokeExact(salary);
+        } catch (Throwable t) {
+            throw unchecked(t);
+        }
+    }
+
+    static double sales(double salary, double sales, double commissionRate, double target) {
+        try {
+            return (double) SALES_COLUMNS.invokeExact(salary, sales, commissionRate, target);
+        } catch (Throwable t) {
+            throw unchecked(t);
+        }
+    }
+
+    static double manager(double salary, double teamSize) {
+        try {
+            return (double) MANAGER_COLUMNS.invokeExact(salary, teamSize);
+        } catch (Throwable t) {
+            throw unchecked(t);
+        }
+    }
+
+    // =============================
+    // Internals
+    // =============================
+    private static RuntimeException unchecked(Throwable t) {
+        if (t instanceof RuntimeException) return (RuntimeException) t;
+        if (t instanceof Error) throw (Error) t;
+        return new IllegalStateException(t);
+    }
+
+    private static int typeIndex(String name) {
+        for (int t = 0; t < TYPES.length; t++) {
+            if (TYPES[t].equalsIgnoreCase(name)) return t;
+        }
+        return -1;
+    }
+
+    private static IllegalArgumentException lineError(int index, String message) {
+        return new IllegalArgumentException("line " + (index + 1) + ": " + message);
+    }
+
+    private static double add(double a, double b) { return a + b; }
+    private static double subtract(double a, double b) { return a - b; }
+    private static double multiply(double a, double b) { return a * b; }
+    private static double divide(double a, double b) { return a / b; }
+    private static double negate(double a) { return -a; }
+    private static boolean lt(double a, double b) { return a < b; }
+    private static boolean le(double a, double b) { return a <= b; }
+    private static boolean gt(double a, double b) { return a > b; }
+    private static boolean ge(double a, double b) { return a >= b; }
+    private static boolean eq(double a, double b) { return a == b; }
+    private static boolean ne(double a, double b) { return a != b; }
+
+    // Recursive descent over one formula. Every method returns a handle taking
+    // the employee, or with columns one double per variable; numbers return
+    // double, comparisons boolean.
+    //   expression := comparison [ '?' expression ':' expression ]
+    //   comparison := sum [ ('<' | '<=' | '>' | '>=' | '==' | '!=') sum ]
+    //   sum        := product { ('+' | '-') product }
+    //   product    := unary { ('*' | '/') unary }
+    //   unary      := '-' unary | number | variable | function '(' args ')' | '(' expression ')'
+    private static class Parser {
+        private final String src;
+        private final int type;
+        private final boolean columns;
+        private final Class<?>[] params;
+        private int pos;
+
+        Parser(String src, int type, boolean columns) {
+            this.src = src;
+            this.type = type;
+            this.columns = columns;
+            if (columns) {
+                params = new Class<?>[VARIABLES.get(type).size()];
+                Arrays.fill(params, double.class);
+            } else {
+                params = new Class<?>[] {RECEIVERS[type]};
+            }
+        }
+
+        MethodHandle parse() {
+            if (src.isEmpty()) throw new IllegalArgumentException("empty formula");
+            MethodHandle h = number(expression());
+            skipSpaces();
+            if (pos < src.length()) throw error("unexpected '" + src.charAt(pos) + "'");
+            return h;
+        }
+
+        private MethodHandle expression() {
+            MethodHandle test = comparison();
+            if (!accept("?")) return test;
+            if (test.type().returnType() != boolean.class) throw error("'?' must follow a comparison");
+            MethodHandle then = number(expression());
+            if (!accept(":")) throw error("expected ':'");
+            MethodHandle otherwise = number(expression());
+            return MethodHandles.guardWithTest(test, then, otherwise);
+        }
+
+        private MethodHandle comparison() {
+            MethodHandle left = sum();
+            String op = accept("<=") ? "le" : accept(">=") ? "ge" : accept("==") ? "eq" : accept("!=") ? "ne"
+                    : accept("<") ? "lt" : accept(">") ? "gt" : null;
+            if (op == null) return left;
+            return combine(OPERATORS.get(op), number(left), number(sum()));
+        }
+
+        private MethodHandle sum() {
+            MethodHandle h = product();
+            while (true) {
+                if (accept("+")) {
+                    h = combine(OPERATORS.get("add"), number(h), number(product()));
+                } else if (accept("-")) {
+                    h = combine(OPERATORS.get("subtract"), number(h), number(product()));
+                } else {
+                    return h;
+                }
+            }
+        }
+
+        private MethodHandle product() {
+            MethodHandle h = unary();
+            while (true) {
+                if (accept("*")) {
+                    h = combine(OPERATORS.get("multiply"), number(h), number(unary()));
+                } else if (accept("/")) {
+                    h = combine(OPERATORS.get("divide"), number(h), number(unary()));
+                } else {
+                    return h;
+                }
+            }
+        }
+
+        private MethodHandle unary() {
+            skipSpaces();
+            if (accept("-")) return MethodHandles.filterReturnValue(number(unary()), OPERATORS.get("negate"));
+            if (accept("(")) {
+                MethodHandle h = expression();
+                if (!accept(")")) throw error("expected ')'");
+                return h;
+            }
+            if (pos == src.length()) throw error("formula ends early");
+            char c = src.charAt(pos);
+            if (Character.isDigit(c) || c == '.') return constant(literal());
+            if (Character.isLetter(c)) return name();
+            throw error("unexpected '" + c + "'");
+        }
+
+        private double literal() {
+            int start = pos;
+            while (pos < src.length() && (Character.isDigit(src.charAt(pos)) || src.charAt(pos) == '.')) pos++;
+            if (pos < src.length() && (src.charAt(pos) == 'e' || src.charAt(pos) == 'E')) {
+                pos++;
+                if (pos < src.length() && (src.charAt(pos) == '+' || src.charAt(pos) == '-')) pos++;
+                while (pos < src.length() && Character.isDigit(src.charAt(pos))) pos++;
+            }
+            try {
+                return Double.parseDouble(src.substring(start, pos));
+            } catch (NumberFormatException e) {
+                pos = start;
+                throw error("bad number '" + src.substring(start) + "'");
+            }
+        }
+
+        private MethodHandle name() {
+            int start = pos;
+            while (pos < src.length() && Character.isLetterOrDigit(src.charAt(pos))) pos++;
+            String name = src.substring(start, pos);
+            MethodHandle function = FUNCTIONS.get(name);
+            if (function != null && accept("(")) {
+                int arity = function.type().parameterCount();
+                MethodHandle[] args = new MethodHandle[arity];
+                for (int i = 0; i < arity; i++) {
+                    if (i > 0 && !accept(",")) throw error(name + " takes " + arity + " arguments");
+                    args[i] = number(expression());
+                }
+                if (!accept(")")) throw error("expected ')' after the arguments of " + name);
+                return combine(function, args);
+            }
+            MethodHandle variable = VARIABLES.get(type).get(name);
+            if (variable == null) {
+                pos = start;
+                throw error("unknown variable '" + name + "' for " + TYPES[type]
+                        + " (expected " + String.join(", ", VARIABLES.get(type).keySet()) + ")");
+            }
+            if (!columns) return variable;
+            int column = new ArrayList<>(VARIABLES.get(type).keySet()).indexOf(name);
+            return MethodHandles.permuteArguments(MethodHandles.identity(double.class),
+                    MethodType.methodType(double.class, params), column);
+        }
+
+        // (employee) -> op(args[0](employee), args[1](employee), ...)
+        private MethodHandle combine(MethodHandle op, MethodHandle... args) {
+            MethodHandle h = op;
+            for (int i = args.length - 1; i >= 0; i--) h = MethodHandles.collectArguments(h, i, args[i]);
+            int[] reorder = new int[args.length * params.length];
+            for (int i = 0; i < reorder.length; i++) reorder[i] = i % params.length;
+            return MethodHandles.permuteArguments(h, MethodType.methodType(op.type().returnType(), params), reorder);
+        }
+
+        private MethodHandle constant(double value) {
+            return MethodHandles.dropArguments(MethodHandles.constant(double.class, value), 0, params);
+        }
+
+        private MethodHandle number(MethodHandle h) {
+            if (h.type().returnType() != double.class) throw error("a comparison is only allowed before '?'");
+            return h;
+        }
+
+        private boolean accept(String token) {
+            skipSpaces();
+            if (!src.startsWith(token, pos)) return false;
+            pos += token.length();
+            return true;
+        }
+
+        private void skipSpaces() {
+            while (pos < src.length() && Character.isWhitespace(src.charAt(pos))) pos++;
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at column " + (pos + 1) + " of '" + src + "'");
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.sumit.hr;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// =============================
+// ChangeLog: durable file subscriber of a ChangeStream
+// =============================
+// A background thread drains a buffered subscription into an append-only file,
+// one line per event:
+//
+//   <offset>,A,<csv row>      added
+//   <offset>,U,<csv row>      updated (the whole row after the change)
+//   <offset>,D,<id>           deleted
+//
+// so everything after the offset is an EmployeeBatch line. Each batch the
+// thread picks up is flushed, and with sync forced to disk, before the next.
+// Consumers in other processes call read(file, from, handler) and keep the
+// offset it returns; after a restart they resume from it and see every event
+// exactly once. Offsets carry on across runs: opening the log trims a torn
+// last line and starts the stream after the last complete one.
+//
+// Usage: java com.sumit.hr.ChangeLog <file> [from-offset]
+// prints the events from the offset on and keeps following the file.
+class ChangeLog implements Closeable {
+    private static final int BATCH = 4096;
+
+    private final Path file;
+    private final boolean sync;
+    private final FileChannel channel;
+    private final CsvRowWriter out;
+    private final ChangeStream.Subscription subscription;
+    private final Thread writer;
+    private volatile boolean closing;
+    private volatile long written;         // offset after the last event on disk
+    private volatile IOException failure;
+
+    // Must be attached before the stream publishes anything.
+    public ChangeLog(ChangeStream stream, Path file, boolean sync) throws IOException {
+        this.file = file;
+        this.sync = sync;
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long[] tail;
+        try {
+            tail = tail(channel);
+            stream.startAt(tail[1]);
+            channel.truncate(tail[0]);
+            channel.position(tail[0]);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        out = new CsvRowWriter(channel);
+        written = tail[1];
+        subscription = stream.subscribeBuffered();
+        writer = new Thread(this::drain, "change-log");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public Path getFile() { return file; }
+
+    // Offset after the last event written to the file.
+    public long getWritten() { return written; }
+
+    // Writes out everything published so far, then stops.
+    @Override
+    public void close() throws IOException {
+        closing = true;
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        subscription.close();
+        channel.close();
+        if (failure != null) throw failure;
+    }
+
+    // =============================
+    // Reading
+    // =============================
+
+    // Hands every complete event at or after from to handler, in order, and
+    // returns the offset to resume from next time.
+    public static long read(Path file, long from, Consumer<ChangeStream.Event> handler) throws IOException {
+        long next = from;
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file), 64 * 1024)) {
+            ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+            while (readLine(in, line)) {
+                String text = line.toString(StandardCharsets.UTF_8);
+                if (text.endsWith("\r")) text = text.substring(0, text.length() - 1);
+                ChangeStream.Event e = parse(text);
+                if (e.offset < next) continue;
+                handler.accept(e);
+                next = e.offset + 1;
+            }
+        }
+        return next;
+    }
+
+    // The offset the next event written to file will get; 0 for a new file.
+    public static long nextOffset(Path file) throws IOException {
+        if (!Files.exists(file)) return 0;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            return tail(ch)[1];
+        }
+    }
+
+    // =============================
+    // Internals
+    // =============================
+    private void drain() {
+        try {
+            while (true) {
+                boolean last = closing;
+                int n = subscription.poll(BATCH, 10, TimeUnit.MILLISECONDS, this::append);
+                if (n > 0) {
+                    out.flush();
+                    if (sync) channel.force(false);
+                    written = subscription.getPosition();
+                } else if (last) {
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            failure = e;
+        } catch (UncheckedIOException e) {
+            failure = e.getCause();
+        } catch (ChangeStream.LaggedException | InterruptedException e) {
+            failure = new IOException("Change log stopped: " + e.getMessage(), e);
+        } finally {
+            // Writers must not keep queueing for a log that has stopped.
+            subscription.close();
+        }
+    }
+
+    private void append(ChangeStream.Event e) {
+        try {
+            out.field(e.offset);
+            switch (e.op) {
+                case ADD: out.field("A").field(e.row); break;
+                case UPDATE: out.field("U").field(e.row); break;
+                default: out.field("D").field(e.id);
+            }
+            out.endRow();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    static ChangeStream.Event parse(String line) {
+        int c1 = line.indexOf(',');
+        int c2 = line.indexOf(',', c1 + 1);
+        if (c1 < 0 || c2 < 0) throw new IllegalArgumentException("Bad change log line: " + line);
+        long offset = Long.parseLong(line.substring(0, c1));
+        String rest = line.substring(c2 + 1);
+        switch (line.substring(c1 + 1, c2)) {
+            case "A": return new ChangeStream.Event(offset, ChangeStream.Op.ADD, rowId(rest), rest);
+            case "U": return new ChangeStream.Event(offset, ChangeStream.Op.UPDATE, rowId(rest), rest);
+            case "D": return new ChangeStream.Event(offset, ChangeStream.Op.DELETE, Integer.parseInt(rest), null);
+            default: throw new IllegalArgumentException("Bad change log line: " + line);
+        }
+    }
+
+    private static int rowId(String row) {
+        int c1 = row.indexOf(',');
+        return Integer.parseInt(row.substring(c1 + 1, row.indexOf(',', c1 + 1)));
+    }
+
+    // Reads one '\n'-terminated line into line, without the '\n'. Returns
+    // false at the end of the file, including when the last line is still
+    // being written.
+    private static boolean readLine(InputStream in, ByteArrayOutputStream line) throws IOException {
+        line.reset();
+        int b;
+        while ((b = in.read()) != -1) {
+            if (b == '\n') return true;
+            line.write(b);
+        }
+        return false;
+    }
+
+    // {length up to the end of the last complete line, offset after that line}
+    private static long[] tail(FileChannel ch) throws IOException {
+        long end = lastNewline(ch, ch.size());
+        if (end < 0) return new long[] {0, 0};
+        long start = lastNewline(ch, end) + 1;
+        ByteBuffer buf = ByteBuffer.allocate((int) Math.min(end - start, 32));
+        ch.read(buf, start);
+        String head = new String(buf.array(), 0, buf.position(), StandardCharsets.US_ASCII);
+        int comma = head.indexOf(',');
+        if (comma < 0) throw new IOException("Bad change log line at byte " + start);
+        return new long[] {end + 1, Long.parseLong(head.substring(0, comma)) + 1};
+    }
+
+    // Position of the last '\n' before limit, or -1.
+    private static long lastNewline(FileChannel ch, long limit) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(8192);
+        long pos = limit;
+        while (pos > 0) {
+            int n = (int) Math.min(buf.capacity(), pos);
+            pos -= n;
+            buf.clear().limit(n);
+            while (buf.hasRemaining()) {
+                if (ch.read(buf, pos + buf.position()) < 0) break;
+            }
+            for (int i = n - 1; i >= 0; i--) {
+                if (buf.get(i) == '\n') return pos + i;
+            }
+        }
+        return -1;
+    }
+
+    // =============================
+    // Main
+    // =============================
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1) {
+            System.out.println("Usage: java com.sumit.hr.ChangeLog <file> [from-offset]");
+            return;
+        }
+        Path file = Paths.get(args[0]);
+        long next = args.length > 1 ? Long.parseLong(args[1]) : 0;
+        while (true) {
+            if (Files.exists(file)) next = read(file, next, System.out::println);
+            Thread.sleep(200);
+        }
+    }
+}
@@ -0,0 +1,305 @@
+package com.sumit.hr;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+// =============================
+// ChangeStream: bounded lock-free ring of employee change events
+// =============================
+// Every add, update and delete EmployeeStore applies is published here with
+// a strictly increasing offset. Subscribers pull events at their own pace
+// from a fixed-size ring; nothing is pushed at them and nothing is queued per
+// subscriber.
+//
+// Writers claim an offset with one atomic increment and store the event in
+// its slot; no lock is taken and a writer never waits for a reader. A
+// subscriber that falls a whole ring behind is lapped: its next poll() throws
+// LaggedException naming the first offset it missed, so it can fetch the gap
+// from a ChangeLog and carry on, instead of slowing the store.
+//
+// A buffered subscriber (ChangeLog uses one) must not lose events, so a
+// durable log never has holes. Writers also append each event to its own
+// lock-free queue, which holds what the ring has already overwritten. Only
+// once that queue is maxBacklog events deep, i.e. when the disk cannot keep
+// up at all, does it fall back to the ring and get lapped like any other.
+class ChangeStream {
+    static final int DEFAULT_CAPACITY = 1 << 14;
+    static final int DEFAULT_MAX_BACKLOG = 1 << 20;
+
+    enum Op { ADD, UPDATE, DELETE }
+
+    // One change. row is the employee's CSV row after the change; null for
+    // DELETE.
+    static class Event {
+        final long offset;
+        final Op op;
+        final int id;
+        final String row;
+
+        Event(long offset, Op op, int id, String row) {
+            this.offset = offset;
+            this.op = op;
+            this.id = id;
+            this.row = row;
+        }
+
+        public long getOffset() { return offset; }
+        public Op getOp() { return op; }
+        public int getId() { return id; }
+        public String getRow() { return row; }
+
+        // The employee as of this change; null for DELETE.
+        public Employee getEmployee() {
+            return row == null ? null : Employee.parseCSV(row);
+        }
+
+        @Override
+        public String toString() {
+            return offset + " " + op + " " + (row == null ? String.valueOf(id) : row);
+        }
+    }
+
+    // Thrown by poll() once the subscriber has been lapped. The subscriber has
+    // already moved on to the oldest event still in the ring.
+    static class LaggedException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        final long missedFrom;
+        final long resumedAt;
+
+        LaggedException(long missedFrom, long resumedAt) {
+            super("Subscriber lapped: events " + missedFrom + " to " + (resumedAt - 1) + " were overwritten");
+            this.missedFrom = missedFrom;
+            this.resumedAt = resumedAt;
+        }
+
+        public long getMissedFrom() { return missedFrom; }
+        public long getResumedAt() { return resumedAt; }
+    }
+
+    // A reader's position in the stream. Each subscription is meant to be
+    // polled by one thread.
+    class Subscription implements AutoCloseable {
+        private volatile long position;   // next offset to deliver
+        // Buffered only: events in the order writers appended them, and
+        // those taken from it ahead of position, by offset.
+        private final Queue<Event> backlog;
+        private final AtomicInteger backlogSize;
+        private final PriorityQueue<Event> early;
+        private volatile boolean buffered;
+        private volatile boolean overflowed;
+
+        private Subscription(long position, boolean buffered) {
+            this.position = position;
+            this.buffered = buffered;
+            this.backlog = buffered ? new ConcurrentLinkedQueue<>() : null;
+            this.backlogSize = buffered ? new AtomicInteger() : null;
+            this.early = buffered ? new PriorityQueue<>(Comparator.comparingLong(Event::getOffset)) : null;
+        }
+
+        // Hands up to max published events to handler, in offset order, and
+        // returns how many it handed over; 0 if there is nothing new.
+        public int poll(int max, Consumer<Event> handler) throws LaggedException {
+            if (buffered) return pollBacklog(max, handler);
+            long p = position;
+            int n = 0;
+            while (n < max) {
+                Event e = slots.get(index(p));
+                if (e == null || e.offset < p) break;      // not published yet
+                if (e.offset > p) {
+                    // Overwritten: skip to the oldest event that is certainly
+                    // still there.
+                    long resume = Math.max(p + 1, claimed.get() - capacity + 1);
+                    position = resume;
+                    throw new LaggedException(p, resume);
+                }
+                handler.accept(e);
+                position = ++p;
+                n++;
+            }
+            return n;
+        }
+
+        // Like poll(), but waits up to timeout for at least one event.
+        public int poll(int max, long timeout, TimeUnit unit, Consumer<Event> handler)
+                throws LaggedException, InterruptedException {
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+            for (int spins = 0; ; spins++) {
+                int n = poll(max, handler);
+                if (n > 0) return n;
+                if (Thread.interrupted()) throw new InterruptedException();
+                long left = deadline - System.nanoTime();
+                if (left <= 0) return 0;
+                if (spins < 100) {
+                    Thread.onSpinWait();
+                } else {
+                    LockSupport.parkNanos(Math.min(left, PARK_NANOS));
+                }
+            }
+        }
+
+        // The offset poll() will deliver next.
+        public long getPosition() { return position; }
+
+        // Events published but not yet polled.
+        public long getLag() { return Math.max(0, claimed.get() - position); }
+
+        @Override
+        public void close() {
+            if (buffered) {
+                buffers.remove(this);
+                backlog.clear();
+            }
+        }
+
+        // Called by writers; never waits. An event with an offset before
+        // position was claimed before this subscription started.
+        private void append(Event e) {
+            if (backlogSize.incrementAndGet() > maxBacklog) {
+                overflowed = true;
+                buffers.remove(this);       // from now on read from the ring
+                return;
+            }
+            backlog.add(e);
+        }
+
+        // Writers append in the order they finish, not in offset order, so
+        // events ahead of position wait in early until the gap before them
+        // has arrived.
+        private int pollBacklog(int max, Consumer<Event> handler) throws LaggedException {
+            long p = position;
+            int n = 0;
+            while (n < max) {
+                Event e = early.peek();
+                if (e != null && e.offset == p) {
+                    early.poll();
+                    handler.accept(e);
+                    position = ++p;
+                    n++;
+                    continue;
+                }
+                Event next = backlog.poll();
+                if (next == null) break;
+                backlogSize.decrementAndGet();
+                if (next.offset >= p) early.add(next);
+            }
+            if (n == 0 && overflowed) {
+                // Overflowed: what was dropped is only in the ring now, if at
+                // all, so carry on there; poll() reports the events it lost.
+                buffered = false;
+                backlog.clear();
+                early.clear();
+                return poll(max, handler);
+            }
+            return n;
+        }
+    }
+
+    private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final int capacity;
+    private final int mask;
+    private final int maxBacklog;
+    private final AtomicReferenceArray<Event> slots;
+    private final AtomicLong claimed;            // next offset to hand to a writer
+    private volatile long start;                 // offset of the first event
+    private final List<Subscription> buffers = new CopyOnWriteArrayList<>();
+
+    public ChangeStream() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ChangeStream(int capacity) {
+        this(capacity, DEFAULT_MAX_BACKLOG);
+    }
+
+    // capacity is rounded up to a power of two; maxBacklog is how many
+    // events a buffered subscriber may fall behind before it is lapped.
+    public ChangeStream(int capacity, int maxBacklog) {
+        if (maxBacklog <= 0) throw new IllegalArgumentException("Backlog must be positive");
+        this.maxBacklog = maxBacklog;
+        this.capacity = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.mask = this.capacity - 1;
+        this.slots = new AtomicReferenceArray<>(this.capacity);
+        this.claimed = new AtomicLong();
+    }
+
+    // Makes the first event get offset next, so offsets carry on from an
+    // earlier run. Only allowed before anything is published.
+    public void startAt(long next) {
+        if (!claimed.compareAndSet(start, next)) {
+            throw new IllegalStateException("Events were already published from offset " + start);
+        }
+        start = next;
+    }
+
+    // The offset the next event will get.
+    public long getNextOffset() { return claimed.get(); }
+
+    public int getCapacity() { return capacity; }
+
+    // =============================
+    // Publishing
+    // =============================
+    public long publish(Op op, int id, String row) {
+        long offset = claimed.getAndIncrement();
+        Event event = new Event(offset, op, id, row);
+        for (Subscription s : buffers) s.append(event);
+        int i = index(offset);
+        // A writer stalled for a whole lap must not overwrite the newer event
+        // now in its slot; its own event is then lost to lapped readers only.
+        while (true) {
+            Event current = slots.get(i);
+            if (current != null && current.offset > offset) break;
+            if (slots.compareAndSet(i, current, event)) break;
+        }
+        return offset;
+    }
+
+    // =============================
+    // Subscribing
+    // =============================
+
+    // Starts with the next event published.
+    public Subscription subscribe() {
+        return new Subscription(claimed.get(), false);
+    }
+
+    // Starts at from, which must still be in the ring.
+    public Subscription subscribe(long from) {
+        checkFrom(from);
+        return new Subscription(from, false);
+    }
+
+    // Starts with the next event published, and keeps every event until it
+    // is polled, up to maxBacklog of them. Close it when done, or writers
+    // keep appending to its backlog.
+    public Subscription subscribeBuffered() {
+        Subscription s = new Subscription(0, true);
+        // Listed before the position is read: every writer that claims an
+        // offset at or after it then appends to s.
+        buffers.add(s);
+        s.position = claimed.get();
+        return s;
+    }
+
+    // =============================
+    // Internals
+    // =============================
+    private int index(long offset) {
+        return (int) offset & mask;
+    }
+
+    private void checkFrom(long from) {
+        long next = claimed.get();
+        if (from < start || from > next || from < next - capacity) {
+            throw new IllegalArgumentException("Offset " + from + " is not in the ring (holds "
+                    + Math.max(start, next - capacity) + " to " + next + ")");
+        }
+    }
+}
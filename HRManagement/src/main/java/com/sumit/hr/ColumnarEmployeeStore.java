@@ -0,0 +1,443 @@
+package com.sumit.hr;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+// =============================
+// ColumnarEmployeeStore: employees kept as parallel primitive arrays
+// =============================
+// One row per employee, with each field in its own array. Departments are
+// dictionary-encoded to int codes and names are packed as UTF-8 into one
+// byte[]. Fields only some types have live in side columns that a row points
+// into: sales, commission rate and target for SalesEmployee rows, team size
+// for Manager rows. Scans over salary or department are plain loops over
+// double[]/int[] that the JIT can unroll and vectorize, and the store holds
+// no object per employee.
+//
+// Employee objects are only built on demand by view(), as detached copies;
+// changes go through the store's setters. Rows are not kept in insertion
+// order: remove() moves the last row into the freed slot.
+//
+// This is a standalone analytics engine, not an EmployeeStore backend: it
+// has no locking, indexes or persistence. Build one for a batch of scans
+// with of(store.snapshot()).
+class ColumnarEmployeeStore {
+    static final byte REGULAR = BinarySnapshot.REGULAR;
+    static final byte SALES = BinarySnapshot.SALES;
+    static final byte MANAGER = BinarySnapshot.MANAGER;
+
+    private static final int EMPTY = 0;
+    private static final int DELETED = -1;
+
+    // Per-row columns.
+    private int size;
+    private int[] ids;
+    private byte[] types;
+    private double[] salaries;
+    private int[] departments;     // codes into departmentNames
+    private int[] extra;           // index into the sales or manager columns
+    private int[] nameOffsets;
+    private int[] nameLengths;
+
+    // Packed names; bytes of overwritten or removed names stay until compacted.
+    private byte[] nameBytes;
+    private int nameBytesUsed;
+    private int nameBytesLive;
+
+    // Sales columns, with the row each entry belongs to.
+    private int salesCount;
+    private double[] sales;
+    private double[] commissionRates;
+    private double[] targets;
+    private int[] salesRows;
+
+    // Manager columns.
+    private int managerCount;
+    private int[] teamSizes;
+    private int[] managerRows;
+
+    private final ArrayList<String> departmentNames = new ArrayList<>();
+    private final HashMap<String, Integer> departmentCodes = new HashMap<>();  // keyed by normalized name
+
+    private int[] slots;  // id -> row + 1, EMPTY or DELETED
+    private int occupied; // slots that are not EMPTY
+
+    public ColumnarEmployeeStore() {
+        this(16);
+    }
+
+    public ColumnarEmployeeStore(int capacity) {
+        this(capacity, capacity * 16, 16, 16);
+    }
+
+    private ColumnarEmployeeStore(int capacity, int nameCapacity, int salesCapacity, int managerCapacity) {
+        capacity = Math.max(capacity, 16);
+        ids = new int[capacity];
+        types = new byte[capacity];
+        salaries = new double[capacity];
+        departments = new int[capacity];
+        extra = new int[capacity];
+        nameOffsets = new int[capacity];
+        nameLengths = new int[capacity];
+        nameBytes = new byte[Math.max(nameCapacity, 256)];
+        salesCapacity = Math.max(salesCapacity, 16);
+        sales = new double[salesCapacity];
+        commissionRates = new double[salesCapacity];
+        targets = new double[salesCapacity];
+        salesRows = new int[salesCapacity];
+        managerCapacity = Math.max(managerCapacity, 16);
+        teamSizes = new int[managerCapacity];
+        managerRows = new int[managerCapacity];
+        slots = new int[tableSize(capacity)];
+    }
+
+    // Sizes every column for the given employees up front.
+    public static ColumnarEmployeeStore of(Collection<Employee> employees) {
+        int nameChars = 0, salesRows = 0, managerRows = 0;
+        for (Employee e : employees) {
+            nameChars += e.getName().length();
+            if (e instanceof SalesEmployee) salesRows++;
+            else if (e instanceof Manager) managerRows++;
+        }
+        ColumnarEmployeeStore store = new ColumnarEmployeeStore(employees.size(), nameChars, salesRows, managerRows);
+        for (Employee e : employees) store.add(e);
+        return store;
+    }
+
+    public int size() { return size; }
+
+    // =============================
+    // Rows
+    // =============================
+
+    // Returns false if the ID is already present.
+    public boolean add(Employee e) {
+        if (rowOf(e.getId()) >= 0) return false;
+        if (size == ids.length) grow();
+        int row = size++;
+        ids[row] = e.getId();
+        salaries[row] = e.getSalary();
+        departments[row] = departmentCode(e.getDepartment());
+        storeName(row, e.getName());
+        if (e instanceof SalesEmployee) {
+            SalesEmployee s = (SalesEmployee) e;
+            if (salesCount == sales.length) growSales();
+            int k = salesCount++;
+            sales[k] = s.getSales();
+            commissionRates[k] = s.getCommissionRate();
+            targets[k] = s.getTarget();
+            salesRows[k] = row;
+            types[row] = SALES;
+            extra[row] = k;
+        } else if (e instanceof Manager) {
+            if (managerCount == teamSizes.length) growManagers();
+            int k = managerCount++;
+            teamSizes[k] = ((Manager) e).getTeamSize();
+            managerRows[k] = row;
+            types[row] = MANAGER;
+            extra[row] = k;
+        } else {
+            types[row] = REGULAR;
+            extra[row] = 0;
+        }
+        index(e.getId(), row);
+        return true;
+    }
+
+    public boolean remove(int id) {
+        int slot = findSlot(id);
+        if (slot < 0) return false;
+        int row = slots[slot] - 1;
+        slots[slot] = DELETED;
+        nameBytesLive -= nameLengths[row];
+        freeExtra(row);
+
+        int last = --size;
+        if (row != last) {
+            ids[row] = ids[last];
+            types[row] = types[last];
+            salaries[row] = salaries[last];
+            departments[row] = departments[last];
+            extra[row] = extra[last];
+            nameOffsets[row] = nameOffsets[last];
+            nameLengths[row] = nameLengths[last];
+            if (types[row] == SALES) salesRows[extra[row]] = row;
+            else if (types[row] == MANAGER) managerRows[extra[row]] = row;
+            slots[findSlot(ids[row])] = row + 1;
+        }
+        return true;
+    }
+
+    // Row of the employee with this ID, or -1.
+    public int rowOf(int id) {
+        int slot = findSlot(id);
+        return slot < 0 ? -1 : slots[slot] - 1;
+    }
+
+    // A detached Employee, SalesEmployee or Manager with the row's values.
+    public Employee view(int row) {
+        checkRow(row);
+        String name = getName(row);
+        String dept = departmentNames.get(departments[row]);
+        int k = extra[row];
+        switch (types[row]) {
+            case SALES:
+                return new SalesEmployee(ids[row], name, salaries[row], dept, sales[k], commissionRates[k], targets[k]);
+            case MANAGER:
+                return new Manager(ids[row], name, salaries[row], dept, teamSizes[k]);
+            default:
+                return new Employee(ids[row], name, salaries[row], dept);
+        }
+    }
+
+    public Employee get(int id) {
+        int row = rowOf(id);
+        return row < 0 ? null : view(row);
+    }
+
+    public int getId(int row) { checkRow(row); return ids[row]; }
+    public double getSalary(int row) { checkRow(row); return salaries[row]; }
+    public String getDepartment(int row) { checkRow(row); return departmentNames.get(departments[row]); }
+
+    public String getName(int row) {
+        checkRow(row);
+        return new String(nameBytes, nameOffsets[row], nameLengths[row], StandardCharsets.UTF_8);
+    }
+
+    public void setSalary(int row, double salary) { checkRow(row); salaries[row] = salary; }
+    public void setDepartment(int row, String department) { checkRow(row); departments[row] = departmentCode(department); }
+
+    public void setName(int row, String name) {
+        checkRow(row);
+        nameBytesLive -= nameLengths[row];
+        storeName(row, name);
+    }
+
+    public void setSales(int row, double value) {
+        checkRow(row);
+        if (types[row] != SALES) throw new IllegalArgumentException("Employee " + ids[row] + " is not a sales employee");
+        sales[extra[row]] = value;
+    }
+
+    public void setTeamSize(int row, int teamSize) {
+        checkRow(row);
+        if (types[row] != MANAGER) throw new IllegalArgumentException("Employee " + ids[row] + " is not a manager");
+        teamSizes[extra[row]] = teamSize;
+    }
+
+    // =============================
+    // Scans
+    // =============================
+    public double sumSalary() {
+        double[] s = salaries;
+        double total = 0;
+        for (int i = 0, n = size; i < n; i++) total += s[i];
+        return total;
+    }
+
+    // Case-insensitive, like DepartmentIndex. 0 for an unknown department.
+    public double sumSalary(String department) {
+        Integer code = departmentCodes.get(DepartmentIndex.normalize(department));
+        if (code == null) return 0;
+        int c = code;
+        double[] s = salaries;
+        int[] d = departments;
+        double total = 0;
+        for (int i = 0, n = size; i < n; i++) {
+            total += d[i] == c ? s[i] : 0;
+        }
+        return total;
+    }
+
+    public int countSalaryBetween(double min, double max) {
+        double[] s = salaries;
+        int count = 0;
+        for (int i = 0, n = size; i < n; i++) {
+            count += (s[i] >= min & s[i] <= max) ? 1 : 0;
+        }
+        return count;
+    }
+
+    // Rows whose salary is in [min, max], in row order.
+    public int[] rowsWithSalaryBetween(double min, double max) {
+        int[] rows = new int[countSalaryBetween(min, max)];
+        double[] s = salaries;
+        for (int i = 0, j = 0, n = size; j < rows.length && i < n; i++) {
+            if (s[i] >= min && s[i] <= max) rows[j++] = i;
+        }
+        return rows;
+    }
+
+    // Same result as summing calculateBonus() over every view(row): each
+    // type's installed BonusRules formula runs as its own loop over its
+    // columns.
+    public double totalBonus() {
+        double total = 0;
+        double[] s = salaries;
+        byte[] t = types;
+        for (int i = 0, n = size; i < n; i++) {
+            if (t[i] == REGULAR) total += BonusRules.regular(s[i]);
+        }
+        for (int k = 0; k < salesCount; k++) {
+            total += BonusRules.sales(s[salesRows[k]], sales[k], commissionRates[k], targets[k]);
+        }
+        for (int k = 0; k < managerCount; k++) {
+            total += BonusRules.manager(s[managerRows[k]], teamSizes[k]);
+        }
+        return total;
+    }
+
+    // Same result as view(row).calculateBonus().
+    public double bonus(int row) {
+        checkRow(row);
+        double salary = salaries[row];
+        int k = extra[row];
+        switch (types[row]) {
+            case SALES:
+                return BonusRules.sales(salary, sales[k], commissionRates[k], targets[k]);
+            case MANAGER:
+                return BonusRules.manager(salary, teamSizes[k]);
+            default:
+                return BonusRules.regular(salary);
+        }
+    }
+
+    // =============================
+    // Internals
+    // =============================
+    private int departmentCode(String department) {
+        String key = DepartmentIndex.normalize(department);
+        Integer code = departmentCodes.get(key);
+        if (code == null) {
+            code = departmentNames.size();
+            departmentNames.add(department.trim());
+            departmentCodes.put(key, code);
+        }
+        return code;
+    }
+
+    private void storeName(int row, String name) {
+        byte[] utf8 = name.getBytes(StandardCharsets.UTF_8);
+        if (nameBytesUsed + utf8.length > nameBytes.length) {
+            // Drop dead bytes first; grow only if live names still do not fit.
+            compactNames(row);
+            if (nameBytesUsed + utf8.length > nameBytes.length) {
+                nameBytes = Arrays.copyOf(nameBytes, Math.max(nameBytes.length * 2, nameBytesUsed + utf8.length));
+            }
+        }
+        System.arraycopy(utf8, 0, nameBytes, nameBytesUsed, utf8.length);
+        nameOffsets[row] = nameBytesUsed;
+        nameLengths[row] = utf8.length;
+        nameBytesUsed += utf8.length;
+        nameBytesLive += utf8.length;
+    }
+
+    // Repacks the names of every row except skip, whose name is being replaced.
+    private void compactNames(int skip) {
+        if (nameBytesLive * 2 > nameBytesUsed) return;
+        byte[] packed = new byte[nameBytes.length];
+        int used = 0;
+        for (int r = 0; r < size; r++) {
+            if (r == skip) continue;
+            System.arraycopy(nameBytes, nameOffsets[r], packed, used, nameLengths[r]);
+            nameOffsets[r] = used;
+            used += nameLengths[r];
+        }
+        nameBytes = packed;
+        nameBytesUsed = used;
+        nameBytesLive = used;
+    }
+
+    // Releases the row's side-column entry by moving the last entry into it.
+    private void freeExtra(int row) {
+        int k = extra[row];
+        if (types[row] == SALES) {
+            int last = --salesCount;
+            if (k != last) {
+                sales[k] = sales[last];
+                commissionRates[k] = commissionRates[last];
+                targets[k] = targets[last];
+                salesRows[k] = salesRows[last];
+                extra[salesRows[k]] = k;
+            }
+        } else if (types[row] == MANAGER) {
+            int last = --managerCount;
+            if (k != last) {
+                teamSizes[k] = teamSizes[last];
+                managerRows[k] = managerRows[last];
+                extra[managerRows[k]] = k;
+            }
+        }
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) throw new IndexOutOfBoundsException("row " + row + ", size " + size);
+    }
+
+    private void grow() {
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        types = Arrays.copyOf(types, capacity);
+        salaries = Arrays.copyOf(salaries, capacity);
+        departments = Arrays.copyOf(departments, capacity);
+        extra = Arrays.copyOf(extra, capacity);
+        nameOffsets = Arrays.copyOf(nameOffsets, capacity);
+        nameLengths = Arrays.copyOf(nameLengths, capacity);
+    }
+
+    private void growSales() {
+        int capacity = sales.length * 2;
+        sales = Arrays.copyOf(sales, capacity);
+        commissionRates = Arrays.copyOf(commissionRates, capacity);
+        targets = Arrays.copyOf(targets, capacity);
+        salesRows = Arrays.copyOf(salesRows, capacity);
+    }
+
+    private void growManagers() {
+        int capacity = teamSizes.length * 2;
+        teamSizes = Arrays.copyOf(teamSizes, capacity);
+        managerRows = Arrays.copyOf(managerRows, capacity);
+    }
+
+    private static int tableSize(int rows) {
+        int n = 16;
+        while (n * 3 / 4 < rows) n <<= 1;
+        return n;
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private int findSlot(int id) {
+        int mask = slots.length - 1;
+        int i = mix(id) & mask;
+        while (true) {
+            int s = slots[i];
+            if (s == EMPTY) return -1;
+            if (s > 0 && ids[s - 1] == id) return i;
+            i = (i + 1) & mask;
+        }
+    }
+
+    private void index(int id, int row) {
+        if ((occupied + 1) * 4 > slots.length * 3) {
+            // Rebuild without tombstones, doubling only if live rows need it.
+            slots = new int[tableSize(Math.max(size, 1) * 2)];
+            occupied = 0;
+            for (int r = 0; r < size; r++) {
+                if (r != row) insert(ids[r], r);
+            }
+        }
+        insert(id, row);
+    }
+
+    private void insert(int id, int row) {
+        int mask = slots.length - 1;
+        int i = mix(id) & mask;
+        while (slots[i] > 0) i = (i + 1) & mask;
+        if (slots[i] == EMPTY) occupied++;
+        slots[i] = row + 1;
+    }
+}
@@ -0,0 +1,90 @@
+package com.sumit.hr;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+// =============================
+// CsvRowWriter: CSV rows encoded straight into a reused byte buffer
+// =============================
+// Produces the same bytes as writing Employee.toCSV() (or String.valueOf of
+// each field) through a UTF-8 writer followed by newLine(), but without
+// building a String per field or per row (see Utf8Writer). The caller owns,
+// forces and closes the channel.
+class CsvRowWriter extends Utf8Writer {
+    private static final byte[] REGULAR = "Regular".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SALES = "Sales".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] MANAGER = "Manager".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ZERO = {'0'};
+
+    private boolean rowStarted;
+
+    public CsvRowWriter(WritableByteChannel channel) {
+        this(channel, 256 * 1024);
+    }
+
+    public CsvRowWriter(WritableByteChannel channel, int bufferSize) {
+        super(channel, bufferSize);
+    }
+
+    // Same bytes as e.toCSV() plus a line separator.
+    public void writeEmployee(Employee e) throws IOException {
+        if (e instanceof SalesEmployee) {
+            SalesEmployee s = (SalesEmployee) e;
+            common(SALES, e);
+            field(s.getSales()).field(s.getCommissionRate()).field(s.getTarget());
+        } else if (e instanceof Manager) {
+            common(MANAGER, e);
+            field(((Manager) e).getTeamSize()).constant(ZERO).constant(ZERO);
+        } else {
+            common(REGULAR, e);
+            constant(ZERO).constant(ZERO).constant(ZERO);
+        }
+        endRow();
+    }
+
+    private void common(byte[] type, Employee e) throws IOException {
+        constant(type).field(e.getId()).field(e.getName()).field(e.getSalary()).field(e.getDepartment());
+    }
+
+    // =============================
+    // Fields
+    // =============================
+    public CsvRowWriter field(String s) throws IOException {
+        separator();
+        text(s);
+        return this;
+    }
+
+    public CsvRowWriter field(long v) throws IOException {
+        separator();
+        number(v);
+        return this;
+    }
+
+    // Same text as String.valueOf(v).
+    public CsvRowWriter field(double v) throws IOException {
+        separator();
+        number(v);
+        return this;
+    }
+
+    public void endRow() throws IOException {
+        newline();
+        rowStarted = false;
+    }
+
+    // =============================
+    // Internals
+    // =============================
+    private CsvRowWriter constant(byte[] bytes) throws IOException {
+        separator();
+        ascii(bytes);
+        return this;
+    }
+
+    private void separator() throws IOException {
+        if (rowStarted) ascii(',');
+        rowStarted = true;
+    }
+}
@@ -0,0 +1,43 @@
+package com.sumit.hr;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+
+// =============================
+// CsvSnapshot: the employees.csv format written by Employee.toCSV()
+// =============================
+class CsvSnapshot implements SnapshotFormat {
+
+    @Override
+    public List<Employee> read(Path file) throws IOException {
+        return new MappedCsvLoader().load(file);
+    }
+
+    // Writes to a temporary file, forces it to disk and renames it over the
+    // target, so readers never see a half-written file. Rows go through
+    // CsvRowWriter, which does not allocate per row.
+    @Override
+    public void write(Path file, Collection<Employee> employees) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            CsvRowWriter w = new CsvRowWriter(ch);
+            for (Employee e : employees) {
+                w.writeEmployee(e);
+            }
+            w.flush();
+            ch.force(true);
+        }
+        replace(tmp, file);
+    }
+
+    static void replace(Path tmp, Path target) throws IOException {
+        try {
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.sumit.hr;
+
+import java.util.*;
+
+// =============================
+// DepartmentIndex: secondary index from department to employees
+// =============================
+// Department names are matched case-insensitively and ignoring surrounding
+// spaces. Each department keeps its members in an IntObjectMap, so moving an
+// employee between departments is O(1) and head counts are just its size.
+// All methods are synchronized; reads hand out IDs and counts, never the
+// member objects, which belong to EmployeeStore.
+class DepartmentIndex implements EmployeeIndex {
+
+    private static class Department {
+        final String name;
+        final IntObjectMap<Employee> members = new IntObjectMap<>();
+
+        Department(String name) {
+            this.name = name;
+        }
+    }
+
+    private final LinkedHashMap<String, Department> departments = new LinkedHashMap<>();
+
+    static String normalize(String department) {
+        return department.trim().toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    public synchronized void add(Employee e) {
+        String key = normalize(e.getDepartment());
+        Department d = departments.get(key);
+        if (d == null) {
+            d = new Department(e.getDepartment().trim());
+            departments.put(key, d);
+        }
+        d.members.put(e.getId(), e);
+    }
+
+    @Override
+    public synchronized void remove(Employee e) {
+        remove(e, e.getDepartment());
+    }
+
+    // IDs of the department's members in the order they joined; empty if
+    // nobody works there.
+    public synchronized int[] ids(String department) {
+        Department d = departments.get(normalize(department));
+        if (d == null) return new int[0];
+        int[] ids = new int[d.members.size()];
+        int i = 0;
+        for (Employee e : d.members) ids[i++] = e.getId();
+        return ids;
+    }
+
+    // Department name -> head count, in the order departments first appeared.
+    public synchronized Map<String, Integer> headCounts() {
+        LinkedHashMap<String, Integer> counts = new LinkedHashMap<>();
+        for (Department d : departments.values()) counts.put(d.name, d.members.size());
+        return counts;
+    }
+
+    @Override
+    public synchronized void departmentChanged(Employee e, String oldDepartment) {
+        remove(e, oldDepartment);
+        add(e);
+    }
+
+    private void remove(Employee e, String department) {
+        String key = normalize(department);
+        Department d = departments.get(key);
+        if (d == null) return;
+        d.members.remove(e.getId());
+        if (d.members.isEmpty()) departments.remove(key);
+    }
+}
@@ -0,0 +1,93 @@
+package com.sumit.hr;
+
+// =============================
+// Base class: Employee
+// =============================
+class Employee {
+    protected int id;
+    protected String name;
+    protected double salary;
+    protected String department;
+    private EmployeeListener listener; // set while the employee is held by EmployeeStore
+    long sequence;                     // insertion order within EmployeeStore
+
+    public Employee(int id, String name, double salary, String department) {
+        this.id = id;
+        this.name = name;
+        this.salary = salary;
+        this.department = department;
+    }
+
+    public int getId() { return id; }
+    public String getName() { return name; }
+    public double getSalary() { return salary; }
+    public String getDepartment() { return department; }
+
+    public void setName(String name) {
+        String old = this.name;
+        this.name = name;
+        if (listener != null) listener.nameChanged(this, old);
+    }
+    public void setSalary(double salary) {
+        this.salary = salary;
+        payChanged();
+    }
+    public void setDepartment(String department) {
+        String old = this.department;
+        this.department = department;
+        if (listener != null) listener.departmentChanged(this, old);
+    }
+
+    void setListener(EmployeeListener listener) { this.listener = listener; }
+
+    // For setters of fields that feed calculateBonus().
+    protected void payChanged() {
+        if (listener != null) listener.payChanged(this);
+    }
+
+    // Sales and Manager lines are added by EmployeeReport, which renders
+    // every listing.
+    public void displayInfo() {
+        EmployeeReport.print(this, false);
+    }
+
+    // A detached copy with the same field values and no listener.
+    public Employee copy() {
+        return new Employee(id, name, salary, department);
+    }
+
+    // Type name as used in the first CSV column.
+    public String getType() { return "Regular"; }
+
+    // Formulas come from BonusRules (bonus-rules.txt), default 5% of salary.
+    public double calculateBonus() {
+        return BonusRules.regular(this);
+    }
+
+    public double computeFinalSalary() {
+        return salary + calculateBonus();
+    }
+
+    public String toCSV() {
+        return String.join(",", "Regular", String.valueOf(id), name, String.valueOf(salary), department, "0", "0", "0");
+    }
+
+    public static Employee fromCSV(String[] data) {
+        int id = Integer.parseInt(data[1]);
+        String name = data[2];
+        double salary = Double.parseDouble(data[3]);
+        String dept = data[4];
+        return new Employee(id, name, salary, dept);
+    }
+
+    // Parses one row written by toCSV(); returns null for an unknown type.
+    public static Employee parseCSV(String line) {
+        String[] data = line.split(",");
+        switch (data[0]) {
+            case "Regular": return Employee.fromCSV(data);
+            case "Sales": return SalesEmployee.fromCSV(data);
+            case "Manager": return Manager.fromCSV(data);
+            default: return null;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.sumit.hr;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+// =============================
+// EmployeeBatch: a list of adds, updates and deletes applied in one go
+// =============================
+// One record per line:
+//   A,<csv row>   add a new employee (a bare employees.csv row also means add)
+//   U,<csv row>   replace an existing employee
+//   D,<id>        delete an existing employee
+// Blank lines and lines starting with # are skipped. Rows that cannot be
+// parsed are kept as errors against their line number; the rest of the batch
+// still goes through EmployeeStore.apply(), which checks each record against
+// the store and the records before it.
+class EmployeeBatch {
+    enum Op { ADD, UPDATE, DELETE }
+
+    static class Record {
+        final int line;
+        final Op op;
+        final int id;
+        final Employee employee;   // null for DELETE
+
+        Record(int line, Op op, int id, Employee employee) {
+            this.line = line;
+            this.op = op;
+            this.id = id;
+            this.employee = employee;
+        }
+    }
+
+    static class Error {
+        final int line;
+        final String message;
+
+        Error(int line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+
+        public int getLine() { return line; }
+        public String getMessage() { return message; }
+
+        @Override
+        public String toString() { return "line " + line + ": " + message; }
+    }
+
+    static class Result {
+        int added;
+        int updated;
+        int deleted;
+        final List<Error> errors = new ArrayList<>();
+
+        public int getAdded() { return added; }
+        public int getUpdated() { return updated; }
+        public int getDeleted() { return deleted; }
+        public List<Error> getErrors() { return errors; }
+        public int getApplied() { return added + updated + deleted; }
+    }
+
+    private final List<Record> records = new ArrayList<>();
+    private final List<Error> parseErrors = new ArrayList<>();
+
+    public List<Record> getRecords() { return records; }
+    public List<Error> getParseErrors() { return parseErrors; }
+    public int size() { return records.size() + parseErrors.size(); }
+
+    public void add(Employee e) { records.add(new Record(size() + 1, Op.ADD, e.getId(), e)); }
+    public void update(Employee e) { records.add(new Record(size() + 1, Op.UPDATE, e.getId(), e)); }
+    public void delete(int id) { records.add(new Record(size() + 1, Op.DELETE, id, null)); }
+
+    public static EmployeeBatch read(Path file) throws IOException {
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return read(in);
+        }
+    }
+
+    public static EmployeeBatch read(BufferedReader in) throws IOException {
+        EmployeeBatch batch = new EmployeeBatch();
+        String line;
+        int n = 0;
+        while ((line = in.readLine()) != null) {
+            n++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            try {
+                batch.records.add(parse(n, line));
+            } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                batch.parseErrors.add(new Error(n, "Malformed record: " + line));
+            }
+        }
+        return batch;
+    }
+
+    // Why e cannot be stored, or null if it can. Names and departments end up
+    // in CSV rows, so they may not contain the separator or a line break.
+    static String problem(Employee e) {
+        if (blank(e.getName())) return "Employee " + e.getId() + " has no name";
+        if (blank(e.getDepartment())) return "Employee " + e.getId() + " has no department";
+        if (unsafe(e.getName()) || unsafe(e.getDepartment())) {
+            return "Employee " + e.getId() + ": name and department may not contain commas or line breaks";
+        }
+        return null;
+    }
+
+    private static boolean blank(String s) { return s == null || s.trim().isEmpty(); }
+
+    private static boolean unsafe(String s) {
+        return s.indexOf(',') >= 0 || s.indexOf('\n') >= 0 || s.indexOf('\r') >= 0;
+    }
+
+    private static Record parse(int line, String text) {
+        if (text.startsWith("D,")) {
+            return new Record(line, Op.DELETE, Integer.parseInt(text.substring(2).trim()), null);
+        }
+        Op op = Op.ADD;
+        if (text.startsWith("A,")) {
+            text = text.substring(2);
+        } else if (text.startsWith("U,")) {
+            op = Op.UPDATE;
+            text = text.substring(2);
+        }
+        if (text.split(",", -1).length != 8) throw new IllegalArgumentException();
+        Employee e = Employee.parseCSV(text);
+        if (e == null) throw new IllegalArgumentException();
+        return new Record(line, op, e.getId(), e);
+    }
+}
@@ -0,0 +1,177 @@
+package com.sumit.hr;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// =============================
+// EmployeeHistory: every committed state of every employee, as of any version
+// =============================
+// EmployeeStore records each change it commits: one add, one update() call
+// however many setters it ran, one delete, or a whole batch. Each commit
+// gets the next version number and a timestamp, and each employee it touched
+// gets a new head on its own chain of versions. A version holds one frozen
+// copy of the employee (name and department strings are shared with the
+// versions around it) and points at the previous version, which is never
+// copied or changed, so taking "the company as of version v" costs nothing
+// up front; a query walks each chain back to the newest version <= v.
+//
+// Writers link a commit under this object's monitor and only then publish
+// its version number; readers read the published version first, and so never
+// see half of a commit. Rows loaded from disk are the baseline, version 0,
+// present at any point in time; each is copied into history as it loads, so
+// every row has a chain and asOf() never reads the live rows, or waits for
+// the writers changing them. History is kept in memory for as long as the
+// store is open; forgetBefore() drops what audits no longer need.
+class EmployeeHistory {
+
+    static final class Version {
+        final long version;
+        final long time;           // epoch millis; 0 for the baseline
+        final long sequence;       // the row's place in listings
+        final Employee state;      // frozen; null once deleted
+        volatile Version previous; // cut by forgetBefore()
+
+        Version(long version, long time, long sequence, Employee state, Version previous) {
+            this.version = version;
+            this.time = time;
+            this.sequence = sequence;
+            this.state = state;
+            this.previous = previous;
+        }
+
+        public long getVersion() { return version; }
+        public Instant getTime() { return Instant.ofEpochMilli(time); }
+        public boolean isDeleted() { return state == null; }
+        // A copy of the employee as of this version; null once deleted.
+        public Employee getEmployee() { return state == null ? null : state.copy(); }
+    }
+
+    private final ConcurrentHashMap<Integer, Version> heads = new ConcurrentHashMap<>();
+    private volatile long committed;   // newest version whose changes are all linked
+    private volatile long oldest;      // versions before this were forgotten
+    private long lastTime;             // guarded by this; keeps time in version order
+    private long versions;             // guarded by this
+
+    // e as it was loaded from disk, before anything can change it. Does
+    // nothing if e already has versions.
+    synchronized void baseline(Employee e) {
+        if (heads.containsKey(e.getId())) return;
+        heads.put(e.getId(), new Version(0, 0, e.sequence, e.copy(), null));
+        versions++;
+    }
+
+    // One committed change; e is the employee after it, or null if it was
+    // deleted. Returns the new version.
+    synchronized long record(int id, Employee e) {
+        long v = committed + 1;
+        link(id, e, v, tick());
+        committed = v;
+        return v;
+    }
+
+    // Several changes committed as one version, ID -> employee after them
+    // (null if deleted). Returns the new version, or the current one if
+    // changes is empty.
+    synchronized long record(Map<Integer, Employee> changes) {
+        if (changes.isEmpty()) return committed;
+        long v = committed + 1;
+        long time = tick();
+        for (Map.Entry<Integer, Employee> c : changes.entrySet()) link(c.getKey(), c.getValue(), v, time);
+        committed = v;
+        return v;
+    }
+
+    // =============================
+    // Reads
+    // =============================
+
+    // The newest committed version.
+    public long version() {
+        return committed;
+    }
+
+    // Copies of everyone who existed at the given version and time, in
+    // listing order. A version past the newest means the newest. Takes no
+    // lock: heads linked meanwhile belong to later versions and are walked
+    // past.
+    //
+    // forgetBefore() may cut chains while they are walked, so oldest is read
+    // again afterwards: if it has moved past v, some chain may have ended
+    // early and the answer is refused rather than returned short.
+    public List<Employee> asOf(long version, long epochMillis) {
+        long v = Math.min(version, committed);
+        checkKept(v);
+        List<Version> found = new ArrayList<>();
+        for (Version head : heads.values()) {
+            Version at = at(head, v, epochMillis);
+            if (at != null && at.state != null) found.add(at);
+        }
+        checkKept(v);
+
+        found.sort(Comparator.comparingLong(a -> a.sequence));
+        List<Employee> result = new ArrayList<>(found.size());
+        for (Version at : found) result.add(at.state.copy());
+        return result;
+    }
+
+    // The employee's versions, newest first; empty if history never saw it.
+    public List<Version> of(int id) {
+        List<Version> result = new ArrayList<>();
+        for (Version at = heads.get(id); at != null; at = at.previous) result.add(at);
+        return result;
+    }
+
+    // Versions kept, including the baselines of loaded rows.
+    public synchronized long size() {
+        return versions;
+    }
+
+    // Drops versions that only as-of queries before version need; asking for
+    // those afterwards throws IllegalArgumentException. Employees deleted
+    // before version are forgotten entirely.
+    public synchronized void forgetBefore(long version) {
+        long v = Math.min(version, committed);
+        if (v <= oldest) return;
+        oldest = v;
+        for (Iterator<Version> it = heads.values().iterator(); it.hasNext(); ) {
+            Version head = it.next();
+            Version keep = at(head, v, Long.MAX_VALUE);
+            if (keep == null) continue;
+            for (Version gone = keep.previous; gone != null; gone = gone.previous) versions--;
+            keep.previous = null;
+            if (keep == head && keep.state == null) {
+                it.remove();
+                versions--;
+            }
+        }
+    }
+
+    // =============================
+    // Internals
+    // =============================
+
+    private void checkKept(long v) {
+        if (v < oldest) throw new IllegalArgumentException("History before version " + oldest + " has been forgotten");
+    }
+
+    // Caller holds the monitor.
+    private void link(int id, Employee e, long v, long time) {
+        Version previous = heads.get(id);
+        long sequence = e != null ? e.sequence : previous != null ? previous.sequence : 0;
+        heads.put(id, new Version(v, time, sequence, e == null ? null : e.copy(), previous));
+        versions++;
+    }
+
+    // Caller holds the monitor.
+    private long tick() {
+        lastTime = Math.max(lastTime, System.currentTimeMillis());
+        return lastTime;
+    }
+
+    private static Version at(Version head, long version, long epochMillis) {
+        Version at = head;
+        while (at != null && (at.version > version || at.time > epochMillis)) at = at.previous;
+        return at;
+    }
+}
@@ -0,0 +1,15 @@
+package com.sumit.hr;
+
+// =============================
+// EmployeeIndex: a secondary structure EmployeeStore keeps in sync
+// =============================
+// The store calls add() when an employee is stored, remove() when it is
+// deleted or replaced, and forwards the employee's change notifications.
+// Calls for one employee arrive under its stripe lock, but calls for
+// different employees can arrive concurrently, so implementations must be
+// thread-safe.
+interface EmployeeIndex extends EmployeeListener {
+    void add(Employee e);
+
+    void remove(Employee e);
+}
@@ -0,0 +1,333 @@
+package com.sumit.hr;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+// =============================
+// EmployeeJournal: append-only log of employee mutations
+// =============================
+// Each add/update appends "U,<csv row>" and each delete appends "D,<id>" to
+// <snapshot>.journal instead of rewriting the whole snapshot; a batch is
+// written as "B,<n>" followed by its n records. Once compactEvery records
+// have been written, compactIfDue() rotates the active log to a numbered
+// segment, takes a snapshot of the store and has a background thread write
+// it, after which the covered segments are deleted.
+// Any state taken after the rotation covers every rotated record.
+//
+// Recording is synchronized, so writers on different threads append whole
+// records in the order they call in. The log is forced to disk after every
+// syncEvery records; with syncEvery > 1 a timer also forces whatever is
+// pending every SYNC_MILLIS, so an acknowledged change is never left unsynced
+// for longer than that, however long the next write takes to come.
+//
+// SnapshotFormat replaces the snapshot atomically, so a crash leaves either
+// the old or the new snapshot plus the log records that follow it. Replay
+// applies full rows, so replaying a segment that is already folded into the
+// snapshot is harmless.
+class EmployeeJournal implements Closeable {
+    static final long SYNC_MILLIS = 100;
+
+    private final Path snapshot;
+    private final SnapshotFormat format;
+    private final Path active;
+    private final Supplier<List<Employee>> state;
+    private final int syncEvery;
+    private final int compactEvery;
+
+    private FileChannel channel;
+    private int unsynced;
+    private int sinceCompaction;
+    private int replayed;
+    private int lastSegment;
+    private Future<?> compaction;
+    private boolean rotating;
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "journal-compactor");
+        t.setDaemon(true);
+        return t;
+    });
+    private ScheduledExecutorService syncer;   // only when syncEvery > 1
+    private IOException syncFailure;           // from the timer; thrown by the next record
+
+    // state supplies detached copies of every employee; it is called with no
+    // journal lock held.
+    public EmployeeJournal(Path snapshot, SnapshotFormat format, Supplier<List<Employee>> state,
+                           int syncEvery, int compactEvery) {
+        this.snapshot = snapshot;
+        this.format = format;
+        this.active = snapshot.resolveSibling(snapshot.getFileName() + ".journal");
+        this.state = state;
+        this.syncEvery = Math.max(1, syncEvery);
+        this.compactEvery = Math.max(1, compactEvery);
+    }
+
+    // =============================
+    // Startup
+    // =============================
+
+    // Applies every segment and then the active log, oldest first, on top of
+    // the rows already loaded from the snapshot. Returns the records applied.
+    public synchronized int replay(IntObjectMap<Employee> into) throws IOException {
+        for (Path segment : segments()) {
+            replayed += replay(segment, into);
+            lastSegment = Math.max(lastSegment, segmentNumber(segment));
+        }
+        if (Files.exists(active)) {
+            replayed += replay(active, into);
+        }
+        return replayed;
+    }
+
+    // Must be called once the replayed state has been loaded into the live
+    // collection. Folds any replayed records into the snapshot so the session
+    // starts with an empty log.
+    public synchronized void open() throws IOException {
+        if (replayed > 0) {
+            format.write(snapshot, state.get());
+            for (Path segment : segments()) Files.delete(segment);
+            Files.deleteIfExists(active);
+            replayed = 0;
+        }
+        openChannel();
+        if (syncEvery > 1) {
+            syncer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "journal-sync");
+                t.setDaemon(true);
+                return t;
+            });
+            syncer.scheduleWithFixedDelay(this::syncPending, SYNC_MILLIS, SYNC_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // =============================
+    // Recording
+    // =============================
+    public synchronized void recordUpsert(Employee e) throws IOException {
+        append("U," + e.toCSV());
+    }
+
+    public synchronized void recordDelete(int id) throws IOException {
+        append("D," + id);
+    }
+
+    // Appends "B,<n>" and the batch's n records in one write with at most one
+    // fsync. Replay applies the group only if all n records reached the disk.
+    public synchronized void recordBatch(List<String> records) throws IOException {
+        checkSync();
+        StringBuilder sb = new StringBuilder("B,").append(records.size()).append('\n');
+        for (String r : records) sb.append(r).append('\n');
+        ByteBuffer buf = StandardCharsets.UTF_8.encode(sb.toString());
+        while (buf.hasRemaining()) channel.write(buf);
+        if (++unsynced >= syncEvery) {
+            channel.force(false);
+            unsynced = 0;
+        }
+        sinceCompaction += records.size();
+    }
+
+    // Starts a background compaction if enough records have been written and
+    // none is running. Callers must not hold locks that state.get() needs.
+    public void compactIfDue() throws IOException {
+        int segment;
+        synchronized (this) {
+            checkCompaction();
+            if (sinceCompaction < compactEvery || rotating || compaction != null) return;
+            segment = ++lastSegment;
+            channel.force(false);
+            channel.close();
+            Files.move(active, segmentPath(segment), StandardCopyOption.ATOMIC_MOVE);
+            openChannel();
+            sinceCompaction = 0;
+            rotating = true;
+        }
+        List<Employee> rows;
+        try {
+            rows = state.get();
+        } finally {
+            synchronized (this) {
+                rotating = false;
+            }
+        }
+        synchronized (this) {
+            if (compactor.isShutdown()) return;  // closed meanwhile; replay picks the segment up
+            compaction = compactor.submit(() -> {
+                format.write(snapshot, rows);
+                for (Path p : segments()) {
+                    if (segmentNumber(p) <= segment) Files.delete(p);
+                }
+                return null;
+            });
+        }
+    }
+
+    // Closes the journal and removes its log, which open() has left empty,
+    // when the store goes back to rewriting the snapshot on every change.
+    public synchronized void retire() throws IOException {
+        close();
+        Files.deleteIfExists(active);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (syncer != null) syncer.shutdown();
+        try {
+            awaitCompaction();
+        } finally {
+            compactor.shutdown();
+            if (channel != null) {
+                channel.force(false);
+                channel.close();
+                channel = null;
+            }
+        }
+    }
+
+    // =============================
+    // Internals
+    // =============================
+    private void append(String record) throws IOException {
+        checkSync();
+        ByteBuffer buf = StandardCharsets.UTF_8.encode(record + "\n");
+        while (buf.hasRemaining()) channel.write(buf);
+        if (++unsynced >= syncEvery) {
+            channel.force(false);
+            unsynced = 0;
+        }
+        sinceCompaction++;
+    }
+
+    // Run by the timer: forces records still waiting for the count.
+    private synchronized void syncPending() {
+        if (channel == null || unsynced == 0 || syncFailure != null) return;
+        try {
+            channel.force(false);
+            unsynced = 0;
+        } catch (IOException e) {
+            syncFailure = e;
+        }
+    }
+
+    private void checkSync() throws IOException {
+        if (syncFailure != null) throw new IOException("Journal sync failed: " + syncFailure.getMessage(), syncFailure);
+    }
+
+    // Surfaces a failed background compaction on the caller's thread. The
+    // segments it would have removed stay on disk and are picked up by the
+    // next compaction or by replay.
+    private void checkCompaction() throws IOException {
+        if (compaction == null || !compaction.isDone()) return;
+        Future<?> done = compaction;
+        compaction = null;
+        try {
+            done.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IOException("Journal compaction failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private void awaitCompaction() throws IOException {
+        if (compaction == null) return;
+        try {
+            compaction.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IOException("Journal compaction failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            compaction = null;
+        }
+    }
+
+    private void openChannel() throws IOException {
+        channel = FileChannel.open(active, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        unsynced = 0;
+    }
+
+    private int replay(Path log, IntObjectMap<Employee> into) throws IOException {
+        // A record is only complete once its newline is on disk; a torn tail
+        // left by a crash is ignored, and so is a batch cut short by one.
+        boolean complete = endsWithNewline(log);
+        List<String> lines = Files.readAllLines(log, StandardCharsets.UTF_8);
+        int whole = complete ? lines.size() : lines.size() - 1;
+        int applied = 0;
+        int at = 0;
+        try {
+            for (int i = 0; i < whole; i++) {
+                at = i;
+                String line = lines.get(i);
+                if (!line.startsWith("B,")) {
+                    if (apply(line, into)) applied++;
+                    continue;
+                }
+                int n = Integer.parseInt(line.substring(2).trim());
+                if (n < 0) throw new NumberFormatException("negative batch size " + n);
+                if (i + n >= whole) break;
+                for (int j = 1; j <= n; j++) {
+                    at = i + j;
+                    if (apply(lines.get(i + j), into)) applied++;
+                }
+                i += n;
+            }
+        } catch (NumberFormatException e) {
+            throw new IOException(log + " is corrupt at line " + (at + 1) + ": " + e.getMessage(), e);
+        }
+        return applied;
+    }
+
+    private static boolean apply(String record, IntObjectMap<Employee> into) {
+        if (record.startsWith("U,")) {
+            Employee e = Employee.parseCSV(record.substring(2));
+            if (e == null) return false;
+            into.put(e.getId(), e);
+            return true;
+        }
+        if (record.startsWith("D,")) {
+            into.remove(Integer.parseInt(record.substring(2).trim()));
+            return true;
+        }
+        return false;
+    }
+
+    private static boolean endsWithNewline(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size == 0) return true;
+            ByteBuffer last = ByteBuffer.allocate(1);
+            ch.read(last, size - 1);
+            return last.get(0) == '\n';
+        }
+    }
+
+    private Path segmentPath(int segment) {
+        return active.resolveSibling(active.getFileName() + "." + segment);
+    }
+
+    private int segmentNumber(Path segment) {
+        String name = segment.getFileName().toString();
+        return Integer.parseInt(name.substring(active.getFileName().toString().length() + 1));
+    }
+
+    // Rotated segments, oldest first.
+    private List<Path> segments() throws IOException {
+        List<Path> found = new ArrayList<>();
+        Path dir = active.toAbsolutePath().getParent();
+        String prefix = active.getFileName() + ".";
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, prefix + "*")) {
+            for (Path p : ds) {
+                String suffix = p.getFileName().toString().substring(prefix.length());
+                if (!suffix.isEmpty() && suffix.chars().allMatch(Character::isDigit)) found.add(p);
+            }
+        }
+        found.sort(Comparator.comparingInt(this::segmentNumber));
+        return found;
+    }
+}
@@ -0,0 +1,15 @@
+package com.sumit.hr;
+
+// =============================
+// EmployeeListener: change hook for indexed Employee fields
+// =============================
+// An Employee owned by EmployeeStore carries a listener so that indexes
+// built over its fields stay in sync when a setter is called on it directly.
+interface EmployeeListener {
+    void departmentChanged(Employee e, String oldDepartment);
+
+    default void nameChanged(Employee e, String oldName) { }
+
+    // Salary, sales or team size changed, so computeFinalSalary() may have too.
+    default void payChanged(Employee e) { }
+}
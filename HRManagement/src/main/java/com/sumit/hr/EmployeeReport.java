@@ -0,0 +1,276 @@
+package com.sumit.hr;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Locale;
+
+// =============================
+// EmployeeReport: employee listings rendered into one reused buffer
+// =============================
+// Formats employees as the console's text blocks, as CSV or as a JSON array,
+// straight into a Utf8Writer buffer that reaches the output in large chunks
+// instead of five to ten println calls per employee. Rows are usually fed a
+// page at a time from EmployeeStore.pages(), so a report over the whole
+// store never holds every copy at once.
+//
+// Usage: begin(), employee() for each row, end(). With pay set, each row
+// also carries its bonus and final salary.
+class EmployeeReport extends Utf8Writer {
+    enum Format {
+        TEXT, CSV, JSON;
+
+        static Format parse(String s) {
+            switch (s.trim().toLowerCase(Locale.ROOT)) {
+                case "text": case "txt": return TEXT;
+                case "csv": return CSV;
+                case "json": return JSON;
+                default: throw new IllegalArgumentException("Report format must be text, csv or json");
+            }
+        }
+    }
+
+    static final int PAGE = 1024;    // rows per EmployeeStore page
+
+    private static final byte[] RULE = bytes("-----------------------------------");
+    private static final byte[] ID = bytes("Employee ID: ");
+    private static final byte[] NAME = bytes("Name       : ");
+    private static final byte[] DEPARTMENT = bytes("Department : ");
+    private static final byte[] SALARY = bytes("Salary     : ");
+    private static final byte[] SALES = bytes("Sales      : ");
+    private static final byte[] COMMISSION = bytes("Commission : ");
+    private static final byte[] TARGET = bytes("Target     : ");
+    private static final byte[] TEAM_SIZE = bytes("Team Size  : ");
+    private static final byte[] BONUS = bytes("Bonus: ");
+    private static final byte[] FINAL_SALARY = bytes("Final Salary: ");
+    private static final byte[] CSV_HEADER = bytes("Type,ID,Name,Department,Salary,Sales,Commission Rate,Target,Team Size");
+    private static final byte[] CSV_PAY = bytes(",Bonus,Final Salary");
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Format format;
+    private final boolean pay;
+    private int rows;
+
+    EmployeeReport(WritableByteChannel out, Format format, boolean pay) {
+        this(out, format, pay, 256 * 1024);
+    }
+
+    EmployeeReport(WritableByteChannel out, Format format, boolean pay, int bufferSize) {
+        super(out, bufferSize);
+        this.format = format;
+        this.pay = pay;
+    }
+
+    // A report on out, which is flushed but not closed by end(). System.out
+    // keeps its place among other console output this way, and a 256 KB chunk
+    // goes to it in one write.
+    static EmployeeReport to(OutputStream out, Format format, boolean pay) {
+        return new EmployeeReport(channel(out), format, pay);
+    }
+
+    // One employee's text block on System.out, as displayInfo() prints it.
+    static void print(Employee e, boolean pay) {
+        try {
+            EmployeeReport r = new EmployeeReport(channel(System.out), Format.TEXT, pay, 1024);
+            r.employee(e);
+            r.end();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    // =============================
+    // Rendering
+    // =============================
+    public void begin() throws IOException {
+        if (format == Format.CSV) {
+            ascii(CSV_HEADER);
+            if (pay) ascii(CSV_PAY);
+            newline();
+        } else if (format == Format.JSON) {
+            ascii('[');
+        }
+    }
+
+    public void employee(Employee e) throws IOException {
+        switch (format) {
+            case TEXT: text(e); break;
+            case CSV: csv(e); break;
+            default: json(e); break;
+        }
+        rows++;
+    }
+
+    public void end() throws IOException {
+        if (format == Format.JSON) {
+            if (rows > 0) newline();
+            ascii(']').newline();
+        }
+        flush();
+    }
+
+    // Same lines as the console has always printed: displayInfo(), then the
+    // bonus, final salary and a closing rule when pay is set.
+    private void text(Employee e) throws IOException {
+        ascii(RULE).newline();
+        ascii(ID).number(e.getId()).newline();
+        ascii(NAME).text(e.getName()).newline();
+        ascii(DEPARTMENT).text(e.getDepartment()).newline();
+        ascii(SALARY).number(e.getSalary()).newline();
+        if (e instanceof SalesEmployee) {
+            SalesEmployee s = (SalesEmployee) e;
+            ascii(SALES).number(s.getSales()).newline();
+            ascii(COMMISSION).number(s.getCommissionRate() * 100).ascii('%').newline();
+            ascii(TARGET).number(s.getTarget()).newline();
+        } else if (e instanceof Manager) {
+            ascii(TEAM_SIZE).number(((Manager) e).getTeamSize()).newline();
+        }
+        if (pay) {
+            double bonus = e.calculateBonus();
+            ascii(BONUS).number(bonus).newline();
+            ascii(FINAL_SALARY).number(e.getSalary() + bonus).newline();
+            ascii(RULE).newline();
+        }
+    }
+
+    // Columns that do not apply to the type are left empty.
+    private void csv(Employee e) throws IOException {
+        csvText(e.getType());
+        ascii(',').number(e.getId()).ascii(',');
+        csvText(e.getName());
+        ascii(',');
+        csvText(e.getDepartment());
+        ascii(',').number(e.getSalary()).ascii(',');
+        if (e instanceof SalesEmployee) {
+            SalesEmployee s = (SalesEmployee) e;
+            number(s.getSales()).ascii(',').number(s.getCommissionRate()).ascii(',').number(s.getTarget()).ascii(',');
+        } else if (e instanceof Manager) {
+            ascii(',').ascii(',').ascii(',').number(((Manager) e).getTeamSize());
+        } else {
+            ascii(',').ascii(',').ascii(',');
+        }
+        if (pay) {
+            double bonus = e.calculateBonus();
+            ascii(',').number(bonus).ascii(',').number(e.getSalary() + bonus);
+        }
+        newline();
+    }
+
+    // One object per line; the field names match HRServer's responses.
+    private void json(Employee e) throws IOException {
+        if (rows > 0) ascii(',');
+        newline();
+        ascii('{');
+        jsonName("type");
+        jsonText(e.getType());
+        jsonNext("id").number(e.getId());
+        jsonNext("name");
+        jsonText(e.getName());
+        jsonNext("department");
+        jsonText(e.getDepartment());
+        jsonNext("salary").number(e.getSalary());
+        if (e instanceof SalesEmployee) {
+            SalesEmployee s = (SalesEmployee) e;
+            jsonNext("sales").number(s.getSales());
+            jsonNext("commissionRate").number(s.getCommissionRate());
+            jsonNext("target").number(s.getTarget());
+        } else if (e instanceof Manager) {
+            jsonNext("teamSize").number(((Manager) e).getTeamSize());
+        }
+        if (pay) {
+            double bonus = e.calculateBonus();
+            jsonNext("bonus").number(bonus);
+            jsonNext("finalSalary").number(e.getSalary() + bonus);
+        }
+        ascii('}');
+    }
+
+    // =============================
+    // Escaping
+    // =============================
+
+    // Quoted only when the value holds a comma, quote or line break.
+    private void csvText(String s) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < s.length() && !quote; i++) {
+            char c = s.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            text(s);
+            return;
+        }
+        ascii('"');
+        int from = 0;
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) == '"') {
+                text(s, from, i + 1).ascii('"');
+                from = i + 1;
+            }
+        }
+        text(s, from, s.length()).ascii('"');
+    }
+
+    private void jsonName(String name) throws IOException {
+        ascii('"').text(name).ascii('"').ascii(':');
+    }
+
+    private Utf8Writer jsonNext(String name) throws IOException {
+        ascii(',');
+        jsonName(name);
+        return this;
+    }
+
+    // Runs of plain characters are encoded in one call; quotes, backslashes
+    // and control characters are escaped.
+    private void jsonText(String s) throws IOException {
+        ascii('"');
+        int from = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') continue;
+            text(s, from, i).ascii('\\');
+            switch (c) {
+                case '"': ascii('"'); break;
+                case '\\': ascii('\\'); break;
+                case '\n': ascii('n'); break;
+                case '\r': ascii('r'); break;
+                case '\t': ascii('t'); break;
+                default:
+                    ascii('u').ascii('0').ascii('0').ascii(HEX[c >> 4]).ascii(HEX[c & 0xF]);
+            }
+            from = i + 1;
+        }
+        text(s, from, s.length()).ascii('"');
+    }
+
+    // Hands each drained chunk to out in one write and flushes it; closing
+    // the channel leaves out open.
+    private static WritableByteChannel channel(OutputStream out) {
+        return new WritableByteChannel() {
+            @Override
+            public int write(ByteBuffer src) throws IOException {
+                int n = src.remaining();
+                out.write(src.array(), src.arrayOffset() + src.position(), n);
+                out.flush();
+                src.position(src.limit());
+                return n;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+}
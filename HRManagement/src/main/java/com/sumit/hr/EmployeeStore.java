@@ -0,0 +1,831 @@
+package com.sumit.hr;
+
+import java.io.*;
+import java.nio.file.*;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.*;
+import java.util.function.Consumer;
+
+// =============================
+// EmployeeStore: thread-safe employee storage, independent of any UI
+// =============================
+// Employees are spread over lock stripes by ID. Each stripe holds its rows in
+// an IntObjectMap behind a read/write lock, so lookups of different IDs run in
+// parallel and a write only locks the rows of its own stripe. The secondary
+// indexes (department, salary, payroll totals, names) and the history are
+// single objects behind their own monitors, so writers to different stripes
+// still take turns briefly while those are updated; reads of the rows never
+// wait on them. snapshot() takes every stripe's read lock at once and so sees
+// a single point in time.
+//
+// The store owns its Employee objects: callers get detached copies and change
+// rows through update(), which applies the change under the stripe lock and
+// then records it. Persistence is optional; see the file-backed and the
+// partitioned constructors.
+//
+// Every add, update and delete is published to changes() while the stripe is
+// still locked, so events for one employee come out in the order they were
+// applied. Loading, replaying the journal and swapping bonus rules publish
+// nothing. The same changes are kept as versions in an EmployeeHistory, so
+// the company can be read back as of any earlier version or time.
+class EmployeeStore implements Closeable {
+    private static final int STRIPES = 64;
+
+    // Fans add/remove and change notifications out to every index; stored
+    // employees carry it as their listener.
+    private static class Indexes implements EmployeeIndex {
+        private final EmployeeIndex[] all;
+
+        Indexes(EmployeeIndex... all) {
+            this.all = all;
+        }
+
+        @Override
+        public void add(Employee e) {
+            for (EmployeeIndex i : all) i.add(e);
+        }
+
+        @Override
+        public void remove(Employee e) {
+            for (EmployeeIndex i : all) i.remove(e);
+        }
+
+        @Override
+        public void departmentChanged(Employee e, String oldDepartment) {
+            for (EmployeeIndex i : all) i.departmentChanged(e, oldDepartment);
+        }
+
+        @Override
+        public void payChanged(Employee e) {
+            for (EmployeeIndex i : all) i.payChanged(e);
+        }
+
+        @Override
+        public void nameChanged(Employee e, String oldName) {
+            for (EmployeeIndex i : all) i.nameChanged(e, oldName);
+        }
+    }
+
+    private static class Stripe {
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        final IntObjectMap<Employee> rows = new IntObjectMap<>();
+    }
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final AtomicLong sequence = new AtomicLong();  // insertion order across stripes
+    private final DepartmentIndex departments = new DepartmentIndex();
+    private final SalaryIndex salaries = new SalaryIndex();
+    private final PayrollAggregates aggregates = new PayrollAggregates();
+    private final NameIndex names = new NameIndex();
+    private final Indexes indexes;
+    private final ChangeStream changes = new ChangeStream();
+    private final EmployeeHistory history = new EmployeeHistory();
+    private ChangeLog changeLog;          // null unless logChangesTo() was called
+
+    private final Path snapshotFile;      // null for an in-memory store
+    private final SnapshotFormat format;
+    private EmployeeJournal journal;      // null unless running in journal mode
+    private final PartitionedStorage partitions;  // null unless partitioned
+    private final Object saveLock = new Object();
+    private final AtomicLong saveRequests = new AtomicLong();
+    private long savedUpTo;               // guarded by saveLock
+    private int duplicatesSkipped;
+    private boolean imported;
+
+    // In-memory store with no persistence.
+    public EmployeeStore() {
+        this.snapshotFile = null;
+        this.format = null;
+        this.partitions = null;
+        this.indexes = new Indexes(departments, salaries, aggregates, names);
+        initStripes();
+    }
+
+    // Loads snapshotFile, or imports importCsv if the snapshot does not exist
+    // yet, and replays any journal left next to the snapshot. In journal mode
+    // each change is appended to the journal; otherwise every change rewrites
+    // the snapshot.
+    public EmployeeStore(Path snapshotFile, SnapshotFormat format, Path importCsv,
+                         boolean journalMode, int syncEvery, int compactEvery) throws IOException {
+        this.snapshotFile = snapshotFile;
+        this.format = format;
+        this.partitions = null;
+        this.indexes = new Indexes(departments, salaries, aggregates, names);
+        initStripes();
+
+        List<Employee> rows = Collections.emptyList();
+        if (Files.exists(snapshotFile)) {
+            rows = format.read(snapshotFile);
+        } else if (importCsv != null && !importCsv.equals(snapshotFile) && Files.exists(importCsv)) {
+            rows = new CsvSnapshot().read(importCsv);
+            imported = true;
+        }
+        IntObjectMap<Employee> loaded = new IntObjectMap<>(rows.size());
+        for (Employee e : rows) {
+            if (loaded.containsKey(e.getId())) {
+                duplicatesSkipped++;
+                continue;
+            }
+            loaded.put(e.getId(), e);
+        }
+
+        EmployeeJournal j = new EmployeeJournal(snapshotFile, format, this::snapshot, syncEvery, compactEvery);
+        j.replay(loaded);
+        for (Employee e : loaded) {
+            insertLoaded(e);
+        }
+        if (imported) save();
+        j.open();
+        if (journalMode) {
+            journal = j;
+        } else {
+            j.retire();
+        }
+    }
+
+    // Partitioned mode (see PartitionedStorage): opening reads only the
+    // partition manifest, or the first time splits importCsv into partitions.
+    // A partition's rows are read when a query first needs them, so reads can
+    // throw UncheckedIOException, and a change rewrites only the partitions
+    // it touched. Listings follow the order partitions were read in. There is
+    // no journal in this mode.
+    public EmployeeStore(PartitionedStorage storage, Path importCsv) throws IOException {
+        this.snapshotFile = null;
+        this.format = null;
+        this.partitions = storage;
+        this.indexes = new Indexes(departments, salaries, aggregates, names, storage);
+        initStripes();
+
+        List<Employee> rows = storage.open(importCsv);
+        if (rows != null) {
+            imported = true;
+            for (Employee e : rows) {
+                if (stripe(e.getId()).rows.containsKey(e.getId())) {
+                    duplicatesSkipped++;
+                    continue;
+                }
+                insertLoaded(e);
+            }
+        }
+        duplicatesSkipped += storage.getDuplicatesSkipped();
+        try {
+            for (PartitionedStorage.Partition p : storage.misplaced()) load(p);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        save();
+    }
+
+    // Rows dropped while loading because their ID appeared earlier in the file.
+    public int getDuplicatesSkipped() { return duplicatesSkipped; }
+
+    // True if the rows were imported from CSV because the snapshot was missing.
+    public boolean wasImported() { return imported; }
+
+    // Keeps a durable ChangeLog of every change in file from now on. Must be
+    // called before the first change; close() closes it.
+    public void logChangesTo(Path file, boolean sync) throws IOException {
+        if (changeLog != null) throw new IllegalStateException("Already logging changes to " + changeLog.getFile());
+        changeLog = new ChangeLog(changes, file, sync);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (journal != null) journal.close();
+        } finally {
+            if (changeLog != null) changeLog.close();
+        }
+    }
+
+    // =============================
+    // Reads
+    // =============================
+    public int size() {
+        if (partitions != null) return partitions.size();
+        int n = 0;
+        for (Stripe s : stripes) {
+            s.lock.readLock().lock();
+            try {
+                n += s.rows.size();
+            } finally {
+                s.lock.readLock().unlock();
+            }
+        }
+        return n;
+    }
+
+    public boolean contains(int id) {
+        loadId(id);
+        Stripe s = stripe(id);
+        s.lock.readLock().lock();
+        try {
+            return s.rows.containsKey(id);
+        } finally {
+            s.lock.readLock().unlock();
+        }
+    }
+
+    // A detached copy, or null if there is no such employee.
+    public Employee get(int id) {
+        loadId(id);
+        Stripe s = stripe(id);
+        s.lock.readLock().lock();
+        try {
+            Employee e = s.rows.get(id);
+            return e == null ? null : e.copy();
+        } finally {
+            s.lock.readLock().unlock();
+        }
+    }
+
+    // Copies of everyone in the department (case-insensitive), in insertion order.
+    public List<Employee> byDepartment(String department) {
+        loadDepartment(department);
+        int[] ids = departments.ids(department);
+        List<Employee> result = new ArrayList<>(ids.length);
+        String key = DepartmentIndex.normalize(department);
+        for (int id : ids) {
+            Employee e = get(id);
+            // The employee may have moved or left since the IDs were read.
+            if (e != null && DepartmentIndex.normalize(e.getDepartment()).equals(key)) result.add(e);
+        }
+        return result;
+    }
+
+    // Copies of the k highest paid by key, highest first; department (matched
+    // like byDepartment) may be null for the whole company.
+    public List<Employee> top(SalaryIndex.Key key, int k, String department) {
+        loadDepartment(department);
+        return copies(salaries.top(key, k, department));
+    }
+
+    // Copies of everyone with min <= key <= max, lowest first.
+    public List<Employee> salaryRange(SalaryIndex.Key key, double min, double max, String department) {
+        loadDepartment(department);
+        return copies(salaries.range(key, min, max, department));
+    }
+
+    public int countSalaryBetween(SalaryIndex.Key key, double min, double max, String department) {
+        loadDepartment(department);
+        return salaries.count(key, min, max, department);
+    }
+
+    // Nearest-rank percentile of key (0 < p <= 100); NaN if nobody matches.
+    public double percentile(SalaryIndex.Key key, double p, String department) {
+        loadDepartment(department);
+        return salaries.percentile(key, p, department);
+    }
+
+    // Copies of the employees whose names match query (see NameIndex), best
+    // match first; offset and limit select the page.
+    public List<Employee> searchNames(String query, NameIndex.Mode mode, int offset, int limit) {
+        loadAll();
+        return copies(names.search(query, mode, offset, limit));
+    }
+
+    // Running payroll statistics; reading them never scans the store.
+    public PayrollAggregates aggregates() {
+        loadAll();
+        return aggregates;
+    }
+
+    // Department name -> head count, in the order departments first appeared.
+    public Map<String, Integer> headCounts() {
+        loadAll();
+        return departments.headCounts();
+    }
+
+    // Copies of every employee as of one point in time, in insertion order.
+    // Writers are held off only while the rows are copied.
+    public List<Employee> snapshot() {
+        loadAll();
+        Employee[][] copies = new Employee[STRIPES][];
+        long[][] order = new long[STRIPES][];
+        for (Stripe s : stripes) s.lock.readLock().lock();
+        try {
+            copyRows(copies, order);
+        } finally {
+            for (Stripe s : stripes) s.lock.readLock().unlock();
+        }
+        return merge(copies, order);
+    }
+
+    // Copies of every employee, size at a time, in insertion order. Only the
+    // IDs are read up front, as of one point in time, so a report over the
+    // whole store holds one page of copies rather than all of them. Rows are
+    // copied when their page is reached: an employee deleted by then is
+    // skipped, one added after the IDs were read is not visited.
+    public Iterable<List<Employee>> pages(int size) {
+        if (size <= 0) throw new IllegalArgumentException("Page size must be positive");
+        return () -> new Iterator<List<Employee>>() {
+            private final int[] ids = ids();
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < ids.length;
+            }
+
+            @Override
+            public List<Employee> next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                int to = (int) Math.min(ids.length, (long) next + size);
+                List<Employee> page = copies(Arrays.copyOfRange(ids, next, to));
+                next = to;
+                return page;
+            }
+        };
+    }
+
+    // Every ID as of one point in time, in insertion order.
+    private int[] ids() {
+        loadAll();
+        int[][] ids = new int[STRIPES][];
+        long[][] order = new long[STRIPES][];
+        for (Stripe s : stripes) s.lock.readLock().lock();
+        try {
+            for (int i = 0; i < STRIPES; i++) {
+                IntObjectMap<Employee> rows = stripes[i].rows;
+                ids[i] = new int[rows.size()];
+                order[i] = new long[rows.size()];
+                int j = 0;
+                for (Employee e : rows) {
+                    ids[i][j] = e.getId();
+                    order[i][j] = e.sequence;
+                    j++;
+                }
+            }
+        } finally {
+            for (Stripe s : stripes) s.lock.readLock().unlock();
+        }
+        long[] positions = merge(order);
+        int[] result = new int[positions.length];
+        for (int n = 0; n < positions.length; n++) result[n] = ids[(int) (positions[n] >>> 32)][(int) positions[n]];
+        return result;
+    }
+
+    // =============================
+    // History
+    // =============================
+
+    // The newest committed version; see EmployeeHistory.
+    public long version() {
+        return history.version();
+    }
+
+    // Copies of every employee as of the given version, in listing order.
+    public List<Employee> asOf(long version) {
+        return asOf(version, Long.MAX_VALUE);
+    }
+
+    // Copies of every employee as of the given time, in listing order. Rows
+    // loaded from disk count as present at any time.
+    public List<Employee> asOf(Instant when) {
+        return asOf(Long.MAX_VALUE, when.toEpochMilli());
+    }
+
+    // Read from history alone, so no stripe is locked and writers carry on.
+    private List<Employee> asOf(long version, long epochMillis) {
+        loadAll();
+        return history.asOf(version, epochMillis);
+    }
+
+    // The employee's versions, newest first, down to the version as loaded.
+    public List<EmployeeHistory.Version> history(int id) {
+        loadId(id);
+        return history.of(id);
+    }
+
+    // Versions kept, counting every row as loaded.
+    public long historySize() {
+        return history.size();
+    }
+
+    // See EmployeeHistory.forgetBefore().
+    public void forgetHistoryBefore(long version) {
+        history.forgetBefore(version);
+    }
+
+    // =============================
+    // Change events
+    // =============================
+
+    // The stream every change is published to.
+    public ChangeStream changes() {
+        return changes;
+    }
+
+    // Adds copies of every employee to into and returns a subscription that
+    // starts with the first change after them, so applying its events to the
+    // copies keeps them current. Changes publish under stripe locks, so
+    // holding every read lock pins the offset to the copied state.
+    public ChangeStream.Subscription follow(List<Employee> into) {
+        loadAll();
+        Employee[][] copies = new Employee[STRIPES][];
+        long[][] order = new long[STRIPES][];
+        ChangeStream.Subscription subscription;
+        for (Stripe s : stripes) s.lock.readLock().lock();
+        try {
+            copyRows(copies, order);
+            subscription = changes.subscribe();
+        } finally {
+            for (Stripe s : stripes) s.lock.readLock().unlock();
+        }
+        into.addAll(merge(copies, order));
+        return subscription;
+    }
+
+    // =============================
+    // Writes
+    // =============================
+
+    // Stores a copy of e. Returns false, changing nothing, if the ID exists.
+    public boolean add(Employee e) throws IOException {
+        Employee owned = e.copy();
+        loadId(owned.getId());
+        Stripe s = stripe(owned.getId());
+        s.lock.writeLock().lock();
+        try {
+            if (s.rows.containsKey(owned.getId())) return false;
+            if (journal != null) {
+                // Adds in other stripes race for the next sequence number;
+                // taking it under the journal lock keeps the log in insertion
+                // order, so a replayed store lists employees the same way.
+                // The record goes first: if it fails, nothing has changed.
+                synchronized (journal) {
+                    journal.recordUpsert(owned);
+                    insert(owned);
+                }
+            } else {
+                insert(owned);
+            }
+            changes.publish(ChangeStream.Op.ADD, owned.getId(), owned.toCSV());
+            history.record(owned.getId(), owned);
+        } finally {
+            s.lock.writeLock().unlock();
+        }
+        persisted();
+        return true;
+    }
+
+    // Applies change to a copy of the stored employee while no other thread
+    // can read or write it, journals the copy and only then puts it in the
+    // stored one's place, so a failed journal write changes nothing. Returns
+    // false if there is no such employee.
+    public boolean update(int id, Consumer<Employee> change) throws IOException {
+        loadId(id);
+        Stripe s = stripe(id);
+        s.lock.writeLock().lock();
+        try {
+            Employee current = s.rows.get(id);
+            if (current == null) return false;
+            Employee e = current.copy();
+            change.accept(e);
+            if (journal != null) journal.recordUpsert(e);
+            replace(s, current, e);
+            changes.publish(ChangeStream.Op.UPDATE, id, e.toCSV());
+            history.record(id, e);
+        } finally {
+            s.lock.writeLock().unlock();
+        }
+        persisted();
+        return true;
+    }
+
+    public boolean delete(int id) throws IOException {
+        loadId(id);
+        Stripe s = stripe(id);
+        s.lock.writeLock().lock();
+        try {
+            Employee e = s.rows.get(id);
+            if (e == null) return false;
+            if (journal != null) journal.recordDelete(id);
+            remove(e);
+            changes.publish(ChangeStream.Op.DELETE, id, null);
+            history.record(id, null);
+        } finally {
+            s.lock.writeLock().unlock();
+        }
+        persisted();
+        return true;
+    }
+
+    // Applies every valid record of the batch as one change: all stripes are
+    // write-locked while the batch runs, so readers see none or all of it.
+    // Records are checked in order against the store as changed by the records
+    // before them; a record that fails is reported and skipped without
+    // stopping the rest. The accepted records are journaled before any of
+    // them touches the store, so a failed journal write changes nothing. The
+    // store is persisted once, after the batch.
+    public EmployeeBatch.Result apply(EmployeeBatch batch) throws IOException {
+        EmployeeBatch.Result result = new EmployeeBatch.Result();
+        result.errors.addAll(batch.getParseErrors());
+        List<Accepted> accepted = new ArrayList<>();
+        Map<Integer, Employee> changed = new LinkedHashMap<>();
+        for (EmployeeBatch.Record r : batch.getRecords()) loadId(r.id);
+        for (Stripe s : stripes) s.lock.writeLock().lock();
+        try {
+            for (EmployeeBatch.Record r : batch.getRecords()) {
+                String error = check(r, changed, accepted);
+                if (error != null) {
+                    result.errors.add(new EmployeeBatch.Error(r.line, error));
+                    continue;
+                }
+                switch (r.op) {
+                    case ADD: result.added++; break;
+                    case UPDATE: result.updated++; break;
+                    case DELETE: result.deleted++; break;
+                }
+            }
+            if (journal != null && !accepted.isEmpty()) {
+                List<String> logged = new ArrayList<>(accepted.size());
+                for (Accepted a : accepted) logged.add(a.row != null ? "U," + a.row : "D," + a.record.id);
+                journal.recordBatch(logged);
+            }
+            for (Accepted a : accepted) applyAccepted(a);
+            history.record(changed);
+        } finally {
+            for (Stripe s : stripes) s.lock.writeLock().unlock();
+        }
+        result.errors.sort(Comparator.comparingInt(EmployeeBatch.Error::getLine));
+        if (result.getApplied() > 0) persisted();
+        return result;
+    }
+
+    // Installs new bonus formulas (process-wide, see BonusRules) and recounts
+    // every employee in the bonus-derived indexes. All stripes are
+    // write-locked, so no change interleaves with the recount. Nothing is
+    // persisted: the employees themselves do not change. Partitions not
+    // loaded yet are counted with the new rules when they are.
+    public void setBonusRules(BonusRules rules) {
+        for (Stripe s : stripes) s.lock.writeLock().lock();
+        try {
+            BonusRules.install(rules);
+            for (Stripe s : stripes) {
+                for (Employee e : s.rows) indexes.payChanged(e);
+            }
+        } finally {
+            for (Stripe s : stripes) s.lock.writeLock().unlock();
+        }
+    }
+
+    public void exportCsv(Path file) throws IOException {
+        new CsvSnapshot().write(file, snapshot());
+    }
+
+    // =============================
+    // Internals
+    // =============================
+    private void initStripes() {
+        for (int i = 0; i < STRIPES; i++) stripes[i] = new Stripe();
+    }
+
+    private Stripe stripe(int id) {
+        int h = id * 0x9E3779B9;
+        return stripes[(h ^ (h >>> 16)) & (STRIPES - 1)];
+    }
+
+    // =============================
+    // Partition loading (partitioned mode; no-ops otherwise)
+    // =============================
+    // Loading takes every stripe's write lock, so these are never called with
+    // a stripe lock held.
+
+    private void loadId(int id) {
+        if (partitions != null) load(partitions.ofId(id));
+    }
+
+    // Just the department's partition when partitioned by department;
+    // otherwise, or for the whole company (null), everything.
+    private void loadDepartment(String department) {
+        if (partitions == null) return;
+        if (department != null && partitions.byDepartment()) {
+            load(partitions.ofDepartment(department));
+        } else {
+            loadAll();
+        }
+    }
+
+    private void loadAll() {
+        if (partitions == null) return;
+        for (PartitionedStorage.Partition p : partitions.all()) load(p);
+    }
+
+    // Reads the file with no lock held, then adds the rows that still belong
+    // to p: since p was last saved, some may have been moved, deleted or
+    // loaded already. Rows like these are added without being published.
+    private void load(PartitionedStorage.Partition p) {
+        if (p == null || p.isLoaded()) return;
+        synchronized (p) {
+            if (p.isLoaded()) return;
+            List<Employee> rows;
+            try {
+                rows = partitions.read(p);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Error reading " + p.file + ": " + e.getMessage(), e);
+            }
+            for (Stripe s : stripes) s.lock.writeLock().lock();
+            try {
+                for (Employee e : rows) {
+                    int id = e.getId();
+                    if (partitions.ofId(id) == p && !stripe(id).rows.containsKey(id)) insertLoaded(e);
+                }
+                partitions.loaded(p, id -> stripe(id).rows.containsKey(id));
+            } finally {
+                for (Stripe s : stripes) s.lock.writeLock().unlock();
+            }
+        }
+    }
+
+    // A row read from disk: part of the baseline history starts from.
+    private void insertLoaded(Employee e) {
+        insert(e);
+        history.baseline(e);
+    }
+
+    // Caller holds the stripe's write lock, or is still constructing the store.
+    private void insert(Employee e) {
+        e.sequence = sequence.incrementAndGet();
+        stripe(e.getId()).rows.put(e.getId(), e);
+        indexes.add(e);
+        e.setListener(indexes);
+    }
+
+    // Caller holds every stripe's lock.
+    private void copyRows(Employee[][] copies, long[][] order) {
+        for (int i = 0; i < STRIPES; i++) {
+            IntObjectMap<Employee> rows = stripes[i].rows;
+            copies[i] = new Employee[rows.size()];
+            order[i] = new long[rows.size()];
+            int j = 0;
+            for (Employee e : rows) {
+                copies[i][j] = e.copy();
+                order[i][j] = e.sequence;
+                j++;
+            }
+        }
+    }
+
+    // Copies of the given employees in the given order, skipping any that
+    // were deleted since the IDs were read.
+    private List<Employee> copies(int[] ids) {
+        List<Employee> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            Employee e = get(id);
+            if (e != null) result.add(e);
+        }
+        return result;
+    }
+
+    // A batch record that passed its checks, with the row it stores; row and
+    // owned are null for a delete.
+    private static class Accepted {
+        final EmployeeBatch.Record record;
+        final Employee owned;
+        final String row;
+
+        Accepted(EmployeeBatch.Record record, Employee owned) {
+            this.record = record;
+            this.owned = owned;
+            this.row = owned == null ? null : owned.toCSV();
+        }
+    }
+
+    // Caller holds every stripe's write lock. Checks r against the store as
+    // the records accepted before it leave it: changed holds their outcome
+    // per ID (null for a delete). Returns why r was rejected, or null once
+    // it has been added to accepted and its outcome to changed. Nothing is
+    // applied yet.
+    private String check(EmployeeBatch.Record r, Map<Integer, Employee> changed, List<Accepted> accepted) {
+        Employee current = changed.containsKey(r.id) ? changed.get(r.id) : stripe(r.id).rows.get(r.id);
+        switch (r.op) {
+            case ADD: {
+                if (current != null) return "Employee with ID " + r.id + " already exists";
+                String problem = EmployeeBatch.problem(r.employee);
+                if (problem != null) return problem;
+                break;
+            }
+            case UPDATE: {
+                if (current == null) return "Employee " + r.id + " not found";
+                String problem = EmployeeBatch.problem(r.employee);
+                if (problem != null) return problem;
+                break;
+            }
+            default:
+                if (current == null) return "Employee " + r.id + " not found";
+        }
+        Employee owned = r.op == EmployeeBatch.Op.DELETE ? null : r.employee.copy();
+        accepted.add(new Accepted(r, owned));
+        changed.put(r.id, owned);
+        return null;
+    }
+
+    // Applies a record check() accepted and publishes it. Caller holds every
+    // stripe's write lock.
+    private void applyAccepted(Accepted a) {
+        int id = a.record.id;
+        Stripe s = stripe(id);
+        switch (a.record.op) {
+            case ADD:
+                insert(a.owned);
+                changes.publish(ChangeStream.Op.ADD, id, a.row);
+                break;
+            case UPDATE:
+                replace(s, s.rows.get(id), a.owned);
+                changes.publish(ChangeStream.Op.UPDATE, id, a.row);
+                break;
+            default:
+                remove(s.rows.get(id));
+                changes.publish(ChangeStream.Op.DELETE, id, null);
+        }
+    }
+
+    // Puts owned where current was, keeping its place in listings. Caller
+    // holds the stripe's write lock.
+    private void replace(Stripe s, Employee current, Employee owned) {
+        owned.sequence = current.sequence;
+        current.setListener(null);
+        indexes.remove(current);
+        s.rows.put(owned.getId(), owned);
+        indexes.add(owned);
+        owned.setListener(indexes);
+    }
+
+    // Caller holds the stripe's write lock.
+    private void remove(Employee e) {
+        stripe(e.getId()).rows.remove(e.getId());
+        e.setListener(null);
+        indexes.remove(e);
+    }
+
+    // Called after a change with no stripe lock held, since both compaction
+    // and a full save take a snapshot. Without a journal every change needs a
+    // save, but writers that queued up behind one share the next: whichever
+    // gets the lock first saves a snapshot that already holds all of their
+    // changes, and the rest find their request covered and return.
+    private void persisted() throws IOException {
+        if (journal != null) {
+            journal.compactIfDue();
+        } else if (snapshotFile != null || partitions != null) {
+            long request = saveRequests.incrementAndGet();
+            synchronized (saveLock) {
+                if (savedUpTo >= request) return;
+                long upTo = saveRequests.get();
+                save();
+                savedUpTo = upTo;
+            }
+        }
+    }
+
+    // The snapshot is taken inside the lock, so the last save to finish
+    // always writes the newest state. Partitioned, only dirty partitions are
+    // written, after loading any that were changed without being read.
+    private void save() throws IOException {
+        synchronized (saveLock) {
+            if (partitions == null) {
+                format.write(snapshotFile, snapshot());
+                return;
+            }
+            try {
+                for (PartitionedStorage.Partition p : partitions.all()) {
+                    if (partitions.isDirty(p)) load(p);
+                }
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            partitions.save(this::copies);
+        }
+    }
+
+    // The per-stripe copies in overall sequence order.
+    private static List<Employee> merge(Employee[][] copies, long[][] order) {
+        long[] positions = merge(order);
+        List<Employee> result = new ArrayList<>(positions.length);
+        for (long p : positions) result.add(copies[(int) (p >>> 32)][(int) p]);
+        return result;
+    }
+
+    // k-way merge of per-stripe sequence numbers, each already sorted. Returns
+    // every (stripe << 32 | index) position in overall sequence order.
+    private static long[] merge(long[][] order) {
+        int total = 0;
+        for (long[] o : order) total += o.length;
+        long[] result = new long[total];
+        int n = 0;
+        int[] pos = new int[order.length];
+        PriorityQueue<Integer> heads = new PriorityQueue<>(order.length,
+                (a, b) -> Long.compare(order[a][pos[a]], order[b][pos[b]]));
+        for (int i = 0; i < order.length; i++) {
+            if (order[i].length > 0) heads.add(i);
+        }
+        while (!heads.isEmpty()) {
+            int i = heads.poll();
+            result[n++] = (long) i << 32 | pos[i]++;
+            if (pos[i] < order[i].length) heads.add(i);
+        }
+        return result;
+    }
+}
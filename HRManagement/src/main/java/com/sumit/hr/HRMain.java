@@ -0,0 +1,12 @@
+package com.sumit.hr;
+
+// =============================
+// Main Class
+// =============================
+public class HRMain {
+    public static void main(String[] args) {
+        HRManagementSystem hr = new HRManagementSystem();
+        hr.showMenu();
+        hr.close();
+    }
+}
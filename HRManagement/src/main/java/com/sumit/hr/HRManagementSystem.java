@@ -0,0 +1,584 @@
+package com.sumit.hr;
+
+import java.util.*;
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.*;
+import java.time.format.DateTimeParseException;
+
+// =============================
+// HR Management System
+// =============================
+class HRManagementSystem {
+    private EmployeeStore store;
+    private Scanner sc;
+    private static final String FILE_NAME = "employees.csv";
+    private static final String BINARY_FILE_NAME = "employees.bin";
+    private static final String JSON_FILE_NAME = "employees.json";
+    private static final String BONUS_RULES_FILE_NAME = "bonus-rules.txt";
+    private static final String EVENTS_FILE_NAME = "employees.events";
+    private static final String PARTITIONS_DIR_NAME = "employees.partitions";
+    private static final int NAME_PAGE = 20;
+
+    public HRManagementSystem() {
+        sc = new Scanner(System.in);
+        store = openStore();
+    }
+
+    // Opens the store configured by system properties. Shared with HRServer so
+    // the console and the HTTP API work on the same files.
+    static EmployeeStore openStore() {
+        // Installed before loading so the indexes start with the right bonuses.
+        if (Files.exists(bonusRulesFile())) {
+            try {
+                BonusRules.install(BonusRules.read(bonusRulesFile()));
+            } catch (IOException | IllegalArgumentException e) {
+                System.out.println("Error loading bonus rules: " + e.getMessage());
+                System.out.println("Using the built-in bonus rules.");
+            }
+        }
+        // -Dhr.snapshot=binary keeps the store in employees.bin and =json in
+        // employees.json; employees.csv is then only read once, to import it.
+        Path snapshotFile;
+        SnapshotFormat format;
+        switch (System.getProperty("hr.snapshot", "csv").toLowerCase()) {
+            case "binary":
+                snapshotFile = Paths.get(BINARY_FILE_NAME);
+                format = new BinarySnapshot();
+                break;
+            case "json":
+                snapshotFile = Paths.get(JSON_FILE_NAME);
+                format = new JsonSnapshot();
+                break;
+            default:
+                snapshotFile = Paths.get(FILE_NAME);
+                format = new CsvSnapshot();
+        }
+        // -Dhr.partitions=department (or =<n> for n buckets by ID) keeps one
+        // file per partition under employees.partitions instead, read as
+        // needed; see PartitionedStorage.
+        String partitioning = System.getProperty("hr.partitions");
+        if (partitioning != null) snapshotFile = Paths.get(PARTITIONS_DIR_NAME);
+        // -Dhr.journal=true appends each change to <snapshot>.journal
+        // instead of rewriting the snapshot on every edit. A journal left by an
+        // earlier run is replayed either way.
+        int buckets = 0;
+        if (partitioning != null && !"department".equalsIgnoreCase(partitioning)) {
+            try {
+                buckets = Integer.parseInt(partitioning.trim());
+            } catch (NumberFormatException e) {
+                buckets = 0;
+            }
+            if (buckets < 1) {
+                System.out.println("Error: hr.partitions must be 'department' or a bucket count, not " + partitioning);
+                System.out.println("Continuing without saving changes.");
+                return new EmployeeStore();
+            }
+        }
+        EmployeeStore store;
+        try {
+            if (partitioning != null) {
+                store = new EmployeeStore(new PartitionedStorage(snapshotFile, format, buckets), Paths.get(FILE_NAME));
+            } else {
+                store = new EmployeeStore(snapshotFile, format, Paths.get(FILE_NAME),
+                        Boolean.getBoolean("hr.journal"),
+                        Integer.getInteger("hr.journal.syncEvery", 1),
+                        Integer.getInteger("hr.journal.compactEvery", 1000));
+            }
+        } catch (IOException e) {
+            System.out.println("Error loading file: " + e.getMessage());
+            System.out.println("Continuing without saving changes.");
+            return new EmployeeStore();
+        }
+        if (store.getDuplicatesSkipped() > 0) {
+            System.out.println("Skipped " + store.getDuplicatesSkipped() + " duplicate employee IDs in " + snapshotFile);
+        }
+        if (store.wasImported()) {
+            System.out.println("Imported " + store.size() + " employees from " + FILE_NAME + " into " + snapshotFile);
+        }
+        // -Dhr.events=true appends every change to employees.events for
+        // downstream consumers (see ChangeLog); -Dhr.events.sync=true also
+        // forces each batch of events to disk.
+        if (Boolean.getBoolean("hr.events")) {
+            try {
+                store.logChangesTo(Paths.get(EVENTS_FILE_NAME), Boolean.getBoolean("hr.events.sync"));
+            } catch (IOException e) {
+                System.out.println("Error opening change log: " + e.getMessage());
+            }
+        }
+        return store;
+    }
+
+    // -Dhr.bonusRules=<file> overrides bonus-rules.txt.
+    static Path bonusRulesFile() {
+        return Paths.get(System.getProperty("hr.bonusRules", BONUS_RULES_FILE_NAME));
+    }
+
+    public void close() {
+        try {
+            store.close();
+        } catch (IOException e) {
+            System.out.println("Error closing journal: " + e.getMessage());
+        }
+    }
+
+    // =============================
+    // File Operations
+    // =============================
+    // Reruns for an earlier version or date use the employees as they were
+    // then (see EmployeeHistory) and today's bonus rules.
+    public void runPayroll() {
+        sc.nextLine();
+        System.out.print("Enter file name for payroll lines: ");
+        String name = sc.nextLine().trim();
+        System.out.print("As of (version, yyyy-mm-dd or yyyy-mm-ddThh:mm; blank for now): ");
+        String asOf = sc.nextLine().trim();
+        List<Employee> employees;
+        try {
+            employees = employeesAsOf(asOf);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            System.out.println("Error running payroll: " + e.getMessage());
+            return;
+        }
+        PayrollRun.Result result;
+        try (PayrollRun.CsvSink sink = new PayrollRun.CsvSink(Paths.get(name))) {
+            result = new PayrollRun().run(employees, sink);
+        } catch (IOException e) {
+            System.out.println("Error running payroll: " + e.getMessage());
+            return;
+        }
+        System.out.println("\n=== Payroll by Department ===");
+        for (Map.Entry<String, PayrollRun.Totals> d : result.getByDepartment().entrySet()) {
+            printTotals(d.getKey(), d.getValue());
+        }
+        System.out.println("\n=== Payroll by Type ===");
+        for (Map.Entry<String, PayrollRun.Totals> t : result.getByType().entrySet()) {
+            printTotals(t.getKey(), t.getValue());
+        }
+        System.out.println("-----------------------------------");
+        printTotals("Total", result.getTotal());
+        System.out.println("Payroll lines written to " + name);
+    }
+
+    // A version number, a local date (its end) or a local date-time.
+    private List<Employee> employeesAsOf(String asOf) {
+        if (asOf.isEmpty()) return store.snapshot();
+        if (asOf.chars().allMatch(Character::isDigit)) return store.asOf(Long.parseLong(asOf));
+        LocalDateTime when = asOf.contains("T") ? LocalDateTime.parse(asOf) : LocalDate.parse(asOf).atTime(LocalTime.MAX);
+        return store.asOf(when.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    public void showHistory() {
+        System.out.print("\nEnter Employee ID: ");
+        int id = sc.nextInt();
+        List<EmployeeHistory.Version> versions = store.history(id);
+        if (versions.isEmpty()) {
+            System.out.println("Employee not found!");
+            return;
+        }
+        System.out.println("\n=== History of " + id + " (newest first, current version " + store.version() + ") ===");
+        for (EmployeeHistory.Version v : versions) {
+            String when = v.getVersion() == 0 ? "as loaded"
+                    : LocalDateTime.ofInstant(v.getTime(), ZoneId.systemDefault()).withNano(0).toString();
+            Employee e = v.getEmployee();
+            if (e == null) {
+                System.out.printf("%6d  %-19s  deleted%n", v.getVersion(), when);
+            } else {
+                System.out.printf("%6d  %-19s  %-25s %-12s %12.2f%n", v.getVersion(), when, e.getName(), e.getDepartment(), e.getSalary());
+            }
+        }
+    }
+
+    public void importBatch() {
+        sc.nextLine();
+        System.out.print("Enter batch file name: ");
+        String name = sc.nextLine().trim();
+        EmployeeBatch.Result result;
+        try {
+            result = store.apply(EmployeeBatch.read(Paths.get(name)));
+        } catch (IOException e) {
+            System.out.println("Error importing batch: " + e.getMessage());
+            return;
+        }
+        System.out.println("Added " + result.getAdded() + ", updated " + result.getUpdated()
+                + ", deleted " + result.getDeleted() + " employees.");
+        if (!result.getErrors().isEmpty()) {
+            System.out.println(result.getErrors().size() + " records skipped:");
+            for (EmployeeBatch.Error e : result.getErrors()) {
+                System.out.println("  " + e);
+            }
+        }
+    }
+
+    // Re-reads the rules file and swaps the formulas in without a restart.
+    public void reloadBonusRules() {
+        Path file = bonusRulesFile();
+        BonusRules rules;
+        try {
+            rules = Files.exists(file) ? BonusRules.read(file) : BonusRules.DEFAULTS;
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("Error loading bonus rules: " + e.getMessage());
+            System.out.println("Keeping the current rules.");
+            return;
+        }
+        store.setBonusRules(rules);
+        System.out.println(Files.exists(file) ? "Bonus rules loaded from " + file + ":" : "No " + file + ", using the built-in rules:");
+        System.out.print(rules);
+    }
+
+    private void printTotals(String label, PayrollRun.Totals t) {
+        System.out.printf("%-12s %5d employees  salary %,.2f  bonus %,.2f  final %,.2f%n",
+                label, t.getCount(), t.getSalary(), t.getBonus(), t.getFinalSalary());
+    }
+
+    // A name ending in .json gets the JSON snapshot format, anything else CSV.
+    public void exportToCSV() {
+        sc.nextLine();
+        System.out.print("Enter file name to export to (.csv or .json): ");
+        String name = sc.nextLine().trim();
+        try {
+            List<Employee> all = store.snapshot();
+            SnapshotFormat format = name.toLowerCase().endsWith(".json") ? new JsonSnapshot() : new CsvSnapshot();
+            format.write(Paths.get(name), all);
+            System.out.println("Exported " + all.size() + " employees to " + name);
+        } catch (IOException e) {
+            System.out.println("Error exporting: " + e.getMessage());
+        }
+    }
+
+    // =============================
+    // CRUD Operations
+    // =============================
+    public void addEmployee() {
+        System.out.println("\n=== Add New Employee ===");
+        System.out.print("Enter Employee Type (1. Regular, 2. Sales, 3. Manager): ");
+        int type = sc.nextInt();
+
+        System.out.print("Enter ID: ");
+        int id = sc.nextInt();
+        sc.nextLine();
+        if (store.contains(id)) {
+            System.out.println("Employee with ID " + id + " already exists!");
+            return;
+        }
+        System.out.print("Enter Name: ");
+        String name = sc.nextLine();
+        System.out.print("Enter Department: ");
+        String dept = sc.nextLine();
+        System.out.print("Enter Salary: ");
+        double salary = sc.nextDouble();
+
+        Employee emp = null;
+
+        switch (type) {
+            case 1:
+                emp = new Employee(id, name, salary, dept);
+                break;
+            case 2:
+                System.out.print("Enter Total Sales: ");
+                double sales = sc.nextDouble();
+                System.out.print("Enter Commission Rate (e.g., 0.05 for 5%): ");
+                double rate = sc.nextDouble();
+                System.out.print("Enter Sales Target: ");
+                double target = sc.nextDouble();
+                emp = new SalesEmployee(id, name, salary, dept, sales, rate, target);
+                break;
+            case 3:
+                System.out.print("Enter Team Size: ");
+                int team = sc.nextInt();
+                emp = new Manager(id, name, salary, dept, team);
+                break;
+            default:
+                System.out.println("Invalid choice!");
+                return;
+        }
+
+        try {
+            if (!store.add(emp)) {
+                System.out.println("Employee with ID " + id + " already exists!");
+                return;
+            }
+        } catch (IOException e) {
+            System.out.println("Error saving to file: " + e.getMessage());
+        }
+        System.out.println("Employee added successfully!");
+    }
+
+    // Rendered a page of the store at a time into one buffer; see
+    // EmployeeReport.
+    public void displayAll() {
+        System.out.println("\n=== Employee List ===");
+        try {
+            EmployeeReport report = EmployeeReport.to(System.out, EmployeeReport.Format.TEXT, true);
+            for (List<Employee> page : store.pages(EmployeeReport.PAGE)) {
+                for (Employee e : page) report.employee(e);
+            }
+            report.end();
+            if (report.rows() == 0) System.out.println("No employees found.");
+        } catch (IOException e) {
+            System.out.println("Error displaying employees: " + e.getMessage());
+        }
+    }
+
+    // Writes every employee with bonus and final salary as text, CSV or JSON.
+    public void exportReport() {
+        sc.nextLine();
+        System.out.print("Enter format (text, csv, json): ");
+        String format = sc.nextLine();
+        System.out.print("Enter file name to export to: ");
+        String name = sc.nextLine().trim();
+        try (FileChannel ch = FileChannel.open(Paths.get(name), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            EmployeeReport report = new EmployeeReport(ch, EmployeeReport.Format.parse(format), true);
+            report.begin();
+            for (List<Employee> page : store.pages(EmployeeReport.PAGE)) {
+                for (Employee e : page) report.employee(e);
+            }
+            report.end();
+            System.out.println("Exported " + report.rows() + " employees to " + name);
+        } catch (IllegalArgumentException | IOException e) {
+            System.out.println("Error exporting: " + e.getMessage());
+        }
+    }
+
+    public void searchEmployee() {
+        System.out.print("\nEnter Employee ID to search: ");
+        int id = sc.nextInt();
+        Employee e = store.get(id);
+        if (e == null) {
+            System.out.println("Employee not found!");
+            return;
+        }
+        EmployeeReport.print(e, true);
+    }
+
+    public void deleteEmployee() {
+        System.out.print("\nEnter Employee ID to delete: ");
+        int id = sc.nextInt();
+        try {
+            if (!store.delete(id)) {
+                System.out.println("Employee not found!");
+                return;
+            }
+        } catch (IOException e) {
+            System.out.println("Error saving to file: " + e.getMessage());
+        }
+        System.out.println("Employee deleted successfully!");
+    }
+
+    public void updateEmployee() {
+        System.out.print("\nEnter Employee ID to update: ");
+        int id = sc.nextInt();
+        sc.nextLine();
+        if (!store.contains(id)) {
+            System.out.println("Employee not found!");
+            return;
+        }
+
+        System.out.print("Enter new name: ");
+        String name = sc.nextLine();
+        System.out.print("Enter new department: ");
+        String dept = sc.nextLine();
+        System.out.print("Enter new salary: ");
+        double sal = sc.nextDouble();
+        try {
+            boolean found = store.update(id, e -> {
+                e.setName(name);
+                e.setDepartment(dept);
+                e.setSalary(sal);
+            });
+            if (!found) {
+                System.out.println("Employee not found!");
+                return;
+            }
+        } catch (IOException ex) {
+            System.out.println("Error saving to file: " + ex.getMessage());
+        }
+        System.out.println("Employee updated successfully!");
+    }
+
+    // Type-ahead style: each word matches the start of a word in the name.
+    // With no such match, names within a typo or two are listed instead.
+    public void searchByName() {
+        sc.nextLine();
+        System.out.print("Enter name (or the start of one): ");
+        String query = sc.nextLine();
+        List<Employee> found = store.searchNames(query, NameIndex.Mode.PREFIX, 0, NAME_PAGE + 1);
+        if (found.isEmpty()) {
+            found = store.searchNames(query, NameIndex.Mode.FUZZY, 0, NAME_PAGE + 1);
+            if (found.isEmpty()) {
+                System.out.println("No employees found.");
+                return;
+            }
+            System.out.println("No exact matches. Similar names:");
+        }
+        for (Employee e : found.subList(0, Math.min(NAME_PAGE, found.size()))) {
+            System.out.printf("%6d  %-25s %s%n", e.getId(), e.getName(), e.getDepartment());
+        }
+        if (found.size() > NAME_PAGE) System.out.println("... more matches; type more of the name to narrow them down.");
+    }
+
+    public void displayByDepartment() {
+        sc.nextLine();
+        System.out.print("Enter department name: ");
+        String dept = sc.nextLine();
+        List<Employee> members = store.byDepartment(dept);
+        if (members.isEmpty()) {
+            System.out.println("No employees found in this department.");
+            return;
+        }
+        System.out.println("\n=== " + members.get(0).getDepartment().trim() + " (" + members.size() + " employees) ===");
+        try {
+            EmployeeReport report = EmployeeReport.to(System.out, EmployeeReport.Format.TEXT, false);
+            for (Employee e : members) report.employee(e);
+            report.end();
+        } catch (IOException e) {
+            System.out.println("Error displaying employees: " + e.getMessage());
+        }
+    }
+
+    public void salaryReports() {
+        System.out.print("\n1. Top Earners  2. Salary Range  3. Percentile\nEnter report: ");
+        int report = sc.nextInt();
+        System.out.print("Rank by (1. Salary, 2. Final Salary): ");
+        SalaryIndex.Key key = sc.nextInt() == 2 ? SalaryIndex.Key.FINAL_SALARY : SalaryIndex.Key.SALARY;
+        sc.nextLine();
+        System.out.print("Department (blank for all): ");
+        String dept = sc.nextLine().trim();
+        if (dept.isEmpty()) dept = null;
+        String label = key == SalaryIndex.Key.SALARY ? "Salary" : "Final Salary";
+
+        switch (report) {
+            case 1: {
+                System.out.print("How many: ");
+                int k = sc.nextInt();
+                System.out.println("\n=== Top " + k + " by " + label + " ===");
+                for (Employee e : store.top(key, k, dept)) printRanked(e, key);
+                break;
+            }
+            case 2: {
+                System.out.print("Minimum: ");
+                double min = sc.nextDouble();
+                System.out.print("Maximum: ");
+                double max = sc.nextDouble();
+                List<Employee> found = store.salaryRange(key, min, max, dept);
+                System.out.println("\n=== " + found.size() + " employees with " + label + " " + min + " - " + max + " ===");
+                for (Employee e : found) printRanked(e, key);
+                break;
+            }
+            case 3: {
+                System.out.print("Percentile (1-100): ");
+                double p = sc.nextDouble();
+                if (!(p > 0 && p <= 100)) {
+                    System.out.println("Invalid percentile!");
+                    return;
+                }
+                double value = store.percentile(key, p, dept);
+                if (Double.isNaN(value)) {
+                    System.out.println("No employees found.");
+                } else {
+                    System.out.println(p + "th percentile " + label + ": " + value);
+                }
+                break;
+            }
+            default:
+                System.out.println("Invalid choice!");
+        }
+    }
+
+    private void printRanked(Employee e, SalaryIndex.Key key) {
+        double value = key == SalaryIndex.Key.SALARY ? e.getSalary() : e.computeFinalSalary();
+        System.out.printf("%-6d %-20s %-12s %,.2f%n", e.getId(), e.getName(), e.getDepartment(), value);
+    }
+
+    public void displayDepartmentSummary() {
+        System.out.println("\n=== Department Head Counts ===");
+        Map<String, Integer> counts = store.headCounts();
+        if (counts.isEmpty()) {
+            System.out.println("No employees found.");
+            return;
+        }
+        for (Map.Entry<String, Integer> d : counts.entrySet()) {
+            System.out.println(d.getKey() + " : " + d.getValue());
+        }
+    }
+
+    public void displayPayrollStatistics() {
+        PayrollAggregates stats = store.aggregates();
+        if (stats.company().getCount() == 0) {
+            System.out.println("No employees found.");
+            return;
+        }
+        System.out.println("\n=== Payroll Statistics by Department ===");
+        for (Map.Entry<String, PayrollAggregates.Stats> d : stats.byDepartment().entrySet()) {
+            printStats(d.getKey(), d.getValue());
+        }
+        System.out.println("\n=== Payroll Statistics by Type ===");
+        for (Map.Entry<String, PayrollAggregates.Stats> t : stats.byType().entrySet()) {
+            printStats(t.getKey(), t.getValue());
+        }
+        System.out.println("-----------------------------------");
+        printStats("Total", stats.company());
+    }
+
+    private void printStats(String label, PayrollAggregates.Stats s) {
+        PayrollAggregates.Measure sal = s.getSalary();
+        PayrollAggregates.Measure bon = s.getBonus();
+        System.out.printf("%-12s %5d employees%n", label, s.getCount());
+        System.out.printf("    salary  total %,.2f  avg %,.2f  min %,.2f  max %,.2f%n",
+                sal.getSum(), sal.getMean(), sal.getMin(), sal.getMax());
+        System.out.printf("    bonus   total %,.2f  avg %,.2f  min %,.2f  max %,.2f%n",
+                bon.getSum(), bon.getMean(), bon.getMin(), bon.getMax());
+    }
+
+    // =============================
+    // Menu
+    // =============================
+    public void showMenu() {
+        int choice;
+        do {
+            System.out.println("\n======= HR MANAGEMENT SYSTEM =======");
+            System.out.println("1. Add Employee");
+            System.out.println("2. Display All Employees");
+            System.out.println("3. Search Employee by ID");
+            System.out.println("4. Update Employee Details");
+            System.out.println("5. Delete Employee");
+            System.out.println("6. Display Employees by Department");
+            System.out.println("7. Department Head Counts");
+            System.out.println("8. Export to CSV/JSON");
+            System.out.println("9. Run Payroll");
+            System.out.println("10. Import Batch File");
+            System.out.println("11. Salary Reports");
+            System.out.println("12. Payroll Statistics");
+            System.out.println("13. Reload Bonus Rules");
+            System.out.println("14. Search Employees by Name");
+            System.out.println("15. Export Report");
+            System.out.println("16. Employee History");
+            System.out.println("17. Exit");
+            System.out.print("Enter your choice: ");
+            choice = sc.nextInt();
+
+            switch (choice) {
+                case 1: addEmployee(); break;
+                case 2: displayAll(); break;
+                case 3: searchEmployee(); break;
+                case 4: updateEmployee(); break;
+                case 5: deleteEmployee(); break;
+                case 6: displayByDepartment(); break;
+                case 7: displayDepartmentSummary(); break;
+                case 8: exportToCSV(); break;
+                case 9: runPayroll(); break;
+                case 10: importBatch(); break;
+                case 11: salaryReports(); break;
+                case 12: displayPayrollStatistics(); break;
+                case 13: reloadBonusRules(); break;
+                case 14: searchByName(); break;
+                case 15: exportReport(); break;
+                case 16: showHistory(); break;
+                case 17: System.out.println("Exiting... Thank you!"); break;
+                default: System.out.println("Invalid choice! Try again.");
+            }
+        } while (choice != 17);
+    }
+}
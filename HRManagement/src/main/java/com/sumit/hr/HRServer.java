@@ -0,0 +1,485 @@
+package com.sumit.hr;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonWriter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.*;
+import java.net.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// =============================
+// HRServer: local HTTP/JSON API over an EmployeeStore
+// =============================
+// GET    /employees               everyone, or ?department=X
+// GET    /employees?name=ra+gu    name search, best match first; also
+//                                 match=prefix|token|fuzzy (default prefix),
+//                                 offset=0 and limit=20
+// GET    /employees/{id}
+// POST   /employees               201, or 409 if the ID exists
+// PUT    /employees/{id}          any of name, department, salary, sales, teamSize
+// DELETE /employees/{id}          204
+// GET    /departments             head counts
+// GET    /payroll                 totals by department and type
+// GET    /stats                   running salary/bonus statistics, no scan
+// POST   /batch                   EmployeeBatch lines; counts and per-line errors
+// GET    /salaries/top?k=10       highest paid first
+// GET    /salaries/range?min=&max=
+// GET    /salaries/percentile?p=90
+//        (each takes by=salary|final, default salary, and department=X)
+// GET    /bonus-rules             the formula for each employee type
+// PUT    /bonus-rules             BonusRules file text; swaps the formulas in
+//                                 (until restart; bonus-rules.txt is not changed)
+//
+// Usage: java com.sumit.hr.HRServer [port]   (default 8080, localhost only)
+// Each exchange runs on its own virtual thread, so a request waiting on a
+// stripe lock or a journal fsync parks without holding a platform thread.
+public class HRServer implements Closeable {
+    private static final int BACKLOG = 1024;
+
+    static {
+        // The server writes headers and body separately; with Nagle on, every
+        // keep-alive response waits out the client's delayed ACK (~40 ms).
+        // Read once when the first HttpServer is created.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final EmployeeStore store;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Gson gson = new GsonBuilder()
+            .registerTypeHierarchyAdapter(Employee.class, JsonSnapshot.API_ADAPTER).create();
+
+    // Binds to the loopback address; port 0 picks a free port.
+    public HRServer(EmployeeStore store, int port) throws IOException {
+        this.store = store;
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), BACKLOG);
+        server.setExecutor(executor);
+        server.createContext("/employees", guarded(this::employees));
+        server.createContext("/departments", guarded(this::departments));
+        server.createContext("/payroll", guarded(this::payroll));
+        server.createContext("/stats", guarded(this::stats));
+        server.createContext("/batch", guarded(this::batch));
+        server.createContext("/salaries", guarded(this::salaries));
+        server.createContext("/bonus-rules", guarded(this::bonusRules));
+    }
+
+    public void start() { server.start(); }
+
+    public int getPort() { return server.getAddress().getPort(); }
+
+    // Stops accepting requests and waits for the running ones to finish.
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.close();
+    }
+
+    // =============================
+    // JSON shapes
+    // =============================
+
+    // Employees go in and out through JsonSnapshot.API_ADAPTER: the snapshot
+    // file's fields plus bonus and finalSalary on output, ignored on input.
+
+    // Fields a PUT may change; absent fields are left alone.
+    static class UpdateJson {
+        String name;
+        String department;
+        Double salary;
+        Double sales;
+        Integer teamSize;
+    }
+
+    static class TotalsJson {
+        final int count;
+        final double salary;
+        final double bonus;
+        final double finalSalary;
+
+        TotalsJson(PayrollRun.Totals t) {
+            count = t.getCount();
+            salary = t.getSalary();
+            bonus = t.getBonus();
+            finalSalary = t.getFinalSalary();
+        }
+    }
+
+    static class PayrollJson {
+        final TotalsJson total;
+        final Map<String, TotalsJson> byDepartment = new LinkedHashMap<>();
+        final Map<String, TotalsJson> byType = new LinkedHashMap<>();
+
+        PayrollJson(PayrollRun.Result r) {
+            total = new TotalsJson(r.getTotal());
+            for (Map.Entry<String, PayrollRun.Totals> d : r.getByDepartment().entrySet()) {
+                byDepartment.put(d.getKey(), new TotalsJson(d.getValue()));
+            }
+            for (Map.Entry<String, PayrollRun.Totals> t : r.getByType().entrySet()) {
+                byType.put(t.getKey(), new TotalsJson(t.getValue()));
+            }
+        }
+    }
+
+    // PayrollAggregates statistics, with null where an empty group has NaN.
+    static class StatsJson {
+        final int count;
+        final Map<String, Double> salary;
+        final Map<String, Double> bonus;
+
+        StatsJson(PayrollAggregates.Stats s) {
+            count = s.getCount();
+            salary = measure(s.getSalary());
+            bonus = measure(s.getBonus());
+        }
+
+        private static Map<String, Double> measure(PayrollAggregates.Measure m) {
+            Map<String, Double> json = new LinkedHashMap<>();
+            json.put("sum", m.getSum());
+            json.put("min", Double.isNaN(m.getMin()) ? null : m.getMin());
+            json.put("max", Double.isNaN(m.getMax()) ? null : m.getMax());
+            json.put("mean", Double.isNaN(m.getMean()) ? null : m.getMean());
+            return json;
+        }
+    }
+
+    static class AggregatesJson {
+        final StatsJson total;
+        final Map<String, StatsJson> byDepartment = new LinkedHashMap<>();
+        final Map<String, StatsJson> byType = new LinkedHashMap<>();
+
+        AggregatesJson(PayrollAggregates a) {
+            total = new StatsJson(a.company());
+            for (Map.Entry<String, PayrollAggregates.Stats> d : a.byDepartment().entrySet()) {
+                byDepartment.put(d.getKey(), new StatsJson(d.getValue()));
+            }
+            for (Map.Entry<String, PayrollAggregates.Stats> t : a.byType().entrySet()) {
+                byType.put(t.getKey(), new StatsJson(t.getValue()));
+            }
+        }
+    }
+
+    // Names and departments end up in CSV rows, so they may not contain the
+    // separator or a line break.
+    private static String text(String field, String value) {
+        if (value == null || value.trim().isEmpty()) throw new IllegalArgumentException(field + " is required");
+        if (value.indexOf(',') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+            throw new IllegalArgumentException(field + " may not contain commas or line breaks");
+        }
+        return value;
+    }
+
+    // =============================
+    // Handlers
+    // =============================
+    // Closes the exchange after handler runs and turns what it throws into a
+    // JSON error: bad input is a 400, a failed save a 500, and so is a
+    // partition that cannot be read (UncheckedIOException) or any other bug.
+    private HttpHandler guarded(HttpHandler handler) {
+        return ex -> {
+            try {
+                handler.handle(ex);
+            } catch (JsonParseException | IllegalArgumentException e) {
+                fail(ex, 400, e.getMessage(), e);
+            } catch (IOException e) {
+                fail(ex, 500, "Error saving to file: " + e.getMessage(), e);
+            } catch (UncheckedIOException e) {
+                fail(ex, 500, e.getMessage(), e);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+                fail(ex, 500, "Internal error: " + e, e);
+            }
+            ex.close();
+        };
+    }
+
+    // Once a streamed list has sent its 200 there is no way to report an
+    // error in the same response. The exchange is then left unfinished and
+    // the exception passed on, so the server drops the connection and the
+    // client sees a truncated body instead of a second status line.
+    private void fail(HttpExchange ex, int status, String message, Exception cause) throws IOException {
+        if (ex.getResponseCode() != -1) throw new IOException("Response aborted: " + message, cause);
+        error(ex, status, message);
+    }
+
+    private void employees(HttpExchange ex) throws IOException {
+        String path = ex.getRequestURI().getPath();
+        String method = ex.getRequestMethod();
+        if (path.equals("/employees") || path.equals("/employees/")) {
+            switch (method) {
+                case "GET": listEmployees(ex); break;
+                case "POST": addEmployee(ex); break;
+                default: notAllowed(ex, "GET, POST");
+            }
+            return;
+        }
+        int id;
+        try {
+            id = Integer.parseInt(path.substring("/employees/".length()));
+        } catch (NumberFormatException e) {
+            error(ex, 404, "No such resource " + path);
+            return;
+        }
+        switch (method) {
+            case "GET": getEmployee(ex, id); break;
+            case "PUT": updateEmployee(ex, id); break;
+            case "DELETE": deleteEmployee(ex, id); break;
+            default: notAllowed(ex, "GET, PUT, DELETE");
+        }
+    }
+
+    private void listEmployees(HttpExchange ex) throws IOException {
+        String name = query(ex, "name");
+        if (name != null) {
+            String match = query(ex, "match");
+            NameIndex.Mode mode;
+            if (match == null || match.equals("prefix")) {
+                mode = NameIndex.Mode.PREFIX;
+            } else if (match.equals("token")) {
+                mode = NameIndex.Mode.TOKEN;
+            } else if (match.equals("fuzzy")) {
+                mode = NameIndex.Mode.FUZZY;
+            } else {
+                throw new IllegalArgumentException("match must be prefix, token or fuzzy");
+            }
+            String offset = query(ex, "offset");
+            String limit = query(ex, "limit");
+            sendList(ex, store.searchNames(name, mode, offset == null ? 0 : Integer.parseInt(offset),
+                    limit == null ? 20 : Integer.parseInt(limit)));
+            return;
+        }
+        String dept = query(ex, "department");
+        sendList(ex, dept == null ? store.snapshot() : store.byDepartment(dept));
+    }
+
+    // Streamed row by row so a large workforce is never held as one string.
+    private void sendList(HttpExchange ex, List<Employee> rows) throws IOException {
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.sendResponseHeaders(200, 0);
+        Writer out = new BufferedWriter(new OutputStreamWriter(ex.getResponseBody(), StandardCharsets.UTF_8), 64 * 1024);
+        JsonWriter json = gson.newJsonWriter(out);
+        json.beginArray();
+        for (Employee e : rows) {
+            JsonSnapshot.API_ADAPTER.write(json, e);
+        }
+        json.endArray();
+        json.flush();
+    }
+
+    private void getEmployee(HttpExchange ex, int id) throws IOException {
+        Employee e = store.get(id);
+        if (e == null) {
+            error(ex, 404, "Employee " + id + " not found");
+            return;
+        }
+        send(ex, 200, e);
+    }
+
+    private void addEmployee(HttpExchange ex) throws IOException {
+        Employee e = body(ex, Employee.class);
+        text("name", e.getName());
+        text("department", e.getDepartment());
+        if (!store.add(e)) {
+            error(ex, 409, "Employee with ID " + e.getId() + " already exists");
+            return;
+        }
+        ex.getResponseHeaders().set("Location", "/employees/" + e.getId());
+        send(ex, 201, e);
+    }
+
+    private void updateEmployee(HttpExchange ex, int id) throws IOException {
+        UpdateJson body = body(ex, UpdateJson.class);
+        String name = body.name == null ? null : text("name", body.name);
+        String dept = body.department == null ? null : text("department", body.department);
+        Employee[] updated = new Employee[1];
+        boolean found = store.update(id, e -> {
+            // Checked before any setter runs so a rejected request changes nothing.
+            if (body.sales != null && !(e instanceof SalesEmployee)) {
+                throw new IllegalArgumentException("Employee " + id + " is not a Sales employee");
+            }
+            if (body.teamSize != null && !(e instanceof Manager)) {
+                throw new IllegalArgumentException("Employee " + id + " is not a Manager");
+            }
+            if (name != null) e.setName(name);
+            if (dept != null) e.setDepartment(dept);
+            if (body.salary != null) e.setSalary(body.salary);
+            if (body.sales != null) ((SalesEmployee) e).setSales(body.sales);
+            if (body.teamSize != null) ((Manager) e).setTeamSize(body.teamSize);
+            updated[0] = e.copy();
+        });
+        if (!found) {
+            error(ex, 404, "Employee " + id + " not found");
+            return;
+        }
+        send(ex, 200, updated[0]);
+    }
+
+    private void deleteEmployee(HttpExchange ex, int id) throws IOException {
+        if (!store.delete(id)) {
+            error(ex, 404, "Employee " + id + " not found");
+            return;
+        }
+        ex.sendResponseHeaders(204, -1);
+    }
+
+    private void departments(HttpExchange ex) throws IOException {
+        if (!ex.getRequestMethod().equals("GET")) {
+            notAllowed(ex, "GET");
+            return;
+        }
+        send(ex, 200, store.headCounts());
+    }
+
+    private void payroll(HttpExchange ex) throws IOException {
+        if (!ex.getRequestMethod().equals("GET")) {
+            notAllowed(ex, "GET");
+            return;
+        }
+        PayrollRun.Result result = new PayrollRun().run(store.snapshot(), (e, bonus, finalSalary) -> { });
+        send(ex, 200, new PayrollJson(result));
+    }
+
+    private void batch(HttpExchange ex) throws IOException {
+        if (!ex.getRequestMethod().equals("POST")) {
+            notAllowed(ex, "POST");
+            return;
+        }
+        BufferedReader in = new BufferedReader(new InputStreamReader(ex.getRequestBody(), StandardCharsets.UTF_8));
+        send(ex, 200, store.apply(EmployeeBatch.read(in)));
+    }
+
+    private void stats(HttpExchange ex) throws IOException {
+        if (!ex.getRequestMethod().equals("GET")) {
+            notAllowed(ex, "GET");
+            return;
+        }
+        send(ex, 200, new AggregatesJson(store.aggregates()));
+    }
+
+    private void salaries(HttpExchange ex) throws IOException {
+        if (!ex.getRequestMethod().equals("GET")) {
+            notAllowed(ex, "GET");
+            return;
+        }
+        String by = query(ex, "by");
+        SalaryIndex.Key key;
+        if (by == null || by.equals("salary")) {
+            key = SalaryIndex.Key.SALARY;
+        } else if (by.equals("final")) {
+            key = SalaryIndex.Key.FINAL_SALARY;
+        } else {
+            throw new IllegalArgumentException("by must be salary or final");
+        }
+        String dept = query(ex, "department");
+        switch (ex.getRequestURI().getPath()) {
+            case "/salaries/top":
+                sendList(ex, store.top(key, Integer.parseInt(required(ex, "k")), dept));
+                break;
+            case "/salaries/range":
+                sendList(ex, store.salaryRange(key, Double.parseDouble(required(ex, "min")),
+                        Double.parseDouble(required(ex, "max")), dept));
+                break;
+            case "/salaries/percentile": {
+                double p = Double.parseDouble(required(ex, "p"));
+                double value = store.percentile(key, p, dept);
+                Map<String, Object> body = new LinkedHashMap<>();
+                body.put("percentile", p);
+                body.put("value", Double.isNaN(value) ? null : value);
+                send(ex, 200, body);
+                break;
+            }
+            default:
+                error(ex, 404, "No such resource " + ex.getRequestURI().getPath());
+        }
+    }
+
+    private void bonusRules(HttpExchange ex) throws IOException {
+        switch (ex.getRequestMethod()) {
+            case "GET":
+                send(ex, 200, BonusRules.current().getFormulas());
+                break;
+            case "PUT": {
+                String text = new String(ex.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+                BonusRules rules = BonusRules.parse(text);
+                store.setBonusRules(rules);
+                send(ex, 200, rules.getFormulas());
+                break;
+            }
+            default:
+                notAllowed(ex, "GET, PUT");
+        }
+    }
+
+    // =============================
+    // Helpers
+    // =============================
+    private <T> T body(HttpExchange ex, Class<T> type) throws IOException {
+        Reader in = new InputStreamReader(ex.getRequestBody(), StandardCharsets.UTF_8);
+        T value = gson.fromJson(in, type);
+        if (value == null) throw new IllegalArgumentException("Request body is empty");
+        return value;
+    }
+
+    private static String query(HttpExchange ex, String name) {
+        String raw = ex.getRequestURI().getRawQuery();
+        if (raw == null) return null;
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            if (key.equals(name)) {
+                return eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    private static String required(HttpExchange ex, String name) {
+        String value = query(ex, name);
+        if (value == null) throw new IllegalArgumentException("Missing query parameter " + name);
+        return value;
+    }
+
+    private void send(HttpExchange ex, int status, Object body) throws IOException {
+        byte[] bytes = gson.toJson(body).getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.sendResponseHeaders(status, bytes.length);
+        ex.getResponseBody().write(bytes);
+    }
+
+    private void error(HttpExchange ex, int status, String message) throws IOException {
+        send(ex, status, Collections.singletonMap("error", message));
+    }
+
+    private void notAllowed(HttpExchange ex, String allow) throws IOException {
+        ex.getResponseHeaders().set("Allow", allow);
+        error(ex, 405, "Method " + ex.getRequestMethod() + " not allowed");
+    }
+
+    // =============================
+    // Main
+    // =============================
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        EmployeeStore store = HRManagementSystem.openStore();
+        HRServer server = new HRServer(store, port);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            try {
+                store.close();
+            } catch (IOException e) {
+                System.out.println("Error closing journal: " + e.getMessage());
+            }
+        }));
+        server.start();
+        System.out.println("HR API listening on http://localhost:" + server.getPort() + "/employees");
+    }
+}
@@ -0,0 +1,165 @@
+package com.sumit.hr;
+
+import java.util.*;
+
+// =============================
+// IntObjectMap: insertion-ordered hash map with primitive int keys
+// =============================
+// Keys are never boxed. Entries live in dense arrays in insertion order and
+// an open-addressing table of dense positions points into them, so lookups,
+// inserts and removals are O(1) and iteration keeps the order rows were added.
+class IntObjectMap<V> implements Iterable<V> {
+    private static final int EMPTY = 0;
+    private static final int DELETED = -1;
+    private static final int MIN_CAPACITY = 16;
+
+    private int[] slots;       // dense position + 1, EMPTY or DELETED
+    private int[] keys;        // dense keys in insertion order
+    private Object[] values;   // dense values, null once removed
+    private int used;          // dense positions handed out so far
+    private int size;
+
+    public IntObjectMap() {
+        this(MIN_CAPACITY);
+    }
+
+    public IntObjectMap(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * 3 / 4 < expectedSize) capacity <<= 1;
+        allocate(capacity);
+    }
+
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+
+    public boolean containsKey(int key) {
+        return findSlot(key) >= 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int slot = findSlot(key);
+        return slot < 0 ? null : (V) values[slots[slot] - 1];
+    }
+
+    // Returns the previous value for the key, or null if it was absent.
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (value == null) throw new NullPointerException("value");
+        int slot = findSlot(key);
+        if (slot >= 0) {
+            int pos = slots[slot] - 1;
+            V old = (V) values[pos];
+            values[pos] = value;
+            return old;
+        }
+        if (used == keys.length) {
+            // Grow only if live entries fill more than half the dense space,
+            // otherwise just squeeze out removed entries.
+            rehash(size >= keys.length / 2 ? slots.length << 1 : slots.length);
+        }
+        int pos = used++;
+        keys[pos] = key;
+        values[pos] = value;
+        slots[freeSlot(key)] = pos + 1;
+        size++;
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int slot = findSlot(key);
+        if (slot < 0) return null;
+        int pos = slots[slot] - 1;
+        V old = (V) values[pos];
+        values[pos] = null;
+        slots[slot] = DELETED;
+        size--;
+        return old;
+    }
+
+    public void clear() {
+        allocate(MIN_CAPACITY);
+    }
+
+    // Read-only live view of the values, in insertion order.
+    public Collection<V> values() {
+        return new AbstractCollection<V>() {
+            @Override public Iterator<V> iterator() { return IntObjectMap.this.iterator(); }
+            @Override public int size() { return size; }
+        };
+    }
+
+    @Override
+    public Iterator<V> iterator() {
+        return new Iterator<V>() {
+            private int next = advance(0);
+
+            private int advance(int from) {
+                while (from < used && values[from] == null) from++;
+                return from;
+            }
+
+            @Override
+            public boolean hasNext() { return next < used; }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public V next() {
+                if (next >= used) throw new NoSuchElementException();
+                V v = (V) values[next];
+                next = advance(next + 1);
+                return v;
+            }
+        };
+    }
+
+    // =============================
+    // Internals
+    // =============================
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private int findSlot(int key) {
+        int mask = slots.length - 1;
+        int i = mix(key) & mask;
+        while (true) {
+            int s = slots[i];
+            if (s == EMPTY) return -1;
+            if (s > 0 && keys[s - 1] == key) return i;
+            i = (i + 1) & mask;
+        }
+    }
+
+    private int freeSlot(int key) {
+        int mask = slots.length - 1;
+        int i = mix(key) & mask;
+        while (slots[i] > 0) i = (i + 1) & mask;
+        return i;
+    }
+
+    private void allocate(int capacity) {
+        slots = new int[capacity];
+        keys = new int[capacity * 3 / 4];
+        values = new Object[capacity * 3 / 4];
+        used = 0;
+        size = 0;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        int oldUsed = used;
+        allocate(capacity);
+        for (int i = 0; i < oldUsed; i++) {
+            if (oldValues[i] == null) continue;
+            int pos = used++;
+            keys[pos] = oldKeys[i];
+            values[pos] = oldValues[i];
+            slots[freeSlot(oldKeys[i])] = pos + 1;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.sumit.hr;
+
+import java.util.Arrays;
+
+// =============================
+// IntSet: hash set of primitive ints
+// =============================
+// Open addressing with linear probing over one int array, so members are
+// never boxed. A removal shifts the rest of its probe run back instead of
+// leaving a tombstone. Which slots are taken is kept in a parallel boolean
+// array, so every int, 0 included, can be a member. Not ordered.
+class IntSet {
+    private static final int MIN_CAPACITY = 16;
+
+    private int[] keys;
+    private boolean[] taken;
+    private int size;
+
+    public IntSet() {
+        this(MIN_CAPACITY);
+    }
+
+    public IntSet(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * 3 / 4 < expectedSize) capacity <<= 1;
+        allocate(capacity);
+    }
+
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+
+    public boolean contains(int key) {
+        return findSlot(key) >= 0;
+    }
+
+    // Returns false if key was already a member.
+    public boolean add(int key) {
+        int mask = keys.length - 1;
+        int i = mix(key) & mask;
+        while (taken[i]) {
+            if (keys[i] == key) return false;
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        taken[i] = true;
+        if (++size > keys.length * 3 / 4) rehash(keys.length << 1);
+        return true;
+    }
+
+    // Returns false if key was not a member.
+    public boolean remove(int key) {
+        int i = findSlot(key);
+        if (i < 0) return false;
+        int mask = keys.length - 1;
+        // Move back any later member of the run whose home slot is not
+        // between the hole and itself, so lookups never stop short.
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            if (!taken[j]) break;
+            int home = mix(keys[j]) & mask;
+            if (((j - home) & mask) >= ((j - i) & mask)) {
+                keys[i] = keys[j];
+                i = j;
+            }
+        }
+        taken[i] = false;
+        size--;
+        return true;
+    }
+
+    public void clear() {
+        allocate(MIN_CAPACITY);
+    }
+
+    // The members, in no particular order.
+    public int[] toArray() {
+        int[] out = new int[size];
+        int n = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (taken[i]) out[n++] = keys[i];
+        }
+        return out;
+    }
+
+    @Override
+    public String toString() {
+        int[] members = toArray();
+        Arrays.sort(members);
+        return Arrays.toString(members);
+    }
+
+    // =============================
+    // Internals
+    // =============================
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private int findSlot(int key) {
+        int mask = keys.length - 1;
+        int i = mix(key) & mask;
+        while (taken[i]) {
+            if (keys[i] == key) return i;
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        taken = new boolean[capacity];
+        size = 0;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        boolean[] oldTaken = taken;
+        allocate(capacity);
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (!oldTaken[i]) continue;
+            int j = mix(oldKeys[i]) & mask;
+            while (taken[j]) j = (j + 1) & mask;
+            keys[j] = oldKeys[i];
+            taken[j] = true;
+            size++;
+        }
+    }
+}
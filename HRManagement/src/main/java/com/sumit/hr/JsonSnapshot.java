@@ -0,0 +1,179 @@
+package com.sumit.hr;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+// =============================
+// JsonSnapshot: the employee store as one JSON array
+// =============================
+//   [{"type":"Sales","id":7,"name":"Asha","department":"Sales","salary":50000.0,
+//     "sales":120000.0,"commissionRate":0.05,"target":100000.0},
+//    {"type":"Manager",...,"teamSize":4}, ...]
+//
+// Field names are the HTTP API's, without the derived bonus and finalSalary;
+// HRServer reads and writes its employees with the same adapter, as
+// API_ADAPTER, which adds those two on output.
+// "type" (Employee.getType()) says which class a row is; it is written first
+// but may come anywhere when reading, and a row without one is Regular.
+// Unknown fields are skipped, so a saved GET /employees response loads too.
+//
+// Rows are streamed through Gson's JsonWriter/JsonReader over a buffered
+// FileChannel by ADAPTER, which reads and writes the fields by hand: no
+// document-sized String is ever built and Gson does no reflection.
+class JsonSnapshot implements SnapshotFormat {
+    static final TypeAdapter<Employee> ADAPTER = new EmployeeAdapter(false);
+
+    // ADAPTER plus each row's bonus and finalSalary, which reading skips.
+    static final TypeAdapter<Employee> API_ADAPTER = new EmployeeAdapter(true);
+
+    // A Gson that uses ADAPTER for Employee, SalesEmployee and Manager.
+    static final Gson GSON = new GsonBuilder().registerTypeHierarchyAdapter(Employee.class, ADAPTER).create();
+
+    private static final int BUFFER_CHARS = 64 * 1024;
+
+    @Override
+    public List<Employee> read(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ);
+             JsonReader json = new JsonReader(new BufferedReader(Channels.newReader(ch, StandardCharsets.UTF_8), BUFFER_CHARS))) {
+            List<Employee> rows = new ArrayList<>();
+            json.beginArray();
+            while (json.hasNext()) {
+                String path = json.getPath();
+                Employee e = ADAPTER.read(json);
+                if (e == null) throw new IOException("null instead of an employee at " + path);
+                rows.add(e);
+            }
+            json.endArray();
+            if (json.peek() != JsonToken.END_DOCUMENT) throw new IOException("Trailing data after the employee array");
+            return rows;
+        } catch (IllegalStateException | IllegalArgumentException | JsonParseException e) {
+            throw new IOException(file + ": " + e.getMessage(), e);
+        }
+    }
+
+    // Writes to a temporary file, forces it to disk and renames it over the
+    // target, like the other formats.
+    @Override
+    public void write(Path file, Collection<Employee> employees) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            // Not closed here: closing the writer would close ch before force().
+            JsonWriter json = new JsonWriter(new BufferedWriter(Channels.newWriter(ch, StandardCharsets.UTF_8), BUFFER_CHARS));
+            json.beginArray();
+            for (Employee e : employees) {
+                ADAPTER.write(json, e);
+            }
+            json.endArray();
+            json.flush();
+            ch.force(true);
+        } catch (IllegalArgumentException e) {
+            // JsonWriter refuses NaN and infinite numbers
+            throw new IOException("Cannot write " + file + ": " + e.getMessage(), e);
+        }
+        CsvSnapshot.replace(tmp, file);
+    }
+
+    // =============================
+    // EmployeeAdapter: one row, by hand
+    // =============================
+    static final class EmployeeAdapter extends TypeAdapter<Employee> {
+        private static final int ID = 1, NAME = 2, DEPARTMENT = 4, SALARY = 8;
+        private static final int SALES = 16, COMMISSION_RATE = 32, TARGET = 64, TEAM_SIZE = 128;
+        private static final int COMMON = ID | NAME | DEPARTMENT | SALARY;
+
+        private final boolean pay;
+
+        EmployeeAdapter(boolean pay) {
+            this.pay = pay;
+        }
+
+        @Override
+        public void write(JsonWriter out, Employee e) throws IOException {
+            if (e == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("type").value(e.getType());
+            out.name("id").value(e.getId());
+            out.name("name").value(e.getName());
+            out.name("department").value(e.getDepartment());
+            out.name("salary").value(e.getSalary());
+            if (e instanceof SalesEmployee) {
+                SalesEmployee s = (SalesEmployee) e;
+                out.name("sales").value(s.getSales());
+                out.name("commissionRate").value(s.getCommissionRate());
+                out.name("target").value(s.getTarget());
+            } else if (e instanceof Manager) {
+                out.name("teamSize").value(((Manager) e).getTeamSize());
+            }
+            if (pay) {
+                double bonus = e.calculateBonus();
+                out.name("bonus").value(bonus);
+                out.name("finalSalary").value(e.getSalary() + bonus);
+            }
+            out.endObject();
+        }
+
+        @Override
+        public Employee read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            String path = in.getPath();
+            String type = "Regular", name = null, department = null;
+            int id = 0, teamSize = 0;
+            double salary = 0, sales = 0, commissionRate = 0, target = 0;
+            int seen = 0;
+
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "type": type = in.nextString(); break;
+                    case "id": id = in.nextInt(); seen |= ID; break;
+                    case "name": name = in.nextString(); seen |= NAME; break;
+                    case "department": department = in.nextString(); seen |= DEPARTMENT; break;
+                    case "salary": salary = in.nextDouble(); seen |= SALARY; break;
+                    case "sales": sales = in.nextDouble(); seen |= SALES; break;
+                    case "commissionRate": commissionRate = in.nextDouble(); seen |= COMMISSION_RATE; break;
+                    case "target": target = in.nextDouble(); seen |= TARGET; break;
+                    case "teamSize": teamSize = in.nextInt(); seen |= TEAM_SIZE; break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+
+            if ((seen & COMMON) != COMMON) {
+                throw new JsonParseException("Employee at " + path + " needs id, name, department and salary");
+            }
+            switch (type) {
+                case "Regular":
+                    return new Employee(id, name, salary, department);
+                case "Sales":
+                    if ((seen & (SALES | COMMISSION_RATE | TARGET)) != (SALES | COMMISSION_RATE | TARGET)) {
+                        throw new JsonParseException("Sales employee at " + path + " needs sales, commissionRate and target");
+                    }
+                    return new SalesEmployee(id, name, salary, department, sales, commissionRate, target);
+                case "Manager":
+                    if ((seen & TEAM_SIZE) == 0) throw new JsonParseException("Manager at " + path + " needs teamSize");
+                    return new Manager(id, name, salary, department, teamSize);
+                default:
+                    throw new JsonParseException("Unknown type " + type + " at " + path + " (Regular, Sales or Manager)");
+            }
+        }
+    }
+}
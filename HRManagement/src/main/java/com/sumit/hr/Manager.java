@@ -0,0 +1,48 @@
+package com.sumit.hr;
+
+// =============================
+// Derived class: Manager
+// =============================
+class Manager extends Employee {
+    private int teamSize;
+
+    public Manager(int id, String name, double salary, String department, int teamSize) {
+        super(id, name, salary, department);
+        this.teamSize = teamSize;
+    }
+
+    public int getTeamSize() { return teamSize; }
+    public void setTeamSize(int teamSize) {
+        this.teamSize = teamSize;
+        payChanged();
+    }
+
+    @Override
+    public Manager copy() {
+        return new Manager(id, name, salary, department, teamSize);
+    }
+
+    @Override
+    public String getType() { return "Manager"; }
+
+    // Default: 10% of salary + 500 per team member.
+    @Override
+    public double calculateBonus() {
+        return BonusRules.manager(this);
+    }
+
+    @Override
+    public String toCSV() {
+        return String.join(",", "Manager", String.valueOf(id), name, String.valueOf(salary), department,
+                String.valueOf(teamSize), "0", "0");
+    }
+
+    public static Manager fromCSV(String[] data) {
+        int id = Integer.parseInt(data[1]);
+        String name = data[2];
+        double salary = Double.parseDouble(data[3]);
+        String dept = data[4];
+        int teamSize = Integer.parseInt(data[5]);
+        return new Manager(id, name, salary, dept, teamSize);
+    }
+}
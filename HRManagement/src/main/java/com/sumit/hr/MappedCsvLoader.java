@@ -0,0 +1,265 @@
+package com.sumit.hr;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+// =============================
+// MappedCsvLoader: parallel loader for employees.csv
+// =============================
+// The file is cut into newline-aligned chunks, each chunk is memory-mapped
+// and parsed on a fork-join pool, and the per-chunk results are joined back
+// in file order. Rows are tokenized by scanning bytes for commas, integers
+// are parsed in place and decimals take an exact fast path, so no regex,
+// String[] or per-field String is created except for names and departments.
+class MappedCsvLoader {
+    private static final long MIN_CHUNK = 1L << 20;          // 1 MB
+    private static final long MAX_CHUNK = 256L << 20;        // stays well under the 2 GB mapping limit
+    private static final int MAX_FIELDS = 8;
+
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+        1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final ForkJoinPool pool;
+
+    public MappedCsvLoader() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public MappedCsvLoader(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    // Returns every row of the file in file order. Rows with an unknown type
+    // are skipped, as loadFromFile always did.
+    public List<Employee> load(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size == 0) return new ArrayList<>();
+
+            long[] bounds = chunkBounds(ch, size);
+            Map<String, String> departments = new ConcurrentHashMap<>();
+            List<ChunkParser> tasks = new ArrayList<>(bounds.length - 1);
+            for (int i = 0; i + 1 < bounds.length; i++) {
+                MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, bounds[i], bounds[i + 1] - bounds[i]);
+                tasks.add(new ChunkParser(buf, bounds[i], departments));
+            }
+            try {
+                return pool.invoke(new ForkJoinTask<List<Employee>>() {
+                    private List<Employee> result;
+
+                    @Override public List<Employee> getRawResult() { return result; }
+                    @Override protected void setRawResult(List<Employee> value) { result = value; }
+
+                    @Override
+                    protected boolean exec() {
+                        invokeAll(tasks);
+                        int total = 0;
+                        for (ChunkParser t : tasks) total += t.join().size();
+                        result = new ArrayList<>(total);
+                        for (ChunkParser t : tasks) result.addAll(t.join());
+                        return true;
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    // Chunk start offsets followed by the file size; every start after the
+    // first sits just past a newline.
+    private long[] chunkBounds(FileChannel ch, long size) throws IOException {
+        long chunk = size / (pool.getParallelism() * 4L);
+        chunk = Math.max(MIN_CHUNK, Math.min(MAX_CHUNK, chunk));
+
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        long pos = chunk;
+        while (pos < size) {
+            long lineEnd = -1;
+            long scan = pos;
+            while (lineEnd < 0 && scan < size) {
+                probe.clear();
+                int n = ch.read(probe, scan);
+                if (n <= 0) break;
+                for (int i = 0; i < n; i++) {
+                    if (probe.get(i) == '\n') {
+                        lineEnd = scan + i;
+                        break;
+                    }
+                }
+                scan += n;
+            }
+            if (lineEnd < 0 || lineEnd + 1 >= size) break;
+            if (lineEnd + 1 - bounds.get(bounds.size() - 1) > Integer.MAX_VALUE) {
+                throw new IOException("Row too long near byte offset " + pos);
+            }
+            bounds.add(lineEnd + 1);
+            pos = lineEnd + 1 + chunk;
+        }
+        bounds.add(size);
+
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++) result[i] = bounds.get(i);
+        return result;
+    }
+
+    // =============================
+    // Chunk parsing
+    // =============================
+    // Serializable only through ForkJoinTask; a parser never leaves the pool.
+    @SuppressWarnings("serial")
+    private static class ChunkParser extends RecursiveTask<List<Employee>> {
+        private final ByteBuffer buf;
+        private final long fileOffset;
+        private final Map<String, String> departments;
+        private final int[] starts = new int[MAX_FIELDS];
+        private final int[] ends = new int[MAX_FIELDS];
+        private byte[] scratch = new byte[64];
+
+        ChunkParser(ByteBuffer buf, long fileOffset, Map<String, String> departments) {
+            this.buf = buf;
+            this.fileOffset = fileOffset;
+            this.departments = departments;
+        }
+
+        @Override
+        protected List<Employee> compute() {
+            List<Employee> rows = new ArrayList<>();
+            int limit = buf.limit();
+            int lineStart = 0;
+            while (lineStart < limit) {
+                int lineEnd = lineStart;
+                while (lineEnd < limit && buf.get(lineEnd) != '\n') lineEnd++;
+                int contentEnd = lineEnd;
+                if (contentEnd > lineStart && buf.get(contentEnd - 1) == '\r') contentEnd--;
+                try {
+                    Employee e = parseRow(lineStart, contentEnd);
+                    if (e != null) rows.add(e);
+                } catch (NumberFormatException | IndexOutOfBoundsException ex) {
+                    throw new UncheckedIOException(new IOException(
+                            "Malformed row at byte offset " + (fileOffset + lineStart) + ": " + ex.getMessage(), ex));
+                }
+                lineStart = lineEnd + 1;
+            }
+            return rows;
+        }
+
+        private Employee parseRow(int from, int to) {
+            if (from == to) return null;
+            int fields = 0;
+            int start = from;
+            for (int i = from; i <= to && fields < MAX_FIELDS; i++) {
+                if (i == to || buf.get(i) == ',') {
+                    starts[fields] = start;
+                    ends[fields] = i;
+                    fields++;
+                    start = i + 1;
+                }
+            }
+
+            int type = typeOf(starts[0], ends[0]);
+            if (type == 0) return null;
+            if (fields < (type == 'M' ? 6 : type == 'S' ? 8 : 5)) {
+                throw new IndexOutOfBoundsException("expected more fields, found " + fields);
+            }
+
+            int id = parseInt(starts[1], ends[1]);
+            String name = decode(starts[2], ends[2]);
+            double salary = parseDouble(starts[3], ends[3]);
+            String dept = decode(starts[4], ends[4]);
+            String shared = departments.putIfAbsent(dept, dept);
+            if (shared != null) dept = shared;
+
+            switch (type) {
+                case 'S':
+                    return new SalesEmployee(id, name, salary, dept,
+                            parseDouble(starts[5], ends[5]),
+                            parseDouble(starts[6], ends[6]),
+                            parseDouble(starts[7], ends[7]));
+                case 'M':
+                    return new Manager(id, name, salary, dept, parseInt(starts[5], ends[5]));
+                default:
+                    return new Employee(id, name, salary, dept);
+            }
+        }
+
+        // 'R', 'S' or 'M' for the three row types, 0 for anything else.
+        private int typeOf(int from, int to) {
+            if (matches(from, to, "Regular")) return 'R';
+            if (matches(from, to, "Sales")) return 'S';
+            if (matches(from, to, "Manager")) return 'M';
+            return 0;
+        }
+
+        private boolean matches(int from, int to, String word) {
+            if (to - from != word.length()) return false;
+            for (int i = 0; i < word.length(); i++) {
+                if (buf.get(from + i) != word.charAt(i)) return false;
+            }
+            return true;
+        }
+
+        private String decode(int from, int to) {
+            int len = to - from;
+            if (len > scratch.length) scratch = new byte[Math.max(len, scratch.length * 2)];
+            buf.get(from, scratch, 0, len);
+            return new String(scratch, 0, len, StandardCharsets.UTF_8);
+        }
+
+        private int parseInt(int from, int to) {
+            boolean negative = from < to && buf.get(from) == '-';
+            int i = negative ? from + 1 : from;
+            if (i == to) throw new NumberFormatException("empty integer field");
+            long value = 0;
+            for (; i < to; i++) {
+                int d = buf.get(i) - '0';
+                if (d < 0 || d > 9 || value > Integer.MAX_VALUE) return Integer.parseInt(text(from, to));
+                value = value * 10 + d;
+            }
+            value = negative ? -value : value;
+            if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) return Integer.parseInt(text(from, to));
+            return (int) value;
+        }
+
+        // Plain decimals with at most 15 significant digits and 22 fraction
+        // digits are exact as long / 10^n, which IEEE division rounds the same
+        // way Double.parseDouble does. Anything else goes to parseDouble.
+        private double parseDouble(int from, int to) {
+            boolean negative = from < to && buf.get(from) == '-';
+            int i = negative ? from + 1 : from;
+            long mantissa = 0;
+            int digits = 0;
+            int fraction = -1;
+            for (; i < to; i++) {
+                byte b = buf.get(i);
+                if (b == '.' && fraction < 0) {
+                    fraction = 0;
+                    continue;
+                }
+                int d = b - '0';
+                if (d < 0 || d > 9) return Double.parseDouble(text(from, to));
+                if (mantissa != 0 || d != 0) digits++;
+                mantissa = mantissa * 10 + d;
+                if (fraction >= 0) fraction++;
+                if (digits > 15 || fraction > 22) return Double.parseDouble(text(from, to));
+            }
+            if (i == (negative ? from + 1 : from) || fraction == 0) return Double.parseDouble(text(from, to));
+            double value = fraction > 0 ? mantissa / POWERS_OF_TEN[fraction] : (double) mantissa;
+            return negative ? -value : value;
+        }
+
+        private String text(int from, int to) {
+            return decode(from, to).trim();
+        }
+    }
+}
@@ -0,0 +1,353 @@
+package com.sumit.hr;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.function.IntPredicate;
+
+// =============================
+// NameIndex: prefix, whole-word and fuzzy search over employee names
+// =============================
+// Names are split into tokens (letters and digits, lower-cased, accents
+// dropped, so "José Álvarez-Ruiz" is indexed under jose, alvarez and ruiz).
+// Tokens go into a trie; the node a token ends at holds the sorted IDs of
+// everyone with that token, and every node counts the IDs below it.
+//
+// A query is tokenized the same way and an employee matches when every
+// query token matches one of their tokens:
+//   PREFIX  a token starts with it (type-ahead: "ra gu" finds Rajesh Gupta)
+//   TOKEN   a token equals it
+//   FUZZY   a token is within 0, 1 or 2 edits of it for queries of up to 2,
+//           up to 5, and more characters; an edit is a character added,
+//           dropped, changed, or swapped with its neighbour ("gutpa")
+// The query token matching the fewest IDs drives the search: its matches
+// are walked in trie order (shorter and, for FUZZY, closer tokens first,
+// then by ID) and the other tokens are checked against each candidate's
+// tokens. Walking stops as soon as the page is full, so a page costs about
+// offset + limit candidates however many employees match.
+//
+// All methods are synchronized.
+class NameIndex implements EmployeeIndex {
+    enum Mode { PREFIX, TOKEN, FUZZY }
+
+    private static final char[] NO_KEYS = new char[0];
+    private static final Node[] NO_KIDS = new Node[0];
+    private static final int[] NO_IDS = new int[0];
+
+    private static class Node {
+        char[] keys = NO_KEYS;      // sorted; kids[i] follows keys[i]
+        Node[] kids = NO_KIDS;
+        int width;
+        int[] ids = NO_IDS;         // sorted IDs with the token ending here
+        int count;
+        int total;                  // IDs here and below
+
+        Node child(char c) {
+            int i = Arrays.binarySearch(keys, 0, width, c);
+            return i < 0 ? null : kids[i];
+        }
+    }
+
+    // One query token: the trie nodes whose IDs it matches, best first, and
+    // a check against a candidate's tokens.
+    private static class Term {
+        final List<Node> nodes = new ArrayList<>();
+        final Set<String> similar = new HashSet<>();   // FUZZY: the tokens nodes end
+        boolean subtrees;           // PREFIX: take the IDs below each node too
+        long estimate;
+        final String text;
+        final Mode mode;
+        final int maxEdits;
+
+        Term(String text, Mode mode) {
+            this.text = text;
+            this.mode = mode;
+            this.maxEdits = mode != Mode.FUZZY ? 0 : text.length() <= 2 ? 0 : text.length() <= 5 ? 1 : 2;
+        }
+
+        boolean matches(String[] tokens) {
+            for (String t : tokens) {
+                switch (mode) {
+                    case PREFIX:
+                        if (t.startsWith(text)) return true;
+                        break;
+                    case TOKEN:
+                        if (t.equals(text)) return true;
+                        break;
+                    default:
+                        if (similar.contains(t)) return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private final Node root = new Node();
+    private final IntObjectMap<String[]> tokens = new IntObjectMap<>();  // ID -> tokens indexed under
+
+    @Override
+    public synchronized void add(Employee e) {
+        String[] t = tokenize(e.getName());
+        tokens.put(e.getId(), t);
+        for (String token : t) insert(token, e.getId());
+    }
+
+    @Override
+    public synchronized void remove(Employee e) {
+        String[] t = tokens.remove(e.getId());
+        if (t == null) return;
+        for (String token : t) delete(token, e.getId());
+    }
+
+    @Override
+    public synchronized void nameChanged(Employee e, String oldName) {
+        remove(e);
+        add(e);
+    }
+
+    @Override
+    public void departmentChanged(Employee e, String oldDepartment) { }
+
+    // Number of distinct tokens indexed.
+    public synchronized int tokenCount() {
+        return countTokens(root);
+    }
+
+    // IDs of the employees matching query, best match first; skips offset
+    // matches and returns at most limit. A query with no letters or digits
+    // matches nobody.
+    public synchronized int[] search(String query, Mode mode, int offset, int limit) {
+        if (offset < 0 || limit < 0) throw new IllegalArgumentException("offset and limit must not be negative");
+        String[] words = tokenize(query);
+        if (words.length == 0 || limit == 0) return NO_IDS;
+        Term[] terms = new Term[words.length];
+        Term driver = null;
+        for (int i = 0; i < words.length; i++) {
+            terms[i] = term(words[i], mode);
+            if (terms[i].estimate == 0) return NO_IDS;
+            if (driver == null || terms[i].estimate < driver.estimate) driver = terms[i];
+        }
+        int[][] page = {new int[Math.min(limit, 64)]};
+        int[] n = {0};
+        int[] skip = {offset};
+        // The same ID can turn up under several of the driver's tokens.
+        IntObjectMap<Boolean> seen = driver.subtrees || driver.nodes.size() > 1 ? new IntObjectMap<>() : null;
+        Term lead = driver;
+        IntPredicate sink = id -> {
+            if (seen != null) {
+                if (seen.containsKey(id)) return true;
+                seen.put(id, Boolean.TRUE);
+            }
+            String[] own = tokens.get(id);
+            for (Term t : terms) {
+                if (t != lead && !t.matches(own)) return true;
+            }
+            if (skip[0] > 0) {
+                skip[0]--;
+                return true;
+            }
+            if (n[0] == page[0].length) page[0] = Arrays.copyOf(page[0], Math.min(limit, n[0] * 2));
+            page[0][n[0]++] = id;
+            return n[0] < limit;
+        };
+        for (Node node : driver.nodes) {
+            if (!(driver.subtrees ? walk(node, sink) : each(node, sink))) break;
+        }
+        return Arrays.copyOf(page[0], n[0]);
+    }
+
+    // Lower-cased letter and digit runs of s, without accents or repeats.
+    static String[] tokenize(String s) {
+        if (s == null) return new String[0];
+        boolean ascii = true;
+        for (int i = 0; i < s.length() && ascii; i++) ascii = s.charAt(i) < 0x80;
+        if (!ascii) s = Normalizer.normalize(s, Normalizer.Form.NFD).replaceAll("\\p{M}+", "");
+        List<String> result = new ArrayList<>(2);
+        int start = -1;
+        for (int i = 0; i <= s.length(); i++) {
+            boolean word = i < s.length() && Character.isLetterOrDigit(s.charAt(i));
+            if (word && start < 0) {
+                start = i;
+            } else if (!word && start >= 0) {
+                String t = s.substring(start, i).toLowerCase(Locale.ROOT);
+                if (!result.contains(t)) result.add(t);
+                start = -1;
+            }
+        }
+        return result.toArray(new String[0]);
+    }
+
+    // Edit distance of a and b counting adjacent swaps as one edit (optimal
+    // string alignment), or max + 1 once it is certain to exceed max.
+    static int editDistance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) return max + 1;
+        int[] before = new int[b.length() + 1];
+        int[] prev = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) prev[j] = j;
+        for (int i = 1; i <= a.length(); i++) {
+            int[] row = nextRow(prev, i > 1 ? before : null, a.charAt(i - 1), i > 1 ? a.charAt(i - 2) : 0, b);
+            if (min(row) > max && min(prev) >= max) return max + 1;
+            before = prev;
+            prev = row;
+        }
+        return Math.min(prev[b.length()], max + 1);
+    }
+
+    // =============================
+    // Internals
+    // =============================
+    private Term term(String text, Mode mode) {
+        Term t = new Term(text, mode);
+        if (mode == Mode.FUZZY && t.maxEdits > 0) {
+            List<Object[]> found = new ArrayList<>();   // {distance, token, node}
+            int[] first = new int[text.length() + 1];
+            for (int j = 0; j < first.length; j++) first[j] = j;
+            StringBuilder path = new StringBuilder();
+            for (int i = 0; i < root.width; i++) {
+                fuzzy(root.keys[i], root.kids[i], text, t.maxEdits, first, null, path, found);
+            }
+            found.sort((x, y) -> {
+                int c = Integer.compare((Integer) x[0], (Integer) y[0]);
+                return c != 0 ? c : ((String) x[1]).compareTo((String) y[1]);
+            });
+            for (Object[] f : found) {
+                Node node = (Node) f[2];
+                t.nodes.add(node);
+                t.similar.add((String) f[1]);
+                t.estimate += node.count;
+            }
+            return t;
+        }
+        Node node = find(text);
+        if (node == null) return t;
+        t.nodes.add(node);
+        t.similar.add(text);
+        t.subtrees = mode == Mode.PREFIX;
+        t.estimate = t.subtrees ? node.total : node.count;
+        return t;
+    }
+
+    // Depth-first over the trie with one row of the edit-distance table per
+    // level, pruning branches that can no longer come within maxEdits (a
+    // swap reaches back two rows, hence the check on prev too).
+    private static void fuzzy(char c, Node node, String query, int maxEdits, int[] prev, int[] before,
+                              StringBuilder path, List<Object[]> found) {
+        int[] row = nextRow(prev, before, c, path.length() > 0 ? path.charAt(path.length() - 1) : 0, query);
+        if (min(row) > maxEdits && min(prev) >= maxEdits) return;
+        path.append(c);
+        int distance = row[row.length - 1];
+        if (node.count > 0 && distance <= maxEdits) found.add(new Object[] {distance, path.toString(), node});
+        for (int i = 0; i < node.width; i++) {
+            fuzzy(node.keys[i], node.kids[i], query, maxEdits, row, prev, path, found);
+        }
+        path.setLength(path.length() - 1);
+    }
+
+    // The edit-distance row for one more character c of the candidate, given
+    // the rows for the characters before it (before is null at the first).
+    private static int[] nextRow(int[] prev, int[] before, char c, char last, String query) {
+        int[] row = new int[prev.length];
+        row[0] = prev[0] + 1;
+        for (int j = 1; j < row.length; j++) {
+            int cost = query.charAt(j - 1) == c ? 0 : 1;
+            row[j] = Math.min(Math.min(row[j - 1] + 1, prev[j] + 1), prev[j - 1] + cost);
+            if (before != null && j > 1 && query.charAt(j - 1) == last && query.charAt(j - 2) == c) {
+                row[j] = Math.min(row[j], before[j - 2] + 1);
+            }
+        }
+        return row;
+    }
+
+    private static int min(int[] row) {
+        int m = Integer.MAX_VALUE;
+        for (int v : row) m = Math.min(m, v);
+        return m;
+    }
+
+    private Node find(String token) {
+        Node node = root;
+        for (int i = 0; i < token.length() && node != null; i++) node = node.child(token.charAt(i));
+        return node;
+    }
+
+    // Feeds the node's own IDs to sink until it returns false.
+    private static boolean each(Node node, IntPredicate sink) {
+        for (int i = 0; i < node.count; i++) {
+            if (!sink.test(node.ids[i])) return false;
+        }
+        return true;
+    }
+
+    // The node's IDs, then each child's subtree in key order.
+    private static boolean walk(Node node, IntPredicate sink) {
+        if (!each(node, sink)) return false;
+        for (int i = 0; i < node.width; i++) {
+            if (!walk(node.kids[i], sink)) return false;
+        }
+        return true;
+    }
+
+    private void insert(String token, int id) {
+        Node node = root;
+        node.total++;
+        for (int i = 0; i < token.length(); i++) {
+            char c = token.charAt(i);
+            int at = Arrays.binarySearch(node.keys, 0, node.width, c);
+            if (at < 0) {
+                at = -at - 1;
+                if (node.width == node.keys.length) {
+                    int cap = Math.max(2, node.width * 2);
+                    node.keys = Arrays.copyOf(node.keys, cap);
+                    node.kids = Arrays.copyOf(node.kids, cap);
+                }
+                System.arraycopy(node.keys, at, node.keys, at + 1, node.width - at);
+                System.arraycopy(node.kids, at, node.kids, at + 1, node.width - at);
+                node.keys[at] = c;
+                node.kids[at] = new Node();
+                node.width++;
+            }
+            node = node.kids[at];
+            node.total++;
+        }
+        // IDs mostly arrive in increasing order, so this is usually an append.
+        int at = -Arrays.binarySearch(node.ids, 0, node.count, id) - 1;
+        if (node.count == node.ids.length) node.ids = Arrays.copyOf(node.ids, Math.max(1, node.count * 2));
+        System.arraycopy(node.ids, at, node.ids, at + 1, node.count - at);
+        node.ids[at] = id;
+        node.count++;
+    }
+
+    private void delete(String token, int id) {
+        Node[] path = new Node[token.length() + 1];
+        path[0] = root;
+        for (int i = 0; i < token.length(); i++) {
+            path[i + 1] = path[i].child(token.charAt(i));
+            if (path[i + 1] == null) return;
+        }
+        Node node = path[token.length()];
+        int at = Arrays.binarySearch(node.ids, 0, node.count, id);
+        if (at < 0) return;
+        System.arraycopy(node.ids, at + 1, node.ids, at, node.count - at - 1);
+        node.count--;
+        if (node.count == 0) node.ids = NO_IDS;
+        for (Node n : path) n.total--;
+        // Unlink the deepest node left empty; everything under it is empty too.
+        for (int i = token.length(); i > 0; i--) {
+            if (path[i].total > 0) break;
+            if (path[i - 1].total > 0 || i == 1) {
+                Node parent = path[i - 1];
+                int k = Arrays.binarySearch(parent.keys, 0, parent.width, token.charAt(i - 1));
+                System.arraycopy(parent.keys, k + 1, parent.keys, k, parent.width - k - 1);
+                System.arraycopy(parent.kids, k + 1, parent.kids, k, parent.width - k - 1);
+                parent.width--;
+                parent.kids[parent.width] = null;
+                break;
+            }
+        }
+    }
+
+    private static int countTokens(Node node) {
+        int n = node.count > 0 ? 1 : 0;
+        for (int i = 0; i < node.width; i++) n += countTokens(node.kids[i]);
+        return n;
+    }
+}
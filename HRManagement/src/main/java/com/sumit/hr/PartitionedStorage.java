@@ -0,0 +1,425 @@
+package com.sumit.hr;
+
+import java.io.*;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+
+// =============================
+// PartitionedStorage: one snapshot file per department or per ID bucket
+// =============================
+// Instead of one file holding everyone, employees are spread over partition
+// files in a directory, either one per department (case-insensitive) or one
+// per hash bucket of the ID. A manifest next to them records which IDs each
+// partition holds, so a store opens by reading only the manifest and reads a
+// partition the first time a query needs it: an ID lookup reads the
+// partition holding that ID, a department query that department's (when
+// partitioned by department), and company-wide queries all of them.
+//
+// EmployeeStore keeps this in sync as one of its indexes. A change marks the
+// partitions it touches dirty, and save() rewrites only those, each
+// atomically through the SnapshotFormat, and then the manifest. A partition
+// written after the manifest (a crash between the two) no longer matches the
+// size and modification time the manifest recorded, so open() reads its IDs
+// from the file itself. Rows found in the wrong partition, e.g. after
+// switching between department and bucket partitioning, are moved on open.
+//
+//   <dir>/partitions.idx       manifest
+//   <dir>/dept-<name>.<ext>    by department
+//   <dir>/bucket-<n>.<ext>     by ID bucket
+//
+// All methods are synchronized.
+class PartitionedStorage implements EmployeeIndex {
+    private static final String MANIFEST = "partitions.idx";
+    private static final int MAGIC = 0x4852504D;  // "HRPM"
+    private static final short VERSION = 1;
+
+    // One partition file and the IDs in it. A partition is loaded once the
+    // store holds its rows; until then it only knows the IDs.
+    static class Partition {
+        final String key;                 // file name without the extension
+        final Path file;
+        final IntSet ids = new IntSet();
+        private volatile boolean loaded;
+        private boolean dirty;
+        private long fileSize = -1;       // as of the last read or write; -1 if none
+        private long fileModified = -1;
+
+        Partition(String key, Path file, boolean loaded) {
+            this.key = key;
+            this.file = file;
+            this.loaded = loaded;
+        }
+
+        public String getKey() { return key; }
+        public boolean isLoaded() { return loaded; }
+    }
+
+    private final Path dir;
+    private final SnapshotFormat format;
+    private final String extension;
+    private final int buckets;                                   // 0: by department
+    private final Map<String, Partition> partitions = new TreeMap<>();
+    private final IntObjectMap<Partition> directory = new IntObjectMap<>();
+    private final List<Partition> misplaced = new ArrayList<>();
+    private int duplicatesSkipped;
+    private int reads;
+    private int writes;
+
+    // buckets > 0 partitions by hash of ID into that many files; 0 by department.
+    public PartitionedStorage(Path dir, SnapshotFormat format, int buckets) {
+        this.dir = dir;
+        this.format = format;
+        this.extension = format instanceof BinarySnapshot ? ".bin" : format instanceof JsonSnapshot ? ".json" : ".csv";
+        this.buckets = Math.max(0, buckets);
+    }
+
+    public Path getDirectory() { return dir; }
+
+    public boolean byDepartment() { return buckets == 0; }
+
+    // =============================
+    // Startup
+    // =============================
+
+    // Reads the manifest and the IDs of any partition written after it. If
+    // the directory holds no partitions yet, returns the rows of importCsv
+    // (if it exists) for the store to add; otherwise null.
+    public synchronized List<Employee> open(Path importCsv) throws IOException {
+        Files.createDirectories(dir);
+        Map<String, Partition> recorded = readManifest();
+        List<Partition> trusted = new ArrayList<>();
+        List<Path> stale = new ArrayList<>();
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, "*" + extension)) {
+            for (Path file : ds) {
+                String key = keyOf(file);
+                if (key == null) continue;
+                Partition p = recorded.get(key);
+                if (p != null && p.fileSize == Files.size(file)
+                        && p.fileModified == Files.getLastModifiedTime(file).toMillis()) {
+                    trusted.add(p);
+                } else {
+                    stale.add(file);
+                }
+            }
+        }
+        // Stale files are newer than the manifest, so their rows win.
+        Collections.sort(stale);
+        for (Path file : stale) {
+            Partition p = new Partition(keyOf(file), file, false);
+            List<Employee> rows = format.read(file);
+            reads++;
+            p.fileSize = Files.size(file);
+            p.fileModified = Files.getLastModifiedTime(file).toMillis();
+            partitions.put(p.key, p);
+            for (Employee e : rows) {
+                claim(e.getId(), p);
+                if (!keyFor(e).equals(p.key)) misplace(p);
+            }
+        }
+        for (Partition p : trusted) {
+            partitions.put(p.key, p);
+            int[] ids = p.ids.toArray();
+            p.ids.clear();
+            for (int id : ids) claim(id, p);
+            if (p.ids.size() < ids.length) misplace(p);
+        }
+        if (partitions.isEmpty() && importCsv != null && Files.exists(importCsv)) {
+            return new CsvSnapshot().read(importCsv);
+        }
+        return null;
+    }
+
+    // Partitions holding rows that belong in another partition, or rows a
+    // newer file also holds. The store loads them right after opening, which
+    // moves the rows, and saves.
+    public synchronized List<Partition> misplaced() {
+        return new ArrayList<>(misplaced);
+    }
+
+    // Rows dropped on open because a newer partition file held the same ID.
+    public synchronized int getDuplicatesSkipped() { return duplicatesSkipped; }
+
+    // =============================
+    // Lookup
+    // =============================
+
+    // The partition holding id, or null if none does.
+    public synchronized Partition ofId(int id) {
+        return directory.get(id);
+    }
+
+    // The partition holding everyone in department; null when partitioned by
+    // ID, or if nobody works there.
+    public synchronized Partition ofDepartment(String department) {
+        return byDepartment() ? partitions.get(departmentKey(department)) : null;
+    }
+
+    public synchronized List<Partition> all() {
+        return new ArrayList<>(partitions.values());
+    }
+
+    public synchronized int partitionCount() { return partitions.size(); }
+
+    // Employees recorded in any partition, loaded or not.
+    public synchronized int size() { return directory.size(); }
+
+    // Partition files read and written so far.
+    public synchronized int getReads() { return reads; }
+    public synchronized int getWrites() { return writes; }
+
+    // The rows in p's file as last saved; the caller puts those still in p
+    // into the store, then calls loaded().
+    List<Employee> read(Partition p) throws IOException {
+        List<Employee> rows = Files.exists(p.file) ? format.read(p.file) : Collections.emptyList();
+        synchronized (this) {
+            reads++;
+        }
+        return rows;
+    }
+
+    // Marks p loaded. IDs the store did not end up holding (recorded in a
+    // manifest written while p had unsaved adds) are forgotten.
+    synchronized void loaded(Partition p, IntPredicate held) {
+        for (int id : p.ids.toArray()) {
+            if (!held.test(id)) {
+                p.ids.remove(id);
+                directory.remove(id);
+            }
+        }
+        p.loaded = true;
+    }
+
+    public synchronized boolean isDirty(Partition p) {
+        return p.dirty;
+    }
+
+    // =============================
+    // EmployeeIndex
+    // =============================
+
+    // Also called for rows being loaded, which are already in their
+    // partition and so change nothing.
+    @Override
+    public synchronized void add(Employee e) {
+        Partition p = partitionFor(e);
+        Partition old = directory.get(e.getId());
+        if (old == p) return;
+        if (old != null) {
+            old.ids.remove(e.getId());
+            old.dirty = true;
+        }
+        directory.put(e.getId(), p);
+        p.ids.add(e.getId());
+        p.dirty = true;
+    }
+
+    @Override
+    public synchronized void remove(Employee e) {
+        Partition p = directory.remove(e.getId());
+        if (p != null) {
+            p.ids.remove(e.getId());
+            p.dirty = true;
+        }
+    }
+
+    @Override
+    public synchronized void departmentChanged(Employee e, String oldDepartment) {
+        if (byDepartment()) {
+            add(e);  // moves it
+        } else {
+            changed(e.getId());
+        }
+    }
+
+    @Override
+    public synchronized void payChanged(Employee e) {
+        changed(e.getId());
+    }
+
+    @Override
+    public synchronized void nameChanged(Employee e, String oldName) {
+        changed(e.getId());
+    }
+
+    private void changed(int id) {
+        Partition p = directory.get(id);
+        if (p != null) p.dirty = true;
+    }
+
+    // =============================
+    // Saving
+    // =============================
+
+    // Writes each dirty, loaded partition with the rows copies returns for
+    // its IDs, then the manifest. A partition left empty loses its file.
+    // Dirty partitions that are not loaded are skipped: their file still
+    // holds rows the store does not. Callers serialize saves.
+    void save(Function<int[], List<Employee>> copies) throws IOException {
+        Map<Partition, int[]> dirty = new LinkedHashMap<>();
+        synchronized (this) {
+            for (Partition p : partitions.values()) {
+                if (!p.dirty || !p.loaded) continue;
+                dirty.put(p, p.ids.toArray());
+                p.dirty = false;   // a change from here on dirties it again
+            }
+        }
+        if (dirty.isEmpty()) return;
+        try {
+            for (Map.Entry<Partition, int[]> d : dirty.entrySet()) {
+                Partition p = d.getKey();
+                List<Employee> rows = copies.apply(d.getValue());
+                // Anyone who moved out since the IDs were taken is written by
+                // their new partition, which the move dirtied.
+                synchronized (this) {
+                    rows.removeIf(e -> directory.get(e.getId()) != p);
+                }
+                long size = -1;
+                long modified = -1;
+                if (rows.isEmpty()) {
+                    Files.deleteIfExists(p.file);
+                } else {
+                    format.write(p.file, rows);
+                    size = Files.size(p.file);
+                    modified = Files.getLastModifiedTime(p.file).toMillis();
+                }
+                synchronized (this) {
+                    writes++;
+                    p.fileSize = size;
+                    p.fileModified = modified;
+                    if (p.ids.isEmpty() && !p.dirty) partitions.remove(p.key);
+                    misplaced.remove(p);
+                }
+            }
+            writeManifest();
+        } catch (IOException | RuntimeException e) {
+            synchronized (this) {
+                for (Partition p : dirty.keySet()) {
+                    p.dirty = true;
+                    partitions.putIfAbsent(p.key, p);
+                }
+            }
+            throw e;
+        }
+    }
+
+    // =============================
+    // Internals
+    // =============================
+    private void claim(int id, Partition p) {
+        if (directory.containsKey(id)) {
+            duplicatesSkipped++;
+            return;
+        }
+        directory.put(id, p);
+        p.ids.add(id);
+    }
+
+    // Dirty, so the rewrite after loading drops the rows it should not hold.
+    private void misplace(Partition p) {
+        p.dirty = true;
+        if (!misplaced.contains(p)) misplaced.add(p);
+    }
+
+    private String keyFor(Employee e) {
+        if (byDepartment()) return departmentKey(e.getDepartment());
+        int h = e.getId() * 0x9E3779B9;
+        return String.format("bucket-%03d", Math.floorMod(h ^ (h >>> 16), buckets));
+    }
+
+    private static String departmentKey(String department) {
+        return "dept-" + URLEncoder.encode(DepartmentIndex.normalize(department), StandardCharsets.UTF_8);
+    }
+
+    // Partition key of a file in the directory, in either scheme; null for
+    // any other file.
+    private String keyOf(Path file) {
+        String name = file.getFileName().toString();
+        String key = name.substring(0, name.length() - extension.length());
+        if (key.startsWith("dept-")) {
+            try {
+                URLDecoder.decode(key.substring(5), StandardCharsets.UTF_8);
+                return key;
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+        return key.matches("bucket-\\d+") ? key : null;
+    }
+
+    // New partitions start loaded: there is nothing on disk to read.
+    private Partition partitionFor(Employee e) {
+        String key = keyFor(e);
+        Partition p = partitions.get(key);
+        if (p == null) {
+            p = new Partition(key, dir.resolve(key + extension), true);
+            partitions.put(key, p);
+        }
+        return p;
+    }
+
+    // Partitions keyed by file name. A manifest written for the other
+    // scheme or bucket count, or torn, counts as missing.
+    private Map<String, Partition> readManifest() throws IOException {
+        Map<String, Partition> byKey = new HashMap<>();
+        Path file = dir.resolve(MANIFEST);
+        if (!Files.exists(file)) return byKey;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readShort() != VERSION) {
+                throw new IOException(file + " is not a partition manifest");
+            }
+            if (in.readInt() != buckets) return byKey;
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String key = in.readUTF();
+                Partition p = new Partition(key, dir.resolve(key + extension), false);
+                p.fileSize = in.readLong();
+                p.fileModified = in.readLong();
+                int n = in.readInt();
+                for (int j = 0; j < n; j++) {
+                    p.ids.add(in.readInt());
+                }
+                byKey.put(key, p);
+            }
+        } catch (EOFException e) {
+            byKey.clear();
+        }
+        return byKey;
+    }
+
+    // Same temp file, force and rename as the snapshot formats.
+    private void writeManifest() throws IOException {
+        Path file = dir.resolve(MANIFEST);
+        Path tmp = dir.resolve(MANIFEST + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(ch), 1 << 16));
+            synchronized (this) {
+                out.writeInt(MAGIC);
+                out.writeShort(VERSION);
+                out.writeInt(buckets);
+                List<Partition> written = new ArrayList<>();
+                for (Partition p : partitions.values()) {
+                    if (p.fileSize >= 0) written.add(p);
+                }
+                out.writeInt(written.size());
+                for (Partition p : written) {
+                    out.writeUTF(p.key);
+                    out.writeLong(p.fileSize);
+                    out.writeLong(p.fileModified);
+                    out.writeInt(p.ids.size());
+                    for (int id : p.ids.toArray()) out.writeInt(id);
+                }
+            }
+            out.flush();
+            ch.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,230 @@
+package com.sumit.hr;
+
+import java.util.*;
+
+// =============================
+// PayrollAggregates: running salary and bonus statistics
+// =============================
+// Count, sum, min, max and mean of salary and bonus for the whole company,
+// each department and each employee type, updated as employees are added,
+// removed or changed instead of recomputed by scanning. Sums are compensated
+// (Neumaier) so repeated add/subtract does not drift. Min and max survive
+// deletes because each group also keeps its values in SalaryTrees; they are
+// re-read after every change, so reading any statistic is O(1).
+// All methods are synchronized.
+class PayrollAggregates implements EmployeeIndex {
+
+    // One measured quantity; min, max and mean are NaN for an empty group.
+    static class Measure {
+        final double sum;
+        final double min;
+        final double max;
+        final double mean;
+
+        Measure(double sum, double min, double max, int count) {
+            this.sum = sum;
+            this.min = min;
+            this.max = max;
+            this.mean = count == 0 ? Double.NaN : sum / count;
+        }
+
+        public double getSum() { return sum; }
+        public double getMin() { return min; }
+        public double getMax() { return max; }
+        public double getMean() { return mean; }
+    }
+
+    static class Stats {
+        final int count;
+        final Measure salary;
+        final Measure bonus;
+
+        Stats(int count, Measure salary, Measure bonus) {
+            this.count = count;
+            this.salary = salary;
+            this.bonus = bonus;
+        }
+
+        public int getCount() { return count; }
+        public Measure getSalary() { return salary; }
+        public Measure getBonus() { return bonus; }
+    }
+
+    // Compensated running sum.
+    private static class Sum {
+        double sum;
+        double compensation;
+
+        void add(double x) {
+            double t = sum + x;
+            if (Math.abs(sum) >= Math.abs(x)) {
+                compensation += (sum - t) + x;
+            } else {
+                compensation += (x - t) + sum;
+            }
+            sum = t;
+        }
+
+        double value() { return sum + compensation; }
+
+        void clear() { sum = compensation = 0; }
+    }
+
+    private static class Group {
+        final String name;
+        int count;
+        final Sum salarySum = new Sum();
+        final Sum bonusSum = new Sum();
+        final SalaryTree salaries = new SalaryTree();
+        final SalaryTree bonuses = new SalaryTree();
+        double minSalary = Double.NaN, maxSalary = Double.NaN;
+        double minBonus = Double.NaN, maxBonus = Double.NaN;
+
+        Group(String name) {
+            this.name = name;
+        }
+
+        void add(int id, double salary, double bonus) {
+            count++;
+            salarySum.add(salary);
+            bonusSum.add(bonus);
+            salaries.insert(salary, id);
+            bonuses.insert(bonus, id);
+            refresh();
+        }
+
+        void remove(int id, double salary, double bonus) {
+            count--;
+            salaries.remove(salary, id);
+            bonuses.remove(bonus, id);
+            if (count == 0) {
+                // Start the next member from exact zeros.
+                salarySum.clear();
+                bonusSum.clear();
+            } else {
+                salarySum.add(-salary);
+                bonusSum.add(-bonus);
+            }
+            refresh();
+        }
+
+        private void refresh() {
+            if (count == 0) {
+                minSalary = maxSalary = minBonus = maxBonus = Double.NaN;
+                return;
+            }
+            minSalary = salaries.valueAt(0);
+            maxSalary = salaries.valueAt(count - 1);
+            minBonus = bonuses.valueAt(0);
+            maxBonus = bonuses.valueAt(count - 1);
+        }
+
+        Stats stats() {
+            return new Stats(count,
+                    new Measure(salarySum.value(), minSalary, maxSalary, count),
+                    new Measure(bonusSum.value(), minBonus, maxBonus, count));
+        }
+    }
+
+    // What each employee was counted as, so it can be taken back out.
+    private static class Entry {
+        double salary;
+        double bonus;
+        Group department;
+        Group type;
+    }
+
+    private final IntObjectMap<Entry> entries = new IntObjectMap<>();
+    private final Group company = new Group("Total");
+    private final Map<String, Group> departments = new HashMap<>();   // by normalized name
+    private final Map<String, Group> types = new HashMap<>();
+
+    @Override
+    public synchronized void add(Employee e) {
+        Entry entry = new Entry();
+        entries.put(e.getId(), entry);
+        count(e, entry);
+    }
+
+    @Override
+    public synchronized void remove(Employee e) {
+        Entry entry = entries.remove(e.getId());
+        if (entry != null) uncount(e.getId(), entry);
+    }
+
+    @Override
+    public synchronized void departmentChanged(Employee e, String oldDepartment) {
+        recount(e);
+    }
+
+    @Override
+    public synchronized void payChanged(Employee e) {
+        recount(e);
+    }
+
+    // =============================
+    // Reads
+    // =============================
+    public synchronized Stats company() {
+        return company.stats();
+    }
+
+    // null if nobody works there.
+    public synchronized Stats department(String department) {
+        Group g = departments.get(DepartmentIndex.normalize(department));
+        return g == null ? null : g.stats();
+    }
+
+    // Department name -> statistics, alphabetical like PayrollRun's report.
+    public synchronized Map<String, Stats> byDepartment() {
+        return all(departments);
+    }
+
+    // "Regular", "Sales", "Manager" -> statistics for the types present.
+    public synchronized Map<String, Stats> byType() {
+        return all(types);
+    }
+
+    // =============================
+    // Internals
+    // =============================
+    private static Map<String, Stats> all(Map<String, Group> groups) {
+        Map<String, Stats> result = new TreeMap<>();
+        for (Group g : groups.values()) result.put(g.name, g.stats());
+        return result;
+    }
+
+    private void recount(Employee e) {
+        Entry entry = entries.get(e.getId());
+        if (entry == null) return;
+        uncount(e.getId(), entry);
+        count(e, entry);
+    }
+
+    private void count(Employee e, Entry entry) {
+        entry.salary = e.getSalary();
+        entry.bonus = e.calculateBonus();
+        entry.department = group(departments, DepartmentIndex.normalize(e.getDepartment()), e.getDepartment().trim());
+        entry.type = group(types, e.getType(), e.getType());
+        company.add(e.getId(), entry.salary, entry.bonus);
+        entry.department.add(e.getId(), entry.salary, entry.bonus);
+        entry.type.add(e.getId(), entry.salary, entry.bonus);
+    }
+
+    private void uncount(int id, Entry entry) {
+        company.remove(id, entry.salary, entry.bonus);
+        entry.department.remove(id, entry.salary, entry.bonus);
+        entry.type.remove(id, entry.salary, entry.bonus);
+        if (entry.department.count == 0) departments.remove(DepartmentIndex.normalize(entry.department.name));
+        if (entry.type.count == 0) types.remove(entry.type.name);
+    }
+
+    private static Group group(Map<String, Group> groups, String key, String name) {
+        Group g = groups.get(key);
+        if (g == null) {
+            g = new Group(name);
+            groups.put(key, g);
+        }
+        return g;
+    }
+}
@@ -0,0 +1,210 @@
+package com.sumit.hr;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+// =============================
+// PayrollRun: parallel month-end payroll over a set of employees
+// =============================
+// Bonuses are computed exactly once per employee, in parallel, into a plain
+// double[]; each fork-join leaf also folds its slice into small per-department
+// and per-type totals that are merged on join. The per-employee lines are
+// then streamed to a sink in input order, so the sink never has to be
+// thread-safe.
+class PayrollRun {
+
+    // Receives one line per employee, in input order.
+    interface Sink {
+        void accept(Employee e, double bonus, double finalSalary) throws IOException;
+    }
+
+    static class Totals {
+        private int count;
+        private double salary;
+        private double bonus;
+
+        void add(double salary, double bonus) {
+            this.count++;
+            this.salary += salary;
+            this.bonus += bonus;
+        }
+
+        void merge(Totals other) {
+            count += other.count;
+            salary += other.salary;
+            bonus += other.bonus;
+        }
+
+        public int getCount() { return count; }
+        public double getSalary() { return salary; }
+        public double getBonus() { return bonus; }
+        public double getFinalSalary() { return salary + bonus; }
+    }
+
+    static class Result {
+        private final Totals total;
+        private final Map<String, Totals> byDepartment;
+        private final Map<String, Totals> byType;
+
+        Result(Totals total, Map<String, Totals> byDepartment, Map<String, Totals> byType) {
+            this.total = total;
+            this.byDepartment = byDepartment;
+            this.byType = byType;
+        }
+
+        public Totals getTotal() { return total; }
+        // Departments matched case-insensitively, in alphabetical order.
+        public Map<String, Totals> getByDepartment() { return byDepartment; }
+        // Keyed by Employee.getType().
+        public Map<String, Totals> getByType() { return byType; }
+    }
+
+    private static final int MIN_SLICE = 4096;
+
+    private final ForkJoinPool pool;
+
+    public PayrollRun() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public PayrollRun(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    public Result run(Collection<Employee> employees, Sink sink) throws IOException {
+        Employee[] staff = employees.toArray(new Employee[0]);
+        double[] bonuses = new double[staff.length];
+        int slice = Math.max(MIN_SLICE, staff.length / (pool.getParallelism() * 8));
+        Partial partial = pool.invoke(new Slice(staff, bonuses, 0, staff.length, slice));
+
+        if (sink != null) {
+            for (int i = 0; i < staff.length; i++) {
+                sink.accept(staff[i], bonuses[i], staff[i].getSalary() + bonuses[i]);
+            }
+        }
+        return partial.toResult();
+    }
+
+    // Writes one CSV line per employee: id,name,department,type,salary,bonus,finalSalary.
+    static class CsvSink implements Sink, Closeable {
+        private final FileChannel channel;
+        private final CsvRowWriter out;
+
+        CsvSink(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            out = new CsvRowWriter(channel);
+            out.field("id,name,department,type,salary,bonus,finalSalary").endRow();
+        }
+
+        @Override
+        public void accept(Employee e, double bonus, double finalSalary) throws IOException {
+            out.field(e.getId()).field(e.getName()).field(e.getDepartment()).field(e.getType())
+                    .field(e.getSalary()).field(bonus).field(finalSalary).endRow();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                out.flush();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    // =============================
+    // Internals
+    // =============================
+
+    // Totals for one slice, keyed by the department string exactly as stored
+    // so the hot loop only does cached-hash lookups; names are normalized once
+    // per distinct spelling when the final result is built.
+    private static class Partial {
+        private static final String[] TYPES = {"Regular", "Sales", "Manager"};
+
+        final HashMap<String, Totals> byDepartment = new HashMap<>();
+        final Totals[] byType = {new Totals(), new Totals(), new Totals()};  // indexed like TYPES
+
+        // Position of e's type in TYPES.
+        static int typeIndex(Employee e) {
+            if (e instanceof SalesEmployee) return 1;
+            if (e instanceof Manager) return 2;
+            return 0;
+        }
+
+        void add(Employee e, double bonus) {
+            String dept = e.getDepartment();
+            Totals d = byDepartment.get(dept);
+            if (d == null) {
+                d = new Totals();
+                byDepartment.put(dept, d);
+            }
+            d.add(e.getSalary(), bonus);
+            byType[typeIndex(e)].add(e.getSalary(), bonus);
+        }
+
+        Partial merge(Partial other) {
+            other.byDepartment.forEach((k, v) -> byDepartment.merge(k, v, (a, b) -> { a.merge(b); return a; }));
+            for (int i = 0; i < byType.length; i++) byType[i].merge(other.byType[i]);
+            return this;
+        }
+
+        Result toResult() {
+            Totals total = new Totals();
+            LinkedHashMap<String, String> names = new LinkedHashMap<>();
+            TreeMap<String, Totals> departments = new TreeMap<>();
+            for (Map.Entry<String, Totals> entry : byDepartment.entrySet()) {
+                String key = DepartmentIndex.normalize(entry.getKey());
+                names.putIfAbsent(key, entry.getKey().trim());
+                departments.computeIfAbsent(key, k -> new Totals()).merge(entry.getValue());
+                total.merge(entry.getValue());
+            }
+            LinkedHashMap<String, Totals> byName = new LinkedHashMap<>();
+            departments.forEach((key, totals) -> byName.put(names.get(key), totals));
+            LinkedHashMap<String, Totals> types = new LinkedHashMap<>();
+            for (int i = 0; i < TYPES.length; i++) {
+                if (byType[i].count > 0) types.put(TYPES[i], byType[i]);
+            }
+            return new Result(total, byName, types);
+        }
+    }
+
+    // Never serialized: slices only travel between the pool's threads.
+    @SuppressWarnings("serial")
+    private static class Slice extends RecursiveTask<Partial> {
+        private final Employee[] staff;
+        private final double[] bonuses;
+        private final int from, to, slice;
+
+        Slice(Employee[] staff, double[] bonuses, int from, int to, int slice) {
+            this.staff = staff;
+            this.bonuses = bonuses;
+            this.from = from;
+            this.to = to;
+            this.slice = slice;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (to - from <= slice) {
+                Partial partial = new Partial();
+                for (int i = from; i < to; i++) {
+                    Employee e = staff[i];
+                    double bonus = e.calculateBonus();
+                    bonuses[i] = bonus;
+                    partial.add(e, bonus);
+                }
+                return partial;
+            }
+            int mid = (from + to) >>> 1;
+            Slice left = new Slice(staff, bonuses, from, mid, slice);
+            left.fork();
+            Partial right = new Slice(staff, bonuses, mid, to, slice).compute();
+            return left.join().merge(right);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.sumit.hr;
+
+import java.util.*;
+
+// =============================
+// SalaryIndex: ordered index on salary and final salary
+// =============================
+// Keeps one SalaryTree per key for the whole company and one per department,
+// so top-K, range, count and percentile queries are O(log n) (plus the size
+// of the answer) with or without a department filter. The values each
+// employee was indexed under are remembered by ID, which is what lets a
+// setter's payChanged() or departmentChanged() find and move the old entries.
+// All methods are synchronized; queries hand out IDs and values, never the
+// Employee objects, which belong to EmployeeStore.
+class SalaryIndex implements EmployeeIndex {
+    enum Key { SALARY, FINAL_SALARY }
+
+    private static class Entry {
+        double salary;
+        double finalSalary;
+        String department;    // normalized
+    }
+
+    private final IntObjectMap<Entry> entries = new IntObjectMap<>();
+    private final SalaryTree[] company = {new SalaryTree(), new SalaryTree()};
+    private final Map<String, SalaryTree[]> departments = new HashMap<>();
+
+    @Override
+    public synchronized void add(Employee e) {
+        Entry entry = new Entry();
+        entries.put(e.getId(), entry);
+        index(e, entry);
+    }
+
+    @Override
+    public synchronized void remove(Employee e) {
+        Entry entry = entries.remove(e.getId());
+        if (entry != null) unindex(e.getId(), entry);
+    }
+
+    @Override
+    public synchronized void departmentChanged(Employee e, String oldDepartment) {
+        reindex(e);
+    }
+
+    @Override
+    public synchronized void payChanged(Employee e) {
+        reindex(e);
+    }
+
+    // =============================
+    // Queries (department may be null for the whole company)
+    // =============================
+
+    // IDs of the k highest, highest first.
+    public synchronized int[] top(Key key, int k, String department) {
+        SalaryTree t = tree(key, department);
+        if (t == null || k <= 0) return new int[0];
+        int[] ids = t.idsBetween(t.size() - k, t.size());
+        for (int i = 0, j = ids.length - 1; i < j; i++, j--) {
+            int tmp = ids[i];
+            ids[i] = ids[j];
+            ids[j] = tmp;
+        }
+        return ids;
+    }
+
+    // IDs with min <= value <= max, lowest first.
+    public synchronized int[] range(Key key, double min, double max, String department) {
+        SalaryTree t = tree(key, department);
+        if (t == null) return new int[0];
+        return t.idsBetween(t.countBelow(min), t.countAtMost(max));
+    }
+
+    public synchronized int count(Key key, double min, double max, String department) {
+        SalaryTree t = tree(key, department);
+        if (t == null) return 0;
+        return Math.max(0, t.countAtMost(max) - t.countBelow(min));
+    }
+
+    // Nearest-rank percentile (0 < p <= 100); NaN if nobody is indexed.
+    public synchronized double percentile(Key key, double p, String department) {
+        if (!(p > 0 && p <= 100)) throw new IllegalArgumentException("Percentile must be in (0, 100]: " + p);
+        SalaryTree t = tree(key, department);
+        if (t == null || t.isEmpty()) return Double.NaN;
+        int rank = (int) Math.ceil(p / 100 * t.size()) - 1;
+        return t.valueAt(Math.max(0, rank));
+    }
+
+    // =============================
+    // Internals
+    // =============================
+    private SalaryTree tree(Key key, String department) {
+        if (department == null) return company[key.ordinal()];
+        SalaryTree[] d = departments.get(DepartmentIndex.normalize(department));
+        return d == null ? null : d[key.ordinal()];
+    }
+
+    private void reindex(Employee e) {
+        Entry entry = entries.get(e.getId());
+        if (entry == null) return;
+        unindex(e.getId(), entry);
+        index(e, entry);
+    }
+
+    private void index(Employee e, Entry entry) {
+        entry.salary = e.getSalary();
+        entry.finalSalary = e.computeFinalSalary();
+        entry.department = DepartmentIndex.normalize(e.getDepartment());
+        SalaryTree[] d = departments.get(entry.department);
+        if (d == null) {
+            d = new SalaryTree[] {new SalaryTree(), new SalaryTree()};
+            departments.put(entry.department, d);
+        }
+        insert(company, entry, e.getId());
+        insert(d, entry, e.getId());
+    }
+
+    private void unindex(int id, Entry entry) {
+        remove(company, entry, id);
+        SalaryTree[] d = departments.get(entry.department);
+        remove(d, entry, id);
+        if (d[0].isEmpty()) departments.remove(entry.department);
+    }
+
+    private static void insert(SalaryTree[] trees, Entry entry, int id) {
+        trees[Key.SALARY.ordinal()].insert(entry.salary, id);
+        trees[Key.FINAL_SALARY.ordinal()].insert(entry.finalSalary, id);
+    }
+
+    private static void remove(SalaryTree[] trees, Entry entry, int id) {
+        trees[Key.SALARY.ordinal()].remove(entry.salary, id);
+        trees[Key.FINAL_SALARY.ordinal()].remove(entry.finalSalary, id);
+    }
+}
@@ -0,0 +1,251 @@
+package com.sumit.hr;
+
+import java.util.Arrays;
+
+// =============================
+// SalaryTree: order-statistic treap of (value, employee ID) pairs
+// =============================
+// Entries are ordered by value and then ID, so equal salaries still have a
+// fixed order. Every node knows the size of its subtree, which turns rank,
+// select and "how many between" into single O(log n) descents. Nodes live in
+// parallel arrays indexed from 1 (0 is the empty subtree) and freed slots are
+// reused, so updates do not allocate once the arrays have grown.
+// Not thread-safe; SalaryIndex serializes access.
+class SalaryTree {
+    private double[] values;
+    private int[] ids;
+    private int[] left;
+    private int[] right;
+    private int[] size;
+    private int[] priority;
+    private int root;
+    private int next = 1;      // first never-used slot
+    private int free;          // head of the free list, chained through left[]
+    private int seed = 0x2545F491;
+
+    // Results of split(), which divides a subtree in two.
+    private int splitLeft;
+    private int splitRight;
+
+    public SalaryTree() {
+        this(16);
+    }
+
+    public SalaryTree(int expectedSize) {
+        int capacity = Math.max(2, expectedSize + 1);
+        values = new double[capacity];
+        ids = new int[capacity];
+        left = new int[capacity];
+        right = new int[capacity];
+        size = new int[capacity];
+        priority = new int[capacity];
+    }
+
+    public int size() { return size[root]; }
+
+    public boolean isEmpty() { return root == 0; }
+
+    public void insert(double value, int id) {
+        int node = allocate(value, id);
+        root = insert(root, node);
+    }
+
+    // Returns false if the pair was not in the tree.
+    public boolean remove(double value, int id) {
+        int before = size[root];
+        root = remove(root, value, id);
+        return size[root] < before;
+    }
+
+    // Number of entries with a value below v.
+    public int countBelow(double v) {
+        int n = 0;
+        for (int t = root; t != 0; ) {
+            if (values[t] < v) {
+                n += size[left[t]] + 1;
+                t = right[t];
+            } else {
+                t = left[t];
+            }
+        }
+        return n;
+    }
+
+    // Number of entries with a value of at most v.
+    public int countAtMost(double v) {
+        int n = 0;
+        for (int t = root; t != 0; ) {
+            if (values[t] <= v) {
+                n += size[left[t]] + 1;
+                t = right[t];
+            } else {
+                t = left[t];
+            }
+        }
+        return n;
+    }
+
+    // Value of the entry at rank (0 = smallest).
+    public double valueAt(int rank) {
+        return values[select(rank)];
+    }
+
+    // IDs of the entries with ranks from (inclusive) to to (exclusive), in
+    // ascending order.
+    public int[] idsBetween(int from, int to) {
+        from = Math.max(0, from);
+        to = Math.min(size(), to);
+        if (from >= to) return new int[0];
+        int[] out = new int[to - from];
+        collect(root, from, to, 0, out);
+        return out;
+    }
+
+    // =============================
+    // Internals
+    // =============================
+    private int select(int rank) {
+        if (rank < 0 || rank >= size()) throw new IndexOutOfBoundsException("rank " + rank);
+        int t = root;
+        while (true) {
+            int ls = size[left[t]];
+            if (rank < ls) {
+                t = left[t];
+            } else if (rank == ls) {
+                return t;
+            } else {
+                rank -= ls + 1;
+                t = right[t];
+            }
+        }
+    }
+
+    // Fills out with the subtree's entries whose rank falls in [from, to);
+    // offset is the rank of the subtree's smallest entry.
+    private void collect(int t, int from, int to, int offset, int[] out) {
+        while (t != 0) {
+            int mine = offset + size[left[t]];
+            if (from < mine) collect(left[t], from, to, offset, out);
+            if (mine >= to) return;
+            if (mine >= from) out[mine - from] = ids[t];
+            offset = mine + 1;
+            t = right[t];
+        }
+    }
+
+    private int insert(int t, int node) {
+        if (t == 0) return node;
+        if (priority[node] > priority[t]) {
+            split(t, values[node], ids[node]);
+            left[node] = splitLeft;
+            right[node] = splitRight;
+            update(node);
+            return node;
+        }
+        if (compare(values[node], ids[node], t) < 0) {
+            left[t] = insert(left[t], node);
+        } else {
+            right[t] = insert(right[t], node);
+        }
+        update(t);
+        return t;
+    }
+
+    private int remove(int t, double value, int id) {
+        if (t == 0) return 0;
+        int c = compare(value, id, t);
+        if (c == 0) {
+            int merged = merge(left[t], right[t]);
+            release(t);
+            return merged;
+        }
+        if (c < 0) {
+            left[t] = remove(left[t], value, id);
+        } else {
+            right[t] = remove(right[t], value, id);
+        }
+        update(t);
+        return t;
+    }
+
+    // Splits t into entries before (value, id) and the rest.
+    private void split(int t, double value, int id) {
+        if (t == 0) {
+            splitLeft = splitRight = 0;
+            return;
+        }
+        if (compare(value, id, t) > 0) {
+            split(right[t], value, id);
+            right[t] = splitLeft;
+            update(t);
+            splitLeft = t;
+        } else {
+            split(left[t], value, id);
+            left[t] = splitRight;
+            update(t);
+            splitRight = t;
+        }
+    }
+
+    // Every entry of a comes before every entry of b.
+    private int merge(int a, int b) {
+        if (a == 0) return b;
+        if (b == 0) return a;
+        if (priority[a] > priority[b]) {
+            right[a] = merge(right[a], b);
+            update(a);
+            return a;
+        }
+        left[b] = merge(a, left[b]);
+        update(b);
+        return b;
+    }
+
+    private int compare(double value, int id, int node) {
+        int c = Double.compare(value, values[node]);
+        return c != 0 ? c : Integer.compare(id, ids[node]);
+    }
+
+    private void update(int t) {
+        size[t] = size[left[t]] + size[right[t]] + 1;
+    }
+
+    private int allocate(double value, int id) {
+        int node;
+        if (free != 0) {
+            node = free;
+            free = left[node];
+        } else {
+            if (next == values.length) grow();
+            node = next++;
+        }
+        values[node] = value;
+        ids[node] = id;
+        left[node] = 0;
+        right[node] = 0;
+        size[node] = 1;
+        // xorshift; the treap only needs the priorities to look random
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        priority[node] = seed;
+        return node;
+    }
+
+    private void release(int node) {
+        left[node] = free;
+        right[node] = 0;
+        size[node] = 0;
+        free = node;
+    }
+
+    private void grow() {
+        int capacity = values.length * 2;
+        values = Arrays.copyOf(values, capacity);
+        ids = Arrays.copyOf(ids, capacity);
+        left = Arrays.copyOf(left, capacity);
+        right = Arrays.copyOf(right, capacity);
+        size = Arrays.copyOf(size, capacity);
+        priority = Arrays.copyOf(priority, capacity);
+    }
+}
@@ -0,0 +1,56 @@
+package com.sumit.hr;
+
+// =============================
+// Derived class: SalesEmployee
+// =============================
+class SalesEmployee extends Employee {
+    private double sales;
+    private double commissionRate;
+    private double target;
+
+    public SalesEmployee(int id, String name, double salary, String department, double sales, double commissionRate, double target) {
+        super(id, name, salary, department);
+        this.sales = sales;
+        this.commissionRate = commissionRate;
+        this.target = target;
+    }
+
+    public double getSales() { return sales; }
+    public double getCommissionRate() { return commissionRate; }
+    public double getTarget() { return target; }
+    public void setSales(double sales) {
+        this.sales = sales;
+        payChanged();
+    }
+
+    @Override
+    public SalesEmployee copy() {
+        return new SalesEmployee(id, name, salary, department, sales, commissionRate, target);
+    }
+
+    @Override
+    public String getType() { return "Sales"; }
+
+    // Default: commission + 2% of salary, plus 10% incentive when on target.
+    @Override
+    public double calculateBonus() {
+        return BonusRules.sales(this);
+    }
+
+    @Override
+    public String toCSV() {
+        return String.join(",", "Sales", String.valueOf(id), name, String.valueOf(salary), department, String.valueOf(sales),
+                String.valueOf(commissionRate), String.valueOf(target));
+    }
+
+    public static SalesEmployee fromCSV(String[] data) {
+        int id = Integer.parseInt(data[1]);
+        String name = data[2];
+        double salary = Double.parseDouble(data[3]);
+        String dept = data[4];
+        double sales = Double.parseDouble(data[5]);
+        double rate = Double.parseDouble(data[6]);
+        double target = Double.parseDouble(data[7]);
+        return new SalesEmployee(id, name, salary, dept, sales, rate, target);
+    }
+}
@@ -0,0 +1,17 @@
+package com.sumit.hr;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+// =============================
+// SnapshotFormat: how the full employee store is written to and read from disk
+// =============================
+interface SnapshotFormat {
+    // Rows in the order they were written.
+    List<Employee> read(Path file) throws IOException;
+
+    // Must replace the file atomically: a crash leaves either the old or the
+    // new snapshot, never a partial one.
+    void write(Path file, Collection<Employee> employees) throws IOException;
+}
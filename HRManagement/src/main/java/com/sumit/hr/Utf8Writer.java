@@ -0,0 +1,188 @@
+package com.sumit.hr;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+// =============================
+// Utf8Writer: text and numbers encoded straight into a reused byte buffer
+// =============================
+// The shared base of CsvRowWriter and EmployeeReport. Text is UTF-8 encoded
+// char by char, integers are written digit by digit, and doubles take a fast
+// path that matches Double.toString, so nothing allocates per value. Bytes go
+// into a plain array (cheaper per byte than ByteBuffer.put) that is drained
+// to the channel through one wrapping buffer when it fills up and by flush();
+// the caller owns, forces and closes the channel.
+class Utf8Writer {
+    static final byte[] NEWLINE = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+    private static final long[] POW10 = {1, 10, 100, 1_000, 10_000};
+    static final int MAX_NUMBER = 32;    // bytes the longest number or fallback can need
+
+    private final WritableByteChannel channel;
+    private final byte[] buf;
+    private final ByteBuffer wrapped;
+    private int pos;
+
+    Utf8Writer(WritableByteChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.buf = new byte[Math.max(bufferSize, 64)];
+        this.wrapped = ByteBuffer.wrap(buf);
+    }
+
+    public void flush() throws IOException {
+        drain();
+    }
+
+    // =============================
+    // Values
+    // =============================
+    Utf8Writer text(String s) throws IOException {
+        return text(s, 0, s.length());
+    }
+
+    // Chars from (inclusive) to to (exclusive) of s.
+    Utf8Writer text(String s, int from, int to) throws IOException {
+        for (int i = from; i < to; i++) {
+            if (buf.length - pos < 4) drain();
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                buf[pos++] = (byte) c;
+            } else if (c < 0x800) {
+                buf[pos++] = (byte) (0xC0 | (c >> 6));
+                buf[pos++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < to && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                buf[pos++] = (byte) (0xF0 | (cp >> 18));
+                buf[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                buf[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                buf[pos++] = (byte) (0x80 | (cp & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                buf[pos++] = (byte) '?';    // unpaired surrogate, as String.getBytes does
+            } else {
+                buf[pos++] = (byte) (0xE0 | (c >> 12));
+                buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buf[pos++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return this;
+    }
+
+    Utf8Writer number(long v) throws IOException {
+        if (buf.length - pos < MAX_NUMBER) drain();
+        putLong(v);
+        return this;
+    }
+
+    // Same text as String.valueOf(v).
+    Utf8Writer number(double v) throws IOException {
+        if (buf.length - pos < MAX_NUMBER) drain();
+        putDouble(v);
+        return this;
+    }
+
+    // Pre-encoded bytes, e.g. constant labels.
+    Utf8Writer ascii(byte[] bytes) throws IOException {
+        if (buf.length - pos < bytes.length) drain();
+        if (bytes.length > buf.length) {
+            channel.write(ByteBuffer.wrap(bytes));
+            return this;
+        }
+        System.arraycopy(bytes, 0, buf, pos, bytes.length);
+        pos += bytes.length;
+        return this;
+    }
+
+    Utf8Writer ascii(char c) throws IOException {
+        if (pos == buf.length) drain();
+        buf[pos++] = (byte) c;
+        return this;
+    }
+
+    Utf8Writer newline() throws IOException {
+        return ascii(NEWLINE);
+    }
+
+    static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    // =============================
+    // Internals
+    // =============================
+    private void drain() throws IOException {
+        wrapped.clear().limit(pos);
+        while (wrapped.hasRemaining()) channel.write(wrapped);
+        pos = 0;
+    }
+
+    private void putLong(long v) {
+        if (v == Long.MIN_VALUE) {
+            putAscii(Long.toString(v));
+            return;
+        }
+        if (v < 0) {
+            buf[pos++] = '-';
+            v = -v;
+        }
+        putDigits(v, digits(v));
+    }
+
+    // Double.toString prints values in [1e-3, 1e7) as plain decimals using the
+    // shortest digits that read back as the same double. If m / 10^k is such a
+    // decimal for some k <= 4, the smallest such k gives it: decimals 1e-4
+    // apart cannot round to the same double below 1e7, so there is no other
+    // candidate of that length to choose from. Anything else falls back to
+    // Double.toString, which allocates but is rare in salary data.
+    private void putDouble(double v) {
+        if (v == 0) {
+            if (Double.doubleToRawLongBits(v) != 0) buf[pos++] = '-';
+            buf[pos++] = '0';
+            buf[pos++] = '.';
+            buf[pos++] = '0';
+            return;
+        }
+        double a = Math.abs(v);
+        if (a >= 1e-3 && a < 1e7) {
+            for (int k = 0; k < POW10.length; k++) {
+                long m = Math.round(a * POW10[k]);
+                if (m / (double) POW10[k] == a) {
+                    if (v < 0) buf[pos++] = '-';
+                    long whole = m / POW10[k];
+                    putDigits(whole, digits(whole));
+                    buf[pos++] = '.';
+                    if (k == 0) {
+                        buf[pos++] = '0';
+                    } else {
+                        putDigits(m % POW10[k], k);
+                    }
+                    return;
+                }
+            }
+        }
+        putAscii(Double.toString(v));
+    }
+
+    private static int digits(long v) {
+        int n = 1;
+        while (v >= 10) {
+            v /= 10;
+            n++;
+        }
+        return n;
+    }
+
+    // Writes v as exactly width digits, zero-padded on the left.
+    private void putDigits(long v, int width) {
+        int end = pos + width;
+        for (int i = end - 1; i >= pos; i--) {
+            buf[i] = (byte) ('0' + (v % 10));
+            v /= 10;
+        }
+        pos = end;
+    }
+
+    private void putAscii(String s) {
+        for (int i = 0; i < s.length(); i++) buf[pos++] = (byte) s.charAt(i);
+    }
+}
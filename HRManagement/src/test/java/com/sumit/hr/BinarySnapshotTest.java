@@ -0,0 +1,104 @@
+package com.sumit.hr;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.*;
+import java.util.*;
+
+import junit.framework.TestCase;
+
+// =============================
+// BinarySnapshotTest: round trips and corrupt files
+// =============================
+public class BinarySnapshotTest extends TestCase {
+    private static final String[] DEPARTMENTS = {"HR", "Finance", "IT", "Sales"};
+
+    private Path dir;
+
+    @Override
+    protected void setUp() throws Exception {
+        dir = Files.createTempDirectory("binary-test");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir)) {
+            for (Path p : ds) Files.delete(p);
+        }
+        Files.delete(dir);
+    }
+
+    // More rows than one read buffer holds, so refills are crossed too.
+    public void testRoundTripKeepsEveryType() throws IOException {
+        List<Employee> rows = new ArrayList<>();
+        Random rnd = new Random(5);
+        for (int id = 1; id <= 60_000; id++) {
+            String dept = DEPARTMENTS[rnd.nextInt(DEPARTMENTS.length)];
+            String name = id % 1000 == 0 ? "Zoë 李小龙 " + id : "Employee " + id;
+            switch (rnd.nextInt(3)) {
+                case 0: rows.add(new SalesEmployee(id, name, 1000 + id, dept, rnd.nextInt(200_000), 0.05, 100_000)); break;
+                case 1: rows.add(new Manager(id, name, 1000 + id, dept, rnd.nextInt(30))); break;
+                default: rows.add(new Employee(id, name, 1000 + id + 0.25, dept));
+            }
+        }
+        Path bin = dir.resolve("employees.bin");
+        Path csv = dir.resolve("employees.csv");
+        new BinarySnapshot().write(bin, rows);
+        new CsvSnapshot().write(csv, rows);
+
+        List<Employee> back = new BinarySnapshot().read(bin);
+        assertEquals(rows.size(), back.size());
+        for (int i = 0; i < rows.size(); i++) {
+            assertEquals(rows.get(i).getClass(), back.get(i).getClass());
+            assertEquals(rows.get(i).toCSV(), back.get(i).toCSV());
+        }
+        assertTrue("binary " + Files.size(bin) + " bytes, CSV " + Files.size(csv),
+                Files.size(bin) < Files.size(csv));
+    }
+
+    public void testEmptyStoreRoundTrips() throws IOException {
+        Path file = dir.resolve("empty.bin");
+        new BinarySnapshot().write(file, Collections.emptyList());
+        assertTrue(new BinarySnapshot().read(file).isEmpty());
+    }
+
+    // One Regular employee in HR: department count at byte 6, the table's one
+    // entry at 10, record count at 14, and the record's department code at 31.
+    public void testCorruptFilesAreIOExceptions() throws IOException {
+        Path good = dir.resolve("good.bin");
+        new BinarySnapshot().write(good, Collections.singletonList(new Employee(1, "A", 100, "HR")));
+        byte[] bytes = Files.readAllBytes(good);
+        assertEquals(1, ByteBuffer.wrap(bytes, 6, 4).getInt());
+        assertEquals(1, ByteBuffer.wrap(bytes, 14, 4).getInt());
+        assertEquals(0, ByteBuffer.wrap(bytes, 31, 4).getInt());
+
+        assertCorrupt(patch(bytes, 0, 0), "not an employee snapshot");
+        assertCorrupt(patch(bytes, 6, -1), "-1 departments");
+        assertCorrupt(patch(bytes, 6, Integer.MAX_VALUE), Integer.MAX_VALUE + " departments");
+        assertCorrupt(patch(bytes, 14, -5), "-5 records");
+        assertCorrupt(patch(bytes, 14, 1_000_000_000), "1000000000 records");
+        assertCorrupt(patch(bytes, 31, 7), "Department code 7");
+        assertCorrupt(patch(bytes, 31, -1), "Department code -1");
+        byte[] badType = bytes.clone();
+        badType[18] = 9;
+        assertCorrupt(badType, "Unknown record type 9");
+        assertCorrupt(Arrays.copyOf(bytes, bytes.length - 1), "truncated");
+    }
+
+    private static byte[] patch(byte[] bytes, int offset, int value) {
+        byte[] copy = bytes.clone();
+        ByteBuffer.wrap(copy).putInt(offset, value);
+        return copy;
+    }
+
+    private void assertCorrupt(byte[] bytes, String message) throws IOException {
+        Path file = dir.resolve("corrupt.bin");
+        Files.write(file, bytes);
+        try {
+            new BinarySnapshot().read(file);
+            fail("read a corrupt snapshot (" + message + ")");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().contains(message));
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.sumit.hr;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import junit.framework.TestCase;
+
+// =============================
+// BonusRulesTest: compiled formulas, hot swaps and bad rule files
+// =============================
+// Rules are process-wide, so every test puts the built-in ones back.
+public class BonusRulesTest extends TestCase {
+    private static final String[] DEPARTMENTS = {"HR", "Finance", "IT", "Sales"};
+
+    @Override
+    protected void tearDown() {
+        BonusRules.install(BonusRules.DEFAULTS);
+    }
+
+    // The built-in rules give exactly what calculateBonus() used to hard-code.
+    public void testDefaultsMatchOldFormulas() {
+        Random rnd = new Random(1);
+        for (int i = 0; i < 100_000; i++) {
+            Employee e = employee(i, rnd);
+            double expected;
+            if (e instanceof SalesEmployee) {
+                SalesEmployee s = (SalesEmployee) e;
+                expected = (s.getSales() * s.getCommissionRate()) + (s.getSalary() * 0.02);
+                if (s.getSales() >= s.getTarget()) expected += s.getSalary() * 0.10;
+            } else if (e instanceof Manager) {
+                expected = e.getSalary() * 0.1 + ((Manager) e).getTeamSize() * 500;
+            } else {
+                expected = e.getSalary() * 0.05;
+            }
+            assertEquals(Double.doubleToLongBits(expected), Double.doubleToLongBits(e.calculateBonus()));
+        }
+        assertTrue(BonusRules.current().isDefault());
+    }
+
+    public void testCustomRules() {
+        BonusRules rules = BonusRules.parse("# comment\n"
+                + "regular = max(1000, salary * 0.03)   # floor\n"
+                + "\n"
+                + "Sales = min(sales * commissionRate, 20000) - -abs(-1) * 0 + (sales / target > 1.5 ? 5000 : sales < target ? 0 : 2000)\n");
+        BonusRules.install(rules);
+        assertEquals(1000.0, new Employee(1, "A", 20_000, "HR").calculateBonus());
+        assertEquals(3000.0, new Employee(2, "B", 100_000, "HR").calculateBonus());
+        assertEquals(20_000.0 + 5000, new SalesEmployee(3, "C", 50_000, "Sales", 1_000_000, 0.05, 100_000).calculateBonus());
+        assertEquals(6000.0 + 2000, new SalesEmployee(4, "D", 50_000, "Sales", 120_000, 0.05, 100_000).calculateBonus());
+        assertEquals(4000.0, new SalesEmployee(5, "E", 50_000, "Sales", 80_000, 0.05, 100_000).calculateBonus());
+        // Manager was left out, so it keeps the built-in formula.
+        assertEquals(7000.0 + 1500, new Manager(6, "F", 70_000, "IT", 3).calculateBonus());
+        // The column form of each formula gives the same answers.
+        List<Employee> rows = Arrays.asList(new Employee(1, "A", 20_000, "HR"), new Employee(2, "B", 100_000, "HR"),
+                new SalesEmployee(3, "C", 50_000, "Sales", 1_000_000, 0.05, 100_000),
+                new SalesEmployee(4, "D", 50_000, "Sales", 120_000, 0.05, 100_000),
+                new SalesEmployee(5, "E", 50_000, "Sales", 80_000, 0.05, 100_000), new Manager(6, "F", 70_000, "IT", 3));
+        ColumnarEmployeeStore columnar = ColumnarEmployeeStore.of(rows);
+        for (Employee e : rows) assertEquals(e.calculateBonus(), columnar.bonus(columnar.rowOf(e.getId())));
+        assertEquals(1000.0 + 3000 + 25_000 + 8000 + 4000 + 8500, columnar.totalBonus());
+        assertFalse(rules.isDefault());
+        assertEquals("salary * 0.1 + teamSize * 500", rules.getFormulas().get("Manager"));
+        assertEquals(rules, BonusRules.current());
+
+        // Precedence: * before +, comparisons below both, '?' lowest.
+        BonusRules.install(BonusRules.parse("Regular = 1 + 2 * 3 - 4 / 2 + (salary > 10 + 5 ? 1 : 0) * 100"));
+        assertEquals(105.0, new Employee(7, "G", 16, "HR").calculateBonus());
+        assertEquals(5.0, new Employee(8, "H", 15, "HR").calculateBonus());
+    }
+
+    public void testBadRules() {
+        assertRejected("Regular salary * 2", "line 1", "<type> = <formula>");
+        assertRejected("\nIntern = salary", "line 2", "unknown employee type 'Intern'");
+        assertRejected("Regular = sales * 0.1", "line 1", "unknown variable 'sales' for Regular");
+        assertRejected("Manager = salary * 0.1\nManager = 0", "line 2", "second rule for Manager");
+        assertRejected("Sales = (sales > target) * 2", "line 1", "comparison");
+        assertRejected("Sales = sales > target ? 1", "line 1", "expected ':'");
+        assertRejected("Regular = salary ? 1 : 2", "line 1", "'?' must follow a comparison");
+        assertRejected("Regular = (salary", "line 1", "expected ')'");
+        assertRejected("Regular = salary *", "line 1", "formula ends early");
+        assertRejected("Regular = salary 2", "line 1", "unexpected '2'");
+        assertRejected("Regular = 1..2", "line 1", "bad number");
+        assertRejected("Regular = max(salary)", "line 1", "max takes 2 arguments");
+        assertRejected("Regular =", "line 1", "empty formula");
+    }
+
+    // Swapping rules recounts the store's bonus-derived indexes.
+    public void testStoreFollowsSwap() throws Exception {
+        EmployeeStore store = new EmployeeStore();
+        Random rnd = new Random(2);
+        for (int id = 1; id <= 2000; id++) store.add(employee(id, rnd));
+        List<Employee> rows = store.snapshot();
+        ColumnarEmployeeStore columnar = ColumnarEmployeeStore.of(rows);
+
+        store.setBonusRules(BonusRules.parse("Regular = salary * 0.5\nManager = teamSize * 10000\nSales = target - sales"));
+        double total = 0;
+        Employee best = null;
+        for (Employee e : rows) {
+            total += e.calculateBonus();
+            if (best == null || e.computeFinalSalary() > best.computeFinalSalary()) best = e;
+        }
+        assertEquals(total, store.aggregates().company().getBonus().getSum(), 1e-3);
+        assertEquals(best.getId(), store.top(SalaryIndex.Key.FINAL_SALARY, 1, null).get(0).getId());
+        assertEquals(total, columnar.totalBonus(), 1e-3);
+        assertEquals(rows.get(0).calculateBonus(), columnar.bonus(columnar.rowOf(rows.get(0).getId())));
+
+        store.setBonusRules(BonusRules.DEFAULTS);
+        total = 0;
+        for (Employee e : rows) total += e.calculateBonus();
+        assertEquals(total, store.aggregates().company().getBonus().getSum(), 1e-3);
+        assertEquals(total, columnar.totalBonus(), 1e-3);
+    }
+
+    // Threads computing bonuses while the rules flip only ever see the old or
+    // the new formula, never anything in between.
+    public void testHotSwapUnderLoad() throws Exception {
+        BonusRules doubled = BonusRules.parse("Regular = salary * 0.1");
+        Employee e = new Employee(1, "A", 1000, "HR");
+        AtomicBoolean stop = new AtomicBoolean();
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        List<Future<Integer>> readers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            readers.add(pool.submit(() -> {
+                int wrong = 0;
+                while (!stop.get()) {
+                    double b = e.calculateBonus();
+                    if (b != 50.0 && b != 100.0) wrong++;
+                }
+                return wrong;
+            }));
+        }
+        for (int i = 0; i < 200; i++) {
+            BonusRules.install(i % 2 == 0 ? doubled : BonusRules.DEFAULTS);
+            Thread.sleep(1);
+        }
+        stop.set(true);
+        for (Future<Integer> r : readers) assertEquals(Integer.valueOf(0), r.get());
+        pool.shutdown();
+        BonusRules.install(doubled);
+        assertEquals(100.0, e.calculateBonus());
+    }
+
+    private static void assertRejected(String text, String line, String message) {
+        try {
+            BonusRules.parse(text);
+            fail("accepted " + text);
+        } catch (IllegalArgumentException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().startsWith(line + ": "));
+            assertTrue(expected.getMessage(), expected.getMessage().contains(message));
+        }
+    }
+
+    private static Employee employee(int id, Random rnd) {
+        String dept = DEPARTMENTS[rnd.nextInt(DEPARTMENTS.length)];
+        double salary = (2_000_000 + rnd.nextInt(8_000_000)) / 100.0;
+        switch (rnd.nextInt(3)) {
+            case 0: return new SalesEmployee(id, "S" + id, salary, dept, rnd.nextInt(300_000), 0.01 * rnd.nextInt(10), 150_000);
+            case 1: return new Manager(id, "M" + id, salary, dept, rnd.nextInt(30));
+            default: return new Employee(id, "E" + id, salary, dept);
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.sumit.hr;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import junit.framework.TestCase;
+
+// =============================
+// ChangeStreamTest: ring buffer, lapping, store events and the durable log
+// =============================
+public class ChangeStreamTest extends TestCase {
+    private static final String[] DEPARTMENTS = {"HR", "Finance", "IT", "Sales"};
+
+    // Concurrent writers; a buffered reader sees every offset once, and each
+    // writer's events in the order it published them. A reader that never
+    // polls does not hold anybody up.
+    public void testConcurrentWritersBufferedReader() throws Exception {
+        ChangeStream stream = new ChangeStream(1024);
+        ChangeStream.Subscription idle = stream.subscribe();
+        ChangeStream.Subscription gate = stream.subscribeBuffered();
+        int writers = 4, perWriter = 50_000;
+        ExecutorService pool = Executors.newFixedThreadPool(writers);
+        for (int w = 0; w < writers; w++) {
+            int writer = w;
+            pool.submit(() -> {
+                for (int i = 0; i < perWriter; i++) stream.publish(ChangeStream.Op.UPDATE, writer, String.valueOf(i));
+            });
+        }
+        int[] last = new int[writers];
+        Arrays.fill(last, -1);
+        AtomicLong expected = new AtomicLong();
+        while (expected.get() < (long) writers * perWriter) {
+            gate.poll(256, 1, TimeUnit.SECONDS, e -> {
+                assertEquals(expected.getAndIncrement(), e.getOffset());
+                int seq = Integer.parseInt(e.getRow());
+                assertEquals(last[e.getId()] + 1, seq);
+                last[e.getId()] = seq;
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        gate.close();
+        try {
+            idle.poll(10, e -> { });
+            fail("idle reader was not lapped");
+        } catch (ChangeStream.LaggedException expectedLag) {
+            assertEquals(0, expectedLag.getMissedFrom());
+        }
+    }
+
+    // The durable log's subscription, stalled as if its disk had stopped:
+    // writers must go on at full speed, and once it polls again it gets
+    // every event, in order.
+    public void testStalledLogDoesNotHoldUpWriters() throws Exception {
+        EmployeeStore store = new EmployeeStore();
+        ChangeStream.Subscription stalled = store.changes().subscribeBuffered();
+        int writers = 4, perWriter = 10_000;       // well past one ring
+        ExecutorService pool = Executors.newFixedThreadPool(writers);
+        List<Future<?>> done = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            int first = w * perWriter;
+            done.add(pool.submit(() -> {
+                for (int id = first; id < first + perWriter; id++) store.add(new Employee(id, "E" + id, 1000, "Ops"));
+                return null;
+            }));
+        }
+        for (Future<?> f : done) f.get(30, TimeUnit.SECONDS);
+        pool.shutdown();
+        assertEquals(writers * perWriter, store.size());
+
+        AtomicLong expected = new AtomicLong();
+        while (stalled.poll(4096, e -> assertEquals(expected.getAndIncrement(), e.getOffset())) > 0) { }
+        assertEquals((long) writers * perWriter, expected.get());
+        stalled.close();
+    }
+
+    // Past its backlog limit a buffered reader is lapped like any other.
+    public void testBufferedReaderOverflows() throws Exception {
+        ChangeStream stream = new ChangeStream(16, 100);
+        ChangeStream.Subscription sub = stream.subscribeBuffered();
+        for (int i = 0; i < 100; i++) stream.publish(ChangeStream.Op.DELETE, i, null);
+        assertEquals(50, sub.poll(50, e -> { }));
+        for (int i = 0; i < 100; i++) stream.publish(ChangeStream.Op.DELETE, i, null);
+        assertEquals(100, sub.poll(1000, e -> { }));
+        try {
+            sub.poll(1000, e -> { });
+            fail("not lapped");
+        } catch (ChangeStream.LaggedException e) {
+            assertEquals(150, e.getMissedFrom());
+            assertEquals(185, e.getResumedAt());
+        }
+        assertEquals(15, sub.poll(1000, e -> { }));
+    }
+
+    public void testLappedReaderResumes() throws Exception {
+        ChangeStream stream = new ChangeStream(16);
+        ChangeStream.Subscription sub = stream.subscribe();
+        for (int i = 0; i < 40; i++) stream.publish(ChangeStream.Op.DELETE, i, null);
+        assertEquals(40, sub.getLag());
+        try {
+            sub.poll(100, e -> { });
+            fail("not lapped");
+        } catch (ChangeStream.LaggedException e) {
+            assertEquals(0, e.getMissedFrom());
+            assertEquals(25, e.getResumedAt());
+        }
+        List<Long> offsets = new ArrayList<>();
+        assertEquals(15, sub.poll(100, e -> offsets.add(e.getOffset())));
+        assertEquals(Long.valueOf(25), offsets.get(0));
+        assertEquals(Long.valueOf(39), offsets.get(14));
+        assertEquals(0, sub.poll(100, e -> { }));
+
+        try {
+            stream.subscribe(10);
+            fail("subscribed to an overwritten offset");
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            stream.startAt(100);
+            fail("renumbered a stream in use");
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    // A follower that starts from follow()'s copies and applies every event
+    // ends up with the store's rows.
+    public void testFollowerTracksStore() throws Exception {
+        EmployeeStore store = new EmployeeStore();
+        Random rnd = new Random(7);
+        for (int id = 1; id <= 200; id++) store.add(employee(id, rnd));
+        List<Employee> start = new ArrayList<>();
+        ChangeStream.Subscription sub = store.follow(start);
+        Map<Integer, String> replica = new HashMap<>();
+        for (Employee e : start) replica.put(e.getId(), e.toCSV());
+
+        ExecutorService pool = Executors.newFixedThreadPool(3);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int w = 0; w < 3; w++) {
+            int seed = w;
+            writers.add(pool.submit(() -> {
+                Random r = new Random(seed);
+                for (int i = 0; i < 2000; i++) {
+                    int id = 1 + r.nextInt(400);
+                    int op = r.nextInt(4);
+                    if (op == 0) {
+                        store.add(employee(id, r));
+                    } else if (op == 1) {
+                        store.delete(id);
+                    } else if (op == 2) {
+                        store.update(id, e -> e.setSalary(e.getSalary() + 1));
+                    } else {
+                        EmployeeBatch batch = new EmployeeBatch();
+                        batch.update(employee(id, r));
+                        batch.delete(1 + r.nextInt(400));
+                        store.apply(batch);
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> f : writers) f.get();
+        pool.shutdown();
+        while (sub.poll(1000, e -> apply(replica, e)) > 0) { }
+
+        Map<Integer, String> expected = new HashMap<>();
+        for (Employee e : store.snapshot()) expected.put(e.getId(), e.toCSV());
+        assertEquals(expected, replica);
+    }
+
+    // Events reach the file in order, a consumer resumes from its offset, and
+    // a reopened log carries on numbering after a torn last line.
+    public void testChangeLogResume() throws Exception {
+        Path dir = Files.createTempDirectory("changelog");
+        Path file = dir.resolve("employees.events");
+        try {
+            EmployeeStore store = new EmployeeStore();
+            store.logChangesTo(file, true);
+            Random rnd = new Random(9);
+            for (int id = 1; id <= 100; id++) store.add(employee(id, rnd));
+            for (int id = 1; id <= 100; id += 3) store.delete(id);
+            store.close();
+
+            Map<Integer, String> replica = new HashMap<>();
+            long resume = ChangeLog.read(file, 0, e -> apply(replica, e));
+            assertEquals(134, resume);
+            assertEquals(134, ChangeLog.nextOffset(file));
+            Map<Integer, String> expected = new HashMap<>();
+            for (Employee e : store.snapshot()) expected.put(e.getId(), e.toCSV());
+            assertEquals(expected, replica);
+
+            // A crash mid-line leaves a partial record that nobody reads.
+            Files.write(file, "134,U,Regular,5,Half".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+            assertEquals(resume, ChangeLog.read(file, resume, e -> fail("read a torn line")));
+            assertEquals(134, ChangeLog.nextOffset(file));
+
+            EmployeeStore next = new EmployeeStore();
+            next.logChangesTo(file, false);
+            for (Employee e : store.snapshot()) next.add(e);
+            next.update(2, e -> e.setName("Renamed"));
+            next.close();
+            List<ChangeStream.Event> events = new ArrayList<>();
+            assertEquals(134 + 66 + 1, ChangeLog.read(file, resume, events::add));
+            assertEquals(134, events.get(0).getOffset());
+            assertEquals(ChangeStream.Op.UPDATE, events.get(events.size() - 1).getOp());
+            assertEquals("Renamed", events.get(events.size() - 1).getEmployee().getName());
+        } finally {
+            try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir)) {
+                for (Path p : ds) Files.delete(p);
+            }
+            Files.delete(dir);
+        }
+    }
+
+    private static void apply(Map<Integer, String> replica, ChangeStream.Event e) {
+        if (e.getOp() == ChangeStream.Op.DELETE) {
+            replica.remove(e.getId());
+        } else {
+            replica.put(e.getId(), e.getRow());
+        }
+    }
+
+    private static Employee employee(int id, Random rnd) {
+        String dept = DEPARTMENTS[rnd.nextInt(DEPARTMENTS.length)];
+        double salary = 1000 * (20 + rnd.nextInt(60));
+        switch (rnd.nextInt(3)) {
+            case 0: return new SalesEmployee(id, "S" + id, salary, dept, rnd.nextInt(200_000), 0.05, 100_000);
+            case 1: return new Manager(id, "M" + id, salary, dept, rnd.nextInt(30));
+            default: return new Employee(id, "E" + id, salary, dept);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.sumit.hr;
+
+import java.util.*;
+
+import junit.framework.TestCase;
+
+// =============================
+// ColumnarEmployeeStoreTest: adds, removes, setters and side-column links
+// =============================
+public class ColumnarEmployeeStoreTest extends TestCase {
+    private static final String[] DEPARTMENTS = {"HR", "Finance", "IT", "Sales"};
+
+    public void testAddAndView() {
+        ColumnarEmployeeStore store = new ColumnarEmployeeStore();
+        assertTrue(store.add(new Employee(1, "Zoë", 40000, "IT")));
+        assertTrue(store.add(new SalesEmployee(2, "Amit", 30000, "Sales", 120000, 0.05, 100000)));
+        assertTrue(store.add(new Manager(3, "Li", 90000, " it ", 4)));
+        assertFalse(store.add(new Employee(2, "Other", 1, "HR")));
+        assertEquals(3, store.size());
+
+        assertEquals("Regular,1,Zoë,40000.0,IT,0,0,0", store.get(1).toCSV());
+        assertEquals(SalesEmployee.class, store.get(2).getClass());
+        assertEquals(new SalesEmployee(2, "Amit", 30000, "Sales", 120000, 0.05, 100000).toCSV(), store.get(2).toCSV());
+        assertEquals(4, ((Manager) store.get(3)).getTeamSize());
+        // Departments are matched like DepartmentIndex: the first spelling wins.
+        assertEquals("IT", store.get(3).getDepartment());
+        assertEquals(130000.0, store.sumSalary("it"));
+        assertNull(store.get(4));
+        assertEquals(-1, store.rowOf(4));
+    }
+
+    // Removing a row moves the last row into its slot, and freeing a side
+    // column entry moves the last entry into it; both must be relinked.
+    public void testRemoveRelinksRowsAndSideColumns() {
+        ColumnarEmployeeStore store = new ColumnarEmployeeStore();
+        store.add(new SalesEmployee(1, "S1", 1000, "Sales", 10, 0.1, 5));
+        store.add(new Manager(2, "M2", 2000, "IT", 2));
+        store.add(new SalesEmployee(3, "S3", 3000, "Sales", 30, 0.3, 50));
+        store.add(new Employee(4, "E4", 4000, "HR"));
+        store.add(new Manager(5, "M5", 5000, "IT", 5));
+        store.add(new SalesEmployee(6, "S6", 6000, "Sales", 60, 0.6, 5));
+
+        // Row 0 (first sales entry) is replaced by row 5 (last sales entry).
+        assertTrue(store.remove(1));
+        assertFalse(store.remove(1));
+        assertEquals(0, store.rowOf(6));
+        assertEquals("Sales,6,S6,6000.0,Sales,60.0,0.6,5.0", store.get(6).toCSV());
+        assertEquals("Sales,3,S3,3000.0,Sales,30.0,0.3,50.0", store.get(3).toCSV());
+
+        // The first manager goes; the last manager's entry takes its place.
+        assertTrue(store.remove(2));
+        assertEquals(5, ((Manager) store.get(5)).getTeamSize());
+        store.setTeamSize(store.rowOf(5), 7);
+        assertEquals(7, ((Manager) store.get(5)).getTeamSize());
+        store.setSales(store.rowOf(3), 99);
+        assertEquals(99.0, ((SalesEmployee) store.get(3)).getSales());
+        assertEquals(60.0, ((SalesEmployee) store.get(6)).getSales());
+
+        assertEquals(4, store.size());
+        assertEquals(18000.0, store.sumSalary());
+        assertEquals(bonusOfViews(store), store.totalBonus(), 1e-9);
+    }
+
+    public void testSettersKeepOtherRows() {
+        ColumnarEmployeeStore store = new ColumnarEmployeeStore();
+        for (int id = 1; id <= 50; id++) store.add(new Employee(id, "Name " + id, 1000 * id, DEPARTMENTS[id % 4]));
+
+        // Renaming over and over leaves dead bytes behind until the names are
+        // repacked; every other row must keep its name through that.
+        for (int round = 0; round < 40; round++) {
+            for (int id = 1; id <= 50; id += 7) {
+                store.setName(store.rowOf(id), "Renamed " + id + " " + round + (round % 3 == 0 ? " — ünïcödé" : ""));
+            }
+        }
+        for (int id = 1; id <= 50; id++) {
+            String expected = (id - 1) % 7 == 0 ? "Renamed " + id + " 39 — ünïcödé" : "Name " + id;
+            assertEquals(expected, store.get(id).getName());
+        }
+
+        store.setDepartment(store.rowOf(4), "finance");
+        store.setDepartment(store.rowOf(5), "Legal");
+        assertEquals("Finance", store.get(4).getDepartment());
+        assertEquals("Legal", store.get(5).getDepartment());
+        assertEquals(5000.0, store.sumSalary("LEGAL"));
+        store.setSalary(store.rowOf(5), 1);
+        assertEquals(1.0, store.sumSalary("legal"));
+
+        try {
+            store.setTeamSize(store.rowOf(1), 3);
+            fail("set a team size on a regular employee");
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            store.setSales(store.rowOf(1), 3);
+            fail("set sales on a regular employee");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    // Random adds, removes and updates against a map of Employee objects.
+    public void testMatchesObjectsUnderRandomChanges() {
+        Random rnd = new Random(11);
+        ColumnarEmployeeStore store = new ColumnarEmployeeStore();
+        Map<Integer, Employee> expected = new HashMap<>();
+        for (int step = 0; step < 20_000; step++) {
+            int id = rnd.nextInt(500);
+            int row = store.rowOf(id);
+            switch (rnd.nextInt(5)) {
+                case 0:
+                case 1: {
+                    Employee e = employee(id, rnd);
+                    assertEquals(!expected.containsKey(id), store.add(e));
+                    expected.putIfAbsent(id, e);
+                    break;
+                }
+                case 2:
+                    assertEquals(expected.remove(id) != null, store.remove(id));
+                    break;
+                case 3:
+                    if (row < 0) break;
+                    String name = "N" + rnd.nextInt(1_000_000);
+                    store.setName(row, name);
+                    expected.get(id).setName(name);
+                    break;
+                default:
+                    if (row < 0) break;
+                    String department = DEPARTMENTS[rnd.nextInt(4)];
+                    store.setDepartment(row, department);
+                    expected.get(id).setDepartment(department);
+            }
+        }
+        assertEquals(expected.size(), store.size());
+        for (Employee e : expected.values()) assertEquals(e.toCSV(), store.get(e.getId()).toCSV());
+        double bonus = 0;
+        for (Employee e : expected.values()) bonus += e.calculateBonus();
+        assertEquals(bonus, store.totalBonus(), 1e-6);
+    }
+
+    private static double bonusOfViews(ColumnarEmployeeStore store) {
+        double total = 0;
+        for (int row = 0; row < store.size(); row++) total += store.view(row).calculateBonus();
+        return total;
+    }
+
+    private static Employee employee(int id, Random rnd) {
+        double salary = 1000 * (20 + rnd.nextInt(60));
+        String dept = DEPARTMENTS[rnd.nextInt(4)];
+        switch (rnd.nextInt(3)) {
+            case 0: return new SalesEmployee(id, "S" + id, salary, dept, rnd.nextInt(200_000), 0.05, 100_000);
+            case 1: return new Manager(id, "M" + id, salary, dept, rnd.nextInt(30));
+            default: return new Employee(id, "E" + id, salary, dept);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.sumit.hr;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import junit.framework.TestCase;
+
+// =============================
+// CsvRowWriterTest: byte-identical output and allocation per row
+// =============================
+public class CsvRowWriterTest extends TestCase {
+
+    public void testDoublesMatchStringValueOf() throws IOException {
+        Random rnd = new Random(3);
+        List<Double> values = new ArrayList<>(Arrays.asList(0.0, -0.0, 1.0, -1.0, 0.001, 0.000999, 9999999.0,
+                1e7, 1e7 - 0.5, 0.1 + 0.2, 123456.789, 5e-324, Double.MAX_VALUE, Double.NaN,
+                Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, 0.05, 0.075, 1234567.8901));
+        for (int i = 0; i < 200_000; i++) {
+            values.add(rnd.nextInt(10_000_000) / 100.0);                     // cents
+            values.add((double) rnd.nextInt(2_000_000));                     // whole amounts
+            values.add(rnd.nextInt(100_000) / 10_000.0);                     // rates
+            values.add(rnd.nextDouble() * Math.pow(10, rnd.nextInt(12) - 4)); // anything
+            values.add(-rnd.nextInt(1_000_000) / 1000.0);
+            values.add(Double.longBitsToDouble(rnd.nextLong()));
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CsvRowWriter w = new CsvRowWriter(Channels.newChannel(bytes), 4096);
+        StringBuilder expected = new StringBuilder();
+        for (double v : values) {
+            w.field(v).endRow();
+            expected.append(String.valueOf(v)).append(System.lineSeparator());
+        }
+        w.flush();
+        assertEquals(expected.toString(), bytes.toString(StandardCharsets.US_ASCII));
+    }
+
+    public void testRowsMatchToCsv() throws IOException {
+        Random rnd = new Random(4);
+        String[] names = {"Amit Sharma", "Zoë Müller", "李小龙", "Emoji 😀 Fan", ""};
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        // A small buffer so rows straddle drains.
+        CsvRowWriter w = new CsvRowWriter(Channels.newChannel(bytes), 64);
+        StringBuilder expected = new StringBuilder();
+        for (int id = -50; id < 5_000; id++) {
+            String name = names[rnd.nextInt(names.length)] + id;
+            double salary = rnd.nextInt(10_000_000) / 100.0;
+            Employee e;
+            switch (rnd.nextInt(3)) {
+                case 0: e = new SalesEmployee(id, name, salary, "Sales", rnd.nextDouble() * 1e6, 0.05, 1e5); break;
+                case 1: e = new Manager(id, name, salary, "IT", rnd.nextInt(40)); break;
+                default: e = new Employee(id, name, salary, "Opérations");
+            }
+            w.writeEmployee(e);
+            expected.append(e.toCSV()).append(System.lineSeparator());
+        }
+        w.flush();
+        assertTrue(Arrays.equals(expected.toString().getBytes(StandardCharsets.UTF_8), bytes.toByteArray()));
+    }
+
+    public void testNoAllocationPerRow() throws IOException {
+        List<Employee> rows = new ArrayList<>();
+        Random rnd = new Random(5);
+        for (int id = 1; id <= 100_000; id++) {
+            double salary = (2_000_000 + rnd.nextInt(8_000_000)) / 100.0;   // as parsed from a file
+            switch (id % 3) {
+                case 0: rows.add(new SalesEmployee(id, "Employee " + id, salary, "Sales", rnd.nextInt(600_000), 0.05, 250_000)); break;
+                case 1: rows.add(new Manager(id, "Employee " + id, salary, "IT", rnd.nextInt(20))); break;
+                default: rows.add(new Employee(id, "Employee " + id, salary, "HR"));
+            }
+        }
+        WritableByteChannel discard = new WritableByteChannel() {
+            @Override public int write(ByteBuffer src) {
+                int n = src.remaining();
+                src.position(src.limit());
+                return n;
+            }
+            @Override public boolean isOpen() { return true; }
+            @Override public void close() { }
+        };
+        CsvRowWriter w = new CsvRowWriter(discard);
+        for (int round = 0; round < 5; round++) write(w, rows);   // warm up
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long before = threads.getCurrentThreadAllocatedBytes();
+        write(w, rows);
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+        double perRow = allocated / (double) rows.size();
+        System.out.printf("CsvRowWriter: %.3f bytes allocated per row%n", perRow);
+        assertTrue("allocated " + perRow + " bytes per row", perRow < 1);
+    }
+
+    private static void write(CsvRowWriter w, List<Employee> rows) throws IOException {
+        for (int i = 0; i < rows.size(); i++) w.writeEmployee(rows.get(i));
+        w.flush();
+    }
+}
@@ -0,0 +1,178 @@
+package com.sumit.hr;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+import junit.framework.TestCase;
+
+// =============================
+// EmployeeBatchTest: batch parsing, validation and single-flush persistence
+// =============================
+public class EmployeeBatchTest extends TestCase {
+    private Path dir;
+
+    @Override
+    protected void setUp() throws Exception {
+        dir = Files.createTempDirectory("batch-test");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir)) {
+            for (Path p : ds) Files.delete(p);
+        }
+        Files.delete(dir);
+    }
+
+    public void testInvalidRecordsAreReportedAndSkipped() throws Exception {
+        EmployeeStore store = new EmployeeStore();
+        store.add(new Employee(1, "Asha", 30000, "HR"));
+        EmployeeBatch.Result r = store.apply(batch(
+                "# acquisition",
+                "Regular,2,Ravi,40000.0,IT,0,0,0",
+                "A,Manager,3,Meera,90000.0,IT,4,0,0",
+                "A,Regular,1,Dup,1.0,HR,0,0,0",
+                "Regular,4,Broken",
+                "U,Sales,2,Ravi,45000.0,Sales,100.0,0.05,50.0",
+                "U,Regular,9,Ghost,1.0,HR,0,0,0",
+                "D,1",
+                "D,1",
+                "Regular,5, ,1.0,HR,0,0,0"));
+        assertEquals(2, r.getAdded());
+        assertEquals(1, r.getUpdated());
+        assertEquals(1, r.getDeleted());
+        assertEquals(5, r.getErrors().size());
+        int[] lines = new int[r.getErrors().size()];
+        for (int i = 0; i < lines.length; i++) lines[i] = r.getErrors().get(i).getLine();
+        assertTrue(Arrays.equals(new int[] {4, 5, 7, 9, 10}, lines));
+
+        assertNull(store.get(1));
+        assertTrue(store.get(2) instanceof SalesEmployee);
+        assertEquals("Sales", store.get(2).getDepartment());
+        assertEquals(2, store.size());
+        assertEquals("{IT=1, Sales=1}", store.headCounts().toString());
+        // The replaced employee keeps its place ahead of the one added after it.
+        assertEquals(2, store.snapshot().get(0).getId());
+    }
+
+    public void testBatchIsSavedOnce() throws Exception {
+        AtomicInteger writes = new AtomicInteger();
+        SnapshotFormat counting = new SnapshotFormat() {
+            private final CsvSnapshot csv = new CsvSnapshot();
+            @Override public List<Employee> read(Path file) throws IOException { return csv.read(file); }
+            @Override public void write(Path file, Collection<Employee> rows) throws IOException {
+                writes.incrementAndGet();
+                csv.write(file, rows);
+            }
+        };
+        Path file = dir.resolve("employees.csv");
+        EmployeeStore store = new EmployeeStore(file, counting, null, false, 1, 1000);
+        EmployeeBatch batch = new EmployeeBatch();
+        for (int id = 1; id <= 5_000; id++) batch.add(new Employee(id, "E" + id, 1000, "Ops"));
+        assertEquals(5_000, store.apply(batch).getAdded());
+        assertEquals(1, writes.get());
+        store.close();
+        assertEquals(5_000, new CsvSnapshot().read(file).size());
+    }
+
+    public void testReadersSeeNoneOrAllOfABatch() throws Exception {
+        EmployeeStore store = new EmployeeStore();
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicInteger torn = new AtomicInteger();
+        Thread reader = new Thread(() -> {
+            while (!stop.get()) {
+                int n = store.snapshot().size();
+                if (n % 100 != 0) torn.incrementAndGet();
+            }
+        });
+        reader.start();
+        for (int b = 0; b < 50; b++) {
+            EmployeeBatch batch = new EmployeeBatch();
+            for (int i = 0; i < 100; i++) batch.add(new Employee(b * 100 + i, "E", 1, "Ops"));
+            store.apply(batch);
+        }
+        stop.set(true);
+        reader.join();
+        assertEquals(0, torn.get());
+        assertEquals(5_000, store.size());
+    }
+
+    public void testJournalReplaysOnlyWholeBatches() throws Exception {
+        Path file = dir.resolve("employees.bin");
+        EmployeeStore store = new EmployeeStore(file, new BinarySnapshot(), null, true, 1, 1000);
+        store.apply(batch("Regular,1,A,1.0,HR,0,0,0", "Regular,2,B,1.0,HR,0,0,0"));
+        store.close();
+        // A crash in the middle of the next batch leaves its header and part of
+        // its records behind.
+        Files.write(file.resolveSibling("employees.bin.journal"),
+                "B,3\nU,Regular,3,C,1.0,HR,0,0,0\nD,1\n".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+        EmployeeStore reloaded = new EmployeeStore(file, new BinarySnapshot(), null, true, 1, 1000);
+        assertEquals(2, reloaded.size());
+        assertNotNull(reloaded.get(1));
+        assertNull(reloaded.get(3));
+        reloaded.close();
+    }
+
+    // A journal write that fails (here: the writer is interrupted, which
+    // closes the channel) leaves the store, its history and its change
+    // stream as they were.
+    public void testFailedJournalWriteAppliesNothing() throws Exception {
+        Path file = dir.resolve("employees.bin");
+        EmployeeStore store = new EmployeeStore(file, new BinarySnapshot(), null, true, 1, 1000);
+        store.apply(batch("Regular,1,A,1.0,HR,0,0,0", "Regular,2,B,2.0,HR,0,0,0"));
+        long version = store.version();
+        ChangeStream.Subscription sub = store.changes().subscribe();
+        EmployeeBatch batch = new EmployeeBatch();
+        batch.add(new Employee(3, "C", 3.0, "IT"));
+        batch.update(new Employee(1, "A2", 10.0, "IT"));
+        batch.delete(2);
+        Thread.currentThread().interrupt();
+        try {
+            store.apply(batch);
+            fail("journal write did not fail");
+        } catch (IOException expected) {
+        } finally {
+            Thread.interrupted();
+        }
+        assertEquals(2, store.size());
+        assertNull(store.get(3));
+        assertEquals("A", store.get(1).getName());
+        assertNotNull(store.get(2));
+        assertEquals(2, store.byDepartment("HR").size());
+        assertTrue(store.byDepartment("IT").isEmpty());
+        assertEquals(version, store.version());
+        assertEquals(0, sub.poll(10, e -> { }));
+        try {
+            store.close();
+        } catch (IOException alreadyClosed) {
+        }
+        EmployeeStore reloaded = new EmployeeStore(file, new BinarySnapshot(), null, true, 1, 1000);
+        assertEquals(2, reloaded.size());
+        reloaded.close();
+    }
+
+    // A record that cannot be parsed is an error, not a torn tail: the store
+    // refuses to open instead of dropping what follows it.
+    public void testCorruptJournalRecordFailsToOpen() throws Exception {
+        Path file = dir.resolve("employees.bin");
+        EmployeeStore store = new EmployeeStore(file, new BinarySnapshot(), null, true, 1, 1000);
+        store.apply(batch("Regular,1,A,1.0,HR,0,0,0"));
+        store.close();
+        Files.write(file.resolveSibling("employees.bin.journal"),
+                "D,x1\nU,Regular,2,B,1.0,HR,0,0,0\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        try {
+            new EmployeeStore(file, new BinarySnapshot(), null, true, 1, 1000);
+            fail("opened a corrupt journal");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().contains("line 3"));
+        }
+    }
+
+    private static EmployeeBatch batch(String... lines) throws IOException {
+        return EmployeeBatch.read(new BufferedReader(new StringReader(String.join("\n", lines))));
+    }
+}
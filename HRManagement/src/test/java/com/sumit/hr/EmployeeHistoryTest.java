@@ -0,0 +1,271 @@
+package com.sumit.hr;
+
+import java.io.*;
+import java.nio.file.*;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+import junit.framework.TestCase;
+
+// =============================
+// EmployeeHistoryTest: versions, as-of reads, batches and concurrent readers
+// =============================
+public class EmployeeHistoryTest extends TestCase {
+    private EmployeeStore store;
+
+    @Override
+    protected void setUp() throws Exception {
+        store = new EmployeeStore();
+        store.add(new Employee(1, "Amit Sharma", 35000, "HR"));
+        store.add(new Manager(2, "Pooja Verma", 90000, "IT", 4));
+    }
+
+    public void testUpdateIsOneVersionAndOldValuesStay() throws Exception {
+        long before = store.version();
+        assertEquals(2, before);
+        store.update(1, e -> {
+            e.setName("Amit K Sharma");
+            e.setDepartment("Finance");
+            e.setSalary(40000);
+        });
+        assertEquals(before + 1, store.version());
+
+        Employee then = store.asOf(before).get(0);
+        assertEquals("Amit Sharma", then.getName());
+        assertEquals("HR", then.getDepartment());
+        assertEquals(35000.0, then.getSalary());
+        assertEquals("Amit K Sharma", store.asOf(store.version()).get(0).getName());
+        assertEquals(1, store.asOf(1).size());
+        assertTrue(store.asOf(0).isEmpty());
+
+        List<EmployeeHistory.Version> versions = store.history(1);
+        assertEquals(2, versions.size());
+        assertEquals(3, versions.get(0).getVersion());
+        assertEquals(40000.0, versions.get(0).getEmployee().getSalary());
+        assertEquals(1, versions.get(1).getVersion());
+        // Unchanged strings are shared between versions, not copied.
+        store.update(2, e -> e.setSalary(95000));
+        assertSame(store.history(2).get(0).state.getName(), store.history(2).get(1).state.getName());
+        assertTrue(store.history(99).isEmpty());
+    }
+
+    public void testDeleteAndReAddKeepListingOrderPerVersion() throws Exception {
+        store.delete(1);
+        long deleted = store.version();
+        store.add(new Employee(1, "Amit Sharma", 36000, "HR"));
+        assertEquals(Arrays.asList(2), ids(store.asOf(deleted)));
+        assertEquals(Arrays.asList(1, 2), ids(store.asOf(deleted - 1)));
+        assertEquals(Arrays.asList(2, 1), ids(store.asOf(store.version())));
+        assertTrue(store.history(1).get(1).isDeleted());
+
+        assertEquals(2, store.asOf(Instant.now().plusSeconds(60)).size());
+        assertTrue(store.asOf(Instant.EPOCH).isEmpty());
+    }
+
+    public void testBatchIsOneVersion() throws Exception {
+        long before = store.version();
+        EmployeeBatch batch = new EmployeeBatch();
+        batch.add(new Employee(3, "Neha Joshi", 30000, "HR"));
+        batch.update(new Employee(1, "Amit Sharma", 37000, "HR"));
+        batch.update(new Employee(1, "Amit Sharma", 38000, "HR"));
+        batch.delete(2);
+        store.apply(batch);
+        assertEquals(before + 1, store.version());
+        assertEquals(Arrays.asList(1, 3), ids(store.asOf(before + 1)));
+        assertEquals(38000.0, store.asOf(before + 1).get(0).getSalary());
+        assertEquals(Arrays.asList(1, 2), ids(store.asOf(before)));
+    }
+
+    public void testLoadedRowsAreTheBaseline() throws Exception {
+        Path dir = Files.createTempDirectory("history");
+        Path csv = dir.resolve("employees.csv");
+        Files.write(csv, Arrays.asList(new Employee(7, "Ravi Kumar", 50000, "Ops").toCSV()));
+        try (EmployeeStore loaded = new EmployeeStore(csv, new CsvSnapshot(), null, false, 1, 1000)) {
+            assertEquals(0, loaded.version());
+            loaded.update(7, e -> e.setSalary(55000));
+            assertEquals(50000.0, loaded.asOf(0).get(0).getSalary());
+            assertEquals(50000.0, loaded.asOf(Instant.EPOCH).get(0).getSalary());
+            assertEquals(2, loaded.historySize());
+        } finally {
+            try (java.util.stream.Stream<Path> files = Files.list(dir)) {
+                for (Path f : (Iterable<Path>) files::iterator) Files.delete(f);
+            }
+            Files.delete(dir);
+        }
+    }
+
+    // Every loaded row is a baseline from the start, changed or not.
+    public void testEveryLoadedRowHasItsBaseline() throws Exception {
+        Path dir = Files.createTempDirectory("history");
+        Path csv = dir.resolve("employees.csv");
+        Files.write(csv, Arrays.asList(new Employee(7, "Ravi Kumar", 50000, "Ops").toCSV(),
+                new Employee(8, "Sita Rao", 60000, "HR").toCSV(), new Manager(9, "Anil Das", 90000, "IT", 3).toCSV()));
+        try (EmployeeStore loaded = new EmployeeStore(csv, new CsvSnapshot(), null, false, 1, 1000)) {
+            assertEquals(3, loaded.historySize());
+            assertEquals(Arrays.asList(7, 8, 9), ids(loaded.asOf(0)));
+            List<EmployeeHistory.Version> asLoaded = loaded.history(8);
+            assertEquals(1, asLoaded.size());
+            assertEquals(0, asLoaded.get(0).getVersion());
+
+            loaded.update(8, e -> e.setSalary(61000));
+            loaded.delete(9);
+            EmployeeBatch batch = new EmployeeBatch();
+            batch.add(new Employee(10, "New Hire", 30000, "Ops"));
+            batch.update(new Employee(10, "New Hire", 31000, "Ops"));
+            batch.update(new Employee(7, "Ravi Kumar", 52000, "Ops"));
+            loaded.apply(batch);
+            // baselines of 7, 8 and 9, then one version each for 7, 8, 9 and 10
+            assertEquals(7, loaded.historySize());
+            assertEquals(Arrays.asList(7, 8, 9), ids(loaded.asOf(0)));
+            assertEquals(60000.0, loaded.asOf(0).get(1).getSalary());
+            assertEquals(Arrays.asList(7, 8, 10), ids(loaded.asOf(loaded.version())));
+            assertEquals(52000.0, loaded.asOf(loaded.version()).get(0).getSalary());
+        } finally {
+            try (java.util.stream.Stream<Path> files = Files.list(dir)) {
+                for (Path f : (Iterable<Path>) files::iterator) Files.delete(f);
+            }
+            Files.delete(dir);
+        }
+    }
+
+    // A writer stuck inside update() holds its stripe's write lock; as-of
+    // reads must not wait for it, and must not see its change.
+    public void testAsOfDoesNotWaitForWriters() throws Exception {
+        CountDownLatch inside = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread writer = new Thread(() -> {
+            try {
+                store.update(1, e -> {
+                    inside.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                    e.setSalary(1);
+                });
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+        writer.start();
+        inside.await();
+        ExecutorService reader = Executors.newSingleThreadExecutor();
+        try {
+            List<Employee> at = reader.submit(() -> store.asOf(store.version())).get(10, TimeUnit.SECONDS);
+            assertEquals(Arrays.asList(1, 2), ids(at));
+            assertEquals(35000.0, at.get(0).getSalary());
+        } finally {
+            release.countDown();
+            writer.join();
+            reader.shutdown();
+        }
+        assertEquals(1.0, store.asOf(store.version()).get(0).getSalary());
+    }
+
+    // forgetBefore() cutting chains under a reader must make the reader
+    // refuse, never answer with employees missing.
+    public void testForgetDuringReadsNeverDropsEmployees() throws Exception {
+        EmployeeStore s = new EmployeeStore();
+        for (int id = 1; id <= 200; id++) s.add(new Employee(id, "E" + id, 1000, "Ops"));
+        for (int round = 0; round < 20; round++) {
+            for (int id = 1; id <= 200; id++) s.update(id, e -> e.setSalary(e.getSalary() + 1));
+        }
+        long newest = s.version();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread[] readers = new Thread[3];
+        for (int r = 0; r < readers.length; r++) {
+            int seed = r;
+            readers[r] = new Thread(() -> {
+                Random rnd = new Random(seed);
+                try {
+                    for (int i = 0; i < 300; i++) {
+                        long v = 200 + rnd.nextInt((int) (newest - 199));
+                        try {
+                            List<Employee> at = s.asOf(v);
+                            if (at.size() != 200) throw new AssertionError(at.size() + " employees as of " + v);
+                        } catch (IllegalArgumentException forgotten) {
+                        }
+                    }
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                }
+            });
+            readers[r].start();
+        }
+        for (long v = 200; v <= newest; v += 7) s.forgetHistoryBefore(v);
+        for (Thread t : readers) t.join();
+        assertNull(failure.get());
+    }
+
+    public void testForgetBefore() throws Exception {
+        store.update(1, e -> e.setSalary(1));
+        store.update(1, e -> e.setSalary(2));
+        store.delete(2);
+        long cut = store.version();
+        store.update(1, e -> e.setSalary(3));
+        assertEquals(6, store.historySize());
+
+        store.forgetHistoryBefore(cut);
+        // Amit keeps the version current at the cut and the one after it;
+        // Pooja was deleted before it and is gone.
+        assertEquals(2, store.historySize());
+        assertEquals(2.0, store.asOf(cut).get(0).getSalary());
+        assertTrue(store.history(2).isEmpty());
+        try {
+            store.asOf(cut - 1);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    // Writers move pay between two of their own employees in batches, so
+    // every committed version has the same total; readers must never see a
+    // torn one.
+    public void testReadersSeeWholeCommits() throws Exception {
+        EmployeeStore s = new EmployeeStore();
+        for (int id = 1; id <= 100; id++) s.add(new Employee(id, "E" + id, 1000, "Ops"));
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread[] writers = new Thread[3];
+        for (int w = 0; w < writers.length; w++) {
+            int seed = w;
+            writers[w] = new Thread(() -> {
+                Random rnd = new Random(seed);
+                try {
+                    for (int i = 0; i < 500; i++) {
+                        int a = 1 + seed + 3 * rnd.nextInt(33), b = 1 + seed + 3 * rnd.nextInt(33);
+                        if (a == b) continue;
+                        EmployeeBatch batch = new EmployeeBatch();
+                        double amount = rnd.nextInt(50);
+                        Employee ea = s.get(a), eb = s.get(b);
+                        batch.update(new Employee(a, ea.getName(), ea.getSalary() - amount, "Ops"));
+                        batch.update(new Employee(b, eb.getName(), eb.getSalary() + amount, "Ops"));
+                        s.apply(batch);
+                    }
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                }
+            });
+            writers[w].start();
+        }
+        int reads = 0;
+        while (reads < 50 || Arrays.stream(writers).anyMatch(Thread::isAlive)) {
+            List<Employee> at = s.asOf(s.version());
+            double total = 0;
+            for (Employee e : at) total += e.getSalary();
+            assertEquals(100, at.size());
+            assertEquals(100_000.0, total);
+            reads++;
+        }
+        for (Thread t : writers) t.join();
+        assertNull(failure.get());
+    }
+
+    private static List<Integer> ids(List<Employee> employees) {
+        List<Integer> ids = new ArrayList<>();
+        for (Employee e : employees) ids.add(e.getId());
+        return ids;
+    }
+}
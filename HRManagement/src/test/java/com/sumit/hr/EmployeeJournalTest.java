@@ -0,0 +1,107 @@
+package com.sumit.hr;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+import junit.framework.TestCase;
+
+// =============================
+// EmployeeJournalTest: a failed journal write leaves the store unchanged
+// =============================
+// An interrupted writer makes the journal's FileChannel close and throw
+// ClosedByInterruptException, a real IOException from the write itself.
+public class EmployeeJournalTest extends TestCase {
+    private Path dir;
+
+    @Override
+    protected void setUp() throws Exception {
+        dir = Files.createTempDirectory("journal-test");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir)) {
+            for (Path p : ds) Files.delete(p);
+        }
+        Files.delete(dir);
+    }
+
+    public void testFailedAddChangesNothing() throws Exception {
+        EmployeeStore store = journaled();
+        List<ChangeStream.Event> events = new ArrayList<>();
+        ChangeStream.Subscription sub = store.changes().subscribe();
+        long version = store.version();
+        failing(() -> store.add(new Employee(3, "Neha Joshi", 30000, "HR")));
+        assertNull(store.get(3));
+        assertEquals(2, store.size());
+        assertEquals(version, store.version());
+        assertEquals(1, store.byDepartment("HR").size());
+        assertEquals(0, sub.poll(10, events::add));
+        closeQuietly(store);
+        assertEquals(2, reopened().size());
+    }
+
+    public void testFailedUpdateChangesNothing() throws Exception {
+        EmployeeStore store = journaled();
+        long version = store.version();
+        failing(() -> store.update(1, e -> {
+            e.setSalary(99999);
+            e.setDepartment("Finance");
+        }));
+        assertEquals(35000.0, store.get(1).getSalary());
+        assertEquals(1, store.byDepartment("HR").size());
+        assertTrue(store.byDepartment("Finance").isEmpty());
+        assertEquals(version, store.version());
+        assertEquals(1, store.history(1).size());
+        closeQuietly(store);
+        assertEquals(35000.0, reopened().get(1).getSalary());
+    }
+
+    public void testFailedDeleteChangesNothing() throws Exception {
+        EmployeeStore store = journaled();
+        long version = store.version();
+        failing(() -> store.delete(2));
+        assertNotNull(store.get(2));
+        assertEquals(Integer.valueOf(1), store.headCounts().get("IT"));
+        assertEquals(version, store.version());
+        closeQuietly(store);
+        assertNotNull(reopened().get(2));
+    }
+
+    private interface Write {
+        void run() throws IOException;
+    }
+
+    private static void failing(Write write) {
+        Thread.currentThread().interrupt();
+        try {
+            write.run();
+            fail("journal write did not fail");
+        } catch (IOException expected) {
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    private EmployeeStore journaled() throws IOException {
+        EmployeeStore store = new EmployeeStore(dir.resolve("employees.bin"), new BinarySnapshot(), null, true, 1, 1000);
+        store.add(new Employee(1, "Amit Sharma", 35000, "HR"));
+        store.add(new Manager(2, "Pooja Verma", 90000, "IT", 4));
+        return store;
+    }
+
+    private EmployeeStore reopened() throws IOException {
+        EmployeeStore store = new EmployeeStore(dir.resolve("employees.bin"), new BinarySnapshot(), null, true, 1, 1000);
+        store.close();
+        return store;
+    }
+
+    // The journal's channel is already closed by the failed write.
+    private static void closeQuietly(EmployeeStore store) {
+        try {
+            store.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.sumit.hr;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import com.google.gson.*;
+
+import junit.framework.TestCase;
+
+// =============================
+// EmployeeReportTest: text, CSV and JSON rendering and store paging
+// =============================
+public class EmployeeReportTest extends TestCase {
+    private static final String NL = System.lineSeparator();
+
+    private final List<Employee> workforce = Arrays.asList(
+            new Employee(1, "Zoë Müller", 40000.5, "IT"),
+            new SalesEmployee(2, "Amit \"AJ\" Shah, Jr", 30000, "Sales", 120000, 0.05, 100000),
+            new Manager(3, "李小龙", 90000, "IT", 4),
+            new Employee(4, "Tab\tBack\\slash", 1e7, "Ops"));
+
+    // The lines displayAll() used to print with one println each.
+    public void testTextMatchesConsoleLines() throws IOException {
+        StringBuilder expected = new StringBuilder();
+        for (Employee e : workforce) {
+            expected.append("-----------------------------------").append(NL)
+                    .append("Employee ID: ").append(e.getId()).append(NL)
+                    .append("Name       : ").append(e.getName()).append(NL)
+                    .append("Department : ").append(e.getDepartment()).append(NL)
+                    .append("Salary     : ").append(e.getSalary()).append(NL);
+            if (e instanceof SalesEmployee) {
+                SalesEmployee s = (SalesEmployee) e;
+                expected.append("Sales      : ").append(s.getSales()).append(NL)
+                        .append("Commission : ").append(s.getCommissionRate() * 100).append("%").append(NL)
+                        .append("Target     : ").append(s.getTarget()).append(NL);
+            } else if (e instanceof Manager) {
+                expected.append("Team Size  : ").append(((Manager) e).getTeamSize()).append(NL);
+            }
+            double bonus = e.calculateBonus();
+            expected.append("Bonus: ").append(bonus).append(NL)
+                    .append("Final Salary: ").append(e.getSalary() + bonus).append(NL)
+                    .append("-----------------------------------").append(NL);
+        }
+        assertEquals(expected.toString(), render(EmployeeReport.Format.TEXT, true, 64));
+
+        // displayInfo() prints the same block without the pay lines.
+        PrintStream console = System.out;
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(captured, true, StandardCharsets.UTF_8));
+        try {
+            workforce.get(1).displayInfo();
+        } finally {
+            System.setOut(console);
+        }
+        assertEquals("-----------------------------------" + NL + "Employee ID: 2" + NL
+                + "Name       : Amit \"AJ\" Shah, Jr" + NL + "Department : Sales" + NL + "Salary     : 30000.0" + NL
+                + "Sales      : 120000.0" + NL + "Commission : " + (0.05 * 100) + "%" + NL + "Target     : 100000.0" + NL,
+                captured.toString(StandardCharsets.UTF_8));
+    }
+
+    public void testCsvQuotesOnlyWhenNeeded() throws IOException {
+        String[] lines = render(EmployeeReport.Format.CSV, true, 64).split(NL);
+        assertEquals(5, lines.length);
+        assertEquals("Type,ID,Name,Department,Salary,Sales,Commission Rate,Target,Team Size,Bonus,Final Salary", lines[0]);
+        Employee sales = workforce.get(1);
+        double bonus = sales.calculateBonus();
+        assertEquals("Sales,2,\"Amit \"\"AJ\"\" Shah, Jr\",Sales,30000.0,120000.0,0.05,100000.0,," + bonus + "," + (30000 + bonus), lines[2]);
+        assertTrue(lines[3], lines[3].startsWith("Manager,3,李小龙,IT,90000.0,,,,4,"));
+        assertTrue(lines[4], lines[4].startsWith("Regular,4,Tab\tBack\\slash,Ops,1.0E7,,,,,"));
+        assertTrue(render(EmployeeReport.Format.CSV, false, 64).startsWith("Type,ID,Name,Department,Salary,Sales,Commission Rate,Target,Team Size" + NL));
+    }
+
+    public void testJsonReadsBackWithServerFieldNames() throws IOException {
+        JsonArray rows = JsonParser.parseString(render(EmployeeReport.Format.JSON, true, 64)).getAsJsonArray();
+        assertEquals(4, rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            JsonObject row = rows.get(i).getAsJsonObject();
+            Employee e = workforce.get(i);
+            assertEquals(e.getType(), row.get("type").getAsString());
+            assertEquals(e.getId(), row.get("id").getAsInt());
+            assertEquals(e.getName(), row.get("name").getAsString());
+            assertEquals(e.getSalary(), row.get("salary").getAsDouble());
+            assertEquals(e.computeFinalSalary(), row.get("finalSalary").getAsDouble(), 1e-9);
+            // Field for field what the server sends for the same employee.
+            assertEquals(JsonParser.parseString(JsonSnapshot.API_ADAPTER.toJson(e)), row);
+        }
+        assertEquals(0.05, rows.get(1).getAsJsonObject().get("commissionRate").getAsDouble());
+        assertEquals(4, rows.get(2).getAsJsonObject().get("teamSize").getAsInt());
+        assertFalse(rows.get(0).getAsJsonObject().has("teamSize"));
+
+        ByteArrayOutputStream empty = new ByteArrayOutputStream();
+        EmployeeReport report = EmployeeReport.to(empty, EmployeeReport.Format.JSON, false);
+        report.begin();
+        report.end();
+        assertEquals(0, JsonParser.parseString(empty.toString(StandardCharsets.UTF_8)).getAsJsonArray().size());
+    }
+
+    public void testPagesVisitEveryoneInInsertionOrder() throws Exception {
+        EmployeeStore store = new EmployeeStore();
+        for (int id = 1000; id > 0; id--) store.add(new Employee(id, "E" + id, id, "Ops"));
+        store.delete(500);
+        List<Integer> seen = new ArrayList<>();
+        int pages = 0;
+        for (List<Employee> page : store.pages(100)) {
+            pages++;
+            for (Employee e : page) seen.add(e.getId());
+        }
+        assertEquals(10, pages);
+        assertEquals(999, seen.size());
+        for (int i = 1; i < seen.size(); i++) assertTrue(seen.get(i - 1) > seen.get(i));
+
+        // A row deleted after the IDs were read is skipped when its page comes.
+        Iterator<List<Employee>> it = store.pages(600).iterator();
+        assertEquals(600, it.next().size());
+        store.delete(1);
+        assertEquals(398, it.next().size());
+        assertFalse(it.hasNext());
+
+        try {
+            EmployeeReport.Format.parse("xml");
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    private String render(EmployeeReport.Format format, boolean pay, int bufferSize) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        // A small buffer so rows straddle drains.
+        EmployeeReport report = new EmployeeReport(Channels.newChannel(bytes), format, pay, bufferSize);
+        report.begin();
+        for (Employee e : workforce) report.employee(e);
+        report.end();
+        assertEquals(workforce.size(), report.rows());
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+}
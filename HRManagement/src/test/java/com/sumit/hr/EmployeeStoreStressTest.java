@@ -0,0 +1,159 @@
+package com.sumit.hr;
+
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import junit.framework.TestCase;
+
+// =============================
+// EmployeeStoreStressTest: concurrent writers and readers on EmployeeStore
+// =============================
+// Usage: java com.sumit.hr.EmployeeStoreStressTest [threads] [opsPerThread]
+// (mvn test runs a shorter version of the same checks)
+// Writers add to shared salaries through update() while others add and
+// delete their own IDs, move employees between departments and take
+// snapshots. At the end every increment must be present (no lost updates),
+// every snapshot must have been internally consistent, and a journal-backed
+// store must reload to the same state. main() prints the throughput and
+// fails with the first check that does not hold.
+public class EmployeeStoreStressTest extends TestCase {
+    private static final int SHARED = 1_000;
+    private static final String[] DEPARTMENTS = {"HR", "Finance", "IT", "Sales"};
+
+    public void testInMemoryStore() throws Exception {
+        run(new EmployeeStore(), 4, 20_000);
+    }
+
+    public void testJournaledStoreReloads() throws Exception {
+        journaled(4, 2_000);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int ops = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+
+        report("in-memory", threads, ops, run(new EmployeeStore(), threads, ops));
+        report("journaled", threads, ops / 10, journaled(threads, ops / 10));
+        System.out.println("PASSED");
+    }
+
+    private static void report(String label, int threads, int ops, long nanos) {
+        System.out.printf("[%s] %d threads, %,d ops in %.0f ms (%,.0f ops/s)%n", label, threads,
+                (long) threads * ops, nanos / 1e6, threads * (double) ops / (nanos / 1e9));
+    }
+
+    // Returns the nanoseconds the writers took.
+    private static long journaled(int threads, int ops) throws Exception {
+        Path dir = Files.createTempDirectory("store-stress");
+        Path file = dir.resolve("employees.bin");
+        try {
+            EmployeeStore journaled = new EmployeeStore(file, new BinarySnapshot(), null, true, 1000, 5000);
+            long nanos = run(journaled, threads, ops);
+            List<Employee> before = journaled.snapshot();
+            journaled.close();
+            EmployeeStore reloaded = new EmployeeStore(file, new BinarySnapshot(), null, true, 1000, 5000);
+            assertEquals("reloaded store", csv(before), csv(reloaded.snapshot()));
+            reloaded.close();
+            return nanos;
+        } finally {
+            try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir)) {
+                for (Path p : ds) Files.delete(p);
+            }
+            Files.delete(dir);
+        }
+    }
+
+    // Returns the nanoseconds the writers took.
+    private static long run(EmployeeStore store, int threads, int ops) throws Exception {
+        for (int id = 1; id <= SHARED; id++) {
+            store.add(new Employee(id, "Shared " + id, 0, DEPARTMENTS[id % DEPARTMENTS.length]));
+        }
+
+        AtomicLong increments = new AtomicLong();
+        AtomicInteger missingReads = new AtomicInteger();
+        AtomicInteger tornSnapshots = new AtomicInteger();
+        AtomicInteger shrunkSalaries = new AtomicInteger();
+        ConcurrentHashMap<Integer, Boolean> ownAlive = new ConcurrentHashMap<>();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> done = new ArrayList<>();
+        long t0 = System.nanoTime();
+
+        for (int t = 0; t < threads; t++) {
+            final int thread = t;
+            done.add(pool.submit(() -> {
+                start.await();
+                ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                int ownBase = 1_000_000 * (thread + 1);
+                int next = 0;
+                double[] lastSeen = new double[SHARED + 1];
+                for (int i = 0; i < ops; i++) {
+                    int op = rnd.nextInt(1000);
+                    if (op < 600) {
+                        int id = 1 + rnd.nextInt(SHARED);
+                        store.update(id, e -> e.setSalary(e.getSalary() + 1));
+                        increments.incrementAndGet();
+                    } else if (op < 700) {
+                        int id = 1 + rnd.nextInt(SHARED);
+                        String dept = DEPARTMENTS[rnd.nextInt(DEPARTMENTS.length)];
+                        store.update(id, e -> e.setDepartment(dept));
+                    } else if (op < 800) {
+                        int id = ownBase + next++;
+                        if (store.add(new Employee(id, "Own " + id, 1, "Temp"))) ownAlive.put(id, true);
+                    } else if (op < 880 && next > 0) {
+                        int id = ownBase + rnd.nextInt(next);
+                        if (store.delete(id)) ownAlive.remove(id);
+                    } else if (op < 999) {
+                        Employee e = store.get(1 + rnd.nextInt(SHARED));
+                        if (e == null) missingReads.incrementAndGet();
+                    } else {
+                        // All shared rows are always present, and each one's
+                        // salary can only have grown since this thread's last
+                        // snapshot: salaries are only ever incremented.
+                        List<Employee> snap = store.snapshot();
+                        int shared = 0;
+                        long seenIds = 0;
+                        for (Employee e : snap) {
+                            if (e.getId() > SHARED) continue;
+                            shared++;
+                            seenIds += e.getId();
+                            if (e.getSalary() < lastSeen[e.getId()]) shrunkSalaries.incrementAndGet();
+                            lastSeen[e.getId()] = e.getSalary();
+                        }
+                        if (shared != SHARED || seenIds != (long) SHARED * (SHARED + 1) / 2) tornSnapshots.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> f : done) f.get();
+        pool.shutdown();
+        long elapsed = System.nanoTime() - t0;
+
+        long total = 0;
+        int own = 0;
+        Map<String, Integer> counted = new HashMap<>();
+        for (Employee e : store.snapshot()) {
+            if (e.getId() <= SHARED) total += (long) e.getSalary();
+            else own++;
+            counted.merge(e.getDepartment(), 1, Integer::sum);
+        }
+
+        assertEquals("salary increments (lost updates)", increments.get(), total);
+        assertEquals("own rows still present", ownAlive.size(), own);
+        assertEquals("department head counts", counted, new HashMap<>(store.headCounts()));
+        assertEquals("gets that missed a shared row", 0, missingReads.get());
+        assertEquals("snapshots missing shared rows", 0, tornSnapshots.get());
+        assertEquals("salaries lower than an earlier snapshot showed", 0, shrunkSalaries.get());
+        return elapsed;
+    }
+
+    private static String csv(List<Employee> rows) {
+        StringBuilder sb = new StringBuilder();
+        for (Employee e : rows) sb.append(e.toCSV()).append('\n');
+        return sb.toString();
+    }
+}
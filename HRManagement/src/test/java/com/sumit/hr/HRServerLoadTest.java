@@ -0,0 +1,223 @@
+package com.sumit.hr;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.*;
+import java.nio.file.*;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import junit.framework.TestCase;
+
+// =============================
+// HRServerLoadTest: HTTP API round trips and a concurrent load generator
+// =============================
+// Usage: java com.sumit.hr.HRServerLoadTest [requests] [concurrency] [baseUrl]
+// Without a baseUrl an in-memory server is started on a free port. The mix is
+// 80% GET by ID, 10% salary PUTs and 10% POST + DELETE of a fresh employee;
+// every response status is checked and throughput, p50 and p99 are printed.
+public class HRServerLoadTest extends TestCase {
+    private static final int SEEDED = 1_000;
+    private static final String[] DEPARTMENTS = {"HR", "Finance", "IT", "Sales"};
+
+    private EmployeeStore store;
+    private HRServer server;
+    private HttpClient client;
+    private String base;
+
+    @Override
+    protected void setUp() throws Exception {
+        store = new EmployeeStore();
+        server = new HRServer(store, 0);
+        server.start();
+        client = client();
+        base = "http://localhost:" + server.getPort();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        server.close();
+    }
+
+    public void testCrudRoundTrip() throws Exception {
+        HttpResponse<String> r = send(client, "POST", base + "/employees",
+                "{\"type\":\"Sales\",\"id\":7,\"name\":\"Asha\",\"department\":\"Sales\",\"salary\":50000,"
+                        + "\"sales\":120000,\"commissionRate\":0.05,\"target\":100000}");
+        assertEquals(201, r.statusCode());
+        assertTrue(r.body().contains("\"bonus\":12000.0"));
+
+        assertEquals(409, send(client, "POST", base + "/employees",
+                "{\"id\":7,\"name\":\"Other\",\"department\":\"HR\",\"salary\":1}").statusCode());
+        assertEquals(400, send(client, "POST", base + "/employees",
+                "{\"id\":8,\"name\":\"A,B\",\"department\":\"HR\",\"salary\":1}").statusCode());
+        assertEquals(400, send(client, "POST", base + "/employees", "{not json").statusCode());
+
+        r = send(client, "PUT", base + "/employees/7", "{\"salary\":60000,\"department\":\"Finance\"}");
+        assertEquals(200, r.statusCode());
+        assertEquals(60000.0, store.get(7).getSalary());
+        assertEquals(400, send(client, "PUT", base + "/employees/7", "{\"teamSize\":3}").statusCode());
+        assertEquals(60000.0, store.get(7).getSalary());
+
+        r = send(client, "GET", base + "/employees?department=finance", null);
+        assertEquals(200, r.statusCode());
+        assertTrue(r.body().startsWith("[{\"type\":\"Sales\",\"id\":7"));
+        assertEquals("{\"Finance\":1}", send(client, "GET", base + "/departments", null).body());
+        assertTrue(send(client, "GET", base + "/payroll", null).body().contains("\"count\":1"));
+
+        assertEquals(204, send(client, "DELETE", base + "/employees/7", null).statusCode());
+        assertEquals(404, send(client, "GET", base + "/employees/7", null).statusCode());
+        assertEquals(405, send(client, "PATCH", base + "/employees/7", "{}").statusCode());
+    }
+
+    // A list fails part way through, after its 200 has gone out: the client
+    // must see a broken response, never a second status line in the body.
+    public void testFailedListIsAborted() throws Exception {
+        store.add(new Employee(1, "A", 40000, "HR"));
+        store.add(new Employee(2, "B", Double.NaN, "HR"));
+        try {
+            HttpResponse<String> r = send(client, "GET", base + "/employees", null);
+            fail("got a complete response: " + r.statusCode() + " " + r.body());
+        } catch (IOException expected) {
+        }
+        assertEquals(200, send(client, "GET", base + "/employees/1", null).statusCode());
+    }
+
+    // A partition that cannot be read fails only the request that needs it,
+    // with a JSON 500, and the server keeps serving.
+    public void testUnreadablePartitionIs500() throws Exception {
+        Path parts = Files.createTempDirectory("server-test");
+        EmployeeStore written = new EmployeeStore(new PartitionedStorage(parts, new CsvSnapshot(), 0), null);
+        written.add(new Employee(1, "A", 40000, "HR"));
+        written.add(new Employee(2, "B", 40000, "IT"));
+
+        EmployeeStore lazy = new EmployeeStore(new PartitionedStorage(parts, new CsvSnapshot(), 0), null);
+        Path hr = parts.resolve("dept-hr.csv");
+        Files.delete(hr);
+        Files.createDirectory(hr);
+        HRServer partitioned = new HRServer(lazy, 0);
+        partitioned.start();
+        try {
+            String url = "http://localhost:" + partitioned.getPort() + "/employees/";
+            HttpResponse<String> r = send(client, "GET", url + 1, null);
+            assertEquals(500, r.statusCode());
+            assertTrue(r.body(), r.body().startsWith("{\"error\":\"Error reading"));
+            assertEquals(200, send(client, "GET", url + 2, null).statusCode());
+        } finally {
+            partitioned.close();
+            Files.delete(hr);
+            try (DirectoryStream<Path> ds = Files.newDirectoryStream(parts)) {
+                for (Path p : ds) Files.delete(p);
+            }
+            Files.delete(parts);
+        }
+    }
+
+    public void testConcurrentLoad() throws Exception {
+        Report report = load(client, base, 5_000, 64);
+        System.out.println(report);
+        assertEquals(0, report.failures);
+        assertEquals(SEEDED, store.size());
+    }
+
+    // =============================
+    // Load generator
+    // =============================
+    static class Report {
+        int requests;
+        int failures;
+        double seconds;
+        long[] latencies;   // nanoseconds, sorted
+
+        double percentile(double p) {
+            int i = (int) Math.ceil(p / 100 * latencies.length) - 1;
+            return latencies[Math.max(0, i)] / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%,d requests in %.2f s: %,.0f req/s, p50 %.2f ms, p99 %.2f ms, %d failures",
+                    requests, seconds, requests / seconds, percentile(50), percentile(99), failures);
+        }
+    }
+
+    static Report load(HttpClient client, String base, int requests, int concurrency) throws Exception {
+        for (int id = 1; id <= SEEDED; id++) {
+            send(client, "POST", base + "/employees", employee(id));
+        }
+        long[] latencies = new long[requests];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger();
+        long t0 = System.nanoTime();
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int w = 0; w < concurrency; w++) {
+                final int worker = w;
+                workers.submit(() -> {
+                    ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                    int fresh = 10_000_000 + worker * 1_000_000;
+                    for (int i; (i = next.getAndIncrement()) < requests; ) {
+                        int op = rnd.nextInt(10);
+                        long start = System.nanoTime();
+                        boolean ok;
+                        if (op < 8) {
+                            ok = send(client, "GET", base + "/employees/" + (1 + rnd.nextInt(SEEDED)), null).statusCode() == 200;
+                        } else if (op < 9) {
+                            ok = send(client, "PUT", base + "/employees/" + (1 + rnd.nextInt(SEEDED)),
+                                    "{\"salary\":" + (30_000 + rnd.nextInt(90_000)) + "}").statusCode() == 200;
+                        } else {
+                            int id = fresh++;
+                            ok = send(client, "POST", base + "/employees", employee(id)).statusCode() == 201
+                                    & send(client, "DELETE", base + "/employees/" + id, null).statusCode() == 204;
+                        }
+                        latencies[i] = System.nanoTime() - start;
+                        if (!ok) failures.incrementAndGet();
+                    }
+                    return null;
+                });
+            }
+        }
+        Report r = new Report();
+        r.seconds = (System.nanoTime() - t0) / 1e9;
+        r.requests = requests;
+        r.failures = failures.get();
+        Arrays.sort(latencies);
+        r.latencies = latencies;
+        return r;
+    }
+
+    private static String employee(int id) {
+        return "{\"id\":" + id + ",\"name\":\"Load " + id + "\",\"department\":\""
+                + DEPARTMENTS[id % DEPARTMENTS.length] + "\",\"salary\":40000}";
+    }
+
+    static HttpClient client() {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    static HttpResponse<String> send(HttpClient client, String method, String url, String body) throws Exception {
+        HttpRequest.Builder b = HttpRequest.newBuilder(URI.create(url))
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body));
+        if (body != null) b.header("Content-Type", "application/json");
+        return client.send(b.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    public static void main(String[] args) throws Exception {
+        int requests = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 256;
+        HRServer local = null;
+        String base;
+        if (args.length > 2) {
+            base = args[2];
+        } else {
+            local = new HRServer(new EmployeeStore(), 0);
+            local.start();
+            base = "http://localhost:" + local.getPort();
+        }
+        System.out.println(load(client(), base, requests, concurrency));
+        if (local != null) local.close();
+    }
+}
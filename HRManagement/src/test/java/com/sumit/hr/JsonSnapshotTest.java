@@ -0,0 +1,122 @@
+package com.sumit.hr;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+import com.google.gson.*;
+
+import junit.framework.TestCase;
+
+// =============================
+// JsonSnapshotTest: streamed JSON snapshots and the hand-written adapter
+// =============================
+public class JsonSnapshotTest extends TestCase {
+    private Path dir;
+
+    private final List<Employee> workforce = Arrays.asList(
+            new Employee(1, "Zoë Müller", 40000.5, "IT"),
+            new SalesEmployee(2, "Amit \"AJ\" Shah, Jr", 30000, "Sales", 120000, 0.05, 100000),
+            new Manager(3, "李小龙", 90000, "IT", 4),
+            new Employee(4, "Tab\tBack\\slash", 1e7, "Ops"));
+
+    @Override
+    protected void setUp() throws Exception {
+        dir = Files.createTempDirectory("json-test");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir)) {
+            for (Path p : ds) Files.delete(p);
+        }
+        Files.delete(dir);
+    }
+
+    public void testRoundTripKeepsEveryType() throws IOException {
+        Path file = dir.resolve("employees.json");
+        JsonSnapshot json = new JsonSnapshot();
+        json.write(file, workforce);
+
+        List<Employee> back = json.read(file);
+        assertEquals(workforce.size(), back.size());
+        for (int i = 0; i < workforce.size(); i++) {
+            assertEquals(workforce.get(i).getClass(), back.get(i).getClass());
+            assertEquals(workforce.get(i).toCSV(), back.get(i).toCSV());
+        }
+
+        // Plain JSON with the API's field names and a type on every row.
+        JsonArray rows = JsonParser.parseString(Files.readString(file)).getAsJsonArray();
+        JsonObject sales = rows.get(1).getAsJsonObject();
+        assertEquals("Sales", sales.get("type").getAsString());
+        assertEquals(0.05, sales.get("commissionRate").getAsDouble());
+        assertEquals(4, rows.get(2).getAsJsonObject().get("teamSize").getAsInt());
+        assertFalse(rows.get(0).getAsJsonObject().has("teamSize"));
+    }
+
+    public void testFieldsInAnyOrderAndUnknownFieldsSkipped() throws IOException {
+        Path file = dir.resolve("api.json");
+        Files.writeString(file, "[{\"salary\":1.5,\"teamSize\":3,\"bonus\":{\"x\":[1,2]},\"name\":\"A\","
+                + "\"department\":\"D\",\"type\":\"Manager\",\"id\":5},"
+                + "{\"id\":6,\"name\":\"B\",\"department\":\"D\",\"salary\":2,\"finalSalary\":2}]", StandardCharsets.UTF_8);
+        List<Employee> rows = new JsonSnapshot().read(file);
+        assertEquals(2, rows.size());
+        Manager m = (Manager) rows.get(0);
+        assertEquals(5, m.getId());
+        assertEquals(3, m.getTeamSize());
+        assertEquals(1.5, m.getSalary());
+        assertEquals(Employee.class, rows.get(1).getClass());
+        assertEquals("Regular,6,B,2.0,D,0,0,0", rows.get(1).toCSV());
+    }
+
+    public void testBadFilesAreRejected() throws IOException {
+        String[] bad = {
+                "[{\"type\":\"Intern\",\"id\":1,\"name\":\"A\",\"department\":\"D\",\"salary\":1}]",
+                "[{\"type\":\"Manager\",\"id\":1,\"name\":\"A\",\"department\":\"D\",\"salary\":1}]",
+                "[{\"id\":1,\"name\":\"A\",\"salary\":1}]",
+                "[{\"id\":1.5,\"name\":\"A\",\"department\":\"D\",\"salary\":1}]",
+                "[{\"id\":1,\"name\":\"A\",\"department\":\"D\",\"salary\":1}] []",
+                "[{\"id\":1,\"name\":\"A\",\"department\":\"D\",\"salary\":1}",
+                "{}",
+                "[null]",
+                "[{\"id\":1,\"name\":\"A\",\"department\":\"D\",\"salary\":1},null]",
+        };
+        Path file = dir.resolve("bad.json");
+        for (String text : bad) {
+            Files.writeString(file, text, StandardCharsets.UTF_8);
+            try {
+                new JsonSnapshot().read(file);
+                fail("accepted " + text);
+            } catch (IOException expected) {
+            }
+        }
+    }
+
+    public void testGsonUsesTheAdapterForTheWholeHierarchy() {
+        Employee sales = workforce.get(1);
+        String text = JsonSnapshot.GSON.toJson(sales);
+        assertEquals(JsonSnapshot.ADAPTER.toJson(sales), text);
+        assertTrue(text.startsWith("{\"type\":\"Sales\",\"id\":2,"));
+
+        Employee back = JsonSnapshot.GSON.fromJson(text, Employee.class);
+        assertEquals(SalesEmployee.class, back.getClass());
+        assertEquals(sales.toCSV(), back.toCSV());
+
+        // Reflection cannot tell the classes apart when reading.
+        Employee[] reflective = new Gson().fromJson(new Gson().toJson(workforce), Employee[].class);
+        assertEquals(Employee.class, reflective[1].getClass());
+    }
+
+    public void testStoreKeepsItsSnapshotAsJson() throws IOException {
+        Path file = dir.resolve("employees.json");
+        EmployeeStore store = new EmployeeStore(file, new JsonSnapshot(), null, false, 1, 1000);
+        for (Employee e : workforce) assertTrue(store.add(e.copy()));
+        store.close();
+
+        EmployeeStore reopened = new EmployeeStore(file, new JsonSnapshot(), null, false, 1, 1000);
+        assertEquals(workforce.size(), reopened.size());
+        assertEquals(4, ((Manager) reopened.get(3)).getTeamSize());
+        reopened.close();
+    }
+}
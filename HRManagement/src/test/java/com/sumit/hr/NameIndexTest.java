@@ -0,0 +1,96 @@
+package com.sumit.hr;
+
+import java.util.*;
+
+import junit.framework.TestCase;
+
+// =============================
+// NameIndexTest: prefix, token and fuzzy name search, paging and renames
+// =============================
+public class NameIndexTest extends TestCase {
+    private EmployeeStore store;
+
+    @Override
+    protected void setUp() throws Exception {
+        store = new EmployeeStore();
+        store.add(new Employee(1, "Rajesh Gupta", 40000, "IT"));
+        store.add(new Employee(2, "Raj Malhotra", 45000, "HR"));
+        store.add(new Manager(3, "Priya Rajan", 90000, "Sales", 5));
+        store.add(new Employee(4, "Anita Gupta", 38000, "Finance"));
+        store.add(new Employee(5, "José Álvarez-Ruiz", 52000, "IT"));
+        store.add(new Employee(6, "Gupta Raj", 41000, "IT"));
+    }
+
+    public void testPrefixMatchesStartOfAnyWord() {
+        // Exact word first, then longer words in alphabetical order.
+        assertEquals(Arrays.asList(2, 6, 3, 1), ids(store.searchNames("raj", NameIndex.Mode.PREFIX, 0, 10)));
+        // Every word has to match, in any order.
+        assertEquals(Arrays.asList(1, 6), ids(store.searchNames("gu RA", NameIndex.Mode.PREFIX, 0, 10)));
+        assertEquals(Arrays.asList(5), ids(store.searchNames("alva", NameIndex.Mode.PREFIX, 0, 10)));
+        assertEquals(Arrays.asList(5), ids(store.searchNames("ruiz jose", NameIndex.Mode.PREFIX, 0, 10)));
+        assertTrue(store.searchNames("  --  ", NameIndex.Mode.PREFIX, 0, 10).isEmpty());
+        assertTrue(store.searchNames("xyz", NameIndex.Mode.PREFIX, 0, 10).isEmpty());
+    }
+
+    public void testTokenMatchesWholeWords() {
+        assertEquals(Arrays.asList(2, 6), ids(store.searchNames("Raj", NameIndex.Mode.TOKEN, 0, 10)));
+        assertEquals(Arrays.asList(1, 4, 6), ids(store.searchNames("gupta", NameIndex.Mode.TOKEN, 0, 10)));
+        assertTrue(store.searchNames("gupt", NameIndex.Mode.TOKEN, 0, 10).isEmpty());
+    }
+
+    public void testFuzzyToleratesTypos() {
+        // A swap of neighbours is one edit.
+        assertEquals(Arrays.asList(1, 4, 6), ids(store.searchNames("gutpa", NameIndex.Mode.FUZZY, 0, 10)));
+        assertEquals(Arrays.asList(2), ids(store.searchNames("malhtora", NameIndex.Mode.FUZZY, 0, 10)));
+        assertEquals(Arrays.asList(1), ids(store.searchNames("rajseh gupta", NameIndex.Mode.FUZZY, 0, 10)));
+        // Two-letter words must match exactly.
+        assertTrue(store.searchNames("rx", NameIndex.Mode.FUZZY, 0, 10).isEmpty());
+        assertEquals(Arrays.asList(3), ids(store.searchNames("priay", NameIndex.Mode.FUZZY, 0, 10)));
+        assertEquals(1, NameIndex.editDistance("rajesh", "rajeh", 2));
+        assertEquals(1, NameIndex.editDistance("gupta", "gutpa", 2));
+        assertEquals(3, NameIndex.editDistance("rajesh", "priya", 2));
+    }
+
+    public void testPagesDoNotOverlap() throws Exception {
+        EmployeeStore big = new EmployeeStore();
+        for (int id = 1; id <= 500; id++) big.add(new Employee(id, "Kumar " + (id % 2 == 0 ? "Sharma" : "Singh"), 30000, "Ops"));
+        List<Integer> all = new ArrayList<>();
+        for (int offset = 0; ; offset += 30) {
+            List<Employee> page = big.searchNames("kumar s", NameIndex.Mode.PREFIX, offset, 30);
+            for (Employee e : page) all.add(e.getId());
+            if (page.size() < 30) break;
+        }
+        assertEquals(500, all.size());
+        assertEquals(500, new HashSet<>(all).size());
+        assertEquals(250, big.searchNames("kumar sharma", NameIndex.Mode.TOKEN, 0, 1000).size());
+    }
+
+    // Renames reach the index whether made through update() or a batch, and
+    // deleted employees drop out.
+    public void testIndexFollowsChanges() throws Exception {
+        store.update(2, e -> e.setName("Rahul Mehta"));
+        assertEquals(Arrays.asList(6, 3, 1), ids(store.searchNames("raj", NameIndex.Mode.PREFIX, 0, 10)));
+        assertEquals(Arrays.asList(2), ids(store.searchNames("mehta", NameIndex.Mode.TOKEN, 0, 10)));
+
+        EmployeeBatch batch = new EmployeeBatch();
+        batch.update(new Employee(4, "Anita Desai", 38000, "Finance"));
+        batch.delete(6);
+        store.apply(batch);
+        assertEquals(Arrays.asList(1), ids(store.searchNames("gupta", NameIndex.Mode.TOKEN, 0, 10)));
+        assertEquals(Arrays.asList(4), ids(store.searchNames("des", NameIndex.Mode.PREFIX, 0, 10)));
+
+        NameIndex index = new NameIndex();
+        Employee e = new Employee(9, "Zed Zed Zoe", 1, "X");
+        index.add(e);
+        assertEquals(2, index.tokenCount());
+        index.remove(e);
+        assertEquals(0, index.tokenCount());
+        assertEquals(0, index.search("z", NameIndex.Mode.PREFIX, 0, 10).length);
+    }
+
+    private static List<Integer> ids(List<Employee> employees) {
+        List<Integer> ids = new ArrayList<>();
+        for (Employee e : employees) ids.add(e.getId());
+        return ids;
+    }
+}
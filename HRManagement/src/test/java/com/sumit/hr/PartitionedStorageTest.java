@@ -0,0 +1,186 @@
+package com.sumit.hr;
+
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+
+import junit.framework.TestCase;
+
+// =============================
+// PartitionedStorageTest: lazy partition loads, dirty-only saves and recovery
+// =============================
+public class PartitionedStorageTest extends TestCase {
+    private static final String[] DEPARTMENTS = {"HR", "Finance", "IT", "Sales"};
+
+    private Path dir;
+    private Path parts;
+
+    @Override
+    protected void setUp() throws Exception {
+        dir = Files.createTempDirectory("partition-test");
+        parts = dir.resolve("parts");
+        List<Employee> rows = new ArrayList<>();
+        Random rnd = new Random(3);
+        for (int id = 1; id <= 400; id++) rows.add(employee(id, DEPARTMENTS[id % DEPARTMENTS.length], rnd));
+        new CsvSnapshot().write(dir.resolve("employees.csv"), rows);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        delete(dir);
+    }
+
+    public void testOpensWithoutReadingAndLoadsOnDemand() throws Exception {
+        EmployeeStore imported = open(0);
+        assertTrue(imported.wasImported());
+        assertEquals(400, imported.size());
+        assertTrue(Files.exists(parts.resolve("dept-it.csv")));
+        List<Employee> expected = imported.snapshot();
+
+        PartitionedStorage storage = new PartitionedStorage(parts, new CsvSnapshot(), 0);
+        EmployeeStore store = new EmployeeStore(storage, dir.resolve("employees.csv"));
+        assertFalse(store.wasImported());
+        assertEquals(0, storage.getReads());
+        assertEquals(400, store.size());
+        assertEquals(0, storage.getReads());
+
+        // ID 6 works in IT (6 % 4 == 2).
+        assertEquals("IT", store.get(6).getDepartment());
+        assertEquals(1, storage.getReads());
+        assertEquals(100, store.byDepartment("it").size());
+        assertEquals(1, storage.getReads());
+        assertEquals(100, store.byDepartment("FINANCE").size());
+        assertEquals(2, storage.getReads());
+        assertNull(store.get(9999));
+        assertEquals(2, storage.getReads());
+
+        // Listed in the order the partitions were read in.
+        assertEquals(sorted(expected), sorted(store.snapshot()));
+        assertEquals(4, storage.getReads());
+        assertEquals(0, storage.getWrites());
+    }
+
+    public void testSavesOnlyDirtyPartitions() throws Exception {
+        open(0);
+        PartitionedStorage storage = new PartitionedStorage(parts, new CsvSnapshot(), 0);
+        EmployeeStore store = new EmployeeStore(storage, null);
+        FileTime sales = Files.getLastModifiedTime(parts.resolve("dept-sales.csv"));
+
+        store.update(4, e -> e.setName("Renamed"));     // HR
+        assertEquals(1, storage.getReads());
+        assertEquals(1, storage.getWrites());
+        // A new hire in a partition nobody has read yet: it is read before
+        // being rewritten, so nobody already there is lost.
+        store.add(new Employee(1001, "New", 50000, "finance"));
+        assertEquals(2, storage.getReads());
+        assertEquals(2, storage.getWrites());
+        store.delete(8);                                // HR again
+        assertEquals(3, storage.getWrites());
+        assertEquals(sales, Files.getLastModifiedTime(parts.resolve("dept-sales.csv")));
+
+        EmployeeStore reopened = open(0);
+        assertEquals("Renamed", reopened.get(4).getName());
+        assertNull(reopened.get(8));
+        assertEquals(101, reopened.byDepartment("Finance").size());
+        assertEquals(400, reopened.size());
+    }
+
+    public void testDepartmentMoveChangesPartition() throws Exception {
+        open(0);
+        PartitionedStorage storage = new PartitionedStorage(parts, new CsvSnapshot(), 0);
+        EmployeeStore store = new EmployeeStore(storage, null);
+        store.update(4, e -> e.setDepartment("Finance"));
+        assertSame(storage.ofDepartment("finance"), storage.ofId(4));
+        assertEquals(2, storage.getWrites());
+
+        EmployeeStore reopened = open(0);
+        assertEquals(99, reopened.byDepartment("HR").size());
+        assertEquals(101, reopened.byDepartment("Finance").size());
+        assertEquals("Finance", reopened.get(4).getDepartment());
+
+        // Everyone leaving a department removes its file.
+        for (Employee e : reopened.byDepartment("Sales")) reopened.delete(e.getId());
+        assertFalse(Files.exists(parts.resolve("dept-sales.csv")));
+        assertNull(open(0).get(3));
+    }
+
+    // A partition rewritten after the manifest (a crash between the two) is
+    // read for its IDs instead of trusting the manifest.
+    public void testPartitionNewerThanManifest() throws Exception {
+        open(0);
+        Path it = parts.resolve("dept-it.csv");
+        List<Employee> rows = new CsvSnapshot().read(it);
+        rows.add(new Employee(2000, "Late", 42000, "IT"));
+        Thread.sleep(20);
+        new CsvSnapshot().write(it, rows);
+
+        EmployeeStore store = open(0);
+        assertEquals(401, store.size());
+        assertEquals("Late", store.get(2000).getName());
+    }
+
+    // Switching to buckets moves every row out of the department files.
+    public void testRepartitionByIdBucket() throws Exception {
+        List<Employee> expected = open(0).snapshot();
+        PartitionedStorage storage = new PartitionedStorage(parts, new CsvSnapshot(), 8);
+        EmployeeStore store = new EmployeeStore(storage, null);
+        assertEquals(8, storage.partitionCount());
+        assertFalse(Files.exists(parts.resolve("dept-hr.csv")));
+        assertEquals(400, store.size());
+
+        PartitionedStorage again = new PartitionedStorage(parts, new CsvSnapshot(), 8);
+        EmployeeStore reopened = new EmployeeStore(again, null);
+        assertEquals(0, again.getReads());
+        assertEquals(expected.get(0).toCSV(), reopened.get(expected.get(0).getId()).toCSV());
+        assertEquals(1, again.getReads());
+        assertEquals(sorted(expected), sorted(reopened.snapshot()));
+    }
+
+    // A partition that has to be read while opening but cannot be fails the
+    // constructor with an IOException, not an unchecked one.
+    public void testUnreadablePartitionFailsToOpen() throws Exception {
+        open(0);
+        Path hr = parts.resolve("dept-hr.csv");
+        Files.delete(hr);
+        Files.createDirectory(hr);
+        try {
+            open(0);
+            fail("opened with an unreadable partition");
+        } catch (java.io.IOException expected) {
+        }
+    }
+
+    private EmployeeStore open(int buckets) throws Exception {
+        return new EmployeeStore(new PartitionedStorage(parts, new CsvSnapshot(), buckets), dir.resolve("employees.csv"));
+    }
+
+    private static List<String> csv(List<Employee> employees) {
+        List<String> rows = new ArrayList<>();
+        for (Employee e : employees) rows.add(e.toCSV());
+        return rows;
+    }
+
+    private static List<String> sorted(List<Employee> employees) {
+        List<String> rows = csv(employees);
+        Collections.sort(rows);
+        return rows;
+    }
+
+    private static Employee employee(int id, String dept, Random rnd) {
+        double salary = 1000 * (20 + rnd.nextInt(60));
+        switch (rnd.nextInt(3)) {
+            case 0: return new SalesEmployee(id, "S" + id, salary, dept, rnd.nextInt(200_000), 0.05, 100_000);
+            case 1: return new Manager(id, "M" + id, salary, dept, rnd.nextInt(30));
+            default: return new Employee(id, "E" + id, salary, dept);
+        }
+    }
+
+    private static void delete(Path p) throws Exception {
+        if (Files.isDirectory(p)) {
+            try (DirectoryStream<Path> ds = Files.newDirectoryStream(p)) {
+                for (Path c : ds) delete(c);
+            }
+        }
+        Files.delete(p);
+    }
+}
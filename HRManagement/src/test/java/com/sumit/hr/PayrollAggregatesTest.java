@@ -0,0 +1,102 @@
+package com.sumit.hr;
+
+import java.util.*;
+
+import junit.framework.TestCase;
+
+// =============================
+// PayrollAggregatesTest: running statistics against a full recount
+// =============================
+public class PayrollAggregatesTest extends TestCase {
+    private static final String[] DEPARTMENTS = {"HR", "Finance", "IT", "Sales"};
+
+    public void testMatchesRecount() throws Exception {
+        Random rnd = new Random(5);
+        EmployeeStore store = new EmployeeStore();
+        int nextId = 1;
+        for (int round = 0; round < 30; round++) {
+            for (int i = 0; i < 300; i++) {
+                int op = rnd.nextInt(10);
+                int id = 1 + rnd.nextInt(nextId);
+                if (op < 3 || nextId == 1) {
+                    store.add(employee(nextId++, rnd));
+                } else if (op < 5) {
+                    store.delete(id);
+                } else if (op < 7) {
+                    double salary = 20_000 + rnd.nextInt(80_000) + rnd.nextInt(100) / 100.0;
+                    store.update(id, e -> e.setSalary(salary));
+                } else if (op < 8) {
+                    String dept = DEPARTMENTS[rnd.nextInt(DEPARTMENTS.length)];
+                    store.update(id, e -> e.setDepartment(dept));
+                } else {
+                    double sales = rnd.nextInt(300_000) + 0.37;
+                    store.update(id, e -> {
+                        if (e instanceof SalesEmployee) ((SalesEmployee) e).setSales(sales);
+                    });
+                }
+            }
+            check(store);
+        }
+        // Emptying a department removes it; emptying the store leaves NaN.
+        for (Employee e : store.snapshot()) store.delete(e.getId());
+        PayrollAggregates.Stats total = store.aggregates().company();
+        assertEquals(0, total.getCount());
+        assertEquals(0.0, total.getSalary().getSum());
+        assertTrue(Double.isNaN(total.getSalary().getMax()));
+        assertTrue(store.aggregates().byDepartment().isEmpty());
+        assertNull(store.aggregates().department("HR"));
+    }
+
+    private void check(EmployeeStore store) {
+        Map<String, List<Employee>> byDept = new TreeMap<>();
+        Map<String, List<Employee>> byType = new TreeMap<>();
+        List<Employee> all = store.snapshot();
+        for (Employee e : all) {
+            byDept.computeIfAbsent(e.getDepartment(), k -> new ArrayList<>()).add(e);
+            byType.computeIfAbsent(e.getType(), k -> new ArrayList<>()).add(e);
+        }
+        PayrollAggregates stats = store.aggregates();
+        assertStats(all, stats.company());
+        assertEquals(byDept.keySet(), stats.byDepartment().keySet());
+        for (Map.Entry<String, List<Employee>> d : byDept.entrySet()) {
+            assertStats(d.getValue(), stats.byDepartment().get(d.getKey()));
+            assertStats(d.getValue(), stats.department(d.getKey().toLowerCase()));
+        }
+        assertEquals(byType.keySet(), stats.byType().keySet());
+        for (Map.Entry<String, List<Employee>> t : byType.entrySet()) {
+            assertStats(t.getValue(), stats.byType().get(t.getKey()));
+        }
+    }
+
+    private static void assertStats(List<Employee> rows, PayrollAggregates.Stats s) {
+        assertEquals(rows.size(), s.getCount());
+        double salary = 0, bonus = 0;
+        double minS = Double.MAX_VALUE, maxS = -Double.MAX_VALUE, minB = Double.MAX_VALUE, maxB = -Double.MAX_VALUE;
+        for (Employee e : rows) {
+            double b = e.calculateBonus();
+            salary += e.getSalary();
+            bonus += b;
+            minS = Math.min(minS, e.getSalary());
+            maxS = Math.max(maxS, e.getSalary());
+            minB = Math.min(minB, b);
+            maxB = Math.max(maxB, b);
+        }
+        assertEquals(salary, s.getSalary().getSum(), 1e-6);
+        assertEquals(bonus, s.getBonus().getSum(), 1e-6);
+        assertEquals(salary / rows.size(), s.getSalary().getMean(), 1e-6);
+        assertEquals(minS, s.getSalary().getMin());
+        assertEquals(maxS, s.getSalary().getMax());
+        assertEquals(minB, s.getBonus().getMin());
+        assertEquals(maxB, s.getBonus().getMax());
+    }
+
+    private static Employee employee(int id, Random rnd) {
+        String dept = DEPARTMENTS[rnd.nextInt(DEPARTMENTS.length)];
+        double salary = 20_000 + rnd.nextInt(80_000) + rnd.nextInt(100) / 100.0;
+        switch (rnd.nextInt(3)) {
+            case 0: return new SalesEmployee(id, "S" + id, salary, dept, rnd.nextInt(300_000), 0.05, 150_000);
+            case 1: return new Manager(id, "M" + id, salary, dept, rnd.nextInt(30));
+            default: return new Employee(id, "E" + id, salary, dept);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.sumit.hr;
+
+import java.util.*;
+
+import junit.framework.TestCase;
+
+// =============================
+// SalaryIndexTest: salary queries against a brute-force sort
+// =============================
+// Random adds, deletes and setter calls through EmployeeStore.update(); after
+// each round every query is recomputed from a snapshot and compared.
+public class SalaryIndexTest extends TestCase {
+    private static final String[] DEPARTMENTS = {"HR", "Finance", "IT", "Sales"};
+
+    public void testQueriesMatchBruteForce() throws Exception {
+        Random rnd = new Random(11);
+        EmployeeStore store = new EmployeeStore();
+        int nextId = 1;
+        for (int round = 0; round < 40; round++) {
+            for (int i = 0; i < 200; i++) {
+                int op = rnd.nextInt(10);
+                int id = 1 + rnd.nextInt(nextId);
+                if (op < 3 || nextId == 1) {
+                    store.add(employee(nextId++, rnd));
+                } else if (op < 4) {
+                    store.delete(id);
+                } else if (op < 6) {
+                    // Repeated salaries exercise ties.
+                    double salary = 1000 * (20 + rnd.nextInt(60));
+                    store.update(id, e -> e.setSalary(salary));
+                } else if (op < 7) {
+                    String dept = DEPARTMENTS[rnd.nextInt(DEPARTMENTS.length)];
+                    store.update(id, e -> e.setDepartment(dept));
+                } else if (op < 8) {
+                    double sales = rnd.nextInt(200_000);
+                    store.update(id, e -> {
+                        if (e instanceof SalesEmployee) ((SalesEmployee) e).setSales(sales);
+                    });
+                } else {
+                    int team = rnd.nextInt(30);
+                    store.update(id, e -> {
+                        if (e instanceof Manager) ((Manager) e).setTeamSize(team);
+                    });
+                }
+            }
+            check(store, rnd);
+        }
+    }
+
+    public void testEmptyIndex() {
+        EmployeeStore store = new EmployeeStore();
+        assertTrue(store.top(SalaryIndex.Key.SALARY, 5, null).isEmpty());
+        assertTrue(Double.isNaN(store.percentile(SalaryIndex.Key.SALARY, 50, "HR")));
+        assertEquals(0, store.countSalaryBetween(SalaryIndex.Key.FINAL_SALARY, 0, 1e9, "Nowhere"));
+        try {
+            store.percentile(SalaryIndex.Key.SALARY, 0, null);
+            fail("0th percentile accepted");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    private void check(EmployeeStore store, Random rnd) {
+        List<Employee> all = store.snapshot();
+        for (SalaryIndex.Key key : SalaryIndex.Key.values()) {
+            for (String dept : new String[] {null, "hr ", "Sales", "Nowhere"}) {
+                List<Employee> members = new ArrayList<>();
+                for (Employee e : all) {
+                    if (dept == null || DepartmentIndex.normalize(e.getDepartment()).equals(DepartmentIndex.normalize(dept))) {
+                        members.add(e);
+                    }
+                }
+                members.sort(Comparator.<Employee>comparingDouble(e -> value(e, key)).thenComparingInt(Employee::getId));
+
+                int k = rnd.nextInt(15);
+                List<Integer> expectedTop = new ArrayList<>();
+                for (int i = members.size() - 1; i >= 0 && expectedTop.size() < k; i--) expectedTop.add(members.get(i).getId());
+                assertEquals(expectedTop, ids(store.top(key, k, dept)));
+
+                double min = 1000 * (20 + rnd.nextInt(40));
+                double max = min + 1000 * rnd.nextInt(40);
+                List<Integer> expectedRange = new ArrayList<>();
+                for (Employee e : members) {
+                    if (value(e, key) >= min && value(e, key) <= max) expectedRange.add(e.getId());
+                }
+                assertEquals(expectedRange, ids(store.salaryRange(key, min, max, dept)));
+                assertEquals(expectedRange.size(), store.countSalaryBetween(key, min, max, dept));
+
+                double p = 1 + rnd.nextInt(100);
+                double pct = store.percentile(key, p, dept);
+                if (members.isEmpty()) {
+                    assertTrue(Double.isNaN(pct));
+                } else {
+                    int rank = Math.max(0, (int) Math.ceil(p / 100 * members.size()) - 1);
+                    assertEquals(value(members.get(rank), key), pct);
+                }
+            }
+        }
+    }
+
+    private static double value(Employee e, SalaryIndex.Key key) {
+        return key == SalaryIndex.Key.SALARY ? e.getSalary() : e.computeFinalSalary();
+    }
+
+    private static List<Integer> ids(List<Employee> rows) {
+        List<Integer> ids = new ArrayList<>();
+        for (Employee e : rows) ids.add(e.getId());
+        return ids;
+    }
+
+    private static Employee employee(int id, Random rnd) {
+        String dept = DEPARTMENTS[rnd.nextInt(DEPARTMENTS.length)];
+        double salary = 1000 * (20 + rnd.nextInt(60));
+        switch (rnd.nextInt(3)) {
+            case 0: return new SalesEmployee(id, "S" + id, salary, dept, rnd.nextInt(200_000), 0.05, 100_000);
+            case 1: return new Manager(id, "M" + id, salary, dept, rnd.nextInt(30));
+            default: return new Employee(id, "E" + id, salary, dept);
+        }
+    }
+}
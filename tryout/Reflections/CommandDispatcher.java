@@ -0,0 +1,242 @@
+import java.lang.invoke.*;
+import java.lang.reflect.*;
+import java.util.*;
+import java.util.function.Supplier;
+
+// Reflective command dispatcher
+//
+// Method.invoke() boxes every argument into an Object[] and checks access on
+// every call. This class looks a class up ONCE (cached per class in a
+// ClassValue) and binds each public operation to a tiny generated class
+// through LambdaMetafactory, the same way the compiler turns a method
+// reference like Banking::deposit into a lambda. Calling the result is a
+// plain interface call that the JIT can inline, so it runs about as fast as
+// calling the method directly.
+//
+//   CommandDispatcher bank = CommandDispatcher.of(Class.forName("Banking"));
+//   Object account = bank.newInstance();
+//   bank.doubleOperation("deposit").apply(account, 500);   // resolve once, call often
+//   bank.invoke(account, "showBalance");                   // or by name
+//
+// Operations taking one double or nothing get such a lambda. Any other
+// public method is still reachable through invoke(target, name, args...),
+// which uses a MethodHandle resolved once as well.
+public class CommandDispatcher {
+
+    // An operation taking one double, e.g. deposit(double)
+    public interface DoubleOperation {
+        void apply(Object target, double amount);
+    }
+
+    // An operation taking no arguments, e.g. showBalance()
+    public interface Operation {
+        void apply(Object target);
+    }
+
+    private static final ClassValue<CommandDispatcher> CACHE = new ClassValue<CommandDispatcher>() {
+        @Override
+        protected CommandDispatcher computeValue(Class<?> type) {
+            return new CommandDispatcher(type);
+        }
+    };
+
+    private final Class<?> type;
+    private final Supplier<?> constructor;      // null without a public no-arg constructor
+    private final Map<String, DoubleOperation> doubleOperations = new HashMap<>();
+    private final Map<String, Operation> operations = new HashMap<>();
+    private final Map<String, List<Invoker>> invokers = new HashMap<>();
+
+    // Any public method as a (Object target, Object[] args)Object handle.
+    private static class Invoker {
+        final Class<?>[] params;
+        final MethodHandle handle;
+
+        Invoker(Class<?>[] params, MethodHandle handle) {
+            this.params = params;
+            this.handle = handle;
+        }
+
+        // True if args can be passed as they are: a primitive parameter
+        // takes its wrapper, any other parameter null or an instance of it.
+        boolean accepts(Object[] args) {
+            if (args.length != params.length) return false;
+            for (int i = 0; i < args.length; i++) {
+                Class<?> p = params[i];
+                if (args[i] == null ? p.isPrimitive()
+                        : !MethodType.methodType(p).wrap().returnType().isInstance(args[i])) return false;
+            }
+            return true;
+        }
+    }
+
+    // The dispatcher for type, built on first use and then shared.
+    public static CommandDispatcher of(Class<?> type) {
+        return CACHE.get(type);
+    }
+
+    private CommandDispatcher(Class<?> type) {
+        this.type = type;
+        try {
+            // Public classes of exported packages (ArrayList, StringBuilder,
+            // ...) are reached through the public lookup; java.base does not
+            // open its packages, so a private lookup there would fail. Only
+            // classes the public lookup cannot see, such as the package-private
+            // Banking, need a lookup inside the class itself. Methods are
+            // resolved on type, not on their declaring class, which may not
+            // be public (StringBuilder.length() is declared in the
+            // package-private AbstractStringBuilder).
+            MethodHandles.Lookup lookup;
+            MethodHandles.Lookup caller;
+            try {
+                lookup = MethodHandles.publicLookup();
+                lookup.accessClass(type);
+                caller = MethodHandles.lookup();
+            } catch (IllegalAccessException e) {
+                lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+                caller = lookup;
+            }
+
+            Supplier<?> ctor = null;
+            try {
+                type.getConstructor();
+                MethodHandle c = lookup.findConstructor(type, MethodType.methodType(void.class));
+                ctor = bind(caller, Supplier.class, "get", MethodType.methodType(Object.class), c);
+                if (ctor == null) ctor = supplier(c);
+            } catch (NoSuchMethodException e) {
+                // no public no-arg constructor; newInstance() will say so
+            }
+            this.constructor = ctor;
+
+            for (Method m : type.getMethods()) {
+                if (Modifier.isStatic(m.getModifiers()) || m.getDeclaringClass() == Object.class) continue;
+                Class<?>[] params = m.getParameterTypes();
+                MethodHandle handle = lookup.findVirtual(type, m.getName(), MethodType.methodType(m.getReturnType(), params));
+                if (params.length == 1 && params[0] == double.class) {
+                    DoubleOperation op = bind(caller, DoubleOperation.class, "apply",
+                            MethodType.methodType(void.class, Object.class, double.class), handle);
+                    doubleOperations.put(m.getName(), op != null ? op : doubleOperation(handle));
+                } else if (params.length == 0) {
+                    Operation op = bind(caller, Operation.class, "apply",
+                            MethodType.methodType(void.class, Object.class), handle);
+                    operations.put(m.getName(), op != null ? op : operation(handle));
+                }
+                MethodHandle generic = handle.asSpreader(Object[].class, params.length)
+                        .asType(MethodType.methodType(Object.class, Object.class, Object[].class));
+                invokers.computeIfAbsent(m.getName(), k -> new ArrayList<>()).add(new Invoker(params, generic));
+            }
+        } catch (Throwable e) {
+            throw new IllegalArgumentException("Cannot bind the operations of " + type.getName() + ": " + e, e);
+        }
+    }
+
+    // Spins a class implementing iface.method by calling impl, like a method
+    // reference. Returns null if caller may not do that for impl, e.g. a
+    // public method inherited from a class outside caller's reach.
+    private static <T> T bind(MethodHandles.Lookup caller, Class<T> iface, String method,
+                              MethodType erased, MethodHandle impl) throws Throwable {
+        MethodType instantiated = impl.type().changeReturnType(erased.returnType());
+        CallSite site;
+        try {
+            site = LambdaMetafactory.metafactory(caller, method, MethodType.methodType(iface),
+                    erased, impl, instantiated);
+        } catch (LambdaConversionException | IllegalArgumentException e) {
+            return null;
+        }
+        return iface.cast(site.getTarget().invoke());
+    }
+
+    // The slower fallbacks when bind() cannot spin a class: an invokeExact
+    // on the MethodHandle, still resolved only once.
+    private static DoubleOperation doubleOperation(MethodHandle handle) {
+        MethodHandle h = handle.asType(MethodType.methodType(void.class, Object.class, double.class));
+        return (target, amount) -> {
+            try {
+                h.invokeExact(target, amount);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new UndeclaredThrowableException(e);
+            }
+        };
+    }
+
+    private static Operation operation(MethodHandle handle) {
+        MethodHandle h = handle.asType(MethodType.methodType(void.class, Object.class));
+        return target -> {
+            try {
+                h.invokeExact(target);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new UndeclaredThrowableException(e);
+            }
+        };
+    }
+
+    private static Supplier<?> supplier(MethodHandle constructor) {
+        MethodHandle h = constructor.asType(MethodType.methodType(Object.class));
+        return () -> {
+            try {
+                return h.invokeExact();
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new UndeclaredThrowableException(e);
+            }
+        };
+    }
+
+    public Class<?> type() {
+        return type;
+    }
+
+    // A new object made with the public no-arg constructor.
+    public Object newInstance() {
+        if (constructor == null) throw new IllegalArgumentException(type.getName() + " has no public no-arg constructor");
+        return constructor.get();
+    }
+
+    // Names of every public operation.
+    public Set<String> operationNames() {
+        return Collections.unmodifiableSet(invokers.keySet());
+    }
+
+    // The bound operation; look it up once and keep it for fast calls.
+    public DoubleOperation doubleOperation(String name) {
+        DoubleOperation op = doubleOperations.get(name);
+        if (op == null) throw unknown(name + "(double)");
+        return op;
+    }
+
+    public Operation operation(String name) {
+        Operation op = operations.get(name);
+        if (op == null) throw unknown(name + "()");
+        return op;
+    }
+
+    public void invoke(Object target, String name, double amount) {
+        doubleOperation(name).apply(target, amount);
+    }
+
+    public void invoke(Object target, String name) {
+        operation(name).apply(target);
+    }
+
+    // Any public method; of several overloads the first one whose parameters
+    // take args as they are is called (primitives from their wrappers, no
+    // widening). Exceptions thrown by the method come out as they are, not
+    // wrapped in InvocationTargetException.
+    public Object invoke(Object target, String name, Object... args) throws Throwable {
+        List<Invoker> candidates = invokers.get(name);
+        if (candidates != null) {
+            for (Invoker i : candidates) {
+                if (i.accepts(args)) return i.handle.invokeExact(target, args);
+            }
+        }
+        throw unknown(name + " with " + args.length + " argument(s)");
+    }
+
+    private IllegalArgumentException unknown(String what) {
+        return new IllegalArgumentException("No public operation " + what + " on " + type.getName());
+    }
+}
@@ -0,0 +1,72 @@
+import java.lang.invoke.*;
+import java.lang.reflect.Method;
+
+// Dispatch benchmark: direct call vs Method.invoke vs MethodHandle vs CommandDispatcher
+//
+// Every variant calls Ledger.credit(double) CALLS times per round; the first
+// rounds are warm-up for the JIT. Banking itself prints on every call, so it
+// would only measure System.out; Ledger does the same kind of work quietly.
+//
+// JMH would be the tool of choice, but its generated benchmark classes live
+// in a package and cannot refer to classes in the default package such as
+// this one, so this is a plain timed loop.
+//
+// Usage: java DispatchBenchmark [callsPerRound] [rounds]
+public class DispatchBenchmark {
+
+    // A quiet stand-in for Banking, loaded by name like a plugin.
+    public static class Ledger {
+        private double balance;
+
+        public void credit(double amount) {
+            balance += amount;
+        }
+
+        public double balance() {
+            return balance;
+        }
+    }
+
+    interface Loop {
+        void run(Ledger target, int calls) throws Throwable;
+    }
+
+    public static void main(String[] args) throws Throwable {
+        int calls = args.length > 0 ? Integer.parseInt(args[0]) : 20_000_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        Class<?> c = Class.forName("DispatchBenchmark$Ledger");
+        Method method = c.getMethod("credit", double.class);
+        MethodHandle handle = MethodHandles.lookup().unreflect(method)
+                .asType(MethodType.methodType(void.class, Object.class, double.class));
+        CommandDispatcher dispatcher = CommandDispatcher.of(c);
+        CommandDispatcher.DoubleOperation credit = dispatcher.doubleOperation("credit");
+
+        String[] names = {"direct call", "Method.invoke", "MethodHandle", "dispatcher (bound)", "dispatcher (by name)"};
+        Loop[] loops = {
+            (t, n) -> { for (int i = 0; i < n; i++) t.credit(i & 7); },
+            (t, n) -> { for (int i = 0; i < n; i++) method.invoke(t, (double) (i & 7)); },
+            (t, n) -> { for (int i = 0; i < n; i++) handle.invokeExact((Object) t, (double) (i & 7)); },
+            (t, n) -> { for (int i = 0; i < n; i++) credit.apply(t, i & 7); },
+            (t, n) -> { for (int i = 0; i < n; i++) dispatcher.invoke(t, "credit", (double) (i & 7)); },
+        };
+
+        for (int round = 1; round <= rounds; round++) {
+            System.out.println("Round " + round + (round < rounds ? " (warm-up)" : ""));
+            for (int v = 0; v < loops.length; v++) {
+                Ledger target = (Ledger) dispatcher.newInstance();
+                long start = System.nanoTime();
+                loops[v].run(target, calls);
+                double ns = (double) (System.nanoTime() - start) / calls;
+                if (target.balance() != expected(calls)) throw new AssertionError(names[v] + " lost calls");
+                System.out.printf("  %-22s %6.2f ns/call%n", names[v], ns);
+            }
+        }
+    }
+
+    private static double expected(int calls) {
+        double sum = 0;
+        for (int i = 0; i < calls; i++) sum += i & 7;
+        return sum;
+    }
+}
@@ -1,33 +1,37 @@
-import java.lang.reflect.*;
 import java.util.Scanner;
+import java.util.concurrent.atomic.AtomicLong;
 
 // Bank class
+// The balance is kept in whole paise (exact, unlike double) and changed with
+// compare-and-set, so calls from several threads never lose an update.
 class Banking {
 
-    private double balance;
+    private final AtomicLong balance = new AtomicLong();   // paise
 
     public Banking() {
-        balance = 0;
     }
 
     public void deposit(double amount) {
-        balance = balance + amount;
+        balance.addAndGet(Math.round(amount * 100));
         System.out.println("Amount Deposited Successfully!");
     }
 
     public void withdraw(double amount) {
-
-        if (amount > balance) {
-            System.out.println("Insufficient Balance!");
-        } 
-        else {
-            balance = balance - amount;
-            System.out.println("Amount Withdrawn Successfully!");
-        }
+        long paise = Math.round(amount * 100);
+        long current;
+        do {
+            current = balance.get();
+            if (paise > current) {
+                System.out.println("Insufficient Balance!");
+                return;
+            }
+        } while (!balance.compareAndSet(current, current - paise));
+        System.out.println("Amount Withdrawn Successfully!");
     }
 
     public void showBalance() {
-        System.out.println("Current Balance: " + balance);
+        long paise = balance.get();
+        System.out.println("Current Balance: " + paise / 100 + "." + String.format("%02d", paise % 100));
     }
 }
 
@@ -43,13 +47,15 @@ public class Main {
             
             Class<?> c = Class.forName("Banking");
 
-            
-            Object obj = c.getDeclaredConstructor().newInstance();
+            // Operations are looked up once and bound to lambdas (see CommandDispatcher),
+            // so each call below is as cheap as calling Banking directly.
+            CommandDispatcher bank = CommandDispatcher.of(c);
 
-            
-            Method depositMethod = c.getMethod("deposit", double.class);
-            Method withdrawMethod = c.getMethod("withdraw", double.class);
-            Method showMethod = c.getMethod("showBalance");
+            Object obj = bank.newInstance();
+
+            CommandDispatcher.DoubleOperation depositMethod = bank.doubleOperation("deposit");
+            CommandDispatcher.DoubleOperation withdrawMethod = bank.doubleOperation("withdraw");
+            CommandDispatcher.Operation showMethod = bank.operation("showBalance");
 
             int choice;
 
@@ -70,18 +76,18 @@ public class Main {
                         System.out.print("Enter amount to deposit: ");
                         double dep = sc.nextDouble();
 
-                        depositMethod.invoke(obj, dep);
+                        depositMethod.apply(obj, dep);
                         break;
 
                     case 2:
                         System.out.print("Enter amount to withdraw: ");
                         double wit = sc.nextDouble();
 
-                        withdrawMethod.invoke(obj, wit);
+                        withdrawMethod.apply(obj, wit);
                         break;
 
                     case 3:
-                        showMethod.invoke(obj);
+                        showMethod.apply(obj);
                         break;
 
                     case 4:
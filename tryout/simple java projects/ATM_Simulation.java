@@ -1,90 +1,116 @@
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.Scanner;
 
+// An ATM session on one account. Every operation goes through a
+// TransactionPipeline as a batch of one, so it is journaled before the ATM
+// answers and the balance survives a restart. Amounts are in paise.
+// Failures come back as a Status, not as exceptions.
 class ATM {
-    private double balance;
+    private final TransactionPipeline pipeline;
+    private final int account;
+    private final TransactionPipeline.Batch batch = new TransactionPipeline.Batch(1);
 
-    public ATM(double initialBalance) {
-        this.balance = initialBalance;
+    public ATM(TransactionPipeline pipeline, int account) {
+        this.pipeline = pipeline;
+        this.account = account;
     }
 
     // Method to check balance
-    public void checkBalance() {
-        System.out.println("Current Balance: ₹" + balance);
+    public void checkBalance() throws IOException {
+        run(TransactionPipeline.Op.BALANCE, 0);
+        System.out.println("Current Balance: ₹" + AccountLedger.format(batch.balance(0)));
     }
 
     // Method to deposit money
-    public void deposit(double amount) {
-        if (amount <= 0) {
-            throw new IllegalArgumentException("Deposit amount must be greater than 0.");
+    public TransactionPipeline.Status deposit(long paise) throws IOException {
+        TransactionPipeline.Status status = run(TransactionPipeline.Op.DEPOSIT, paise);
+        switch (status) {
+            case OK: System.out.println("₹" + AccountLedger.format(paise) + " deposited successfully."); break;
+            case INVALID_AMOUNT: System.out.println("Error: Deposit amount must be greater than 0."); break;
+            case LIMIT_REACHED: System.out.println("Error: Balance limit reached! Cannot deposit ₹" + AccountLedger.format(paise)); break;
+            default: System.out.println("Error: " + status);
         }
-        balance += amount;
-        System.out.println("₹" + amount + " deposited successfully.");
+        return status;
     }
 
-    // Method to withdraw money
-    public void withdraw(double amount) {
-        if (amount <= 0) {
-            throw new IllegalArgumentException("Withdrawal amount must be greater than 0.");
+    // Method to withdraw money; the balance check and the update happen as one step
+    public TransactionPipeline.Status withdraw(long paise) throws IOException {
+        TransactionPipeline.Status status = run(TransactionPipeline.Op.WITHDRAW, paise);
+        switch (status) {
+            case OK: System.out.println("₹" + AccountLedger.format(paise) + " withdrawn successfully."); break;
+            case INVALID_AMOUNT: System.out.println("Error: Withdrawal amount must be greater than 0."); break;
+            case INSUFFICIENT_FUNDS: System.out.println("Error: Insufficient funds! Cannot withdraw ₹" + AccountLedger.format(paise)); break;
+            default: System.out.println("Error: " + status);
         }
-        else if (amount > balance) {
-            throw new ArithmeticException("Insufficient funds! Cannot withdraw ₹" + amount);
-        }
-       else { balance -= amount;
-        System.out.println("₹" + amount + " withdrawn successfully.");
-       }
+        return status;
+    }
+
+    private TransactionPipeline.Status run(TransactionPipeline.Op op, long paise) throws IOException {
+        batch.clear();
+        batch.add(op, account, paise);
+        pipeline.process(batch);
+        return batch.status(0);
     }
 }
 
 public class ATM_Simulation {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
         Scanner sc = new Scanner(System.in);
-        ATM atm = new ATM(5000);
+        AccountLedger ledger = new AccountLedger(1);
 
-        while (true) {
-            try {
-                System.out.println("\n=== ATM MENU ===");
-                System.out.println("1. Check Balance");
-                System.out.println("2. Deposit Money");
-                System.out.println("3. Withdraw Money");
-                System.out.println("4. Exit");
-                System.out.print("Enter your choice: ");
-                int choice = sc.nextInt();
+        // The journal holds the account; a new one starts with ₹5000.
+        try (TransactionPipeline pipeline = new TransactionPipeline(ledger, Paths.get("atm.journal"))) {
+            if (ledger.accounts() == 0) {
+                TransactionPipeline.Batch open = new TransactionPipeline.Batch(1);
+                open.add(TransactionPipeline.Op.OPEN, -1, AccountLedger.toPaise("5000"));
+                pipeline.process(open);
+            }
+            ATM atm = new ATM(pipeline, 0);
+
+            while (true) {
+                try {
+                    System.out.println("\n=== ATM MENU ===");
+                    System.out.println("1. Check Balance");
+                    System.out.println("2. Deposit Money");
+                    System.out.println("3. Withdraw Money");
+                    System.out.println("4. Exit");
+                    System.out.print("Enter your choice: ");
+                    int choice = sc.nextInt();
 
-                switch (choice) {
-                    case 1:
-                        atm.checkBalance();
-                        break;
+                    switch (choice) {
+                        case 1:
+                            atm.checkBalance();
+                            break;
 
-                    case 2:
-                        System.out.print("Enter deposit amount: ");
-                        double depositAmount = sc.nextDouble();
-                        atm.deposit(depositAmount);
-                        break;
+                        case 2:
+                            System.out.print("Enter deposit amount: ");
+                            long depositAmount = AccountLedger.toPaise(sc.next());
+                            atm.deposit(depositAmount);
+                            break;
 
-                    case 3:
-                        System.out.print("Enter withdrawal amount: ");
-                        double withdrawAmount = sc.nextDouble();
-                        atm.withdraw(withdrawAmount);
-                        break;
+                        case 3:
+                            System.out.print("Enter withdrawal amount: ");
+                            long withdrawAmount = AccountLedger.toPaise(sc.next());
+                            atm.withdraw(withdrawAmount);
+                            break;
 
-                    case 4:
-                        System.out.println("Thank you for using ATM. Goodbye!");
-                        sc.close();
-                        return;
+                        case 4:
+                            System.out.println("Thank you for using ATM. Goodbye!");
+                            sc.close();
+                            return;
 
-                    default:
-                        throw new IllegalArgumentException("Invalid menu choice. Please enter 1-4.");
+                        default:
+                            System.out.println("Invalid menu choice. Please enter 1-4.");
+                    }
+                } catch (IllegalArgumentException e) {
+                    System.out.println("Error: " + e.getMessage());
+                } catch (Exception e) {
+                    System.out.println("Unexpected Error: " + e.getMessage());
+                } finally {
+                    System.out.println("Operation completed. Returning to main menu...\n");
                 }
-            } catch (IllegalArgumentException e) {
-                System.out.println("Hi");
-                System.out.println("Error: " + e.getMessage());
-            } catch (ArithmeticException e) {
-                System.out.println("Error: " + e.getMessage());
-            } catch (Exception e) {
-                System.out.println("Unexpected Error: " + e.getMessage());
-            } finally {
-                System.out.println("Operation completed. Returning to main menu...\n");
             }
         }
     }
-}
\ No newline at end of file
+}
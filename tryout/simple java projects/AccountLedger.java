@@ -0,0 +1,194 @@
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Lock-free account ledger
+//
+// Balances are whole paise in a long (₹12.34 is 1234), so adding and
+// subtracting money is exact; a double cannot hold 0.10 exactly and drifts.
+// A deposit or withdrawal is a compare-and-set loop on the one account it
+// touches: read the balance, compute the new one, and store it only if
+// nobody changed it in between, otherwise try again. No update is ever lost.
+//
+// A transfer must change two accounts at once. It claims both, lower
+// account number first, by swapping each balance for its complement (a
+// claimed account holds a negative number, which a real balance never is),
+// then checks and writes both balances, which also releases them. Anyone
+// else who meets a claimed account waits for it. Since every claimer takes
+// accounts in the same order nothing can deadlock, and since the money
+// moves in one write per account nobody ever sees it in flight.
+//
+// Accounts are numbered 0, 1, 2, ... in the order they are opened and spread
+// over STRIPES arrays (account n lives in stripes[n % STRIPES]), so accounts
+// next to each other sit on different cache lines and busy neighbours do not
+// slow each other down.
+public class AccountLedger {
+
+    private static final int STRIPES = 64;
+
+    private final AtomicLongArray[] stripes = new AtomicLongArray[STRIPES];
+    private final AtomicInteger opened = new AtomicInteger();
+    private final int capacity;
+
+    public AccountLedger(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("Capacity must be positive.");
+        this.capacity = capacity;
+        int perStripe = (capacity + STRIPES - 1) / STRIPES;
+        for (int i = 0; i < STRIPES; i++) stripes[i] = new AtomicLongArray(perStripe);
+    }
+
+    // Method to open an account; returns its number
+    public int open(long initialPaise) {
+        if (initialPaise < 0) throw new IllegalArgumentException("Opening balance cannot be negative.");
+        int account = opened.getAndIncrement();
+        if (account >= capacity) {
+            opened.decrementAndGet();
+            throw new IllegalStateException("Ledger is full (" + capacity + " accounts).");
+        }
+        // added rather than set, in case a deposit got in first
+        AtomicLongArray a = stripes[account % STRIPES];
+        int i = account / STRIPES;
+        while (true) {
+            long balance = settled(a, i);
+            if (a.compareAndSet(i, balance, Math.addExact(balance, initialPaise))) return account;
+        }
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public int accounts() {
+        return Math.min(opened.get(), capacity);
+    }
+
+    public boolean exists(int account) {
+        return account >= 0 && account < accounts();
+    }
+
+    public long balance(int account) {
+        check(account);
+        return settled(stripes[account % STRIPES], account / STRIPES);
+    }
+
+    // Method to deposit money; returns false (changing nothing) if the
+    // balance would overflow
+    public boolean deposit(int account, long paise) {
+        check(account);
+        checkAmount(paise);
+        AtomicLongArray a = stripes[account % STRIPES];
+        int i = account / STRIPES;
+        while (true) {
+            long balance = settled(a, i);
+            long after = balance + paise;
+            if (after < balance) return false;
+            if (a.compareAndSet(i, balance, after)) return true;
+        }
+    }
+
+    // Method to withdraw money; returns false (changing nothing) if the
+    // balance is too low. The check and the update are one atomic step.
+    public boolean withdraw(int account, long paise) {
+        check(account);
+        checkAmount(paise);
+        AtomicLongArray a = stripes[account % STRIPES];
+        int i = account / STRIPES;
+        while (true) {
+            long balance = settled(a, i);
+            if (balance < paise) return false;
+            if (a.compareAndSet(i, balance, balance - paise)) return true;
+        }
+    }
+
+    // Method to move money between two accounts; returns false (changing
+    // nothing) if from has too little or to would overflow. Both balances
+    // change in one step, as far as anyone else can tell.
+    public boolean transfer(int from, int to, long paise) {
+        check(from);
+        check(to);
+        checkAmount(paise);
+        if (from == to) throw new IllegalArgumentException("Cannot transfer to the same account.");
+        int low = Math.min(from, to);
+        int high = Math.max(from, to);
+        long lowBalance = claim(low);
+        long highBalance = claim(high);
+        long fromBalance = from == low ? lowBalance : highBalance;
+        long toBalance = from == low ? highBalance : lowBalance;
+        boolean moved = fromBalance >= paise && toBalance <= Long.MAX_VALUE - paise;
+        if (moved) {
+            fromBalance -= paise;
+            toBalance += paise;
+        }
+        release(from, fromBalance);
+        release(to, toBalance);
+        return moved;
+    }
+
+    // Sum of every balance at one moment. Claims every account in order, so
+    // it waits for transfers under way and holds up new ones until it is
+    // done; meant for audits, not for every request.
+    public long total() {
+        int n = accounts();
+        long sum = 0;
+        for (int account = 0; account < n; account++) sum += claim(account);
+        for (int account = 0; account < n; account++) {
+            release(account, ~stripes[account % STRIPES].get(account / STRIPES));
+        }
+        return sum;
+    }
+
+    // Converts rupees typed by a user, e.g. "12.5", to paise; anything
+    // finer than a paisa is an error rather than silently rounded.
+    public static long toPaise(String rupees) {
+        try {
+            return new BigDecimal(rupees.trim()).movePointRight(2).longValueExact();
+        } catch (ArithmeticException | NumberFormatException e) {
+            throw new IllegalArgumentException("Not an amount in rupees and paise: " + rupees);
+        }
+    }
+
+    public static long toPaise(double rupees) {
+        return toPaise(Double.toString(rupees));
+    }
+
+    // 1234 -> "12.34"
+    public static String format(long paise) {
+        String sign = paise < 0 ? "-" : "";
+        long abs = Math.abs(paise);
+        long fraction = abs % 100;
+        return sign + abs / 100 + (fraction < 10 ? ".0" : ".") + fraction;
+    }
+
+    // Waits until the account is not claimed by a transfer and returns its
+    // balance. The caller's compare-and-set then fails if it was claimed
+    // again in between.
+    private static long settled(AtomicLongArray a, int i) {
+        while (true) {
+            long balance = a.get(i);
+            if (balance >= 0) return balance;
+            Thread.onSpinWait();
+        }
+    }
+
+    // Claims an account and returns its balance; release() gives it back.
+    private long claim(int account) {
+        AtomicLongArray a = stripes[account % STRIPES];
+        int i = account / STRIPES;
+        while (true) {
+            long balance = settled(a, i);
+            if (a.compareAndSet(i, balance, ~balance)) return balance;
+        }
+    }
+
+    private void release(int account, long balance) {
+        stripes[account % STRIPES].set(account / STRIPES, balance);
+    }
+
+    private void check(int account) {
+        if (!exists(account)) throw new IllegalArgumentException("No such account: " + account);
+    }
+
+    private static void checkAmount(long paise) {
+        if (paise <= 0) throw new IllegalArgumentException("Amount must be greater than 0.");
+    }
+}
@@ -0,0 +1,128 @@
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Ledger benchmark: many threads, millions of accounts, money must be conserved
+//
+// Each thread runs random operations: 80% transfers between two random
+// accounts, 10% deposits and 10% withdrawals. Every thread counts the money
+// it really put in and took out, so at the end
+//     total() == opening total + deposited - withdrawn
+// must hold to the paisa. Then the threads run transfers only while one more
+// thread keeps taking total(), and every one of those totals must be the
+// same, since a transfer is never seen half done. For comparison, the same
+// threads first hammer a plain double balance the way ATM used to, and that
+// one loses money.
+//
+// Usage: java LedgerBenchmark [accounts] [threads] [opsPerThread]
+public class LedgerBenchmark {
+
+    // The old ATM way: read, add, write back, no locking.
+    static double plainBalance;
+
+    public static void main(String[] args) throws InterruptedException {
+        int accounts = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int ops = args.length > 2 ? Integer.parseInt(args[2]) : 5_000_000;
+
+        plainDouble(threads);
+
+        AccountLedger ledger = new AccountLedger(accounts);
+        long opening = 0;
+        for (int i = 0; i < accounts; i++) {
+            long paise = 100_000 + i % 1000;     // ₹1000.00 and up
+            ledger.open(paise);
+            opening += paise;
+        }
+
+        AtomicLong deposited = new AtomicLong();
+        AtomicLong withdrawn = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        Thread[] workers = new Thread[threads];
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            long seed = t;
+            workers[t] = new Thread(() -> {
+                Random rnd = new Random(seed);
+                long in = 0, out = 0, rejected = 0;
+                for (int i = 0; i < ops; i++) {
+                    int a = rnd.nextInt(accounts);
+                    long paise = 1 + rnd.nextInt(50_000);
+                    int kind = rnd.nextInt(10);
+                    if (kind == 0) {
+                        if (ledger.deposit(a, paise)) in += paise; else rejected++;
+                    } else if (kind == 1) {
+                        if (ledger.withdraw(a, paise)) out += paise; else rejected++;
+                    } else {
+                        int b = rnd.nextInt(accounts);
+                        if (b == a || !ledger.transfer(a, b, paise)) rejected++;
+                    }
+                }
+                deposited.addAndGet(in);
+                withdrawn.addAndGet(out);
+                failed.addAndGet(rejected);
+            });
+            workers[t].start();
+        }
+        for (Thread w : workers) w.join();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long expected = opening + deposited.get() - withdrawn.get();
+        long actual = ledger.total();
+        long totalOps = (long) threads * ops;
+        System.out.printf("Ledger: %,d accounts, %d threads, %,d operations in %.2f s = %,.0f ops/s (%,d rejected)%n",
+                accounts, threads, totalOps, seconds, totalOps / seconds, failed.get());
+        System.out.println("Expected total: ₹" + AccountLedger.format(expected));
+        System.out.println("Actual total  : ₹" + AccountLedger.format(actual));
+        System.out.println(expected == actual ? "Money conserved." : "MONEY NOT CONSERVED!");
+        boolean audited = audited(ledger, threads, ops / 5, actual);
+        if (expected != actual || !audited) System.exit(1);
+    }
+
+    // Transfers only, with total() taken over and over while they run.
+    private static boolean audited(AccountLedger ledger, int threads, int ops, long expected) throws InterruptedException {
+        int accounts = ledger.accounts();
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            long seed = 1000 + t;
+            workers[t] = new Thread(() -> {
+                Random rnd = new Random(seed);
+                for (int i = 0; i < ops; i++) {
+                    int a = rnd.nextInt(accounts);
+                    int b = rnd.nextInt(accounts);
+                    if (a != b) ledger.transfer(a, b, 1 + rnd.nextInt(50_000));
+                }
+            });
+            workers[t].start();
+        }
+        long audits = 0, wrong = 0;
+        long start = System.nanoTime();
+        while (true) {
+            boolean running = false;
+            for (Thread w : workers) running |= w.isAlive();
+            if (!running) break;
+            if (ledger.total() != expected) wrong++;
+            audits++;
+        }
+        for (Thread w : workers) w.join();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        if (ledger.total() != expected) wrong++;
+        System.out.printf("Audited: %,d transfers in %.2f s, %,d totals taken while they ran%n",
+                (long) threads * ops, seconds, audits);
+        System.out.println(wrong == 0 ? "Every total was exact." : "TOTAL WRONG " + wrong + " TIMES!");
+        return wrong == 0;
+    }
+
+    // Each thread deposits ₹0.10 a million times into one shared double.
+    private static void plainDouble(int threads) throws InterruptedException {
+        int times = 1_000_000;
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                for (int i = 0; i < times; i++) plainBalance = plainBalance + 0.10;
+            });
+            workers[t].start();
+        }
+        for (Thread w : workers) w.join();
+        System.out.printf("Plain double: expected ₹%,.2f, got ₹%,.6f%n", threads * times * 0.10, plainBalance);
+    }
+}
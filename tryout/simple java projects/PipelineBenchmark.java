@@ -0,0 +1,132 @@
+import java.io.*;
+import java.nio.file.*;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Pipeline benchmark: batched transactions with a group-committed journal
+//
+// 1. One producer: opens the accounts, then sends random deposits,
+//    withdrawals and balance queries in batches, one journal force per batch.
+// 2. Several producers at once through submit(): batches waiting together
+//    share one force.
+// 3. A request file through processFile().
+// 4. Restart: a new ledger replays the journal, and every balance must come
+//    back exactly.
+//
+// Usage: java PipelineBenchmark [accounts] [requests] [batchSize] [producers]
+public class PipelineBenchmark {
+    public static void main(String[] args) throws Exception {
+        int accounts = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int requests = args.length > 1 ? Integer.parseInt(args[1]) : 4_000_000;
+        int batchSize = args.length > 2 ? Integer.parseInt(args[2]) : 4096;
+        int producers = args.length > 3 ? Integer.parseInt(args[3]) : 4;
+
+        Path dir = Files.createTempDirectory("pipeline");
+        Path journal = dir.resolve("bench.journal");
+        AccountLedger ledger = new AccountLedger(accounts);
+        try (TransactionPipeline pipeline = new TransactionPipeline(ledger, journal)) {
+            TransactionPipeline.Batch batch = new TransactionPipeline.Batch(batchSize);
+            long start = System.nanoTime();
+            for (int i = 0; i < accounts; i++) {
+                batch.add(TransactionPipeline.Op.OPEN, -1, 100_000);
+                if (batch.size() == batchSize) run(pipeline, batch);
+            }
+            run(pipeline, batch);
+            report("open accounts", accounts, start);
+
+            Random rnd = new Random(1);
+            long rejected = 0;
+            start = System.nanoTime();
+            for (int i = 0; i < requests; i++) {
+                addRandom(batch, rnd, accounts);
+                if (batch.size() == batchSize) rejected += run(pipeline, batch);
+            }
+            rejected += run(pipeline, batch);
+            report("1 producer", requests, start);
+            System.out.printf("   %,d answered with a failure status%n", rejected);
+
+            long commitsBefore = pipeline.getCommits();
+            AtomicLong failures = new AtomicLong();
+            Thread[] threads = new Thread[producers];
+            int small = Math.max(1, batchSize / 16);
+            start = System.nanoTime();
+            for (int t = 0; t < producers; t++) {
+                long seed = 100 + t;
+                threads[t] = new Thread(() -> {
+                    Random r = new Random(seed);
+                    TransactionPipeline.Batch b = new TransactionPipeline.Batch(small);
+                    try {
+                        for (int i = 0; i < requests / producers; i += small) {
+                            b.clear();
+                            for (int j = 0; j < small; j++) addRandom(b, r, accounts);
+                            pipeline.submit(b);
+                        }
+                    } catch (Exception e) {
+                        failures.incrementAndGet();
+                    }
+                });
+                threads[t].start();
+            }
+            for (Thread t : threads) t.join();
+            report(producers + " producers", requests, start);
+            System.out.printf("   %,d batches of %d in %,d group commits, failures %d%n", requests / small, small,
+                    pipeline.getCommits() - commitsBefore, failures.get());
+
+            Path in = dir.resolve("requests.txt");
+            Path out = dir.resolve("results.txt");
+            try (BufferedWriter w = Files.newBufferedWriter(in)) {
+                for (int i = 0; i < requests / 4; i++) {
+                    int a = rnd.nextInt(accounts);
+                    int kind = rnd.nextInt(10);
+                    w.write(kind < 4 ? "D," + a + "," + rnd.nextInt(500) + "." + rnd.nextInt(10)
+                            : kind < 8 ? "W," + a + "," + rnd.nextInt(2000) : "B," + a);
+                    w.newLine();
+                }
+            }
+            start = System.nanoTime();
+            long n = pipeline.processFile(in, out, batchSize);
+            report("request file", n, start);
+        }
+
+        long journalBytes = Files.size(journal);
+        AccountLedger replayed = new AccountLedger(accounts);
+        long start = System.nanoTime();
+        new TransactionPipeline(replayed, journal).close();
+        report("replay journal", replayed.accounts(), start);
+        boolean same = replayed.accounts() == ledger.accounts() && replayed.total() == ledger.total();
+        for (int a = 0; same && a < accounts; a++) same = replayed.balance(a) == ledger.balance(a);
+        System.out.printf("journal %,d MB; total ₹%s before, ₹%s after replay: %s%n", journalBytes >> 20,
+                AccountLedger.format(ledger.total()), AccountLedger.format(replayed.total()),
+                same ? "every balance matches" : "MISMATCH");
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path f : files) Files.delete(f);
+        }
+        Files.delete(dir);
+        if (!same) System.exit(1);
+    }
+
+    private static void addRandom(TransactionPipeline.Batch b, Random rnd, int accounts) {
+        int a = rnd.nextInt(accounts);
+        int kind = rnd.nextInt(10);
+        if (kind < 4) b.add(TransactionPipeline.Op.DEPOSIT, a, 1 + rnd.nextInt(50_000));
+        else if (kind < 8) b.add(TransactionPipeline.Op.WITHDRAW, a, 1 + rnd.nextInt(200_000));
+        else b.add(TransactionPipeline.Op.BALANCE, a, 0);
+    }
+
+    // Processes and clears batch; returns how many requests failed.
+    private static int run(TransactionPipeline pipeline, TransactionPipeline.Batch batch) throws IOException {
+        pipeline.process(batch);
+        int failed = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            if (batch.status(i) != TransactionPipeline.Status.OK) failed++;
+        }
+        batch.clear();
+        return failed;
+    }
+
+    private static void report(String label, long n, long start) {
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%-16s %,10d in %6.2f s = %,10.0f per second%n", label, n, seconds, n / seconds);
+    }
+}
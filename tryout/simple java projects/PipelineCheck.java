@@ -0,0 +1,213 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+
+// Pipeline checks: the corner cases of TransactionPipeline, one by one
+//
+// 1. A reused batch never reports a balance left over from an earlier
+//    request, neither in process() nor in a results file.
+// 2. Replay: groups bigger than the replay buffer, a torn or zero-filled
+//    tail (cut off), a last group failing its checksum (cut off), and a bad
+//    group or group header in the middle (IOException, file left alone).
+// 3. close() racing with submit(), and an interrupted committer: every
+//    submit() returns or throws, none waits forever.
+//
+// Usage: java PipelineCheck
+public class PipelineCheck {
+    private static int failures;
+
+    public static void main(String[] args) throws Exception {
+        Path dir = Files.createTempDirectory("pipeline-check");
+        try {
+            reusedBatch(dir);
+            replay(dir);
+            closeRace(dir);
+            interruptedCommitter(dir);
+        } finally {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+                for (Path f : files) Files.delete(f);
+            }
+            Files.delete(dir);
+        }
+        System.out.println(failures == 0 ? "All checks passed." : failures + " CHECKS FAILED!");
+        if (failures != 0) System.exit(1);
+    }
+
+    private static void reusedBatch(Path dir) throws IOException {
+        try (TransactionPipeline p = new TransactionPipeline(new AccountLedger(10), dir.resolve("reuse.journal"))) {
+            TransactionPipeline.Batch b = new TransactionPipeline.Batch(4);
+            b.add(TransactionPipeline.Op.OPEN, -1, 123456);
+            b.add(TransactionPipeline.Op.OPEN, -1, 654321);
+            p.process(b);
+            b.clear();
+            b.addMalformed();
+            b.add(TransactionPipeline.Op.BALANCE, 7, 0);
+            p.process(b);
+            check("malformed request reports 0", b.status(0) == TransactionPipeline.Status.MALFORMED && b.balance(0) == 0);
+            check("unknown account reports 0", b.status(1) == TransactionPipeline.Status.NO_SUCH_ACCOUNT && b.balance(1) == 0);
+
+            Path in = dir.resolve("reuse.txt");
+            Path out = dir.resolve("reuse-results.txt");
+            Files.write(in, List.of("O,1234.56", "X", "B,7", "O,-1", "B,0"));
+            p.processFile(in, out, 1);
+            check("results file", Files.readAllLines(out).equals(List.of(
+                    "OK,2,1234.56", "MALFORMED,-1,0.00", "NO_SUCH_ACCOUNT,7,0.00", "INVALID_AMOUNT,-1,0.00", "OK,0,1234.56")));
+        }
+    }
+
+    private static void replay(Path dir) throws IOException {
+        Path journal = dir.resolve("replay.journal");
+        AccountLedger ledger = new AccountLedger(1000);
+        try (TransactionPipeline p = new TransactionPipeline(ledger, journal)) {
+            TransactionPipeline.Batch b = new TransactionPipeline.Batch(1000);
+            for (int i = 0; i < 1000; i++) b.add(TransactionPipeline.Op.OPEN, -1, 100);
+            p.process(b);
+            // one group of 200,000 entries, 2.6 MB, bigger than the replay buffer
+            b.clear();
+            for (int i = 0; i < 200_000; i++) b.add(TransactionPipeline.Op.DEPOSIT, i % 1000, 1 + i % 7);
+            p.process(b);
+            b.clear();
+            b.add(TransactionPipeline.Op.WITHDRAW, 3, 50);
+            p.process(b);
+        }
+        long size = Files.size(journal);
+        check("big group replays", same(ledger, journal));
+
+        // torn last group: its first 20 bytes made it to disk
+        byte[] full = Files.readAllBytes(journal);
+        append(journal, Arrays.copyOfRange(full, 0, 20));
+        check("torn tail is cut off", same(ledger, journal) && Files.size(journal) == size);
+
+        append(journal, new byte[4096]);
+        check("zero-filled tail is cut off", same(ledger, journal) && Files.size(journal) == size);
+
+        // last group with a bad checksum: the final withdrawal is dropped
+        flip(journal, size - 5);
+        AccountLedger before = new AccountLedger(1000);
+        new TransactionPipeline(before, journal).close();
+        check("last group failing its checksum is cut off", Files.size(journal) == size - 29
+                && before.balance(3) == ledger.balance(3) + 50);
+
+        // bad group in the middle: refuse to start, touch nothing
+        flip(journal, 100);
+        long corrupt = Files.size(journal);
+        try {
+            new TransactionPipeline(new AccountLedger(1000), journal).close();
+            check("corrupt middle group is refused", false);
+        } catch (IOException e) {
+            check("corrupt middle group is refused", e.getMessage().contains("checksum") && Files.size(journal) == corrupt);
+        }
+
+        // a damaged count in the first header must not read as a torn tail
+        // and cut off the groups after it
+        Path counted = dir.resolve("count.journal");
+        try (TransactionPipeline p = new TransactionPipeline(new AccountLedger(10), counted)) {
+            TransactionPipeline.Batch b = new TransactionPipeline.Batch(1);
+            for (int i = 0; i < 3; i++) {
+                b.clear();
+                b.add(TransactionPipeline.Op.OPEN, -1, 100);
+                p.process(b);
+            }
+        }
+        long groups = Files.size(counted);
+        try (FileChannel ch = FileChannel.open(counted, StandardOpenOption.WRITE)) {
+            ch.write(ByteBuffer.allocate(4).putInt(0, 1_000_000), 4);
+        }
+        try {
+            new TransactionPipeline(new AccountLedger(10), counted).close();
+            check("corrupt group count is refused", false);
+        } catch (IOException e) {
+            check("corrupt group count is refused", e.getMessage().contains("group header") && Files.size(counted) == groups);
+        }
+    }
+
+    private static void closeRace(Path dir) throws Exception {
+        for (int round = 0; round < 50; round++) {
+            TransactionPipeline p = new TransactionPipeline(new AccountLedger(10), dir.resolve("race" + round + ".journal"));
+            ExecutorService producers = Executors.newFixedThreadPool(4);
+            for (int t = 0; t < 4; t++) {
+                producers.submit(() -> {
+                    TransactionPipeline.Batch b = new TransactionPipeline.Batch(1);
+                    while (true) {
+                        b.clear();
+                        b.add(TransactionPipeline.Op.OPEN, -1, 0);
+                        try {
+                            p.submit(b);
+                        } catch (IOException e) {
+                            return null;                // closed
+                        }
+                    }
+                });
+            }
+            Thread.sleep(round % 5);
+            p.close();
+            producers.shutdown();
+            if (!producers.awaitTermination(10, TimeUnit.SECONDS)) {
+                check("submit() never hangs across close()", false);
+                producers.shutdownNow();
+                return;
+            }
+        }
+        check("submit() never hangs across close()", true);
+    }
+
+    private static void interruptedCommitter(Path dir) throws Exception {
+        TransactionPipeline p = new TransactionPipeline(new AccountLedger(10), dir.resolve("interrupt.journal"));
+        for (Thread t : Thread.getAllStackTraces().keySet()) {
+            if (t.getName().equals("transaction-committer")) t.interrupt();
+        }
+        Future<Boolean> submit = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r);
+            t.setDaemon(true);
+            return t;
+        }).submit(() -> {
+            TransactionPipeline.Batch b = new TransactionPipeline.Batch(1);
+            b.add(TransactionPipeline.Op.OPEN, -1, 0);
+            try {
+                p.submit(b);
+                return false;
+            } catch (IOException e) {
+                return true;
+            }
+        });
+        try {
+            check("submit() fails once the committer is interrupted", submit.get(10, TimeUnit.SECONDS));
+        } catch (TimeoutException e) {
+            check("submit() fails once the committer is interrupted", false);
+        }
+        p.close();
+    }
+
+    // Replays journal into a fresh ledger and compares every balance.
+    private static boolean same(AccountLedger ledger, Path journal) throws IOException {
+        AccountLedger replayed = new AccountLedger(ledger.capacity());
+        new TransactionPipeline(replayed, journal).close();
+        if (replayed.accounts() != ledger.accounts()) return false;
+        for (int a = 0; a < ledger.accounts(); a++) {
+            if (replayed.balance(a) != ledger.balance(a)) return false;
+        }
+        return true;
+    }
+
+    private static void append(Path file, byte[] bytes) throws IOException {
+        Files.write(file, bytes, StandardOpenOption.APPEND);
+    }
+
+    private static void flip(Path file, long at) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer one = ByteBuffer.allocate(1);
+            ch.read(one, at);
+            one.put(0, (byte) ~one.get(0)).rewind();
+            ch.write(one, at);
+        }
+    }
+
+    private static void check(String what, boolean ok) {
+        System.out.println((ok ? "ok    " : "FAIL  ") + what);
+        if (!ok) failures++;
+    }
+}
@@ -0,0 +1,344 @@
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Lock-free room inventory
+//
+// The hotel has floors x roomsPerFloor rooms and sells the nights from
+// firstNight for the next `nights` days. Each room keeps one bit per night
+// (set = booked), 64 nights to a long, plus one version long, so a year for
+// a room is 7 longs and 100,000 rooms fit in under 6 MB.
+//
+// A stay books nights checkIn .. checkOut-1 of one room. A stay inside one
+// word is claimed with a single compare-and-set, and only if none of its
+// bits is set already. A longer stay first marks its room by making the
+// room's version odd, then sets its words lowest first; if a later word
+// clashes the words already taken are given back and the booking fails.
+// The version goes even again when it is done, so while it is odd some bits
+// of the room may belong to a stay that is not decided yet.
+//
+// Readers take the version before and after looking and look again if it
+// was odd or moved, so they never see half a stay. A claim that clashes
+// with a bit while the room is marked waits for the mark to go and looks
+// again, so it only fails on nights that really are booked. Marked claims
+// of one room take turns; a night is never sold twice.
+//
+// A successful booking hands back a Booking, and a stay is cancelled with
+// that handle only: the bits alone cannot tell one stay from the next, so
+// cancelling by room and dates could give back nights someone else holds.
+//
+// Floors and rooms are numbered from 1, as on the hotel doors.
+public class RoomInventory {
+
+    // One booked stay: nights from .. to-1 of a room. Cancels at most once.
+    public static final class Booking {
+        private final RoomInventory inventory;
+        private final int floor;
+        private final int room;
+        private final int from;
+        private final int to;
+        private final AtomicBoolean active = new AtomicBoolean(true);
+
+        private Booking(RoomInventory inventory, int floor, int room, int from, int to) {
+            this.inventory = inventory;
+            this.floor = floor;
+            this.room = room;
+            this.from = from;
+            this.to = to;
+        }
+
+        public int floor() {
+            return floor;
+        }
+
+        public int room() {
+            return room;
+        }
+
+        public int from() {
+            return from;
+        }
+
+        public int to() {
+            return to;
+        }
+
+        public LocalDate checkIn() {
+            return inventory.firstNight.plusDays(from);
+        }
+
+        public LocalDate checkOut() {
+            return inventory.firstNight.plusDays(to);
+        }
+
+        public boolean isActive() {
+            return active.get();
+        }
+
+        @Override
+        public String toString() {
+            return "room " + room + " on floor " + floor + ", " + checkIn() + " to " + checkOut();
+        }
+    }
+
+    private final int floors;
+    private final int roomsPerFloor;
+    private final LocalDate firstNight;
+    private final int nights;
+    private final int words;                 // longs per room
+    private final AtomicLongArray booked;    // room r uses booked[r * words .. r * words + words - 1]
+    private final AtomicLongArray versions;  // per room; odd while a longer stay is claimed or given back
+
+    public RoomInventory(int floors, int roomsPerFloor, LocalDate firstNight, int nights) {
+        if (floors <= 0 || roomsPerFloor <= 0) throw new IllegalArgumentException("Need at least one floor and one room per floor.");
+        if (nights <= 0) throw new IllegalArgumentException("Need at least one night.");
+        if ((long) floors * roomsPerFloor * ((nights + 63) / 64) > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many rooms and nights for one inventory.");
+        }
+        this.floors = floors;
+        this.roomsPerFloor = roomsPerFloor;
+        this.firstNight = firstNight;
+        this.nights = nights;
+        this.words = (nights + 63) >>> 6;
+        this.booked = new AtomicLongArray(floors * roomsPerFloor * words);
+        this.versions = new AtomicLongArray(floors * roomsPerFloor);
+    }
+
+    public int floors() {
+        return floors;
+    }
+
+    public int roomsPerFloor() {
+        return roomsPerFloor;
+    }
+
+    public LocalDate firstNight() {
+        return firstNight;
+    }
+
+    public int nights() {
+        return nights;
+    }
+
+    // Night number of a date: firstNight is 0.
+    public int night(LocalDate date) {
+        long n = ChronoUnit.DAYS.between(firstNight, date);
+        if (n < 0 || n > nights) {
+            throw new IllegalArgumentException(date + " is outside " + firstNight + " .. " + firstNight.plusDays(nights));
+        }
+        return (int) n;
+    }
+
+    // Method to book a room; returns null (changing nothing) if any night
+    // of the stay is already booked
+    public Booking book(int floor, int room, LocalDate checkIn, LocalDate checkOut) {
+        return book(floor, room, night(checkIn), night(checkOut));
+    }
+
+    public Booking book(int floor, int room, int from, int to) {
+        checkStay(from, to);
+        return claim(index(floor, room), from, to) ? new Booking(this, floor, room, from, to) : null;
+    }
+
+    // Method to book the lowest-numbered room on a floor that is free for
+    // the whole stay; returns null if the floor is full
+    public Booking bookFirstFree(int floor, LocalDate checkIn, LocalDate checkOut) {
+        return bookFirstFree(floor, night(checkIn), night(checkOut));
+    }
+
+    public Booking bookFirstFree(int floor, int from, int to) {
+        checkStay(from, to);
+        int first = index(floor, 1);
+        for (int room = 0; room < roomsPerFloor; room++) {
+            // someone may take it between the look and the claim; then move on
+            if (isFree(first + room, from, to) && claim(first + room, from, to)) {
+                return new Booking(this, floor, room + 1, from, to);
+            }
+        }
+        return null;
+    }
+
+    // Lowest-numbered room on a floor free for the whole stay, or -1
+    public int firstFree(int floor, LocalDate checkIn, LocalDate checkOut) {
+        return firstFree(floor, night(checkIn), night(checkOut));
+    }
+
+    public int firstFree(int floor, int from, int to) {
+        checkStay(from, to);
+        int first = index(floor, 1);
+        for (int room = 0; room < roomsPerFloor; room++) {
+            if (isFree(first + room, from, to)) return room + 1;
+        }
+        return -1;
+    }
+
+    public boolean isFree(int floor, int room, LocalDate checkIn, LocalDate checkOut) {
+        return isFree(floor, room, night(checkIn), night(checkOut));
+    }
+
+    public boolean isFree(int floor, int room, int from, int to) {
+        checkStay(from, to);
+        return isFree(index(floor, room), from, to);
+    }
+
+    public boolean isBooked(int floor, int room, int night) {
+        if (night < 0 || night >= nights) throw new IllegalArgumentException("No such night: " + night);
+        return !isFree(index(floor, room), night, night + 1);
+    }
+
+    // Method to cancel a booking; returns false (changing nothing) if it
+    // was cancelled already
+    public boolean cancel(Booking booking) {
+        if (booking.inventory != this) throw new IllegalArgumentException("Not a booking of this hotel.");
+        if (!booking.active.compareAndSet(true, false)) return false;
+        int r = index(booking.floor, booking.room);
+        int first = booking.from >>> 6;
+        int end = ((booking.to - 1) >>> 6) + 1;
+        if (end - first == 1) {
+            release(r * words, first, end, booking.from, booking.to);
+            return true;
+        }
+        mark(r);
+        try {
+            release(r * words, first, end, booking.from, booking.to);
+        } finally {
+            unmark(r);
+        }
+        return true;
+    }
+
+    // How many rooms on a floor are free on one night
+    public int freeRooms(int floor, int night) {
+        if (night < 0 || night >= nights) throw new IllegalArgumentException("No such night: " + night);
+        int first = index(floor, 1);
+        int free = 0;
+        for (int room = 0; room < roomsPerFloor; room++) {
+            if (isFree(first + room, night, night + 1)) free++;
+        }
+        return free;
+    }
+
+    // Booked room-nights in the whole hotel
+    public long bookedNights() {
+        long n = 0;
+        for (int r = 0; r < versions.length(); r++) {
+            while (true) {
+                long version = settled(r);
+                long room = 0;
+                for (int w = 0; w < words; w++) room += Long.bitCount(booked.get(r * words + w));
+                if (versions.get(r) == version) {
+                    n += room;
+                    break;
+                }
+            }
+        }
+        return n;
+    }
+
+    private boolean claim(int r, int from, int to) {
+        int base = r * words;
+        int first = from >>> 6;
+        int last = (to - 1) >>> 6;
+        if (first == last) return claimWord(r, first, mask(first, from, to));
+        mark(r);
+        try {
+            for (int w = first; w <= last; w++) {
+                long mask = mask(w, from, to);
+                while (true) {
+                    long bits = booked.get(base + w);
+                    if ((bits & mask) != 0) {
+                        release(base, first, w, from, to);
+                        return false;
+                    }
+                    if (booked.compareAndSet(base + w, bits, bits | mask)) break;
+                }
+            }
+            return true;
+        } finally {
+            unmark(r);
+        }
+    }
+
+    // A clash only counts if the room was not marked while we looked;
+    // otherwise the bit may belong to a longer stay that is given back.
+    private boolean claimWord(int r, int w, long mask) {
+        int i = r * words + w;
+        while (true) {
+            long version = versions.get(r);
+            long bits = booked.get(i);
+            if ((bits & mask) == 0) {
+                if (booked.compareAndSet(i, bits, bits | mask)) return true;
+            } else if ((version & 1) == 0 && versions.get(r) == version) {
+                return false;
+            } else {
+                settled(r);
+            }
+        }
+    }
+
+    // Marks room r for a claim or release that spans words; waits for any
+    // other such claim of the room to finish first.
+    private void mark(int r) {
+        while (true) {
+            long version = versions.get(r);
+            if ((version & 1) == 0 && versions.compareAndSet(r, version, version + 1)) return;
+            Thread.onSpinWait();
+        }
+    }
+
+    private void unmark(int r) {
+        versions.incrementAndGet(r);
+    }
+
+    // Waits until room r is not marked and returns its version
+    private long settled(int r) {
+        while (true) {
+            long version = versions.get(r);
+            if ((version & 1) == 0) return version;
+            Thread.onSpinWait();
+        }
+    }
+
+    // Clears the stay's bits in words first .. end-1
+    private void release(int base, int first, int end, int from, int to) {
+        for (int w = first; w < end; w++) {
+            long mask = mask(w, from, to);
+            while (true) {
+                long bits = booked.get(base + w);
+                if (booked.compareAndSet(base + w, bits, bits & ~mask)) break;
+            }
+        }
+    }
+
+    private boolean isFree(int r, int from, int to) {
+        int base = r * words;
+        while (true) {
+            long version = settled(r);
+            boolean free = true;
+            for (int w = from >>> 6; free && w <= (to - 1) >>> 6; w++) {
+                free = (booked.get(base + w) & mask(w, from, to)) == 0;
+            }
+            if (versions.get(r) == version) return free;
+        }
+    }
+
+    // Bits of word w that fall inside nights from .. to-1
+    private static long mask(int w, int from, int to) {
+        int lo = Math.max(from - (w << 6), 0);
+        int hi = Math.min(to - (w << 6), 64);
+        long upTo = hi == 64 ? -1L : (1L << hi) - 1;
+        return upTo & (-1L << lo);
+    }
+
+    private int index(int floor, int room) {
+        if (floor < 1 || floor > floors) throw new IllegalArgumentException("No such floor: " + floor);
+        if (room < 1 || room > roomsPerFloor) throw new IllegalArgumentException("No such room: " + room);
+        return (floor - 1) * roomsPerFloor + (room - 1);
+    }
+
+    private void checkStay(int from, int to) {
+        if (from < 0 || to > nights) throw new IllegalArgumentException("Stay is outside the booking calendar.");
+        if (from >= to) throw new IllegalArgumentException("Check-out must be after check-in.");
+    }
+}
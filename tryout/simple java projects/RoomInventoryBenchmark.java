@@ -0,0 +1,171 @@
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Room inventory stress test: many threads booking one hotel at once
+//
+// 100,000 rooms (1000 floors x 100) over 365 nights by default. Each thread
+// books random stays of 1-14 nights: half on a named room, half as "first
+// free room on floor N", and a fifth of everything on the first ten floors
+// so that threads really fight over the same rooms. Some of its own bookings
+// it cancels again. Every thread keeps a list of the stays it still holds.
+//
+// At the end every room-night held by a thread must be booked exactly once
+// (no double booking) and every booked bit must belong to a held stay
+// (nothing lost, nothing left behind by a failed claim).
+//
+// Usage: java RoomInventoryBenchmark [floors] [roomsPerFloor] [nights] [threads] [opsPerThread]
+public class RoomInventoryBenchmark {
+    public static void main(String[] args) throws InterruptedException {
+        int floors = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int roomsPerFloor = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int nights = args.length > 2 ? Integer.parseInt(args[2]) : 365;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        int ops = args.length > 4 ? Integer.parseInt(args[4]) : 2_000_000;
+
+        RoomInventory inventory = new RoomInventory(floors, roomsPerFloor, LocalDate.of(2025, 1, 1), nights);
+        int hotFloors = Math.min(10, floors);
+        List<List<RoomInventory.Booking>> held = new ArrayList<>();   // per thread
+        for (int t = 0; t < threads; t++) held.add(null);
+        AtomicLong booked = new AtomicLong();
+        AtomicLong refused = new AtomicLong();
+        AtomicLong cancelled = new AtomicLong();
+
+        Thread[] workers = new Thread[threads];
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            int me = t;
+            workers[t] = new Thread(() -> {
+                Random rnd = new Random(me);
+                List<RoomInventory.Booking> mine = new ArrayList<>();
+                long ok = 0, no = 0, undone = 0;
+                for (int i = 0; i < ops; i++) {
+                    int floor = 1 + (rnd.nextInt(5) == 0 ? rnd.nextInt(hotFloors) : rnd.nextInt(floors));
+                    int length = 1 + rnd.nextInt(Math.min(14, nights));
+                    int from = rnd.nextInt(nights - length + 1);
+                    int to = from + length;
+
+                    if (!mine.isEmpty() && rnd.nextInt(10) == 0) {
+                        // give back one of our stays
+                        int k = rnd.nextInt(mine.size());
+                        RoomInventory.Booking stay = mine.get(k);
+                        if (!inventory.cancel(stay)) throw new IllegalStateException("Lost a booking: " + stay);
+                        mine.set(k, mine.get(mine.size() - 1));
+                        mine.remove(mine.size() - 1);
+                        undone++;
+                        continue;
+                    }
+
+                    RoomInventory.Booking stay = rnd.nextBoolean()
+                            ? inventory.book(floor, 1 + rnd.nextInt(roomsPerFloor), from, to)
+                            : inventory.bookFirstFree(floor, from, to);
+                    if (stay == null) {
+                        no++;
+                        continue;
+                    }
+                    ok++;
+                    mine.add(stay);
+                }
+                held.set(me, mine);
+                booked.addAndGet(ok);
+                refused.addAndGet(no);
+                cancelled.addAndGet(undone);
+            });
+            workers[t].start();
+        }
+        for (Thread w : workers) w.join();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long total = (long) threads * ops;
+        System.out.printf("%,d rooms x %d nights, %d threads: %,d operations in %.2f s = %,.0f ops/s%n",
+                (long) floors * roomsPerFloor, nights, threads, total, seconds, total / seconds);
+        System.out.printf("   %,d booked, %,d refused, %,d cancelled%n", booked.get(), refused.get(), cancelled.get());
+
+        // Count every held room-night; each must be held once and be booked.
+        byte[] count = new byte[floors * roomsPerFloor * nights];
+        long heldNights = 0;
+        boolean ok = true;
+        for (List<RoomInventory.Booking> mine : held) {
+            for (RoomInventory.Booking stay : mine) {
+                int room = (stay.floor() - 1) * roomsPerFloor + stay.room() - 1;
+                for (int night = stay.from(); night < stay.to(); night++) {
+                    int cell = room * nights + night;
+                    if (count[cell]++ != 0) {
+                        System.out.println("DOUBLE BOOKED: room " + room + " night " + night);
+                        ok = false;
+                    }
+                    heldNights++;
+                }
+            }
+        }
+        long bookedNights = inventory.bookedNights();
+        System.out.printf("   %,d room-nights held by threads, %,d booked in the inventory%n", heldNights, bookedNights);
+        ok &= heldNights == bookedNights;
+        for (int room = 0; ok && room < floors * roomsPerFloor; room++) {
+            for (int night = 0; night < nights; night++) {
+                boolean isBooked = inventory.isBooked(1 + room / roomsPerFloor, 1 + room % roomsPerFloor, night);
+                if (isBooked != (count[room * nights + night] == 1)) {
+                    System.out.println("MISMATCH: room " + room + " night " + night);
+                    ok = false;
+                    break;
+                }
+            }
+        }
+        System.out.println(ok ? "No double bookings; inventory matches the bookings held." : "INVENTORY BROKEN!");
+
+        // A handle gives back its own nights once, never the stay next to it.
+        RoomInventory small = new RoomInventory(1, 1, LocalDate.of(2025, 1, 1), 10);
+        RoomInventory.Booking first = small.book(1, 1, 0, 3);
+        RoomInventory.Booking second = small.book(1, 1, 3, 6);
+        boolean handles = small.cancel(first) && !small.cancel(first) && small.bookedNights() == 3
+                && !small.isBooked(1, 1, 2) && small.isBooked(1, 1, 3) && second.isActive() && !first.isActive();
+        System.out.println(handles ? "Bookings cancel once, by handle." : "CANCEL BROKEN!");
+        ok &= handles;
+
+        // Night 65 stays booked, so a claim of nights 60-69 always fails, but
+        // only after taking nights 60-63 in the word before. Nobody else may
+        // see those: a reader never counts them and a booking of night 61
+        // alone never fails on them.
+        RoomInventory one = new RoomInventory(1, 1, LocalDate.of(2025, 1, 1), 128);
+        one.book(1, 1, 65, 66);
+        AtomicLong torn = new AtomicLong();
+        AtomicLong spurious = new AtomicLong();
+        Thread doomed = new Thread(() -> {
+            for (int i = 0; i < 500_000; i++) {
+                if (one.book(1, 1, 60, 70) != null) throw new IllegalStateException("Booked over night 65");
+            }
+        });
+        Thread single = new Thread(() -> {
+            for (int i = 0; i < 500_000; i++) {
+                RoomInventory.Booking stay = one.book(1, 1, 61, 62);
+                if (stay == null) spurious.incrementAndGet();
+                else one.cancel(stay);
+                if (one.bookedNights() > 2) torn.incrementAndGet();
+            }
+        });
+        doomed.start();
+        single.start();
+        doomed.join();
+        single.join();
+        boolean whole = torn.get() == 0 && spurious.get() == 0;
+        System.out.printf(whole ? "Failed long claims are never seen.%n"
+                : "HALF CLAIMS SEEN: %,d reads counted them, %,d bookings refused for them%n", torn.get(), spurious.get());
+        ok &= whole;
+
+        // Searches on a busy hotel: first free room for a random week
+        Random rnd = new Random(42);
+        int found = 0;
+        int queries = 1_000_000;
+        start = System.nanoTime();
+        for (int i = 0; i < queries; i++) {
+            int length = Math.min(7, nights);
+            int from = rnd.nextInt(nights - length + 1);
+            if (inventory.firstFree(1 + rnd.nextInt(floors), from, from + length) > 0) found++;
+        }
+        seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("first free room: %,d searches in %.2f s = %,.0f per second (%,d found a room)%n",
+                queries, seconds, queries / seconds, found);
+        if (!ok) System.exit(1);
+    }
+}
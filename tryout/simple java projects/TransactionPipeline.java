@@ -0,0 +1,547 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+
+// Batched transaction pipeline with a durable journal
+//
+// Requests (open an account, deposit, withdraw, balance query) are applied to
+// an AccountLedger a batch at a time. Nothing on the way throws: every
+// request gets a Status, and a bad one costs no more than a good one.
+//
+// After a batch is applied, every change it made is appended to the journal
+// in one write and made durable with one force() -- a group commit -- and
+// only then does the caller get the results. When several producers submit
+// at once, the batches waiting in the queue are committed together, so the
+// disk is forced once for all of them. Opening a pipeline on an existing
+// journal replays it first, group by group, which rebuilds every account. A
+// last group torn by a crash (cut short, or failing its checksum) is cut off;
+// a bad group anywhere else stops the replay with an IOException, since
+// committed transactions follow it. The header carries its own checksum, so
+// a damaged count cannot pass for a group running off the end of the file.
+//
+// Journal: per group of batches
+//     int MAGIC, int count, int headerCrc, count x (byte op, int account, long paise), int crc
+// where headerCrc is the CRC32 of MAGIC and count, and crc the CRC32 of
+// everything before it in the group.
+//
+// Usage: java TransactionPipeline <journal> <requests file> <results file>
+//     Request lines:  O,<amount>   D,<account>,<amount>   W,<account>,<amount>   B,<account>
+//     Result lines:   <status>,<account>,<balance>
+public class TransactionPipeline implements Closeable {
+
+    public enum Op { OPEN, DEPOSIT, WITHDRAW, BALANCE }
+
+    public enum Status { OK, INSUFFICIENT_FUNDS, INVALID_AMOUNT, NO_SUCH_ACCOUNT, LIMIT_REACHED, MALFORMED }
+
+    private static final int MAGIC = 0x41544D4A;        // "ATMJ"
+    private static final int HEADER_BYTES = 12;
+    private static final int ENTRY_BYTES = 13;
+    private static final int MAX_GROUP = 64;            // batches committed together
+    private static final int REPLAY_BUFFER = 1 << 20;   // groups larger than this are read in pieces
+
+    // A reusable batch of requests and, once processed, their results. Held
+    // in parallel arrays so a batch of any size is a handful of objects.
+    public static class Batch {
+        private Op[] ops;
+        private int[] accounts;
+        private long[] amounts;
+        private Status[] statuses;
+        private long[] balances;
+        private int size;
+        private CountDownLatch done;
+        private IOException failure;
+
+        public Batch(int capacity) {
+            ops = new Op[capacity];
+            accounts = new int[capacity];
+            amounts = new long[capacity];
+            statuses = new Status[capacity];
+            balances = new long[capacity];
+        }
+
+        // amount in paise; ignored for BALANCE, account ignored for OPEN
+        public void add(Op op, int account, long amount) {
+            if (size == ops.length) grow();
+            ops[size] = op;
+            accounts[size] = account;
+            amounts[size] = amount;
+            statuses[size] = null;
+            balances[size] = 0;                 // rejected requests report 0, not a reused slot's value
+            size++;
+        }
+
+        // A request that could not be read; it is answered MALFORMED.
+        public void addMalformed() {
+            add(null, -1, 0);
+        }
+
+        public int size() { return size; }
+        public Status status(int i) { return statuses[i]; }
+        // The account's balance after the request (for OPEN, of the new account).
+        public long balance(int i) { return balances[i]; }
+        // The account the request was for; for OPEN, the new account's number.
+        public int account(int i) { return accounts[i]; }
+
+        public void clear() {
+            size = 0;
+        }
+
+        private void grow() {
+            int n = ops.length * 2;
+            ops = java.util.Arrays.copyOf(ops, n);
+            accounts = java.util.Arrays.copyOf(accounts, n);
+            amounts = java.util.Arrays.copyOf(amounts, n);
+            statuses = java.util.Arrays.copyOf(statuses, n);
+            balances = java.util.Arrays.copyOf(balances, n);
+        }
+    }
+
+    private final AccountLedger ledger;
+    private final FileChannel journal;
+    private final CRC32 crc = new CRC32();
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+    private final BlockingQueue<Batch> queue = new ArrayBlockingQueue<>(1024);
+    private final Thread committer;
+    private volatile boolean closed;
+    private final AtomicInteger submitting = new AtomicInteger();   // submit() calls between the closed check and put()
+    private IOException broken;                          // set once a commit failed
+    private long commits;                                // journal writes, one per group
+
+    // Opens (or creates) the journal and replays it into ledger, which should
+    // be empty. submit() is served by a background committer thread.
+    public TransactionPipeline(AccountLedger ledger, Path journalFile) throws IOException {
+        this.ledger = ledger;
+        this.journal = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            replay();
+        } catch (IOException e) {
+            journal.close();
+            throw e;
+        }
+        committer = new Thread(this::commitLoop, "transaction-committer");
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    // Applies batch and commits it before returning. For one producer; more
+    // than one should use submit().
+    public synchronized void process(Batch batch) throws IOException {
+        if (broken != null) throw new IOException("Journal failed earlier; pipeline stopped", broken);
+        buffer.clear();
+        buffer.putInt(MAGIC).putInt(0).putInt(0);
+        int count = apply(batch);
+        commit(count);
+    }
+
+    // Queues batch for the committer thread and waits until it is applied
+    // and durable. Batches queued meanwhile share one commit.
+    //
+    // submitting is raised before closed is checked and lowered only after
+    // put(), so once the committer has seen closed and then submitting == 0,
+    // every batch that got past the check is already in the queue, and every
+    // later submit() sees closed.
+    public void submit(Batch batch) throws IOException, InterruptedException {
+        batch.done = new CountDownLatch(1);
+        batch.failure = null;
+        submitting.incrementAndGet();
+        try {
+            if (closed) throw new IOException("Pipeline is closed");
+            queue.put(batch);
+        } finally {
+            submitting.decrementAndGet();
+        }
+        batch.done.await();
+        if (batch.failure != null) throw batch.failure;
+    }
+
+    private void commitLoop() {
+        List<Batch> group = new ArrayList<>(MAX_GROUP);
+        try {
+            while (!(closed && submitting.get() == 0 && queue.isEmpty())) {
+                Batch first = queue.poll(50, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                group.add(first);
+                queue.drainTo(group, MAX_GROUP - 1);
+                IOException failure = null;
+                synchronized (this) {
+                    try {
+                        if (broken != null) throw new IOException("Journal failed earlier; pipeline stopped", broken);
+                        buffer.clear();
+                        buffer.putInt(MAGIC).putInt(0).putInt(0);
+                        int count = 0;
+                        for (Batch b : group) count += apply(b);
+                        commit(count);
+                    } catch (IOException e) {
+                        failure = e;
+                    }
+                }
+                for (Batch b : group) {
+                    b.failure = failure;
+                    b.done.countDown();
+                }
+                group.clear();
+            }
+        } catch (InterruptedException e) {
+            closed = true;
+        }
+        // After close() the queue is already empty. When interrupted, fail
+        // whatever is still queued or on its way in, so no submitter waits
+        // forever.
+        IOException stopped = new IOException("Pipeline is closed");
+        while (true) {
+            boolean idle = submitting.get() == 0;
+            for (Batch b; (b = queue.poll()) != null; ) {
+                b.failure = stopped;
+                b.done.countDown();
+            }
+            if (idle) return;
+            Thread.yield();
+        }
+    }
+
+    // How many group commits there have been.
+    public synchronized long getCommits() {
+        return commits;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        try {
+            committer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        journal.close();
+    }
+
+    // =============================
+    // Applying
+    // =============================
+
+    // Applies every request of batch and appends the changes it made to
+    // buffer; returns how many. Caller holds the monitor.
+    private int apply(Batch b) {
+        int changes = 0;
+        for (int i = 0; i < b.size; i++) {
+            Status s = applyOne(b, i);
+            b.statuses[i] = s;
+            if (s == Status.OK && b.ops[i] != Op.BALANCE) {
+                entry(b.ops[i], b.accounts[i], b.amounts[i]);
+                changes++;
+            }
+        }
+        return changes;
+    }
+
+    private Status applyOne(Batch b, int i) {
+        Op op = b.ops[i];
+        int account = b.accounts[i];
+        long amount = b.amounts[i];
+        if (op == null) return Status.MALFORMED;
+        if (op == Op.OPEN) {
+            if (amount < 0) return Status.INVALID_AMOUNT;
+            if (ledger.accounts() >= ledger.capacity()) return Status.LIMIT_REACHED;
+            b.accounts[i] = ledger.open(amount);
+            b.balances[i] = amount;
+            return Status.OK;
+        }
+        if (!ledger.exists(account)) return Status.NO_SUCH_ACCOUNT;
+        Status s = Status.OK;
+        if (op == Op.DEPOSIT) {
+            if (amount <= 0) s = Status.INVALID_AMOUNT;
+            else if (!ledger.deposit(account, amount)) s = Status.LIMIT_REACHED;
+        } else if (op == Op.WITHDRAW) {
+            if (amount <= 0) s = Status.INVALID_AMOUNT;
+            else if (!ledger.withdraw(account, amount)) s = Status.INSUFFICIENT_FUNDS;
+        }
+        b.balances[i] = ledger.balance(account);
+        return s;
+    }
+
+    private void entry(Op op, int account, long paise) {
+        if (buffer.remaining() < ENTRY_BYTES + 4) {
+            ByteBuffer bigger = ByteBuffer.allocateDirect(buffer.capacity() * 2);
+            buffer.flip();
+            bigger.put(buffer);
+            buffer = bigger;
+        }
+        buffer.put((byte) op.ordinal()).putInt(account).putLong(paise);
+    }
+
+    // One write and one force for everything in buffer. Caller holds the
+    // monitor. A group with no changes (only queries and rejects) costs no I/O.
+    private void commit(int count) throws IOException {
+        commits++;
+        if (count == 0) return;
+        buffer.putInt(4, count);
+        crc.reset();
+        crc.update(buffer.duplicate().position(0).limit(8));
+        buffer.putInt(8, (int) crc.getValue());
+        crc.reset();
+        buffer.flip();
+        crc.update(buffer.duplicate());
+        buffer.limit(buffer.limit() + 4);
+        buffer.putInt(buffer.limit() - 4, (int) crc.getValue());
+        try {
+            while (buffer.hasRemaining()) journal.write(buffer);
+            journal.force(false);
+        } catch (IOException e) {
+            // The ledger already holds changes the journal may not; stop
+            // rather than let the two drift further apart.
+            broken = e;
+            throw e;
+        }
+    }
+
+    // =============================
+    // Replay
+    // =============================
+
+    // Reads the journal one group at a time through a bounded buffer, so a
+    // journal of any size replays in constant memory.
+    private void replay() throws IOException {
+        long size = journal.size();
+        ByteBuffer in = ByteBuffer.allocate(REPLAY_BUFFER);
+        CRC32 check = new CRC32();
+        long pos = 0;
+        while (pos < size) {
+            long left = size - pos;
+            if (left < HEADER_BYTES) {                       // torn inside the last header
+                journal.truncate(pos);
+                break;
+            }
+            read(in, pos, HEADER_BYTES);
+            int magic = in.getInt();
+            int count = in.getInt();
+            check.reset();
+            check.update(in.array(), 0, 8);
+            if (magic != MAGIC || count <= 0 || in.getInt() != (int) check.getValue()) {
+                // A crash can leave the file longer than what was written, zero-filled.
+                if (zeros(in, pos, size)) {
+                    journal.truncate(pos);
+                    break;
+                }
+                throw new IOException("Journal is corrupt at byte " + pos + ": not a group header");
+            }
+            // The header is sound, so a group running past the end really is
+            // the last one, cut short.
+            long length = HEADER_BYTES + (long) count * ENTRY_BYTES + 4;
+            if (length > left) {
+                journal.truncate(pos);
+                break;
+            }
+            if (!checksum(in, check, pos, length)) {
+                if (pos + length == size) {                  // last group torn
+                    journal.truncate(pos);
+                    break;
+                }
+                throw new IOException("Journal is corrupt at byte " + pos + ": group fails its checksum");
+            }
+            replayEntries(in, pos + HEADER_BYTES, count);
+            pos += length;
+        }
+        journal.position(pos);
+    }
+
+    // True if the CRC stored at the end of the group at pos matches. Leaves
+    // the whole group in `in` when it fits.
+    private boolean checksum(ByteBuffer in, CRC32 check, long pos, long length) throws IOException {
+        check.reset();
+        if (length <= in.capacity()) {
+            read(in, pos, (int) length);
+            check.update(in.array(), 0, (int) length - 4);
+            return in.getInt((int) length - 4) == (int) check.getValue();
+        }
+        long end = pos + length - 4;
+        for (long p = pos; p < end; ) {
+            int n = (int) Math.min(in.capacity(), end - p);
+            read(in, p, n);
+            check.update(in);
+            p += n;
+        }
+        read(in, end, 4);
+        return in.getInt() == (int) check.getValue();
+    }
+
+    private void replayEntries(ByteBuffer in, long from, int count) throws IOException {
+        int perRead = in.capacity() / ENTRY_BYTES;
+        boolean loaded = HEADER_BYTES + (long) count * ENTRY_BYTES + 4 <= in.capacity();   // still in `in` from checksum()
+        if (loaded) in.position(HEADER_BYTES);
+        for (int done = 0; done < count; ) {
+            int n = Math.min(count - done, perRead);
+            if (!loaded) read(in, from + (long) done * ENTRY_BYTES, n * ENTRY_BYTES);
+            for (int i = 0; i < n; i++) {
+                int op = in.get();
+                int account = in.getInt();
+                long paise = in.getLong();
+                if (!replayOne(op, account, paise)) {
+                    throw new IOException("Journal does not match the ledger at byte " + (from + (long) (done + i) * ENTRY_BYTES));
+                }
+            }
+            done += n;
+        }
+    }
+
+    // Fills in with the n bytes at pos and flips it for reading.
+    private void read(ByteBuffer in, long pos, int n) throws IOException {
+        in.clear().limit(n);
+        while (in.hasRemaining()) {
+            if (journal.read(in, pos + in.position()) < 0) throw new EOFException("Journal ended at byte " + (pos + in.position()));
+        }
+        in.flip();
+    }
+
+    private boolean zeros(ByteBuffer in, long pos, long size) throws IOException {
+        for (long p = pos; p < size; ) {
+            int n = (int) Math.min(in.capacity(), size - p);
+            read(in, p, n);
+            for (int i = 0; i < n; i++) {
+                if (in.get(i) != 0) return false;
+            }
+            p += n;
+        }
+        return true;
+    }
+
+    private boolean replayOne(int op, int account, long paise) {
+        if (op == Op.OPEN.ordinal()) return ledger.accounts() < ledger.capacity() && ledger.open(paise) == account;
+        if (!ledger.exists(account) || paise <= 0) return false;
+        if (op == Op.DEPOSIT.ordinal()) return ledger.deposit(account, paise);
+        if (op == Op.WITHDRAW.ordinal()) return ledger.withdraw(account, paise);
+        return false;
+    }
+
+    // =============================
+    // Request files
+    // =============================
+
+    // Reads requests, processes them batchSize at a time and writes one result
+    // line per request. Returns how many requests there were.
+    public long processFile(Path requests, Path results, int batchSize) throws IOException {
+        Batch batch = new Batch(batchSize);
+        StringBuilder line = new StringBuilder();
+        long total = 0;
+        try (BufferedReader r = Files.newBufferedReader(requests, StandardCharsets.UTF_8);
+             BufferedWriter w = Files.newBufferedWriter(results, StandardCharsets.UTF_8)) {
+            String s;
+            while ((s = r.readLine()) != null) {
+                if (s.isEmpty()) continue;
+                parse(s, batch);
+                if (batch.size() == batchSize) {
+                    total += flush(batch, w, line);
+                }
+            }
+            total += flush(batch, w, line);
+        }
+        return total;
+    }
+
+    private int flush(Batch batch, BufferedWriter w, StringBuilder line) throws IOException {
+        int n = batch.size();
+        if (n == 0) return 0;
+        process(batch);
+        for (int i = 0; i < n; i++) {
+            line.setLength(0);
+            line.append(batch.status(i)).append(',').append(batch.account(i)).append(',')
+                    .append(AccountLedger.format(batch.balance(i)));
+            w.append(line);
+            w.newLine();
+        }
+        batch.clear();
+        return n;
+    }
+
+    // Parses one request line into batch, without exceptions: anything that
+    // does not read is added as MALFORMED.
+    static void parse(String s, Batch batch) {
+        int comma = s.indexOf(',');
+        if (comma != 1) {
+            batch.addMalformed();
+            return;
+        }
+        char kind = s.charAt(0);
+        if (kind == 'O') {
+            long paise = parsePaise(s, 2, s.length());
+            if (paise == Long.MIN_VALUE) batch.addMalformed(); else batch.add(Op.OPEN, -1, paise);
+            return;
+        }
+        int second = s.indexOf(',', 2);
+        int end = second < 0 ? s.length() : second;
+        long account = parseDigits(s, 2, end);
+        if (account < 0 || account > Integer.MAX_VALUE) {
+            batch.addMalformed();
+            return;
+        }
+        if (kind == 'B' && second < 0) {
+            batch.add(Op.BALANCE, (int) account, 0);
+            return;
+        }
+        if ((kind == 'D' || kind == 'W') && second > 0) {
+            long paise = parsePaise(s, second + 1, s.length());
+            if (paise == Long.MIN_VALUE) batch.addMalformed();
+            else batch.add(kind == 'D' ? Op.DEPOSIT : Op.WITHDRAW, (int) account, paise);
+            return;
+        }
+        batch.addMalformed();
+    }
+
+    // Non-negative integer in s[from, to); -1 if it is not one.
+    private static long parseDigits(String s, int from, int to) {
+        if (from >= to || to - from > 18) return -1;
+        long v = 0;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            v = v * 10 + (c - '0');
+        }
+        return v;
+    }
+
+    // "12", "12.5" or "-12.50" rupees in s[from, to) as paise; Long.MIN_VALUE
+    // if it is not an amount. Zero and negative amounts parse, and are then
+    // answered INVALID_AMOUNT.
+    private static long parsePaise(String s, int from, int to) {
+        boolean negative = from < to && s.charAt(from) == '-';
+        if (negative) from++;
+        int dot = s.indexOf('.', from);
+        if (dot >= to) dot = -1;
+        long rupees = parseDigits(s, from, dot < 0 ? to : dot);
+        if (rupees < 0 || rupees > Long.MAX_VALUE / 100 - 1) return Long.MIN_VALUE;
+        long paise = 0;
+        if (dot >= 0) {
+            int digits = to - dot - 1;
+            if (digits < 1 || digits > 2) return Long.MIN_VALUE;
+            paise = parseDigits(s, dot + 1, to);
+            if (paise < 0) return Long.MIN_VALUE;
+            if (digits == 1) paise *= 10;
+        }
+        long v = rupees * 100 + paise;
+        return negative ? -v : v;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            System.out.println("Usage: java TransactionPipeline <journal> <requests file> <results file>");
+            return;
+        }
+        AccountLedger ledger = new AccountLedger(10_000_000);
+        long start = System.nanoTime();
+        try (TransactionPipeline pipeline = new TransactionPipeline(ledger, Paths.get(args[0]))) {
+            System.out.printf("Replayed journal: %,d accounts in %.2f s%n", ledger.accounts(), (System.nanoTime() - start) / 1e9);
+            start = System.nanoTime();
+            long n = pipeline.processFile(Paths.get(args[1]), Paths.get(args[2]), 4096);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("Processed %,d requests in %.2f s (%,.0f per second); results in %s%n",
+                    n, seconds, n / seconds, args[2]);
+        }
+    }
+}
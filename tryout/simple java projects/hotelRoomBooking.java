@@ -1,59 +1,108 @@
 
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Scanner ;
 class hotelRoomBooking{
     public static void main(String args[]){
         int floor=5;
         int roomsPerFloor=3;
-        char [][]Array = new char[floor][roomsPerFloor];
+        // rooms can be booked for any night of the coming year
+        RoomInventory rooms = new RoomInventory(floor, roomsPerFloor, LocalDate.now(), 365);
+        // bookings made in this session, by the reference given out for them
+        Map<Integer, RoomInventory.Booking> bookings = new HashMap<>();
+        int nextReference = 1;
         Scanner scan = new Scanner(System.in);
         int choice ;
-        for (int i = 0; i<floor; i++) {
-            for (int j = 0; j < roomsPerFloor; j++) {
-                Array[i][j]='A';
-            }
-        }
         do{
             System.out.println("1.Room status ");
             System.out.println("2.Book room ");
-            System.out.println("3. Exit. ");
+            System.out.println("3.Book first free room on a floor ");
+            System.out.println("4.Cancel booking ");
+            System.out.println("5. Exit. ");
             System.out.println("Enter your choice ");
             choice = scan.nextInt();
-            switch (choice) {
-                case 1:{
-                    for (int i = floor-1; i>=0; i--) {
-                        for (int j = roomsPerFloor-1; j >=0 ; j--) {
-                            System.out.print(Array[i][j]+ " ");
+            try {
+                switch (choice) {
+                    case 1:{
+                        System.out.println("Enter date (yyyy-mm-dd) ");
+                        int night = rooms.night(LocalDate.parse(scan.next()));
+                        for (int i = floor; i>=1; i--) {
+                            for (int j = roomsPerFloor; j >=1 ; j--) {
+                                System.out.print((rooms.isBooked(i, j, night) ? 'B' : 'A')+ " ");
+                            }
+                        System.out.println(" ");
                         }
-                    System.out.println(" ");
                     }
-                } 
-                break;
-                case 2 : {
-                    System.out.println("Enter floor Number ");
-                    int yourFloor= scan.nextInt();
-                    System.out.println("Enter room Number ");
-                    int yourRoom= scan.nextInt();
-                    if (Array[yourFloor-1][ yourRoom-1]=='B') {
-                        System.out.println("Room is Already booked");                        
+                    break;
+                    case 2 : {
+                        System.out.println("Enter floor Number ");
+                        int yourFloor= scan.nextInt();
+                        System.out.println("Enter room Number ");
+                        int yourRoom= scan.nextInt();
+                        LocalDate[] stay = readStay(scan);
+                        RoomInventory.Booking booking = rooms.book(yourFloor, yourRoom, stay[0], stay[1]);
+                        if (booking != null) {
+                            bookings.put(nextReference, booking);
+                            System.out.println("Your Room is Booked, booking reference " + nextReference++);
+                        }
+                        else {
+                            System.out.println("Room is Already booked");
+                        }
                     }
-                    else {
-                        Array[yourFloor-1][ yourRoom-1]= 'B';
-                        System.out.println("Your Room is Booked");
+                    break ;
+                    case 3 : {
+                        System.out.println("Enter floor Number ");
+                        int yourFloor= scan.nextInt();
+                        LocalDate[] stay = readStay(scan);
+                        RoomInventory.Booking booking = rooms.bookFirstFree(yourFloor, stay[0], stay[1]);
+                        if (booking == null) {
+                            System.out.println("No room free on floor " + yourFloor + " for those dates");
+                        }
+                        else {
+                            bookings.put(nextReference, booking);
+                            System.out.println("Room " + booking.room() + " on floor " + yourFloor
+                                    + " is Booked, booking reference " + nextReference++);
+                        }
                     }
-                }
-                break ;
-                case 3 : {
-                    System.out.println("Exiting .....");
                     break ;
+                    case 4 : {
+                        System.out.println("Enter booking reference ");
+                        RoomInventory.Booking booking = bookings.remove(scan.nextInt());
+                        if (booking != null && rooms.cancel(booking)) {
+                            System.out.println("Booking cancelled: " + booking);
+                        }
+                        else {
+                            System.out.println("No such booking");
+                        }
+                    }
+                    break ;
+                    case 5 : {
+                        System.out.println("Exiting .....");
+                        break ;
+                    }
+
+
+
+                    default:
+                        System.out.println("invalid input ");
+                        break;
                 }
-                    
-                
-            
-                default:
-                    System.out.println("invalid input ");
-                    break;
+            } catch (IllegalArgumentException e) {
+                System.out.println(e.getMessage());
+            } catch (DateTimeParseException e) {
+                System.out.println("Dates look like 2025-03-31");
             }
-        }while(choice!=3);
+        }while(choice!=5);
+
+    }
 
+    static LocalDate[] readStay(Scanner scan){
+        System.out.println("Enter check-in date (yyyy-mm-dd) ");
+        LocalDate checkIn = LocalDate.parse(scan.next());
+        System.out.println("Enter check-out date (yyyy-mm-dd) ");
+        LocalDate checkOut = LocalDate.parse(scan.next());
+        return new LocalDate[] {checkIn, checkOut};
     }
-}
\ No newline at end of file
+}